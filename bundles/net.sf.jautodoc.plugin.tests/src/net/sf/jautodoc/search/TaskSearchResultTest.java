@@ -0,0 +1,122 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.search;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.search.ui.SearchResultEvent;
+import org.eclipse.search.ui.text.FilterUpdateEvent;
+import org.eclipse.search.ui.text.Match;
+import org.eclipse.search.ui.text.MatchFilter;
+import org.junit.Test;
+
+
+/**
+ * Checks the match index of the search result, while the matches are moved
+ * like by the position tracker of an editor.
+ */
+public class TaskSearchResultTest {
+    private final IJavaElement type = JavaCore.create("=Project/src<test{Test.java[Test");
+    private final TaskSearchResult result = new TaskSearchResult(null);
+
+
+    @Test
+    public void testRemoveMovedMatch() {
+        final TaskSearchMatch match = new TaskSearchMatch(type, 10, 5, FindingId.MISSING_JAVADOC, "Missing Javadoc");
+        result.addMatch(match);
+
+        match.setOffset(20);
+        match.setLength(7);
+        assertSame(match, result.findMatch(type, 20, 7));
+
+        result.removeMatch(match);
+        assertEquals(0, result.getFindingCount());
+        assertEquals(0, result.getKindCount(FindingId.MISSING_JAVADOC));
+        assertEquals(0, result.getMatchesOfKind(FindingId.MISSING_JAVADOC).length);
+        assertEquals(0, result.getElementsBelow(type.getAncestor(IJavaElement.COMPILATION_UNIT)).length);
+        assertNull(result.findMatch(type, 20, 7));
+        assertNull(result.findMatch(type, 10, 5));
+    }
+
+    @Test
+    public void testAddFindingsToMovedMatch() {
+        final TaskSearchMatch match = new TaskSearchMatch(type, 10, 5, FindingId.MISSING_PARAM, "Missing param tag");
+        result.addMatch(match);
+        match.setOffset(20);
+
+        result.addFindings(Arrays.asList(
+                new TaskSearchMatch(type, 20, 5, FindingId.MISSING_RETURN, "Missing return tag")));
+        assertEquals(2, match.getFindingCount());
+        assertEquals(2, result.getFindingCount());
+
+        result.removeMatch(match);
+        assertEquals(0, result.getFindingCount());
+        assertEquals(0, result.getKindCount(FindingId.MISSING_RETURN));
+    }
+
+    @Test
+    public void testMatchesMovedToSameRange() {
+        final TaskSearchMatch first = new TaskSearchMatch(type, 10, 5, FindingId.MISSING_PARAM, "Missing param tag");
+        final TaskSearchMatch second = new TaskSearchMatch(type, 30, 5, FindingId.MISSING_RETURN, "Missing return tag");
+        result.addMatches(new TaskSearchMatch[] { first, second });
+
+        second.setOffset(10);
+        result.addMatch(second); // added again, must not replace the first one
+        assertEquals(2, result.getFindingCount());
+
+        result.removeMatch(first);
+        assertEquals(1, result.getFindingCount());
+        assertEquals(1, result.getMatchesOfKind(FindingId.MISSING_RETURN).length);
+        assertEquals(0, result.getMatchesOfKind(FindingId.MISSING_PARAM).length);
+
+        result.removeMatch(second);
+        assertEquals(0, result.getFindingCount());
+        assertEquals(0, result.getElementsBelow(type).length);
+    }
+
+    @Test
+    public void testSetActiveMatchFilters() {
+        final MatchFilter[] lastUsed = TaskSearchMatchFilter.getLastUsedFilters();
+        final TaskSearchMatch param = new TaskSearchMatch(type, 10, 5, FindingId.MISSING_PARAM, "Missing param tag");
+        final TaskSearchMatch period = new TaskSearchMatch(type, 30, 5, FindingId.MISSING_PERIOD, "Missing period");
+        result.setActiveMatchFilters(TaskSearchMatchFilter.NO_FILTERS);
+        result.addMatches(new TaskSearchMatch[] { param, period });
+
+        final MatchFilter[] filters = { new TaskSearchMatchFilter(FindingId.MISSING_PARAM) };
+        final List<SearchResultEvent> events = new ArrayList<SearchResultEvent>();
+        final List<MatchFilter[]> activeFilters = new ArrayList<MatchFilter[]>();
+        result.addListener(e -> {
+            events.add(e);
+            activeFilters.add(result.getActiveMatchFilters());
+        });
+        try {
+            result.setActiveMatchFilters(filters);
+        } finally {
+            TaskSearchMatchFilter.setLastUsedFilters(lastUsed);
+        }
+
+        assertEquals(1, events.size());
+        assertTrue(events.get(0) instanceof FilterUpdateEvent);
+        assertArrayEquals(new Match[] { param }, ((FilterUpdateEvent) events.get(0)).getUpdatedMatches());
+        assertSame(filters, activeFilters.get(0));
+        assertTrue(param.isFiltered());
+        assertEquals(1, result.getFilteredFindingCount());
+    }
+}
@@ -0,0 +1,58 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jautodoc.templates.compiled.CompiledTemplateEngine;
+
+import org.junit.Test;
+
+
+/**
+ * Renders the default templates with the compiled engine and with Velocity
+ * and compares the results.
+ */
+public class CompiledTemplateEngineTest {
+
+    @Test
+    public void testDefaultTemplates() throws Exception {
+        final List<TemplateEntry> entries = TemplateFixture.loadDefaultTemplates();
+        final CompiledTemplateEngine compiled = (CompiledTemplateEngine)TemplateFixture.createEngine(true, entries);
+        final ITemplateEngine velocity = TemplateFixture.createEngine(false, entries);
+
+        final Map<String, String> expected = TemplateFixture.mergeAll(velocity, entries);
+        final Map<String, String> actual = TemplateFixture.mergeAll(compiled, entries);
+
+        int compiledCount = 0;
+        for (TemplateEntry entry : entries) {
+            assertEquals(entry.getName(), expected.get(entry.getName()), actual.get(entry.getName()));
+            if (compiled.isCompiled(entry.getName())) {
+                ++compiledCount;
+            }
+        }
+        assertTrue("no default template compiled", compiledCount > 0);
+    }
+
+    @Test
+    public void testEvaluateDefaultTemplates() throws Exception {
+        final List<TemplateEntry> entries = TemplateFixture.loadDefaultTemplates();
+        final ITemplateEngine compiled = TemplateFixture.createEngine(true, entries);
+        final ITemplateEngine velocity = TemplateFixture.createEngine(false, entries);
+
+        for (TemplateEntry entry : entries) {
+            assertEquals(entry.getName(),
+                    velocity.evaluateTemplate(entry.getName(), entry.getText(), TemplateFixture.createContext(entry)),
+                    compiled.evaluateTemplate(entry.getName(), entry.getText(), TemplateFixture.createContext(entry)));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.jautodoc.templates.velocity.VelocityTemplateManager;
+
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.Signature;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+
+/**
+ * Evaluates the same templates from several threads and compares each result
+ * with the result of the single-threaded evaluation. The templates are
+ * evaluated by the engines directly and through the template manager.
+ */
+public class ConcurrentEvaluationTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS  = 50;
+
+    private static final Map<String, String> PROPERTIES = Collections.emptyMap();
+
+    /** Types matching type templates with child templates, and a default one. */
+    private static final String[][] SOURCES = {
+        { "MessageFactory",
+            "public class MessageFactory {\n"
+            + "    private int fCount;\n"
+            + "    public MessageFactory(int count) {}\n"
+            + "    public Object createMessage(String text) throws java.io.IOException { return null; }\n"
+            + "    public int getCount() { return 0; }\n"
+            + "}\n" },
+        { "ImageObserver",
+            "public class ImageObserver {\n"
+            + "    private Object theImage;\n"
+            + "    public boolean imageUpdate(Object image, int flags) { return false; }\n"
+            + "    public void setImage(Object image) {}\n"
+            + "}\n" },
+        { "AutodocListener",
+            "public class AutodocListener {\n"
+            + "    private boolean enabled;\n"
+            + "    public void autodocCreated(String name) {}\n"
+            + "    public void autodocUpdated(String name) throws IllegalStateException {}\n"
+            + "    public boolean isEnabled() { return enabled; }\n"
+            + "}\n" },
+        { "Questionnaire",
+            "public class Questionnaire {\n"
+            + "    private int theNumberOfQuestions;\n"
+            + "    public static void main(String[] args) {}\n"
+            + "    public String calculateSomething(int x, int y) throws Exception { return null; }\n"
+            + "    public Questionnaire getInstance() { return this; }\n"
+            + "}\n" }
+    };
+
+    private static IProject project;
+
+
+    @BeforeClass
+    public static void createProject() throws Exception {
+        project = ResourcesPlugin.getWorkspace().getRoot().getProject("ConcurrentEvaluationTest");
+        project.create(null);
+        project.open(null);
+        final IProjectDescription description = project.getDescription();
+        description.setNatureIds(new String[] { JavaCore.NATURE_ID });
+        project.setDescription(description, null);
+
+        final IFolder src = project.getFolder("src");
+        src.create(true, true, null);
+        final IJavaProject javaProject = JavaCore.create(project);
+        javaProject.setRawClasspath(new IClasspathEntry[] { JavaCore.newSourceEntry(src.getFullPath()) }, null);
+
+        final IPackageFragment pkg = javaProject.getPackageFragmentRoot(src).createPackageFragment("test", true, null);
+        for (String[] source : SOURCES) {
+            pkg.createCompilationUnit(source[0] + ".java", "package test;\n\n" + source[1], true, null);
+        }
+    }
+
+    @AfterClass
+    public static void deleteProject() throws Exception {
+        if (project != null) {
+            project.delete(true, true, null);
+        }
+    }
+
+    @Test
+    public void testVelocityEngine() throws Exception {
+        testConcurrentEvaluation(false);
+    }
+
+    @Test
+    public void testCompiledEngine() throws Exception {
+        testConcurrentEvaluation(true);
+    }
+
+    /**
+     * Applies the templates through the manager. Consecutive members belong
+     * to different types, so each thread changes the matching parent with
+     * every member.
+     */
+    @Test
+    public void testTemplateManager() throws Exception {
+        final ITemplateManager manager = new VelocityTemplateManager();
+        manager.initialize();
+        manager.loadDefaultTemplates();
+
+        final List<IMember> members = getInterleavedMembers();
+        final Map<IMember, String> expected = new HashMap<IMember, String>();
+        for (IMember member : members) {
+            expected.put(member, apply(manager, member));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < THREADS; ++i) {
+                final int offset = i;
+                futures.add(executor.submit(new Callable<List<String>>() {
+                    public List<String> call() throws Exception {
+                        start.await();
+                        return apply(manager, members, expected, offset);
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<String>> future : futures) {
+                assertEquals(new ArrayList<String>(), future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void testConcurrentEvaluation(final boolean compiled) throws Exception {
+        final List<TemplateEntry> entries = TemplateFixture.loadDefaultTemplates();
+        final ITemplateEngine engine = TemplateFixture.createEngine(compiled, entries);
+        final Map<String, String> expected = TemplateFixture.mergeAll(engine, entries);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+            for (int i = 0; i < THREADS; ++i) {
+                final int offset = i;
+                futures.add(executor.submit(new Callable<List<String>>() {
+                    public List<String> call() throws Exception {
+                        start.await();
+                        return evaluate(engine, entries, expected, offset);
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<String>> future : futures) {
+                assertEquals(new ArrayList<String>(), future.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Evaluates the templates repeatedly, each thread starting with another
+     * template.
+     *
+     * @return the differences to the expected results
+     */
+    private List<String> evaluate(final ITemplateEngine engine, final List<TemplateEntry> entries,
+            final Map<String, String> expected, final int offset) throws Exception {
+        final List<String> differences = new ArrayList<String>();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (int i = 0; i < entries.size(); ++i) {
+                final TemplateEntry entry = entries.get((i + offset) % entries.size());
+                final String result = engine.mergeTemplate(entry.getName(), TemplateFixture.createContext(entry));
+                if (!expected.get(entry.getName()).equals(result)) {
+                    differences.add(entry.getName() + ": " + result);
+                }
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Applies the templates to the members repeatedly, each thread starting
+     * with another member.
+     *
+     * @return the differences to the expected results
+     */
+    private static List<String> apply(final ITemplateManager manager, final List<IMember> members,
+            final Map<IMember, String> expected, final int offset) throws Exception {
+        final List<String> differences = new ArrayList<String>();
+        for (int round = 0; round < ROUNDS; ++round) {
+            for (int i = 0; i < members.size(); ++i) {
+                final IMember member = members.get((i + offset) % members.size());
+                final String result = apply(manager, member);
+                if (!expected.get(member).equals(result)) {
+                    differences.add(member.getElementName() + ": " + result);
+                }
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * Applies the member template and, for methods, the parameter and
+     * exception templates.
+     */
+    private static String apply(final ITemplateManager manager, final IMember member) throws Exception {
+        final StringBuilder result = new StringBuilder(manager.applyTemplate(member, PROPERTIES));
+        if (member instanceof IMethod) {
+            final IMethod method = (IMethod) member;
+            final String[] names = method.getParameterNames();
+            final String[] types = method.getParameterTypes();
+            for (int i = 0; i < names.length; ++i) {
+                result.append('\n').append(manager.applyParameterTemplate(method,
+                        Signature.toString(types[i]), names[i], PROPERTIES));
+            }
+            for (String exception : method.getExceptionTypes()) {
+                result.append('\n').append(manager.applyExceptionTemplate(method,
+                        Signature.toString(exception), PROPERTIES));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Gets the types and their members, the n-th members of all types
+     * before the (n+1)-th ones.
+     */
+    private static List<IMember> getInterleavedMembers() throws Exception {
+        final List<List<IMember>> typeMembers = new ArrayList<List<IMember>>();
+        for (String[] source : SOURCES) {
+            final ICompilationUnit compUnit = JavaCore.createCompilationUnitFrom(
+                    project.getFile("src/test/" + source[0] + ".java"));
+            final IType type = compUnit.getType(source[0]);
+            final List<IMember> members = new ArrayList<IMember>();
+            members.add(type);
+            Collections.addAll(members, type.getFields());
+            Collections.addAll(members, type.getMethods());
+            typeMembers.add(members);
+        }
+
+        final List<IMember> interleaved = new ArrayList<IMember>();
+        for (int n = 0; interleaved.size() < count(typeMembers); ++n) {
+            for (List<IMember> members : typeMembers) {
+                if (n < members.size()) {
+                    interleaved.add(members.get(n));
+                }
+            }
+        }
+        return interleaved;
+    }
+
+    private static int count(final List<List<IMember>> lists) {
+        int count = 0;
+        for (List<IMember> list : lists) {
+            count += list.size();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.sf.jautodoc.templates.wrapper.IMemberWrapper;
+
+import org.junit.Test;
+
+
+/**
+ * Writes and reads template corpora.
+ */
+public class TemplateCorpusTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Map<String, String> values = new LinkedHashMap<String, String>();
+        values.put("since", "1.2, (beta)");
+        values.put("forRemoval", "true");
+        final Map<String, Map<String, String>> annotations = new LinkedHashMap<String, Map<String, String>>();
+        annotations.put("Deprecated", values);
+        annotations.put("Override", new LinkedHashMap<String, String>());
+
+        final TemplateCorpus corpus = new TemplateCorpus();
+        final int type = corpus.add(ITemplateKinds.TYPE, "Message", "class Message", -1, "class", "", 0,
+                new LinkedHashMap<String, Map<String, String>>());
+        corpus.add(ITemplateKinds.FIELD, "MAX", "int MAX", type, "int", "Message",
+                TemplateCorpus.STATIC | TemplateCorpus.FINAL, annotations);
+
+        final StringWriter writer = new StringWriter();
+        corpus.write(writer);
+        final TemplateCorpus read = TemplateCorpus.read(new StringReader(writer.toString()));
+
+        assertEquals(2, read.size());
+        final IMemberWrapper field = read.getWrapper(1);
+        assertTrue(field.isField());
+        assertEquals("MAX", field.getName());
+        assertEquals("int", field.getType());
+        assertEquals("Message", field.getDeclaringType());
+        assertTrue(field.isStatic());
+        assertTrue(field.isFinal());
+        assertFalse(field.isConstructor());
+        assertEquals("Message", field.getParent().getName());
+        assertEquals("1.2, (beta)", field.getAnnotation("Deprecated").getValue("since"));
+        assertEquals("true", field.getAnnotation("Deprecated").getValue("forRemoval"));
+        assertTrue(field.getAnnotation("Override").exists());
+        assertFalse(field.getAnnotation("SuppressWarnings").exists());
+    }
+
+    @Test
+    public void testReadNamesOnly() throws Exception {
+        final TemplateCorpus corpus = TemplateCorpus.read(new StringReader(
+                "type\t0\tMessage\tclass Message\nmethod\t1\tgetText\tString getText()\n"));
+
+        final IMemberWrapper method = corpus.getWrapper(1);
+        assertTrue(method.isMethod());
+        assertEquals("<type>", method.getType());
+        assertFalse(method.isStatic());
+        assertFalse(method.getAnnotation("Deprecated").exists());
+    }
+}
@@ -0,0 +1,210 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+import net.sf.jautodoc.templates.compiled.CompiledTemplateEngine;
+import net.sf.jautodoc.templates.velocity.VelocityTemplateEngine;
+import net.sf.jautodoc.templates.velocity.VelocityTemplateManager;
+import net.sf.jautodoc.templates.wrapper.AnnotationWrapper;
+import net.sf.jautodoc.templates.wrapper.IMemberWrapper;
+import net.sf.jautodoc.templates.wrapper.PropertyWrapper;
+
+import org.eclipse.jdt.core.IMember;
+
+
+/**
+ * Engines, templates and evaluation contexts for the template tests. Each
+ * template is evaluated for a member named like the example of the template.
+ */
+final class TemplateFixture {
+
+    private TemplateFixture() {
+    }
+
+    /**
+     * Loads the default templates.
+     *
+     * @return the default templates, parents before their children
+     * @throws Exception thrown if the templates could not be read
+     */
+    public static List<TemplateEntry> loadDefaultTemplates() throws Exception {
+        final TemplateSet templates = TemplateSerializer.loadTemplates(
+                VelocityTemplateManager.class.getResourceAsStream("default_templates.xml"));
+        final List<TemplateEntry> entries = new ArrayList<TemplateEntry>();
+        addAll(templates, entries);
+        return entries;
+    }
+
+    /**
+     * Creates an engine, that contains the given templates.
+     *
+     * @param compiled true for the compiled engine, false for Velocity only
+     * @param entries the templates
+     * @return the initialized engine
+     * @throws Exception thrown if the engine could not be initialized
+     */
+    public static ITemplateEngine createEngine(final boolean compiled, final List<TemplateEntry> entries)
+            throws Exception {
+        final ITemplateEngine velocity = new VelocityTemplateEngine();
+        final ITemplateEngine engine = compiled ? new CompiledTemplateEngine(velocity) : velocity;
+        engine.initialize(createGlobals());
+        for (TemplateEntry entry : entries) {
+            engine.putTemplate(entry.getName(), entry.getText());
+        }
+        return engine;
+    }
+
+    /**
+     * Creates a new context for the evaluation of the given template.
+     *
+     * @param entry the template
+     * @return the context
+     */
+    public static Map<String, Object> createContext(final TemplateEntry entry) {
+        final Map<String, Object> context = new HashMap<String, Object>();
+        context.put(VelocityTemplateManager.KEY_ELEMENT, createElement(entry));
+        return context;
+    }
+
+    /**
+     * Evaluates all given templates once.
+     *
+     * @param engine the engine
+     * @param entries the templates
+     * @return the results by template name
+     * @throws Exception thrown if an evaluation failed
+     */
+    public static Map<String, String> mergeAll(final ITemplateEngine engine, final List<TemplateEntry> entries)
+            throws Exception {
+        final Map<String, String> results = new HashMap<String, String>();
+        for (TemplateEntry entry : entries) {
+            results.put(entry.getName(), engine.mergeTemplate(entry.getName(), createContext(entry)));
+        }
+        return results;
+    }
+
+    private static void addAll(final TemplateSet templates, final List<TemplateEntry> entries) {
+        addAll(templates.getTypeTemplates(), entries);
+        addAll(templates.getFieldTemplates(), entries);
+        addAll(templates.getMethodTemplates(), entries);
+        addAll(templates.getParameterTemplates(), entries);
+        addAll(templates.getExceptionTemplates(), entries);
+    }
+
+    private static void addAll(final List<TemplateEntry> templates, final List<TemplateEntry> entries) {
+        for (TemplateEntry entry : templates) {
+            entries.add(entry);
+            addAll(entry.getChildTemplates(), entries);
+        }
+    }
+
+    /**
+     * Fixed values instead of the date and user wrappers, so the results do
+     * not depend on the time of the evaluation.
+     */
+    private static Map<String, Object> createGlobals() {
+        final Map<String, Object> globals = new HashMap<String, Object>();
+        globals.put(VelocityTemplateManager.KEY_PROPERTIES, new PropertyWrapper());
+        globals.put(VelocityTemplateManager.KEY_USER, "tester");
+        globals.put(VelocityTemplateManager.KEY_DATE, "19.10.2026");
+        globals.put(VelocityTemplateManager.KEY_TIME, "12:00:00");
+        globals.put(VelocityTemplateManager.KEY_YEAR, "2026");
+        return globals;
+    }
+
+    private static MatchingElement createElement(final TemplateEntry entry) {
+        final TemplateEntry parentEntry = entry.getParent();
+        final MatchingElement parent = parentEntry != null ? createElement(parentEntry) : null;
+
+        final Matcher matcher = entry.getPattern().matcher(entry.getExample());
+        matcher.matches();
+        return new MatchingElement(new ExampleMember(entry), entry, matcher, parent);
+    }
+
+    /**
+     * Member named like the example of a template.
+     */
+    private static final class ExampleMember implements IMemberWrapper {
+        private final TemplateEntry entry;
+
+
+        ExampleMember(final TemplateEntry entry) {
+            this.entry = entry;
+        }
+
+        public IMember getMember() {
+            return null;
+        }
+
+        public IMemberWrapper getParent() {
+            return entry.getParent() != null ? new ExampleMember(entry.getParent()) : null;
+        }
+
+        public String getName() {
+            return entry.getExample();
+        }
+
+        public String getType() {
+            return entry.isType() ? "class" : "String";
+        }
+
+        public String getDeclaringType() {
+            return "Example";
+        }
+
+        public String getSignature() {
+            return entry.getExample();
+        }
+
+        public boolean isStatic() {
+            return entry.isField();
+        }
+
+        public boolean isFinal() {
+            return entry.isField();
+        }
+
+        public boolean isConstructor() {
+            return false;
+        }
+
+        public boolean isMainMethod() {
+            return false;
+        }
+
+        public boolean isType() {
+            return entry.isType();
+        }
+
+        public boolean isField() {
+            return entry.isField();
+        }
+
+        public boolean isMethod() {
+            return entry.isMethod();
+        }
+
+        public boolean isParameter() {
+            return entry.isParameter();
+        }
+
+        public boolean isException() {
+            return entry.isException();
+        }
+
+        public AnnotationWrapper getAnnotation(final String name) {
+            return new AnnotationWrapper();
+        }
+    }
+}
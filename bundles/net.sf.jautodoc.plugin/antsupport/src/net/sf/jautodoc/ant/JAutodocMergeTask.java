@@ -0,0 +1,105 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.ant;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.FileSet;
+
+/**
+ * Ant task, that merges the manifests of several JAutodoc shards into one.
+ * The merged manifest describes a single shard <code>1/1</code>.
+ */
+public class JAutodocMergeTask extends Task {
+	private List<FileSet> filesets = new ArrayList<FileSet>();
+
+	private File destFile;
+
+
+	public void addFileset(FileSet fileset) {
+		filesets.add(fileset);
+	}
+
+	public void setDestFile(File destFile) {
+		this.destFile = destFile;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.apache.tools.ant.Task#execute()
+	 */
+	public void execute() throws BuildException {
+		if (destFile == null) {
+			throw new BuildException("Missing attribute: destFile");
+		}
+
+		try {
+			ShardManifest merged = new ShardManifest(1, 1);
+			boolean[] shards = null;
+
+			for (File file : getManifestFiles()) {
+				ShardManifest manifest = ShardManifest.read(file);
+				if (shards == null) {
+					shards = new boolean[manifest.getCount()];
+				}
+				else if (shards.length != manifest.getCount()) {
+					throw new BuildException("Different number of shards in " + file);
+				}
+
+				if (shards[manifest.getIndex() - 1]) {
+					throw new BuildException("Duplicate shard " + manifest.getIndex() + " in " + file);
+				}
+				shards[manifest.getIndex() - 1] = true;
+
+				for (Map.Entry<String, String> entry : manifest.getEntries().entrySet()) {
+					if (merged.getEntries().containsKey(entry.getKey())) {
+						throw new BuildException("File " + entry.getKey() + " processed by more than one shard");
+					}
+					merged.add(entry.getKey(), entry.getValue());
+				}
+			}
+
+			if (shards == null) {
+				throw new BuildException("No manifests found");
+			}
+			for (int i = 0; i < shards.length; ++i) {
+				if (!shards[i]) {
+					throw new BuildException("Missing manifest for shard " + (i + 1) + "/" + shards.length);
+				}
+			}
+
+			merged.write(destFile);
+
+			log("Merged " + shards.length + " shards: " + merged.getEntries().size() + " files, "
+					+ merged.getCount(ShardManifest.CHANGED) + " changed");
+		} catch (BuildException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new BuildException(e);
+		}
+	}
+
+	private List<File> getManifestFiles() {
+		List<File> files = new ArrayList<File>();
+		for (FileSet fileSet : filesets) {
+			DirectoryScanner ds = fileSet.getDirectoryScanner(getProject());
+			String[] names = ds.getIncludedFiles();
+			Arrays.sort(names);
+			for (String name : names) {
+				files.add(new File(ds.getBasedir(), name));
+			}
+		}
+		return files;
+	}
+}
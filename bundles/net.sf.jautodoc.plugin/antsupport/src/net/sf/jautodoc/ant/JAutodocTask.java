@@ -7,13 +7,28 @@
  *******************************************************************/
 package net.sf.jautodoc.ant;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
@@ -23,25 +38,44 @@ import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.FileSet;
 import org.eclipse.ant.core.AntCorePlugin;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.swt.SWTException;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.PlatformUI;
 
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.coverage.CoverageCounts;
+import net.sf.jautodoc.coverage.CoverageModel;
 import net.sf.jautodoc.preferences.Configuration;
 import net.sf.jautodoc.preferences.ConfigurationManager;
 import net.sf.jautodoc.preferences.Constants;
 import net.sf.jautodoc.source.JavadocFormatter;
+import net.sf.jautodoc.source.PatchWriter;
+import net.sf.jautodoc.source.ResultCache;
 import net.sf.jautodoc.source.SourceManipulator;
+import net.sf.jautodoc.templates.ITemplateManager;
+import net.sf.jautodoc.templates.TemplateDiagnostic;
+import net.sf.jautodoc.templates.TemplateProfiler;
+import net.sf.jautodoc.templates.velocity.VelocityTemplateManager;
+import net.sf.jautodoc.templates.wrapper.DateWrapper;
+import net.sf.jautodoc.templates.wrapper.PropertyWrapper;
+import net.sf.jautodoc.utils.PhaseTimer;
+import net.sf.jautodoc.utils.PhaseTimer.Phase;
 import net.sf.jautodoc.utils.Utils;
 
 /**
@@ -55,6 +89,11 @@ public class JAutodocTask extends Task {
 	private static final String KEEP	 = "keep";
 	private static final String REPLACE	 = "replace";
 
+	private static final long DEFAULT_CACHE_SIZE = 512; // MB
+	private static final int DEFAULT_REPORT_TOP  = 10;
+
+	private static final Pattern TIME_REFERENCE = Pattern.compile("\\$!?\\{?" + VelocityTemplateManager.KEY_TIME + "\\b");
+
 	private List<FileSet> filesets = new ArrayList<FileSet>();
 
 	private Configuration config;
@@ -92,6 +131,30 @@ public class JAutodocTask extends Task {
 
 	private boolean headerOnly;
 
+	private boolean direct;
+	private String encoding;
+
+	private int threads = 1;
+	private String shard;
+	private File manifest;
+	private ShardManifest shardManifest;
+
+	private File report;
+	private int reportTop = DEFAULT_REPORT_TOP;
+	private TimingReport timingReport;
+
+	private File profile;
+	private boolean validateTemplates;
+
+	private File patchFile;
+	private PatchWriter patchWriter;
+
+	private File coverage;
+
+	private File cacheDir;
+	private long cacheSize = DEFAULT_CACHE_SIZE;
+	private String cacheContext;
+
 
 	public void setSrcdir(String srcdir) {
 		this.srcdir = srcdir;
@@ -201,20 +264,70 @@ public class JAutodocTask extends Task {
 		this.headerOnly = headerOnly;
 	}
 
+	public void setDirect(boolean direct) {
+		this.direct = direct;
+	}
+
+	public void setEncoding(String encoding) {
+		this.encoding = encoding;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public void setShard(String shard) {
+		this.shard = shard;
+	}
+
+	public void setManifest(File manifest) {
+		this.manifest = manifest;
+	}
+
+	public void setReport(File report) {
+		this.report = report;
+	}
+
+	public void setReportTop(int reportTop) {
+		this.reportTop = reportTop;
+	}
+
+	public void setProfile(File profile) {
+		this.profile = profile;
+	}
+
+	public void setValidateTemplates(boolean validateTemplates) {
+		this.validateTemplates = validateTemplates;
+	}
+
+	public void setPatchFile(File patchFile) {
+		this.patchFile = patchFile;
+	}
+
+	public void setCoverage(File coverage) {
+		this.coverage = coverage;
+	}
+
+	public void setCacheDir(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	public void setCacheSize(long cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.apache.tools.ant.Task#execute()
 	 */
 	public void execute() throws BuildException {
 		validateProperties();
+		if (validateTemplates) {
+			checkTemplates();
+		}
 
 		log("Creating Javadoc...");
 
 		try {
-			ICompilationUnit[] compUnits = findCompilationUnits();
-			if (compUnits.length == 0) {
-				return;
-			}
-
 			IProgressMonitor monitor = null;
 			Hashtable<?, ?> references = getProject().getReferences();
 			if (references != null) {
@@ -222,7 +335,46 @@ public class JAutodocTask extends Task {
 			}
 			monitor = (monitor == null ? new NullProgressMonitor() : monitor);
 
-			createJavadoc(compUnits, new ProgressMonitor(monitor, 1));
+			if (report != null) {
+				timingReport = new TimingReport(report, reportTop);
+			}
+			TemplateProfiler profiler = JAutodocPlugin.getContext().getTemplateManager().getProfiler();
+			if (profile != null) {
+				profiler.reset();
+				profiler.setEnabled(true);
+			}
+			if (patchFile != null) {
+				patchWriter = new PatchWriter(patchFile);
+			}
+
+			try {
+				if (direct || patchWriter != null) {
+					createJavadoc(getIncludedFiles(), new ProgressMonitor(monitor, 1));
+				}
+				else {
+					createJavadoc(findCompilationUnits(), new ProgressMonitor(monitor, 1));
+				}
+			}
+			finally {
+				if (timingReport != null) {
+					timingReport.close();
+				}
+				if (patchWriter != null) {
+					patchWriter.close();
+					log("Patch: " + patchWriter.getFileCount() + " files");
+				}
+				if (profile != null) {
+					profiler.setEnabled(false);
+					writeProfile(profiler);
+				}
+			}
+
+			if (coverage != null) {
+				writeCoverage(findCompilationUnits());
+			}
+			if (manifest != null) {
+				shardManifest.write(manifest);
+			}
 
 			log("Done.");
 		} catch (Throwable e) {
@@ -230,6 +382,63 @@ public class JAutodocTask extends Task {
         }
 	}
 
+	private void checkTemplates() throws BuildException {
+		ITemplateManager templateManager = JAutodocPlugin.getContext().getTemplateManager();
+		List<TemplateDiagnostic> diagnostics;
+		try {
+			diagnostics = templateManager.validateTemplates(templateManager.getTemplates());
+		} catch (Exception e) {
+			throw new BuildException(e);
+		}
+
+		int errors = 0;
+		for (TemplateDiagnostic diagnostic : diagnostics) {
+			if (diagnostic.isError()) {
+				++errors;
+			}
+			log(diagnostic.toString(), diagnostic.isError() ? Project.MSG_ERR : Project.MSG_WARN);
+		}
+		if (errors > 0) {
+			throw new BuildException(errors + " invalid templates");
+		}
+	}
+
+	private void writeProfile(TemplateProfiler profiler) throws IOException {
+		Writer writer = Files.newBufferedWriter(profile.toPath(), StandardCharsets.UTF_8);
+		try {
+			profiler.writeCsv(writer);
+		}
+		finally {
+			writer.close();
+		}
+		log("Template profile: " + profile);
+	}
+
+	private void writeCoverage(ICompilationUnit[] compUnits) throws IOException, JavaModelException {
+		// required members as configured for this task, including its overrides
+		CoverageModel model = new CoverageModel(getConfiguration(compUnits.length == 0 ? null
+				: compUnits[0].getJavaProject().getProject()));
+		for (int i = 0; i < compUnits.length; ++i) {
+			model.update(compUnits[i]);
+		}
+
+		Writer writer = Files.newBufferedWriter(coverage.toPath(), StandardCharsets.UTF_8);
+		try {
+			model.write(writer);
+		}
+		finally {
+			writer.close();
+		}
+
+		CoverageCounts total = new CoverageCounts();
+		IJavaElement[] projects = model.getChildren(null);
+		for (int i = 0; i < projects.length; ++i) {
+			total.add(model.getCounts(projects[i]), 1);
+		}
+		log("Coverage: " + total.getDocumented() + "/" + total.getRequired() + " members documented ("
+				+ String.format(Locale.ENGLISH, "%.1f", total.getCoverage()) + "%), " + coverage);
+	}
+
 	private ICompilationUnit[] findCompilationUnits() {
 		List<ICompilationUnit> compUnits = new ArrayList<ICompilationUnit>();
 
@@ -263,11 +472,16 @@ public class JAutodocTask extends Task {
 			DirectoryScanner ds = fileSet.getDirectoryScanner(getProject());
 			String[] files = ds.getIncludedFiles();
 			for (int i = 0; i < files.length; ++i) {
-				includedFiles.add(new File(ds.getBasedir(), files[i]).getAbsolutePath());
+				File file = new File(ds.getBasedir(), files[i]);
+				if (shardManifest.contains(getRelativePath(file))) {
+					includedFiles.add(file.getAbsolutePath());
+				}
 			}
 		}
 
-		return includedFiles.toArray(new String[includedFiles.size()]);
+		String[] result = includedFiles.toArray(new String[includedFiles.size()]);
+		Arrays.sort(result);
+		return result;
 	}
 
 	private void validateProperties() throws BuildException {
@@ -280,6 +494,35 @@ public class JAutodocTask extends Task {
 		if (getsetOnly != null && getsetOnly.booleanValue() && excludeGetset != null && excludeGetset.booleanValue()) {
 		    throw new BuildException("Use only one of these flags: getsetOnly && excludeGetset");
 		}
+
+		if (encoding != null && !Charset.isSupported(encoding)) {
+			throw new BuildException("Unsupported encoding: " + encoding);
+		}
+
+		if (cacheSize <= 0) {
+			throw new BuildException("Invalid cacheSize: " + cacheSize + ". Use a positive number of megabytes");
+		}
+
+		if (reportTop < 1) {
+			throw new BuildException("Invalid reportTop: " + reportTop + ". Use a positive number");
+		}
+
+		if (threads < 1) {
+			throw new BuildException("Invalid threads: " + threads + ". Use a positive number");
+		}
+		if (threads > 1 && !direct && patchFile == null) {
+			throw new BuildException("Attribute threads requires direct mode or patchFile");
+		}
+
+		if (patchFile != null && cacheDir != null) {
+			log("Result cache is not used with patchFile", Project.MSG_WARN);
+		}
+
+		try {
+			shardManifest = (shard != null ? ShardManifest.parse(shard) : new ShardManifest(1, 1));
+		} catch (IllegalArgumentException e) {
+			throw new BuildException(e.getMessage());
+		}
 	}
 
 	private void createJavadoc(ICompilationUnit[] compUnits,
@@ -288,6 +531,8 @@ public class JAutodocTask extends Task {
 
 		monitor.beginTask(Constants.TITLE_JDOC_TASK, compUnits.length);
 
+		ResultCache cache = createCache();
+
 		try {
 			for (int i = 0; i < compUnits.length; i++) {
 				ICompilationUnit compUnit = (ICompilationUnit) compUnits[i];
@@ -296,37 +541,346 @@ public class JAutodocTask extends Task {
 					break;
 				}
 
-				Configuration config = getConfiguration(compUnit);
-				if (config.isUseEclipseFormatter()) {
-					JavadocFormatter.getInstance().startFormatting(compUnit);
+				startTimer();
+				try {
+					createJavadoc(compUnit, cache);
 				}
+				finally {
+					PhaseTimer.stop();
+				}
+
+				monitor.worked(1);
+			}
+		}
+		finally {
+			JavadocFormatter.getInstance().stopFormatting();
+			monitor.done();
+
+			if (cache != null) {
+				log("Result cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+			}
+		}
+	}
+
+	private void createJavadoc(ICompilationUnit compUnit, ResultCache cache) throws Throwable {
+		Configuration config = getConfiguration(compUnit);
+		IEditorPart editor = findEditor(compUnit);
+		File file = compUnit.getResource().getLocation().toFile();
+
+		String cacheKey = null;
+		if (cache != null && editor == null) {
+			// editor content may differ from file -> no caching
+			String source = compUnit.getSource();
+			cacheKey = createCacheKey(cache, compUnit.getPath().toString(), source, config);
+
+			String result = (cacheKey != null ? cache.get(cacheKey) : null);
+			if (result != null) {
+				long start = PhaseTimer.begin();
+				applyCachedResult(compUnit, source, result);
+				PhaseTimer.end(Phase.APPLY, start);
+
+				addResult(file, !result.equals(source), true);
+				return;
+			}
+		}
+
+		ICompilationUnit workingCopy = getWorkingCopy(compUnit, editor);
+		String source = workingCopy.getSource();
+
+		SourceManipulator sm = new SourceManipulator(workingCopy, config);
+
+		AddJavadocRunner runner = new AddJavadocRunner(sm, config.isUseEclipseFormatter() ? compUnit : null);
+		if (editor == null) {
+			runner.run();
+			runner.checkSuccess();
+
+			String result = workingCopy.getSource();
+			if (cacheKey != null && sm.getSkippedMembers().isEmpty()) {
+				storeCachedResult(cache, cacheKey, result);
+			}
 
-				IEditorPart editor = findEditor(compUnit);
-				ICompilationUnit workingCopy = getWorkingCopy(compUnit, editor);
+			// not open in editor -> commit + discard
+			long start = PhaseTimer.begin();
+			workingCopy.commitWorkingCopy(false, null);
+			workingCopy.discardWorkingCopy();
+			PhaseTimer.end(Phase.APPLY, start);
 
-				SourceManipulator sm = new SourceManipulator(workingCopy, config);
+			addResult(file, !result.equals(source), false);
+		}
+		else {
+			// open in editor -> use gui thread
+			Display.getDefault().syncExec(runner);
+			runner.checkSuccess();
 
-				AddJavadocRunner runner = new AddJavadocRunner(sm);
-				if (editor == null) {
-					runner.run();
-					runner.checkSuccess();
+			addResult(file, !workingCopy.getSource().equals(source), false);
+		}
+	}
 
-					// not open in editor -> commit + discard
-					workingCopy.commitWorkingCopy(false, null);
-					workingCopy.discardWorkingCopy();
+	/**
+	 * Creates Javadoc for the given files without using the file buffers of
+	 * the workspace. Sources are read and processed in memory and only written
+	 * back, if the content has changed. In patch mode the changes are written
+	 * to the patch file instead.
+	 */
+	private void createJavadoc(String[] files, IProgressMonitor monitor) throws Throwable {
+		if (files.length == 0) return;
+
+		monitor.beginTask(Constants.TITLE_JDOC_TASK, files.length);
+
+		ResultCache cache = (patchWriter == null ? createCache() : null);
+
+		try {
+			if (threads > 1) {
+				createJavadoc(files, cache, monitor);
+			}
+			else {
+				for (int i = 0; i < files.length && !monitor.isCanceled(); i++) {
+					createTimedJavadoc(files[i], cache, monitor);
 				}
-				else {
-					// open in editor -> use gui thread
-					Display.getDefault().syncExec(runner);
-					runner.checkSuccess();
+			}
+		}
+		finally {
+			JavadocFormatter.getInstance().stopFormatting();
+			monitor.done();
+
+			if (cache != null) {
+				log("Result cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses");
+			}
+		}
+	}
+
+	private void createJavadoc(String[] files, final ResultCache cache,
+			final IProgressMonitor monitor) throws Throwable {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(files.length);
+			for (final String file : files) {
+				futures.add(executor.submit(() -> {
+					if (!monitor.isCanceled()) {
+						createTimedJavadoc(file, cache, monitor);
+					}
+					return null;
+				}));
+			}
+
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					monitor.setCanceled(true);
+					throw e.getCause();
 				}
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void createTimedJavadoc(String fileName, ResultCache cache, IProgressMonitor monitor)
+			throws Exception {
+		startTimer();
+		try {
+			createJavadoc(fileName, cache, monitor);
+		}
+		finally {
+			PhaseTimer.stop();
+		}
+	}
 
+	private void createJavadoc(String fileName, ResultCache cache, IProgressMonitor monitor) throws Exception {
+		File file = new File(fileName);
+		synchronized (monitor) {
+			monitor.subTask(file.getName());
+		}
+
+		// files outside the workspace are processed without project context
+		IFile resource = ResourcesPlugin.getWorkspace().getRoot().getFileForLocation(new Path(fileName));
+		ICompilationUnit compUnit = (resource == null ? null : JavaCore.createCompilationUnitFrom(resource));
+		Charset charset = Charset.forName(compUnit != null ? resource.getCharset() : getEncoding());
+
+		Configuration config = getConfiguration(compUnit == null ? null
+				: compUnit.getJavaProject().getProject());
+		// the only string copy of the source, shared by the document, cache key and comparison
+		char[] source = readSource(file, charset);
+		String text = new String(source);
+
+		if (patchWriter != null) {
+			SourceManipulator sm = createJavadoc(compUnit, file, source, text, config, true);
+			long start = PhaseTimer.begin();
+			boolean changed = patchWriter.add(getRelativePath(file), text, sm.getChanges(), charset);
+			PhaseTimer.end(Phase.APPLY, start);
+			addResult(file, changed, false);
+			synchronized (monitor) {
 				monitor.worked(1);
 			}
+			return;
+		}
+
+		String cacheKey = null;
+		String result = null;
+		if (cache != null) {
+			String path = (compUnit != null ? compUnit.getPath().toString() : getRelativePath(file));
+			cacheKey = createCacheKey(cache, path, text, config);
+			result = (cacheKey != null ? cache.get(cacheKey) : null);
+		}
+
+		boolean cached = (result != null);
+		if (result == null) {
+			SourceManipulator sm = createJavadoc(compUnit, file, source, text, config, false);
+			result = sm.getDocument().get();
+			if (cacheKey != null && sm.getSkippedMembers().isEmpty()) {
+				storeCachedResult(cache, cacheKey, result);
+			}
+		}
+
+		boolean changed = !result.equals(text);
+		if (changed) {
+			// unchanged files are not touched to keep timestamps
+			long start = PhaseTimer.begin();
+			Utils.writeAtomically(file, result.getBytes(charset));
+			if (compUnit != null) {
+				resource.refreshLocal(IResource.DEPTH_ZERO, null);
+			}
+			PhaseTimer.end(Phase.APPLY, start);
+		}
+		addResult(file, changed, cached);
+
+		synchronized (monitor) {
+			monitor.worked(1);
+		}
+	}
+
+	private SourceManipulator createJavadoc(ICompilationUnit compUnit, File file,
+			char[] source, String text, Configuration config, boolean preview) throws Exception {
+		WorkingCopyOwner owner = new SourceOwner(source);
+		ICompilationUnit workingCopy = (compUnit != null ? compUnit.getWorkingCopy(owner, null)
+				: owner.newWorkingCopy(file.getName(), null, null));
+		try {
+			if (config.isUseEclipseFormatter()) {
+				JavadocFormatter.getInstance().startFormatting(workingCopy);
+			}
+
+			SourceManipulator sm = new SourceManipulator(workingCopy, config);
+			sm.setSource(source, text);
+			sm.setShowPreview(preview);
+			addJavadoc(sm);
+
+			return sm;
 		}
 		finally {
-			JavadocFormatter.getInstance().stopFormatting();
-			monitor.done();
+			workingCopy.discardWorkingCopy();
+		}
+	}
+
+	private char[] readSource(File file, Charset charset) throws IOException {
+		CharBuffer chars = charset.decode(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+		if (chars.hasArray() && chars.arrayOffset() == 0 && chars.remaining() == chars.array().length) {
+			return chars.array();
+		}
+		return Arrays.copyOfRange(chars.array(), chars.arrayOffset() + chars.position(),
+				chars.arrayOffset() + chars.limit());
+	}
+
+	private String getEncoding() {
+		return encoding != null ? encoding : ResourcesPlugin.getEncoding();
+	}
+
+	private String getRelativePath(File file) {
+		return getProject().getBaseDir().toURI().relativize(file.toURI()).getPath();
+	}
+
+	private void addJavadoc(SourceManipulator sm) throws Exception {
+		if (!headerOnly) {
+			sm.addJavadoc(null);
+		}
+		else {
+			sm.setForceAddHeader(headerOnly);
+			sm.addJavadoc(new IMember[0], null);
+		}
+
+		for (IMember member : sm.getSkippedMembers()) {
+			log("Javadoc of " + member.getCompilationUnit().getElementName() + "#" + member.getElementName()
+					+ " left unchanged: template exceeds its budget", Project.MSG_WARN);
+		}
+	}
+
+	private void startTimer() {
+		if (timingReport != null) {
+			PhaseTimer.start();
+		}
+	}
+
+	private void addResult(File file, boolean changed, boolean cached) throws IOException {
+		String path = getRelativePath(file);
+		String status = (changed ? ShardManifest.CHANGED : ShardManifest.UNCHANGED);
+		shardManifest.add(path, status);
+
+		PhaseTimer timer = PhaseTimer.stop();
+		if (timer != null) {
+			timingReport.add(path, status, cached, timer);
+		}
+	}
+
+	private ResultCache createCache() {
+		return cacheDir == null ? null : new ResultCache(cacheDir, cacheSize * 1024 * 1024);
+	}
+
+	/**
+	 * Creates the cache key of the given source.
+	 *
+	 * @return the key, null if the result must not be cached
+	 */
+	private String createCacheKey(ResultCache cache, String path,
+			String source, Configuration config) throws Exception {
+		// path is part of the key, because templates may use file, package or project name
+		String context = getCacheContext(config);
+		return context.length() == 0 ? null : cache.createKey(source, path, context);
+	}
+
+	private synchronized String getCacheContext(Configuration config) throws Exception {
+		if (cacheContext == null) {
+			ITemplateManager templateManager = JAutodocPlugin.getContext().getTemplateManager();
+			if (TIME_REFERENCE.matcher(templateManager.getTemplates().toString()).find()
+					|| config.getHeaderText() != null && TIME_REFERENCE.matcher(config.getHeaderText()).find()) {
+				// result changes every second -> no caching
+				log("Result cache not used: templates reference $" + VelocityTemplateManager.KEY_TIME,
+						Project.MSG_WARN);
+				cacheContext = "";
+				return cacheContext;
+			}
+
+			// configuration and templates are fixed for the whole run, the
+			// values of $date, $year and $user are taken once at its start
+			cacheContext = config.getHash() + ':'
+					+ templateManager.getTemplatesHash() + ':'
+					+ JAutodocPlugin.getDefault().getBundle().getVersion() + ':'
+					+ headerOnly + ':'
+					+ new DateWrapper(DateWrapper.DATE) + ':'
+					+ new DateWrapper(DateWrapper.YEAR) + ':'
+					+ new PropertyWrapper("user.name", null);
+		}
+		return cacheContext;
+	}
+
+	private void applyCachedResult(ICompilationUnit compUnit, String source,
+			String result) throws Exception {
+		if (verbose) {
+			log("Using cached result for " + compUnit.getElementName());
+		}
+
+		if (!result.equals(source)) {
+			IFile file = (IFile)compUnit.getResource();
+			byte[] contents = result.getBytes(file.getCharset());
+			file.setContents(new ByteArrayInputStream(contents), true, false, null);
+		}
+	}
+
+	private void storeCachedResult(ResultCache cache, String cacheKey, String result) {
+		try {
+			cache.put(cacheKey, result);
+		} catch (IOException e) {
+			log("Could not write result cache: " + e.getMessage(), Project.MSG_WARN);
 		}
 	}
 
@@ -362,9 +916,13 @@ public class JAutodocTask extends Task {
 	}
 
 	private Configuration getConfiguration(ICompilationUnit compUnit) {
+		return getConfiguration(compUnit.getJavaProject().getProject());
+	}
+
+	private synchronized Configuration getConfiguration(IProject project) {
 		if (config != null) return config;
 
-		config = ConfigurationManager.getConfiguration(compUnit, false);
+		config = ConfigurationManager.getConfiguration(project, false);
 
 		if (mode != null) {
 			if (COMPLETE.equals(mode)) {
@@ -488,26 +1046,44 @@ public class JAutodocTask extends Task {
 		}
 	}
 
+	/**
+	 * Adds Javadoc in the calling thread or in the gui thread, if the unit is
+	 * open in an editor. The formatter state and the timer are bound to the
+	 * thread, so the runner starts formatting itself and measures with the
+	 * timer of the creating thread.
+	 */
 	private class AddJavadocRunner implements Runnable {
 		private SourceManipulator sm;
+		private ICompilationUnit formatUnit;
+		private Thread creator = Thread.currentThread();
+		private PhaseTimer timer = PhaseTimer.current();
 		private Throwable error;
 
-		public AddJavadocRunner(SourceManipulator sm) {
+		public AddJavadocRunner(SourceManipulator sm, ICompilationUnit formatUnit) {
 			this.sm = sm;
+			this.formatUnit = formatUnit;
 		}
 
 		public void run() {
+			boolean foreignThread = (Thread.currentThread() != creator);
+			PhaseTimer previousTimer = (foreignThread ? PhaseTimer.attach(timer) : null);
 			try {
-				if (!headerOnly) {
-					sm.addJavadoc(null);
-				}
-				else {
-					sm.setForceAddHeader(headerOnly);
-					sm.addJavadoc(new IMember[0], null);
+				if (formatUnit != null) {
+					JavadocFormatter.getInstance().startFormatting(formatUnit);
 				}
+				addJavadoc(sm);
 			} catch (Exception e) {
 				error = e;
 			}
+			finally {
+				if (foreignThread && formatUnit != null) {
+					// don't keep the state in the gui thread
+					JavadocFormatter.getInstance().stopFormatting();
+				}
+				if (foreignThread) {
+					PhaseTimer.attach(previousTimer);
+				}
+			}
 		}
 
 		public void checkSuccess() throws Throwable {
@@ -569,6 +1145,26 @@ public class JAutodocTask extends Task {
 		}
 	}
 
+	/**
+	 * Working copy owner, that provides buffers with already loaded contents.
+	 */
+	private static class SourceOwner extends WorkingCopyOwner {
+		private final char[] contents;
+
+		public SourceOwner(char[] contents) {
+			this.contents = contents;
+		}
+
+		/* (non-Javadoc)
+		 * @see org.eclipse.jdt.core.WorkingCopyOwner#createBuffer(org.eclipse.jdt.core.ICompilationUnit)
+		 */
+		public IBuffer createBuffer(ICompilationUnit workingCopy) {
+			IBuffer buffer = super.createBuffer(workingCopy);
+			buffer.setContents(contents);
+			return buffer;
+		}
+	}
+
 	/**
 	 * Dummy project for debug environment.
 	 */
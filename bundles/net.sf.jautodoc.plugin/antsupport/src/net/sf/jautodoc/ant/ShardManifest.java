@@ -0,0 +1,170 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.ant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import net.sf.jautodoc.utils.Utils;
+
+/**
+ * Manifest of the files processed by one shard of the JAutodoc Ant task.
+ * Each line contains the status and the path of a file, sorted by path.
+ */
+public class ShardManifest {
+    public static final String CHANGED   = "changed";
+    public static final String UNCHANGED = "unchanged";
+
+    private static final String HEADER = "# JAutodoc manifest";
+    private static final String SHARD  = "shard=";
+
+    private final int index;
+    private final int count;
+    private final SortedMap<String, String> entries = new TreeMap<String, String>();
+
+
+    /**
+     * Instantiates a new manifest.
+     *
+     * @param index the shard index, starting with 1
+     * @param count the number of shards
+     */
+    public ShardManifest(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Parses a shard specification of the form <code>i/n</code>.
+     *
+     * @param shard the shard specification
+     * @return the manifest for the shard
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static ShardManifest parse(String shard) {
+        int pos = shard.indexOf('/');
+        try {
+            int index = Integer.parseInt(shard.substring(0, pos).trim());
+            int count = Integer.parseInt(shard.substring(pos + 1).trim());
+            if (index >= 1 && index <= count) {
+                return new ShardManifest(index, count);
+            }
+        } catch (RuntimeException e) {
+            // invalid format
+        }
+        throw new IllegalArgumentException("Invalid shard: " + shard + ". Use i/n with 1 <= i <= n");
+    }
+
+    /**
+     * Checks, if the file with the given relative path belongs to this shard.
+     * The partition depends only on the path, so it is the same on every machine.
+     *
+     * @param path the path, relative to the base directory
+     * @return true, if the file belongs to this shard
+     */
+    public boolean contains(String path) {
+        CRC32 crc = new CRC32();
+        crc.update(path.replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+        return crc.getValue() % count == index - 1;
+    }
+
+    /**
+     * Adds a processed file.
+     *
+     * @param path the relative path
+     * @param status the status
+     */
+    public synchronized void add(String path, String status) {
+        entries.put(path.replace('\\', '/'), status);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Map<String, String> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Gets the number of files with the given status.
+     *
+     * @param status the status
+     * @return the number of files
+     */
+    public int getCount(String status) {
+        int result = 0;
+        for (String value : entries.values()) {
+            if (value.equals(status)) {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the manifest to the given file.
+     *
+     * @param file the file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public synchronized void write(File file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append('\n');
+        sb.append(SHARD).append(index).append('/').append(count).append('\n');
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            sb.append(entry.getValue()).append('\t').append(entry.getKey()).append('\n');
+        }
+        Utils.writeAtomically(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a manifest from the given file.
+     *
+     * @param file the file
+     * @return the manifest
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static ShardManifest read(File file) throws IOException {
+        ShardManifest manifest = null;
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.startsWith(SHARD)) {
+                manifest = parse(line.substring(SHARD.length()));
+                continue;
+            }
+
+            int pos = line.indexOf('\t');
+            if (manifest == null || pos < 0) {
+                throw new IOException("Invalid manifest " + file + ": " + line);
+            }
+            manifest.add(line.substring(pos + 1), line.substring(0, pos));
+        }
+
+        if (manifest == null) {
+            throw new IOException("Invalid manifest " + file + ": missing shard");
+        }
+        return manifest;
+    }
+}
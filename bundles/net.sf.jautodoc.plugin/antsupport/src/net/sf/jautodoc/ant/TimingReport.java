@@ -0,0 +1,241 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.ant;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import net.sf.jautodoc.utils.PhaseTimer;
+import net.sf.jautodoc.utils.PhaseTimer.Phase;
+
+/**
+ * Timing report of the JAutodoc Ant task. One line per file is written as
+ * soon as the file is processed, so memory usage does not depend on the
+ * number of files. The summary with the slowest files and templates is
+ * written on close. Files ending with <code>.json</code> are written as
+ * JSON, all other files as CSV.
+ */
+public class TimingReport {
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Writer writer;
+    private final boolean json;
+    private final int top;
+
+    private final PriorityQueue<FileTiming> slowestFiles;
+    private final Map<String, long[]> templates = new HashMap<String, long[]>();
+
+    private final long[] totals = new long[PHASES.length];
+    private long totalNanos;
+    private long totalBytes;
+    private int files;
+
+
+    /**
+     * Instantiates a new timing report.
+     *
+     * @param file the report file
+     * @param top the number of slowest files and templates in the summary
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public TimingReport(File file, int top) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+        this.json = file.getName().toLowerCase().endsWith(".json");
+        this.top = top;
+        this.slowestFiles = new PriorityQueue<FileTiming>(top + 1, new Comparator<FileTiming>() {
+            public int compare(FileTiming t1, FileTiming t2) {
+                return Long.compare(t1.nanos, t2.nanos);
+            }
+        });
+
+        if (json) {
+            writer.write("{\"files\":[");
+        }
+        else {
+            writer.write("file,status,cached,total_us");
+            for (Phase phase : PHASES) {
+                writer.write("," + phase.name().toLowerCase() + "_us");
+            }
+            writer.write(",allocated_bytes\n");
+        }
+    }
+
+    /**
+     * Adds the timing of a processed file.
+     *
+     * @param path the file path
+     * @param status the status
+     * @param cached true, if the result was taken from the cache
+     * @param timer the stopped timer of the file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public synchronized void add(String path, String status, boolean cached, PhaseTimer timer)
+            throws IOException {
+        if (json) {
+            writer.write(files == 0 ? "\n" : ",\n");
+            writer.write("{\"file\":" + quote(path) + ",\"status\":" + quote(status)
+                    + ",\"cached\":" + cached + ",\"total_us\":" + micros(timer.getTotalNanos()));
+            for (Phase phase : PHASES) {
+                writer.write(",\"" + phase.name().toLowerCase() + "_us\":" + micros(timer.getNanos(phase)));
+            }
+            writer.write(",\"allocated_bytes\":" + timer.getAllocatedBytes() + "}");
+        }
+        else {
+            writer.write(csv(path) + "," + status + "," + cached + "," + micros(timer.getTotalNanos()));
+            for (Phase phase : PHASES) {
+                writer.write("," + micros(timer.getNanos(phase)));
+            }
+            writer.write("," + timer.getAllocatedBytes() + "\n");
+        }
+
+        ++files;
+        totalNanos += timer.getTotalNanos();
+        totalBytes += Math.max(0, timer.getAllocatedBytes());
+        for (Phase phase : PHASES) {
+            totals[phase.ordinal()] += timer.getNanos(phase);
+        }
+
+        slowestFiles.add(new FileTiming(path, timer.getTotalNanos()));
+        if (slowestFiles.size() > top) {
+            slowestFiles.poll();
+        }
+
+        for (Map.Entry<String, long[]> entry : timer.getTemplates().entrySet()) {
+            long[] stats = templates.get(entry.getKey());
+            if (stats == null) {
+                stats = new long[2];
+                templates.put(entry.getKey(), stats);
+            }
+            stats[0] += entry.getValue()[0];
+            stats[1] += entry.getValue()[1];
+        }
+    }
+
+    /**
+     * Writes the summary and closes the report.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public synchronized void close() throws IOException {
+        try {
+            List<FileTiming> fileList = new ArrayList<FileTiming>(slowestFiles);
+            Collections.sort(fileList, Collections.reverseOrder(slowestFiles.comparator()));
+
+            List<Map.Entry<String, long[]>> templateList = new ArrayList<Map.Entry<String, long[]>>(
+                    templates.entrySet());
+            Collections.sort(templateList, new Comparator<Map.Entry<String, long[]>>() {
+                public int compare(Map.Entry<String, long[]> e1, Map.Entry<String, long[]> e2) {
+                    return Long.compare(e2.getValue()[1], e1.getValue()[1]);
+                }
+            });
+            if (templateList.size() > top) {
+                templateList = templateList.subList(0, top);
+            }
+
+            if (json) {
+                writeJsonSummary(fileList, templateList);
+            }
+            else {
+                writeCsvSummary(fileList, templateList);
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void writeJsonSummary(List<FileTiming> fileList, List<Map.Entry<String, long[]>> templateList)
+            throws IOException {
+        writer.write("\n],\n\"summary\":{\"files\":" + files + ",\"total_us\":" + micros(totalNanos));
+        for (Phase phase : PHASES) {
+            writer.write(",\"" + phase.name().toLowerCase() + "_us\":" + micros(totals[phase.ordinal()]));
+        }
+        writer.write(",\"allocated_bytes\":" + totalBytes + "},\n\"slowest_files\":[");
+        for (int i = 0; i < fileList.size(); ++i) {
+            FileTiming timing = fileList.get(i);
+            writer.write((i == 0 ? "\n" : ",\n") + "{\"file\":" + quote(timing.path)
+                    + ",\"total_us\":" + micros(timing.nanos) + "}");
+        }
+        writer.write("],\n\"slowest_templates\":[");
+        for (int i = 0; i < templateList.size(); ++i) {
+            Map.Entry<String, long[]> entry = templateList.get(i);
+            writer.write((i == 0 ? "\n" : ",\n") + "{\"template\":" + quote(entry.getKey())
+                    + ",\"count\":" + entry.getValue()[0] + ",\"total_us\":" + micros(entry.getValue()[1]) + "}");
+        }
+        writer.write("]}\n");
+    }
+
+    private void writeCsvSummary(List<FileTiming> fileList, List<Map.Entry<String, long[]>> templateList)
+            throws IOException {
+        writer.write("# summary,files," + files + ",total_us," + micros(totalNanos));
+        for (Phase phase : PHASES) {
+            writer.write("," + phase.name().toLowerCase() + "_us," + micros(totals[phase.ordinal()]));
+        }
+        writer.write(",allocated_bytes," + totalBytes + "\n");
+        for (int i = 0; i < fileList.size(); ++i) {
+            FileTiming timing = fileList.get(i);
+            writer.write("# slowest_file," + (i + 1) + "," + csv(timing.path) + "," + micros(timing.nanos) + "\n");
+        }
+        for (int i = 0; i < templateList.size(); ++i) {
+            Map.Entry<String, long[]> entry = templateList.get(i);
+            writer.write("# slowest_template," + (i + 1) + "," + csv(entry.getKey()) + ","
+                    + entry.getValue()[0] + "," + micros(entry.getValue()[1]) + "\n");
+        }
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int)c));
+            }
+            else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static class FileTiming {
+        private final String path;
+        private final long nanos;
+
+        public FileTiming(String path, long nanos) {
+            this.path = path;
+            this.nanos = nanos;
+        }
+    }
+}
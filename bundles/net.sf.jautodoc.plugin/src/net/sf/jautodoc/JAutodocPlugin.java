@@ -7,7 +7,9 @@
  *******************************************************************/
 package net.sf.jautodoc;
 
+import net.sf.jautodoc.coverage.CoverageModel;
 import net.sf.jautodoc.preferences.PreferenceStore;
+import net.sf.jautodoc.source.JavadocFingerprints;
 import net.sf.jautodoc.templates.velocity.VelocityApplicationContext;
 
 import org.eclipse.core.runtime.IStatus;
@@ -68,6 +70,8 @@ public class JAutodocPlugin extends AbstractUIPlugin {
      * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
      */
     public void stop(BundleContext context) throws Exception {
+        CoverageModel.disposeDefault();
+        JavadocFingerprints.saveAll();
         super.stop(context);
         plugin = null;
     }
@@ -99,6 +99,10 @@ public abstract class AbstractOAD implements IObjectActionDelegate {
         }
 
         final ITask task = getTask(cus);
+        if (task == null) {
+            return;
+        }
+
         try {
             new ProgressMonitorDialog(workbenchPage.getWorkbenchWindow().getShell())
                             .run(false, true, task);
@@ -158,7 +162,7 @@ public abstract class AbstractOAD implements IObjectActionDelegate {
      *
      * @param compUnits the compilation units
      * @param members the selected members
-     * @return the task
+     * @return the task or null, if the action was canceled
      */
     protected abstract ITask getTask(Map<ICompilationUnit, List<IMember>> cus);
 
@@ -7,11 +7,17 @@
  *******************************************************************/
 package net.sf.jautodoc.actions;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
@@ -23,6 +29,7 @@ import net.sf.jautodoc.preferences.Configuration;
 import net.sf.jautodoc.preferences.ConfigurationManager;
 import net.sf.jautodoc.preferences.Constants;
 import net.sf.jautodoc.source.JavadocFormatter;
+import net.sf.jautodoc.source.PatchWriter;
 import net.sf.jautodoc.source.SourceManipulator;
 import net.sf.jautodoc.utils.SourceUtils;
 import net.sf.jautodoc.utils.Utils;
@@ -37,28 +44,31 @@ public class AddJavadocOAD extends AbstractOAD {
      * @see net.sf.jautodoc.actions.AbstractOAD#getTask(java.lang.Object[], java.lang.Object[])
      */
     protected ITask getTask(final Map<ICompilationUnit, List<IMember>> cus) {
-        return new AddJavadocTask(cus);
+        return new AddJavadocTask(cus, null);
     }
 
     /**
-     * Task for adding Javadoc.
+     * Task for adding Javadoc. In patch mode the changes are written to
+     * the patch file and the compilation units are left unchanged.
      */
-    private class AddJavadocTask implements ITask {
+    protected class AddJavadocTask implements ITask {
 
         private Exception exception;
         private ICompilationUnit compUnit;
 
         private final Map<ICompilationUnit, List<IMember>> cus;
+        private final PatchWriter patchWriter;
 
 
         /**
          * Instantiates a new add javadoc task.
          *
-         * @param compUnits the compilation units
-         * @param members the selected members
+         * @param cus the compilation units with the selected members
+         * @param patchWriter the patch writer or null, if the compilation units should be changed
          */
-        public AddJavadocTask(final Map<ICompilationUnit, List<IMember>> cus) {
+        public AddJavadocTask(final Map<ICompilationUnit, List<IMember>> cus, final PatchWriter patchWriter) {
             this.cus = cus;
+            this.patchWriter = patchWriter;
         }
 
         /* (non-Javadoc)
@@ -101,12 +111,13 @@ public class AddJavadocOAD extends AbstractOAD {
                     }
 
                     IEditorPart editor = Utils.findEditor(compUnit);
-                    if (editor != null) {
+                    if (editor != null && patchWriter == null) {
                         editor.getEditorSite().getPage().bringToTop(editor);
                     }
 
                     final ICompilationUnit workingCopy = Utils.getWorkingCopy(compUnit, editor);
                     final SourceManipulator sm = new SourceManipulator(workingCopy, config);
+                    sm.setShowPreview(patchWriter != null);
 
                     if (members != null && members.size() > 0) {
                         final IMember[] wcMembers = getWorkingCopyMembers(workingCopy, members);
@@ -116,7 +127,14 @@ public class AddJavadocOAD extends AbstractOAD {
                         sm.addJavadoc(null);
                     }
 
-                    if (editor == null) {
+                    if (patchWriter != null) {
+                        patchWriter.add(compUnit.getPath().makeRelative().toString(),
+                                sm.getDocument().get(), sm.getChanges(), getCharset(compUnit));
+                        if (editor == null) {
+                            workingCopy.discardWorkingCopy();
+                        }
+                    }
+                    else if (editor == null) {
                         // not open in editor -> commit + discard
                         workingCopy.commitWorkingCopy(false, null);
                         workingCopy.discardWorkingCopy();
@@ -136,10 +154,31 @@ public class AddJavadocOAD extends AbstractOAD {
             }
             finally {
                 JavadocFormatter.getInstance().stopFormatting();
+                closePatchWriter();
                 monitor.done();
             }
         }
 
+        private void closePatchWriter() {
+            if (patchWriter == null) {
+                return;
+            }
+
+            try {
+                patchWriter.close();
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+
+        private Charset getCharset(final ICompilationUnit compUnit) throws CoreException {
+            final IResource resource = compUnit.getResource();
+            return Charset.forName(resource instanceof IFile ? ((IFile) resource).getCharset()
+                    : ResourcesPlugin.getEncoding());
+        }
+
         private IMember[] getWorkingCopyMembers(final ICompilationUnit workingCopy, final List<IMember> members) {
             final List<IMember> memberList = new ArrayList<IMember>();
             for (int i = 0; i < members.size(); ++i) {
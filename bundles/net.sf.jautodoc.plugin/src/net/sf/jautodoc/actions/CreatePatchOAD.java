@@ -0,0 +1,59 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.actions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+
+import net.sf.jautodoc.source.PatchWriter;
+
+
+/**
+ * Object action delegate for writing the Javadoc, that would be added, to a
+ * patch file. The compilation units are not changed.
+ */
+public class CreatePatchOAD extends AddJavadocOAD {
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.actions.AddJavadocOAD#getTask(java.util.Map)
+     */
+    protected ITask getTask(final Map<ICompilationUnit, List<IMember>> cus) {
+        final Shell shell = workbenchPage.getWorkbenchWindow().getShell();
+
+        final FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+        fileDialog.setText("Create patch");
+        fileDialog.setFileName("jautodoc.patch");
+        fileDialog.setFilterExtensions(new String[] {"*.patch", "*.diff", "*.*"});
+        final String selectedFile = fileDialog.open();
+        if (selectedFile == null) {
+            return null;
+        }
+
+        final File file = new File(selectedFile);
+        if (file.exists() && !MessageDialog.openQuestion(shell,
+                "File exists", "File '" + file.getName() + "' already exists. Replace?")) {
+            return null;
+        }
+
+        try {
+            return new AddJavadocTask(cus, new PatchWriter(file));
+        } catch (IOException e) {
+            MessageDialog.openError(shell, "Error", "Could not write file: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.actions;
+
+import java.io.File;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+
+import net.sf.jautodoc.templates.TemplateCorpus;
+
+
+/**
+ * Object action delegate for exporting the member signatures of the
+ * selected compilation units as corpus for the template simulation.
+ */
+public class ExportCorpusOAD extends AbstractOAD {
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.actions.AbstractOAD#getTask(java.util.Map)
+     */
+    protected ITask getTask(final Map<ICompilationUnit, List<IMember>> cus) {
+        final Shell shell = workbenchPage.getWorkbenchWindow().getShell();
+
+        final FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+        fileDialog.setText("Export template corpus");
+        fileDialog.setFileName("jautodoc_corpus.tsv");
+        fileDialog.setFilterExtensions(new String[] {"*.tsv", "*.*"});
+        final String selectedFile = fileDialog.open();
+        if (selectedFile == null) {
+            return null;
+        }
+
+        final File file = new File(selectedFile);
+        if (file.exists() && !MessageDialog.openQuestion(shell,
+                "File exists", "File '" + file.getName() + "' already exists. Replace?")) {
+            return null;
+        }
+        return new ExportCorpusTask(cus.keySet(), file);
+    }
+
+    /**
+     * Task for collecting and writing the corpus. All types of the
+     * compilation units are exported, also if single members are selected.
+     */
+    private static class ExportCorpusTask implements ITask {
+
+        private Exception exception;
+        private ICompilationUnit compUnit;
+
+        private final Collection<ICompilationUnit> cus;
+        private final File file;
+
+
+        public ExportCorpusTask(final Collection<ICompilationUnit> cus, final File file) {
+            this.cus = cus;
+            this.file = file;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.actions.AbstractOAD.ITask#getCompilationUnit()
+         */
+        public ICompilationUnit getCompilationUnit() {
+            return compUnit;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.actions.AbstractOAD.ITask#checkSuccess()
+         */
+        public void checkSuccess() throws Exception {
+            if (exception != null) {
+                throw exception;
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see org.eclipse.jface.operation.IRunnableWithProgress#run(org.eclipse.core.runtime.IProgressMonitor)
+         */
+        public void run(final IProgressMonitor monitor)
+                throws InvocationTargetException, InterruptedException {
+
+            final TemplateCorpus corpus = new TemplateCorpus();
+            try {
+                monitor.beginTask("Exporting template corpus...", cus.size());
+                for (final ICompilationUnit cu : cus) {
+                    compUnit = cu;
+                    monitor.subTask(compUnit.getElementName());
+                    if (monitor.isCanceled()) {
+                        return;
+                    }
+
+                    for (final IType type : compUnit.getTypes()) {
+                        corpus.addType(type);
+                    }
+                    monitor.worked(1);
+                }
+
+                compUnit = null;
+                try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                    corpus.write(writer);
+                }
+            }
+            catch (Exception e) {
+                exception = e;
+            }
+            finally {
+                monitor.done();
+            }
+        }
+    }
+}
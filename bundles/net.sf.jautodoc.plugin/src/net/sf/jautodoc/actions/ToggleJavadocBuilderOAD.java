@@ -0,0 +1,105 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.builder.JavadocBuilder;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+
+
+/**
+ * Object action delegate for enabling or disabling the Javadoc problem
+ * markers of the selected projects.
+ */
+public class ToggleJavadocBuilderOAD implements IObjectActionDelegate {
+
+    private final List<IProject> projects = new ArrayList<IProject>();
+
+
+    /* (non-Javadoc)
+     * @see org.eclipse.ui.IObjectActionDelegate#setActivePart(org.eclipse.jface.action.IAction, org.eclipse.ui.IWorkbenchPart)
+     */
+    public void setActivePart(final IAction action, final IWorkbenchPart targetPart) {
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.ui.IActionDelegate#run(org.eclipse.jface.action.IAction)
+     */
+    public void run(final IAction action) {
+        if (projects.isEmpty()) {
+            return;
+        }
+
+        final boolean enabled = action.isChecked();
+        final List<IProject> selectedProjects = new ArrayList<IProject>(projects);
+
+        final WorkspaceJob job = new WorkspaceJob("Configuring JAutodoc markers") {
+
+            @Override
+            public IStatus runInWorkspace(final IProgressMonitor monitor) throws CoreException {
+                monitor.beginTask(getName(), selectedProjects.size() * 2);
+                try {
+                    for (IProject project : selectedProjects) {
+                        JavadocBuilder.setEnabled(project, enabled, new SubProgressMonitor(monitor, 1));
+                        if (enabled) {
+                            project.build(IncrementalProjectBuilder.FULL_BUILD, JavadocBuilder.BUILDER_ID,
+                                    null, new SubProgressMonitor(monitor, 1));
+                        }
+                    }
+                }
+                finally {
+                    monitor.done();
+                }
+                return Status.OK_STATUS;
+            }
+        };
+        job.setRule(selectedProjects.get(0).getWorkspace().getRoot());
+        job.schedule();
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.ui.IActionDelegate#selectionChanged(org.eclipse.jface.action.IAction, org.eclipse.jface.viewers.ISelection)
+     */
+    public void selectionChanged(final IAction action, final ISelection selection) {
+        projects.clear();
+        if (selection instanceof IStructuredSelection) {
+            for (Object element : ((IStructuredSelection) selection).toArray()) {
+                if (element instanceof IJavaProject) {
+                    projects.add(((IJavaProject) element).getProject());
+                }
+            }
+        }
+
+        boolean enabled = !projects.isEmpty();
+        try {
+            for (IProject project : projects) {
+                enabled &= JavadocBuilder.isEnabled(project);
+            }
+        } catch (CoreException e) {
+            JAutodocPlugin.getDefault().handleException(e);
+        }
+        action.setChecked(enabled);
+    }
+}
@@ -0,0 +1,366 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.preferences.ConfigurationManager;
+import net.sf.jautodoc.search.TaskSearchEngine;
+import net.sf.jautodoc.search.TaskSearchMatch;
+import net.sf.jautodoc.search.TaskSearchMatch.Finding;
+import net.sf.jautodoc.search.TaskSearchPattern;
+import net.sf.jautodoc.search.TaskSearchScope;
+import net.sf.jautodoc.source.JavadocFingerprints;
+import net.sf.jautodoc.utils.HashBuilder;
+
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Optional project builder, that maintains problem markers for the findings of the JAutodoc
+ * search. The checks of the last search are used. Incremental builds process the compilation
+ * units of the delta only and check only members, whose source has changed since the last build.
+ * All markers of a build are replaced in one workspace operation, but only for the processed
+ * files. The markers of other files are removed after a complete full build only.
+ */
+public class JavadocBuilder extends IncrementalProjectBuilder {
+
+    public static final String BUILDER_ID  = JAutodocPlugin.PLUGIN_ID + ".javadocBuilder";
+    public static final String MARKER_TYPE = JAutodocPlugin.PLUGIN_ID + ".javadocProblem";
+
+    /** Marker attribute holding the name of the finding id. */
+    public static final String ATTR_FINDING_ID = "findingId";
+
+    private static final String SEARCH_SETTINGS = "TaskSearchPage";
+
+    /** Hash of the search pattern and configuration of the last build. */
+    private String checksHash;
+
+    /** States of the checked members per compilation unit handle. */
+    private final Map<String, Map<String, MemberState>> unitStates = new HashMap<String, Map<String, MemberState>>();
+
+
+    /**
+     * Checks, if the builder is enabled for the given project.
+     *
+     * @param project the project
+     * @return true, if enabled
+     * @throws CoreException thrown if the project description could not be read
+     */
+    public static boolean isEnabled(final IProject project) throws CoreException {
+        if (!project.isOpen()) {
+            return false;
+        }
+
+        for (ICommand command : project.getDescription().getBuildSpec()) {
+            if (BUILDER_ID.equals(command.getBuilderName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the builder to or removes it from the build specification of the given project. The
+     * markers of the project are removed, when disabled.
+     *
+     * @param project the project
+     * @param enabled true to add the builder, false to remove it
+     * @param monitor the progress monitor
+     * @throws CoreException thrown if the project description could not be changed
+     */
+    public static void setEnabled(final IProject project, final boolean enabled, final IProgressMonitor monitor)
+            throws CoreException {
+        if (isEnabled(project) == enabled) {
+            return;
+        }
+
+        final IProjectDescription description = project.getDescription();
+        final List<ICommand> commands = new ArrayList<ICommand>(Arrays.asList(description.getBuildSpec()));
+        if (enabled) {
+            final ICommand command = description.newCommand();
+            command.setBuilderName(BUILDER_ID);
+            commands.add(command);
+        }
+        else {
+            commands.removeIf(c -> BUILDER_ID.equals(c.getBuilderName()));
+        }
+        description.setBuildSpec(commands.toArray(new ICommand[commands.size()]));
+        project.setDescription(description, monitor);
+
+        if (!enabled) {
+            project.deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_INFINITE);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.core.resources.IncrementalProjectBuilder#build(int, java.util.Map, org.eclipse.core.runtime.IProgressMonitor)
+     */
+    @Override
+    protected IProject[] build(final int kind, final Map<String, String> args, final IProgressMonitor monitor)
+            throws CoreException {
+
+        final IJavaProject javaProject = JavaCore.create(getProject());
+        if (!javaProject.exists()) {
+            return null;
+        }
+
+        final TaskSearchPattern pattern = TaskSearchPattern.create(
+                JAutodocPlugin.getDefault().getDialogSettingsSection(SEARCH_SETTINGS));
+
+        String hash = null;
+        try {
+            hash = new HashBuilder().add(pattern.getHash()).add(JavadocFingerprints.getGenerationHash(
+                    ConfigurationManager.getConfiguration(getProject()))).toHex();
+        } catch (Exception e) {
+            JAutodocPlugin.getDefault().handleException(javaProject, e);
+            return null;
+        }
+
+        final IResourceDelta delta = kind == FULL_BUILD ? null : getDelta(getProject());
+        final boolean fullBuild = delta == null || !hash.equals(checksHash);
+        if (fullBuild) {
+            unitStates.clear();
+            checksHash = hash;
+        }
+
+        final Map<IFile, List<Map<String, Object>>> markers = new LinkedHashMap<IFile, List<Map<String, Object>>>();
+        boolean complete = false;
+        try {
+            if (fullBuild) {
+                TaskSearchScope.createProjectScope(new String[] { getProject().getName() }).accept(
+                        (compUnit, m) -> checkUnit(compUnit, pattern, markers, m), monitor);
+            }
+            else {
+                checkUnits(getChangedUnits(delta, javaProject), pattern, markers, monitor);
+            }
+            complete = !monitor.isCanceled();
+        } catch (Exception e) {
+            JAutodocPlugin.getDefault().handleException(javaProject, e);
+        }
+
+        if (fullBuild && !complete) {
+            checksHash = null; // markers of the remaining files are outdated, build them next time
+        }
+        updateMarkers(fullBuild && complete, markers, monitor);
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.core.resources.IncrementalProjectBuilder#clean(org.eclipse.core.runtime.IProgressMonitor)
+     */
+    @Override
+    protected void clean(final IProgressMonitor monitor) throws CoreException {
+        unitStates.clear();
+        checksHash = null;
+        getProject().deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_INFINITE);
+    }
+
+    private List<ICompilationUnit> getChangedUnits(final IResourceDelta delta, final IJavaProject javaProject)
+            throws CoreException {
+
+        final List<ICompilationUnit> compUnits = new ArrayList<ICompilationUnit>();
+        delta.accept(d -> {
+            final IResource resource = d.getResource();
+            if (resource.getType() != IResource.FILE || !"java".equals(resource.getFileExtension())) {
+                return true;
+            }
+
+            if (d.getKind() == IResourceDelta.REMOVED) {
+                final IJavaElement element = JavaCore.create(resource);
+                if (element != null) {
+                    unitStates.remove(element.getHandleIdentifier()); // markers are gone with the file
+                }
+            }
+            else if ((d.getFlags() & IResourceDelta.CONTENT) != 0 || d.getKind() == IResourceDelta.ADDED) {
+                final IJavaElement element = JavaCore.create(resource);
+                if (element instanceof ICompilationUnit && javaProject.isOnClasspath(element)) {
+                    compUnits.add((ICompilationUnit) element);
+                }
+            }
+            return false;
+        });
+        return compUnits;
+    }
+
+    private void checkUnits(final List<ICompilationUnit> compUnits, final TaskSearchPattern pattern,
+            final Map<IFile, List<Map<String, Object>>> markers, final IProgressMonitor monitor) throws Exception {
+
+        monitor.beginTask("", compUnits.size());
+        for (ICompilationUnit compUnit : compUnits) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            checkUnit(compUnit, pattern, markers, new SubProgressMonitor(monitor, 1));
+        }
+        monitor.done();
+    }
+
+    private void checkUnit(final ICompilationUnit compUnit, final TaskSearchPattern pattern,
+            final Map<IFile, List<Map<String, Object>>> markers, final IProgressMonitor monitor) throws Exception {
+
+        final IResource resource = compUnit.getResource();
+        if (!(resource instanceof IFile) || !compUnit.exists()) {
+            return;
+        }
+
+        final Map<String, MemberState> states = unitStates.get(compUnit.getHandleIdentifier());
+        final MarkerEngine engine = new MarkerEngine(compUnit, pattern,
+                states != null ? states : Collections.<String, MemberState>emptyMap());
+        engine.search(monitor);
+
+        unitStates.put(compUnit.getHandleIdentifier(), engine.states);
+        markers.put((IFile) resource, engine.markers);
+    }
+
+    /**
+     * Replaces the markers of the processed files.
+     *
+     * @param removeOthers true to remove the markers of all other files of the project
+     */
+    private void updateMarkers(final boolean removeOthers, final Map<IFile, List<Map<String, Object>>> markers,
+            final IProgressMonitor monitor) throws CoreException {
+
+        final IWorkspace workspace = ResourcesPlugin.getWorkspace();
+        workspace.run((IWorkspaceRunnable) m -> {
+            for (Map.Entry<IFile, List<Map<String, Object>>> entry : markers.entrySet()) {
+                final IFile file = entry.getKey();
+                file.deleteMarkers(MARKER_TYPE, false, IResource.DEPTH_ZERO);
+                for (Map<String, Object> attributes : entry.getValue()) {
+                    file.createMarker(MARKER_TYPE).setAttributes(attributes);
+                }
+            }
+
+            if (removeOthers) { // e.g. of files no longer on the classpath
+                for (IMarker marker : getProject().findMarkers(MARKER_TYPE, false, IResource.DEPTH_INFINITE)) {
+                    if (!markers.containsKey(marker.getResource())) {
+                        marker.delete();
+                    }
+                }
+            }
+        }, getProject(), IWorkspace.AVOID_UPDATE, monitor);
+    }
+
+    // ------------------------------------------------------------------------
+    // inner classes
+    // ------------------------------------------------------------------------
+
+    /**
+     * The source hash of a checked member with its findings.
+     */
+    private static class MemberState {
+        private final String sourceHash;
+        private final int sourceOffset;
+        private final List<TaskSearchMatch> matches = new ArrayList<TaskSearchMatch>();
+
+        MemberState(final String sourceHash, final int sourceOffset) {
+            this.sourceHash = sourceHash;
+            this.sourceOffset = sourceOffset;
+        }
+    }
+
+    /**
+     * Search engine, that converts the findings of a unit to marker attributes. The findings of
+     * unchanged members are taken from their previous state and moved to the current position.
+     */
+    private static class MarkerEngine extends TaskSearchEngine {
+        private final Map<String, MemberState> previousStates;
+        private final Map<String, MemberState> states = new HashMap<String, MemberState>();
+        private final Map<IMember, MemberState> reusedStates = new LinkedHashMap<IMember, MemberState>();
+        private final List<Map<String, Object>> markers = new ArrayList<Map<String, Object>>();
+
+
+        MarkerEngine(final ICompilationUnit compUnit, final TaskSearchPattern pattern,
+                final Map<String, MemberState> previousStates) {
+            super(compUnit, pattern);
+            this.previousStates = previousStates;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.search.TaskSearchEngine#isUnchanged(org.eclipse.jdt.core.IMember)
+         */
+        @Override
+        protected boolean isUnchanged(final IMember member) throws Exception {
+            final String handle = member.getHandleIdentifier();
+            final String sourceHash = new HashBuilder().add(member.getSource()).toHex();
+
+            final MemberState previous = previousStates.get(handle);
+            if (previous != null && previous.sourceHash.equals(sourceHash)) {
+                states.put(handle, previous);
+                reusedStates.put(member, previous);
+                return true;
+            }
+
+            states.put(handle, new MemberState(sourceHash, member.getSourceRange().getOffset()));
+            return false;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.search.TaskSearchEngine#addFindings(java.util.List)
+         */
+        @Override
+        protected void addFindings(final List<TaskSearchMatch> matches) throws Exception {
+            for (TaskSearchMatch match : matches) {
+                final Object element = match.getElement();
+                if (element instanceof IMember) {
+                    final MemberState state = states.get(((IMember) element).getHandleIdentifier());
+                    if (state != null) {
+                        state.matches.add(match);
+                    }
+                }
+                addMarkers(match, 0);
+            }
+
+            for (Map.Entry<IMember, MemberState> entry : reusedStates.entrySet()) {
+                final MemberState state = entry.getValue();
+                final int shift = entry.getKey().getSourceRange().getOffset() - state.sourceOffset;
+                for (TaskSearchMatch match : state.matches) {
+                    addMarkers(match, shift);
+                }
+            }
+        }
+
+        private void addMarkers(final TaskSearchMatch match, final int shift) throws Exception {
+            final int offset = match.getOffset() + shift;
+            for (Finding finding : match.getFindings()) {
+                final Map<String, Object> attributes = new HashMap<String, Object>();
+                attributes.put(IMarker.MESSAGE, finding.getMessage());
+                attributes.put(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+                attributes.put(IMarker.CHAR_START, offset);
+                attributes.put(IMarker.CHAR_END, offset + match.getLength());
+                attributes.put(IMarker.LINE_NUMBER, document.getLineOfOffset(offset) + 1);
+                attributes.put(ATTR_FINDING_ID, finding.getId().name());
+                markers.add(attributes);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.coverage;
+
+import java.util.Arrays;
+
+import org.eclipse.jdt.core.Flags;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+
+
+/**
+ * Numbers of documented and required members per kind and visibility.
+ */
+public final class CoverageCounts {
+
+    public static final int ALL = -1;
+
+    public static final int TYPE   = 0;
+    public static final int FIELD  = 1;
+    public static final int METHOD = 2;
+
+    public static final int PUBLIC    = 0;
+    public static final int PROTECTED = 1;
+    public static final int PACKAGE   = 2;
+    public static final int PRIVATE   = 3;
+
+    private static final String[] KIND_NAMES = { "type", "field", "method" };
+    private static final String[] VISIBILITY_NAMES = { "public", "protected", "package", "private" };
+
+    private final int[] documented = new int[KIND_NAMES.length * VISIBILITY_NAMES.length];
+    private final int[] required   = new int[KIND_NAMES.length * VISIBILITY_NAMES.length];
+
+
+    public CoverageCounts() {
+    }
+
+    public CoverageCounts(final CoverageCounts counts) {
+        add(counts, 1);
+    }
+
+    /**
+     * Counts the given required member.
+     *
+     * @param member the member
+     * @param isDocumented true, if the member has a Javadoc comment
+     * @throws JavaModelException thrown if the flags of the member could not be read
+     */
+    public void add(final IMember member, final boolean isDocumented) throws JavaModelException {
+        final int index = getIndex(getKind(member), getVisibility(member));
+        ++required[index];
+        if (isDocumented) {
+            ++documented[index];
+        }
+    }
+
+    /**
+     * Adds or subtracts the given counts.
+     *
+     * @param counts the counts
+     * @param sign 1 to add, -1 to subtract
+     */
+    public void add(final CoverageCounts counts, final int sign) {
+        for (int i = 0; i < required.length; ++i) {
+            documented[i] += sign * counts.documented[i];
+            required[i]   += sign * counts.required[i];
+        }
+    }
+
+    /**
+     * Gets the number of documented members.
+     *
+     * @param kind the kind or {@link #ALL}
+     * @param visibility the visibility or {@link #ALL}
+     * @return the number of documented members
+     */
+    public int getDocumented(final int kind, final int visibility) {
+        return sum(documented, kind, visibility);
+    }
+
+    /**
+     * Gets the number of members, that require a Javadoc comment.
+     *
+     * @param kind the kind or {@link #ALL}
+     * @param visibility the visibility or {@link #ALL}
+     * @return the number of required members
+     */
+    public int getRequired(final int kind, final int visibility) {
+        return sum(required, kind, visibility);
+    }
+
+    public int getDocumented() {
+        return getDocumented(ALL, ALL);
+    }
+
+    public int getRequired() {
+        return getRequired(ALL, ALL);
+    }
+
+    /**
+     * Gets the coverage in percent.
+     *
+     * @return the coverage, 100 if nothing is required
+     */
+    public double getCoverage() {
+        final int total = getRequired();
+        return total == 0 ? 100.0 : 100.0 * getDocumented() / total;
+    }
+
+    public boolean isEmpty() {
+        return getRequired() == 0;
+    }
+
+    public static String getKindName(final int kind) {
+        return KIND_NAMES[kind];
+    }
+
+    public static int getKindCount() {
+        return KIND_NAMES.length;
+    }
+
+    public static String getVisibilityName(final int visibility) {
+        return VISIBILITY_NAMES[visibility];
+    }
+
+    public static int getVisibilityCount() {
+        return VISIBILITY_NAMES.length;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof CoverageCounts)) {
+            return false;
+        }
+        final CoverageCounts other = (CoverageCounts) obj;
+        return Arrays.equals(documented, other.documented) && Arrays.equals(required, other.required);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+        return 31 * Arrays.hashCode(documented) + Arrays.hashCode(required);
+    }
+
+    private static int sum(final int[] values, final int kind, final int visibility) {
+        int sum = 0;
+        for (int k = 0; k < KIND_NAMES.length; ++k) {
+            for (int v = 0; v < VISIBILITY_NAMES.length; ++v) {
+                if ((kind == ALL || kind == k) && (visibility == ALL || visibility == v)) {
+                    sum += values[getIndex(k, v)];
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static int getIndex(final int kind, final int visibility) {
+        return kind * VISIBILITY_NAMES.length + visibility;
+    }
+
+    private static int getKind(final IMember member) {
+        switch (member.getElementType()) {
+        case IMember.TYPE:  return TYPE;
+        case IMember.FIELD: return FIELD;
+        default:            return METHOD;
+        }
+    }
+
+    private static int getVisibility(final IMember member) throws JavaModelException {
+        final int flags = member.getFlags();
+        final IType declaringType = member.getDeclaringType();
+        if (Flags.isPublic(flags)
+                || declaringType != null && declaringType.isInterface() && !Flags.isPrivate(flags)) {
+            return PUBLIC; // implicitly public in interfaces
+        }
+        if (Flags.isProtected(flags)) {
+            return PROTECTED;
+        }
+        return Flags.isPrivate(flags) ? PRIVATE : PACKAGE;
+    }
+}
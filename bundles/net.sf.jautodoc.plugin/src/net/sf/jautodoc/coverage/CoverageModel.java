@@ -0,0 +1,525 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.coverage;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.preferences.ConfigurationManager;
+import net.sf.jautodoc.preferences.IMemberFilter;
+import net.sf.jautodoc.utils.SourceUtils;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaModel;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+
+/**
+ * Javadoc coverage of compilation units, rolled up by package, source folder
+ * and project. Required members are selected by the member filter of the
+ * project configuration, unless the model is created with an explicit
+ * filter. The roll-ups are maintained incrementally: changing
+ * a unit applies the difference of its counts to all of its ancestors.
+ * <p>
+ * The shared instance follows Java element deltas, other instances are
+ * filled explicitly, e.g. for headless export.
+ */
+public class CoverageModel {
+
+    private static final int CHANGED_FLAGS = IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_CHILDREN
+            | IJavaElementDelta.F_PRIMARY_RESOURCE;
+    private static final int REMOVED_FLAGS = IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_CLOSED;
+    private static final int ADDED_FLAGS   = IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_OPENED;
+
+    private static final Comparator<IJavaElement> NAME_ORDER =
+            (e1, e2) -> e1.getElementName().compareTo(e2.getElementName());
+
+    private static CoverageModel sharedInstance;
+
+    /** Counts of units and their ancestors. */
+    private final Map<IJavaElement, CoverageCounts> counts = new HashMap<IJavaElement, CoverageCounts>();
+
+    /** Children of projects, source folders and packages. */
+    private final Map<IJavaElement, Set<IJavaElement>> children = new HashMap<IJavaElement, Set<IJavaElement>>();
+
+    private final Set<IJavaProject> projects = new HashSet<IJavaProject>();
+
+    private final List<ICoverageListener> listeners = new CopyOnWriteArrayList<ICoverageListener>();
+
+    /** Selects the required members, null for the project configuration. */
+    private final IMemberFilter filter;
+
+    private IElementChangedListener deltaListener;
+    private UpdateJob updateJob;
+
+
+    /**
+     * Instantiates a new coverage model, that selects the required members by
+     * the configuration of their project.
+     */
+    public CoverageModel() {
+        this(null);
+    }
+
+    /**
+     * Instantiates a new coverage model.
+     *
+     * @param filter selects the required members of all projects, null for
+     *        the configuration of each project
+     */
+    public CoverageModel(final IMemberFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Gets the shared instance. It is initialized in background on first
+     * access and kept up to date afterwards.
+     *
+     * @return the shared coverage model
+     */
+    public static synchronized CoverageModel getDefault() {
+        if (sharedInstance == null) {
+            sharedInstance = new CoverageModel();
+            sharedInstance.startTracking();
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Stops tracking of the shared instance, if any.
+     */
+    public static synchronized void disposeDefault() {
+        if (sharedInstance != null) {
+            sharedInstance.stopTracking();
+            sharedInstance = null;
+        }
+    }
+
+    /**
+     * Schedules a complete rescan of the workspace, if this model follows
+     * Java element deltas.
+     */
+    public void refresh() {
+        if (updateJob != null) {
+            updateJob.addScan(JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()));
+            updateJob.schedule();
+        }
+    }
+
+    public void addCoverageListener(final ICoverageListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeCoverageListener(final ICoverageListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Recomputes the counts of the given compilation unit.
+     *
+     * @param compUnit the compilation unit
+     * @throws JavaModelException thrown if the unit could not be read
+     */
+    public void update(final ICompilationUnit compUnit) throws JavaModelException {
+        final ICompilationUnit primary = compUnit.getPrimary();
+        if (!primary.exists()) {
+            remove(primary);
+            return;
+        }
+        apply(primary, computeCounts(primary));
+    }
+
+    /**
+     * Recomputes the counts of all compilation units in the given project,
+     * source folder or package.
+     *
+     * @param element the element to scan
+     * @param monitor the progress monitor
+     * @throws JavaModelException thrown if an element could not be read
+     */
+    public void scan(final IJavaElement element, final IProgressMonitor monitor) throws JavaModelException {
+        final List<ICompilationUnit> compUnits = new ArrayList<ICompilationUnit>();
+        collectUnits(element, compUnits);
+
+        monitor.beginTask("Computing Javadoc coverage...", compUnits.size());
+        try {
+            remove(element);
+            for (ICompilationUnit compUnit : compUnits) {
+                if (monitor.isCanceled()) {
+                    break;
+                }
+                monitor.subTask(compUnit.getElementName());
+                update(compUnit);
+                monitor.worked(1);
+            }
+        }
+        finally {
+            monitor.done();
+        }
+    }
+
+    /**
+     * Removes the given element and everything below.
+     *
+     * @param element the element to remove
+     */
+    public synchronized void remove(final IJavaElement element) {
+        final CoverageCounts old = counts.get(element);
+        if (old == null) {
+            return;
+        }
+
+        removeSubtree(element);
+        for (IJavaElement parent = getParent(element); parent != null; parent = getParent(parent)) {
+            counts.get(parent).add(old, -1);
+        }
+        unlink(element);
+    }
+
+    /**
+     * Gets a copy of the counts of the given element.
+     *
+     * @param element a project, source folder, package or compilation unit
+     * @return the counts, empty if the element is unknown
+     */
+    public synchronized CoverageCounts getCounts(final IJavaElement element) {
+        final CoverageCounts elementCounts = counts.get(element);
+        return elementCounts == null ? new CoverageCounts() : new CoverageCounts(elementCounts);
+    }
+
+    /**
+     * Gets the children of the given element, sorted by name.
+     *
+     * @param element a project, source folder or package, null for the projects
+     * @return the children
+     */
+    public synchronized IJavaElement[] getChildren(final IJavaElement element) {
+        final Set<IJavaElement> elements = element == null ? new HashSet<IJavaElement>(projects)
+                : children.get(element);
+        if (elements == null) {
+            return new IJavaElement[0];
+        }
+
+        final IJavaElement[] result = elements.toArray(new IJavaElement[elements.size()]);
+        Arrays.sort(result, NAME_ORDER);
+        return result;
+    }
+
+    /**
+     * Writes the counts of all projects, source folders and packages as CSV.
+     *
+     * @param writer the writer
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final Writer writer) throws IOException {
+        writer.write("project,folder,package");
+        for (int k = 0; k < CoverageCounts.getKindCount(); ++k) {
+            for (int v = 0; v < CoverageCounts.getVisibilityCount(); ++v) {
+                final String column = CoverageCounts.getKindName(k) + "_" + CoverageCounts.getVisibilityName(v);
+                writer.write("," + column + "_documented," + column + "_required");
+            }
+        }
+        writer.write(",documented,required,coverage\n");
+
+        for (IJavaElement project : getChildren(null)) {
+            writeRow(writer, project, project.getElementName(), "", "");
+            for (IJavaElement root : getChildren(project)) {
+                final String folder = root.getPath().removeFirstSegments(1).toString();
+                writeRow(writer, root, project.getElementName(), folder, "");
+                for (IJavaElement pkg : getChildren(root)) {
+                    writeRow(writer, pkg, project.getElementName(), folder, pkg.getElementName());
+                }
+            }
+        }
+    }
+
+    private void writeRow(final Writer writer, final IJavaElement element, final String project,
+            final String folder, final String pkg) throws IOException {
+
+        final CoverageCounts elementCounts = getCounts(element);
+        writer.write(project + "," + folder + "," + pkg);
+        for (int k = 0; k < CoverageCounts.getKindCount(); ++k) {
+            for (int v = 0; v < CoverageCounts.getVisibilityCount(); ++v) {
+                writer.write("," + elementCounts.getDocumented(k, v) + "," + elementCounts.getRequired(k, v));
+            }
+        }
+        writer.write("," + elementCounts.getDocumented() + "," + elementCounts.getRequired() + ","
+                + String.format(Locale.ENGLISH, "%.1f", elementCounts.getCoverage()) + "\n");
+    }
+
+    private CoverageCounts computeCounts(final ICompilationUnit compUnit) throws JavaModelException {
+        final IMemberFilter config = filter != null ? filter : ConfigurationManager.getConfiguration(compUnit);
+        final CoverageCounts unitCounts = new CoverageCounts();
+
+        final List<IMember> members = new ArrayList<IMember>();
+        for (IType type : compUnit.getTypes()) {
+            if (SourceUtils.isMatchingType(type, config)) {
+                members.add(type);
+            }
+            SourceUtils.getMembers(type, members, config);
+        }
+
+        for (IMember member : members) {
+            unitCounts.add(member, member.getJavadocRange() != null);
+        }
+        return unitCounts;
+    }
+
+    private synchronized void apply(final ICompilationUnit compUnit, final CoverageCounts unitCounts) {
+        final CoverageCounts old = counts.get(compUnit);
+        if (unitCounts.equals(old)) {
+            return;
+        }
+
+        final CoverageCounts diff = new CoverageCounts(unitCounts);
+        if (old != null) {
+            diff.add(old, -1);
+        }
+
+        counts.put(compUnit, unitCounts);
+        IJavaElement child = compUnit;
+        for (IJavaElement parent = getParent(child); parent != null; child = parent, parent = getParent(parent)) {
+            counts.computeIfAbsent(parent, p -> new CoverageCounts()).add(diff, 1);
+            children.computeIfAbsent(parent, p -> new HashSet<IJavaElement>()).add(child);
+        }
+        projects.add(compUnit.getJavaProject());
+    }
+
+    private void removeSubtree(final IJavaElement element) {
+        counts.remove(element);
+        final Set<IJavaElement> elementChildren = children.remove(element);
+        if (elementChildren != null) {
+            for (IJavaElement child : elementChildren) {
+                removeSubtree(child);
+            }
+        }
+    }
+
+    private void unlink(final IJavaElement element) {
+        final IJavaElement parent = getParent(element);
+        if (parent == null) {
+            projects.remove(element);
+            return;
+        }
+
+        final Set<IJavaElement> siblings = children.get(parent);
+        if (siblings != null) {
+            siblings.remove(element);
+            if (siblings.isEmpty()) {
+                children.remove(parent);
+                counts.remove(parent);
+                unlink(parent);
+            }
+        }
+    }
+
+    private static IJavaElement getParent(final IJavaElement element) {
+        return element.getElementType() == IJavaElement.JAVA_PROJECT ? null : element.getParent();
+    }
+
+    private static void collectUnits(final IJavaElement element, final List<ICompilationUnit> compUnits)
+            throws JavaModelException {
+
+        switch (element.getElementType()) {
+        case IJavaElement.JAVA_PROJECT:
+            for (IPackageFragmentRoot root : ((IJavaProject) element).getPackageFragmentRoots()) {
+                collectUnits(root, compUnits);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+            final IPackageFragmentRoot root = (IPackageFragmentRoot) element;
+            if (root.getKind() == IPackageFragmentRoot.K_SOURCE && !root.isExternal()) {
+                for (IJavaElement pkg : root.getChildren()) {
+                    collectUnits(pkg, compUnits);
+                }
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT:
+            compUnits.addAll(Arrays.asList(((IPackageFragment) element).getCompilationUnits()));
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            compUnits.add((ICompilationUnit) element);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void startTracking() {
+        updateJob = new UpdateJob();
+        deltaListener = event -> {
+            updateJob.collectAffected(event.getDelta());
+            updateJob.schedule(200);
+        };
+        JavaCore.addElementChangedListener(deltaListener, ElementChangedEvent.POST_CHANGE);
+
+        refresh();
+    }
+
+    private void stopTracking() {
+        JavaCore.removeElementChangedListener(deltaListener);
+        updateJob.cancel();
+    }
+
+    private void fireCoverageChanged() {
+        for (ICoverageListener listener : listeners) {
+            listener.coverageChanged(this);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // inner classes
+    // ------------------------------------------------------------------------
+
+    /**
+     * Listener for coverage changes.
+     */
+    public interface ICoverageListener {
+
+        /**
+         * Called after the coverage has been changed, not necessarily in the UI thread.
+         *
+         * @param model the coverage model
+         */
+        void coverageChanged(CoverageModel model);
+    }
+
+    private final class UpdateJob extends Job {
+
+        private final Set<IJavaElement> scans = new LinkedHashSet<IJavaElement>();
+        private final Set<IJavaElement> removals = new LinkedHashSet<IJavaElement>();
+        private final Set<ICompilationUnit> updates = new LinkedHashSet<ICompilationUnit>();
+
+        public UpdateJob() {
+            super("Update JAutodoc Coverage");
+            setSystem(true);
+        }
+
+        public synchronized void addScan(final IJavaElement element) {
+            scans.add(element);
+        }
+
+        public synchronized void collectAffected(final IJavaElementDelta delta) {
+            final IJavaElement element = delta.getElement();
+            final int flags = delta.getFlags();
+
+            if (element instanceof ICompilationUnit && ((ICompilationUnit) element).getOwner() != null) {
+                return; // private working copy
+            }
+
+            if (delta.getKind() == IJavaElementDelta.REMOVED || (flags & REMOVED_FLAGS) != 0) {
+                removals.add(element);
+            }
+            else if (delta.getKind() == IJavaElementDelta.ADDED || (flags & ADDED_FLAGS) != 0) {
+                scans.add(element);
+            }
+            else if (element instanceof ICompilationUnit) {
+                if ((flags & CHANGED_FLAGS) != 0) {
+                    updates.add((ICompilationUnit) element);
+                }
+            }
+            else {
+                for (IJavaElementDelta childDelta : delta.getAffectedChildren()) {
+                    collectAffected(childDelta);
+                }
+            }
+        }
+
+        @Override
+        protected IStatus run(final IProgressMonitor monitor) {
+            final Set<IJavaElement> pendingScans;
+            final Set<IJavaElement> pendingRemovals;
+            final Set<ICompilationUnit> pendingUpdates;
+            synchronized (this) {
+                pendingScans = new LinkedHashSet<IJavaElement>(scans);
+                pendingRemovals = new LinkedHashSet<IJavaElement>(removals);
+                pendingUpdates = new LinkedHashSet<ICompilationUnit>(updates);
+                scans.clear();
+                removals.clear();
+                updates.clear();
+            }
+
+            monitor.beginTask(getName(), pendingScans.size() + pendingUpdates.size());
+            for (IJavaElement element : pendingRemovals) {
+                remove(element);
+            }
+            for (IJavaElement element : pendingScans) {
+                scan(element, new SubProgressMonitor(monitor, 1));
+            }
+            for (ICompilationUnit compUnit : pendingUpdates) {
+                if (monitor.isCanceled()) {
+                    break;
+                }
+                try {
+                    update(compUnit);
+                } catch (JavaModelException e) {
+                    // ignore, e.g. unit not on classpath
+                }
+                monitor.worked(1);
+            }
+            monitor.done();
+
+            fireCoverageChanged();
+            return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+        }
+
+        private void scan(final IJavaElement element, final IProgressMonitor monitor) {
+            try {
+                if (element.getElementType() == IJavaElement.JAVA_MODEL) {
+                    final IJavaProject[] javaProjects = ((IJavaModel) element).getJavaProjects();
+                    monitor.beginTask("", javaProjects.length);
+                    for (IJavaElement project : getChildren(null)) {
+                        if (!project.exists()) {
+                            remove(project);
+                        }
+                    }
+                    for (IJavaProject project : javaProjects) {
+                        CoverageModel.this.scan(project, new SubProgressMonitor(monitor, 1));
+                    }
+                }
+                else if (element.exists()) {
+                    CoverageModel.this.scan(element, monitor);
+                }
+            } catch (CoreException e) {
+                JAutodocPlugin.getDefault().handleException(e);
+            }
+            finally {
+                monitor.done();
+            }
+        }
+    }
+}
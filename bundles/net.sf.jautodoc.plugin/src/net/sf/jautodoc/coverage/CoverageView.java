@@ -0,0 +1,231 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.coverage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.ResourceManager;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.ui.JavaElementLabelProvider;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.TreeColumn;
+import org.eclipse.ui.part.ViewPart;
+
+
+/**
+ * Shows the Javadoc coverage of the workspace by project, source folder and
+ * package. The view renders the shared coverage model and does not scan the
+ * workspace itself.
+ */
+public class CoverageView extends ViewPart implements CoverageModel.ICoverageListener {
+
+    public static final String ID = "net.sf.jautodoc.coverage.CoverageView";
+
+    private static final String COLUMN_HEADERS[] = { "Element", "Coverage", "Documented", "Required",
+            "Types", "Fields", "Methods", "Public", "Protected", "Package", "Private" };
+
+    private static final int COLUMN_WIDTHS[] = { 250, 70, 80, 70, 70, 70, 70, 70, 70, 70, 70 };
+
+    private TreeViewer viewer;
+    private CoverageModel model;
+
+
+    /* (non-Javadoc)
+     * @see org.eclipse.ui.part.WorkbenchPart#createPartControl(org.eclipse.swt.widgets.Composite)
+     */
+    public void createPartControl(final Composite parent) {
+        viewer = new TreeViewer(parent, SWT.H_SCROLL | SWT.V_SCROLL | SWT.MULTI | SWT.FULL_SELECTION);
+        viewer.getTree().setHeaderVisible(true);
+        viewer.getTree().setLinesVisible(true);
+        for (int i = 0; i < COLUMN_HEADERS.length; i++) {
+            final TreeColumn tc = new TreeColumn(viewer.getTree(), i == 0 ? SWT.LEFT : SWT.RIGHT, i);
+            tc.setText(COLUMN_HEADERS[i]);
+            tc.setWidth(COLUMN_WIDTHS[i]);
+        }
+
+        model = CoverageModel.getDefault();
+        viewer.setContentProvider(new CoverageContentProvider());
+        viewer.setLabelProvider(new CoverageLabelProvider());
+        viewer.setInput(model);
+        model.addCoverageListener(this);
+
+        final IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+        toolBar.add(new RefreshAction());
+        toolBar.add(new ExportAction());
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.ui.part.WorkbenchPart#setFocus()
+     */
+    public void setFocus() {
+        viewer.getControl().setFocus();
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.ui.part.WorkbenchPart#dispose()
+     */
+    public void dispose() {
+        if (model != null) {
+            model.removeCoverageListener(this);
+        }
+        super.dispose();
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.coverage.CoverageModel.ICoverageListener#coverageChanged(net.sf.jautodoc.coverage.CoverageModel)
+     */
+    public void coverageChanged(final CoverageModel changedModel) {
+        final Shell shell = getSite().getShell();
+        if (shell == null || shell.isDisposed()) {
+            return;
+        }
+        shell.getDisplay().asyncExec(() -> {
+            if (!viewer.getControl().isDisposed()) {
+                viewer.refresh();
+            }
+        });
+    }
+
+    // ------------------------------------------------------------------------
+    // inner classes
+    // ------------------------------------------------------------------------
+
+    private final class CoverageContentProvider implements ITreeContentProvider {
+
+        public Object[] getElements(final Object inputElement) {
+            return model.getChildren(null);
+        }
+
+        public Object[] getChildren(final Object parentElement) {
+            if (parentElement instanceof IJavaElement
+                    && ((IJavaElement) parentElement).getElementType() != IJavaElement.PACKAGE_FRAGMENT) {
+                return model.getChildren((IJavaElement) parentElement);
+            }
+            return new Object[0];
+        }
+
+        public Object getParent(final Object element) {
+            return element instanceof IJavaElement ? ((IJavaElement) element).getParent() : null;
+        }
+
+        public boolean hasChildren(final Object element) {
+            return getChildren(element).length > 0;
+        }
+
+        public void inputChanged(final Viewer viewer, final Object oldInput, final Object newInput) {
+        }
+
+        public void dispose() {
+        }
+    }
+
+    private final class CoverageLabelProvider extends LabelProvider implements ITableLabelProvider {
+
+        private final JavaElementLabelProvider elementLabelProvider = new JavaElementLabelProvider(
+                JavaElementLabelProvider.SHOW_DEFAULT | JavaElementLabelProvider.SHOW_SMALL_ICONS);
+
+
+        public Image getColumnImage(final Object element, final int columnIndex) {
+            return columnIndex == 0 ? elementLabelProvider.getImage(element) : null;
+        }
+
+        public String getColumnText(final Object element, final int columnIndex) {
+            final IJavaElement javaElement = (IJavaElement) element;
+            final CoverageCounts counts = model.getCounts(javaElement);
+            switch (columnIndex) {
+            case 0:
+                return javaElement.getElementType() == IJavaElement.PACKAGE_FRAGMENT_ROOT
+                        ? javaElement.getPath().removeFirstSegments(1).toString()
+                        : elementLabelProvider.getText(element);
+            case 1:
+                return String.format("%.1f %%", counts.getCoverage());
+            case 2:
+                return String.valueOf(counts.getDocumented());
+            case 3:
+                return String.valueOf(counts.getRequired());
+            case 4: case 5: case 6:
+                return format(counts, columnIndex - 4, CoverageCounts.ALL);
+            default:
+                return format(counts, CoverageCounts.ALL, columnIndex - 7);
+            }
+        }
+
+        public void dispose() {
+            elementLabelProvider.dispose();
+            super.dispose();
+        }
+
+        private String format(final CoverageCounts counts, final int kind, final int visibility) {
+            return counts.getDocumented(kind, visibility) + "/" + counts.getRequired(kind, visibility);
+        }
+    }
+
+    private final class RefreshAction extends Action {
+
+        public RefreshAction() {
+            super("Refresh");
+            setToolTipText("Recompute the Javadoc coverage of the workspace");
+        }
+
+        public void run() {
+            model.refresh();
+        }
+    }
+
+    private final class ExportAction extends Action {
+
+        public ExportAction() {
+            super("Export...");
+            setToolTipText("Export the Javadoc coverage as CSV file");
+            setImageDescriptor(ResourceManager.getImageDescriptor(ResourceManager.EXPORT_IMAGE_FILE));
+        }
+
+        public void run() {
+            final Shell shell = getSite().getShell();
+
+            final FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+            fileDialog.setText("Export Javadoc coverage");
+            fileDialog.setFileName("jautodoc_coverage.csv");
+            fileDialog.setFilterExtensions(new String[] {"*.csv", "*.*"});
+            final String selectedFile = fileDialog.open();
+            if (selectedFile == null) {
+                return;
+            }
+
+            final File file = new File(selectedFile);
+            if (file.exists() && !MessageDialog.openQuestion(shell,
+                    "File exists", "File '" + file.getName() + "' already exists. Replace?")) {
+                return;
+            }
+
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                model.write(writer);
+            } catch (IOException e) {
+                JAutodocPlugin.getDefault().handleException(shell, e);
+            }
+        }
+    }
+}
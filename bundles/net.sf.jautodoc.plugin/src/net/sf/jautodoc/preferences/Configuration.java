@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2025, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 
 import javax.xml.bind.annotation.XmlAccessType;
@@ -23,6 +24,7 @@ import javax.xml.bind.annotation.XmlTransient;
 
 import net.sf.jautodoc.preferences.replacements.Replacement;
 import net.sf.jautodoc.preferences.replacements.ReplacementManager;
+import net.sf.jautodoc.utils.HashBuilder;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
@@ -98,6 +100,10 @@ public class Configuration implements IMemberFilter, IPropertyChangeListener, Co
     @XmlTransient
     private Map<String, String> properties = new HashMap<String, String>();
 
+    /** Unmodifiable view of the properties, replaced on every change. */
+    @XmlTransient
+    private volatile Map<String, String> propertiesView;
+
     @XmlTransient
     private Set<GetSetFromFieldReplacement> getSetFromFieldReplacements = new TreeSet<GetSetFromFieldReplacement>();
 
@@ -477,14 +483,26 @@ public class Configuration implements IMemberFilter, IPropertyChangeListener, Co
         this.tagOrder.addAll(tagOrder);
     }
 
+    /**
+     * Gets the properties. The same instance is returned until the
+     * properties change, so it may be used as key for derived values.
+     *
+     * @return the properties
+     */
     public Map<String, String> getProperties() {
-        return Collections.unmodifiableMap(properties);
+        Map<String, String> view = propertiesView;
+        if (view == null) {
+            view = Collections.unmodifiableMap(new HashMap<String, String>(properties));
+            propertiesView = view;
+        }
+        return view;
     }
 
     public void setProperties(Map<String, String> properties) {
         checkReadonly();
         this.properties.clear();
         this.properties.putAll(properties);
+        this.propertiesView = null;
     }
 
     public Set<GetSetFromFieldReplacement> getGetSetFromFieldReplacements() {
@@ -501,6 +519,59 @@ public class Configuration implements IMemberFilter, IPropertyChangeListener, Co
         return replacementManager;
     }
 
+    /**
+     * Gets a hash over all settings, that have an effect on the generated
+     * Javadoc. Equal hashes denote equal output for equal sources and templates.
+     *
+     * @return the configuration hash
+     */
+    public String getHash() {
+        final HashBuilder hash = new HashBuilder();
+        hash.add(completeExistingJavadoc).add(keepExistingJavadoc).add(replaceExistingJavadoc);
+        hash.add(includePublic).add(includeProtected).add(includePackage).add(includePrivate);
+        hash.add(includeTypes).add(includeFields).add(includeMethods);
+        hash.add(getterSetterOnly).add(excludeGetterSetter).add(excludeOverriding);
+        hash.add(addTodoForAutodoc).add(createDummyComment).add(singleLineComment);
+        hash.add(useEclipseFormatter).add(getterSetterFromField).add(includeSubPackages);
+        hash.add(useMarkdown).add(switchDocStyle);
+        hash.add(getterSetterFromFieldFirst).add(getterSetterFromFieldReplace);
+        hash.add(addHeader).add(replaceHeader).add(multiCommentHeader).add(usePackageInfo);
+        hash.add(headerText).add(packageDocText).add(packageInfoText);
+
+        hash.add(tagOrder.size());
+        for (String tag : tagOrder) {
+            hash.add(tag);
+        }
+
+        final Map<String, String> sortedProperties = new TreeMap<String, String>(properties);
+        hash.add(sortedProperties.size());
+        for (Map.Entry<String, String> entry : sortedProperties.entrySet()) {
+            hash.add(entry.getKey()).add(entry.getValue());
+        }
+
+        hash.add(getSetFromFieldReplacements.size());
+        for (GetSetFromFieldReplacement r : getSetFromFieldReplacements) {
+            hash.add(r.toString());
+        }
+
+        if (replacementManager != null) {
+            final List<Replacement> replacements = replacementManager.getReplacements();
+            hash.add(replacements.size());
+            for (Replacement r : replacements) {
+                hash.add(r.getShortcut()).add(r.getReplacement()).add(r.getScope()).add(r.getMode());
+            }
+        }
+
+        final IJavaProject javaProject = getJavaProject();
+        if (useEclipseFormatter && javaProject != null) {
+            final Map<String, String> options = new TreeMap<String, String>(javaProject.getOptions(true));
+            for (Map.Entry<String, String> entry : options.entrySet()) {
+                hash.add(entry.getKey()).add(entry.getValue());
+            }
+        }
+        return hash.toHex();
+    }
+
     /**
      * Initialize values from preference store.
      *
@@ -595,6 +666,7 @@ public class Configuration implements IMemberFilter, IPropertyChangeListener, Co
         else if (event.getProperty().startsWith(PROPERTIES)) {
             properties.clear();
             properties.putAll(prefStore.getProperties());
+            propertiesView = null;
         }
         else if (GET_SET_FROM_FIELD_REPLACEMENTS.equals(event.getProperty())) {
             getSetFromFieldReplacements.clear();
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2025, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -16,6 +16,21 @@ public interface Constants {
 
     public static final String DOT = System.getProperty("jautodoc.dot", ".");
 
+    /** Template engine: "compiled" (default) or "velocity" to disable the compiled templates. */
+    public static final String TEMPLATE_ENGINE = System.getProperty("jautodoc.templateEngine", "compiled");
+
+    /** Maximum number of character accesses for matching a template pattern against a member. */
+    public static final int REGEX_BUDGET = Integer.getInteger("jautodoc.regexBudget", 1000000);
+
+    /** Maximum time in milliseconds for evaluating a template, 0 for no limit. */
+    public static final int TEMPLATE_TIMEOUT = Integer.getInteger("jautodoc.templateTimeout", 5000);
+
+    /** Maximum number of characters created by a template evaluation, 0 for no limit. */
+    public static final int TEMPLATE_MAX_OUTPUT = Integer.getInteger("jautodoc.templateMaxOutput", 1000000);
+
+    /** Maximum number of iterations of a <code>#foreach</code> loop in a template. */
+    public static final int TEMPLATE_MAX_LOOPS = Integer.getInteger("jautodoc.templateMaxLoops", 10000);
+
     public static final String NON_JAVADOC_TAG = "(non-Javadoc)";
     public static final String INHERIT_DOC_TAG = "{@inheritDoc}";
 
@@ -11,6 +11,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Responsible for shortcut replacements in strings.
@@ -63,6 +65,17 @@ public class ReplacementManager {
         return newStrings.toArray(new String[newStrings.size()]);
     }
 
+    /**
+     * Gets all managed replacements in sorted order.
+     *
+     * @return the replacements
+     */
+    public List<Replacement> getReplacements() {
+        final Set<Replacement> replacements = new TreeSet<Replacement>(fieldReplacements.values());
+        replacements.addAll(methodReplacements.values());
+        return new ArrayList<Replacement>(replacements);
+    }
+
     private Map<String,Replacement> getReplacements(final int scope) {
         if (scope == Replacement.SCOPE_FIELD) {
             return fieldReplacements;
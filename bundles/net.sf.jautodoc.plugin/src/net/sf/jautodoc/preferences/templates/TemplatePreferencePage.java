@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -8,6 +8,10 @@
 package net.sf.jautodoc.preferences.templates;
 
 import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,7 +22,14 @@ import net.sf.jautodoc.preferences.Constants;
 import net.sf.jautodoc.preferences.PreferenceStore;
 import net.sf.jautodoc.templates.ITemplateKinds;
 import net.sf.jautodoc.templates.ITemplateManager;
+import net.sf.jautodoc.templates.TemplateCorpus;
+import net.sf.jautodoc.templates.TemplateDiagnostic;
 import net.sf.jautodoc.templates.TemplateEntry;
+import net.sf.jautodoc.templates.TemplateProfiler.Statistics;
+import net.sf.jautodoc.templates.TemplateSerializer;
+import net.sf.jautodoc.templates.TemplateSet;
+import net.sf.jautodoc.templates.TemplateSimulator;
+import net.sf.jautodoc.templates.TemplateSimulator.Result;
 import net.sf.jautodoc.templates.rules.IRulesStrategy;
 import net.sf.jautodoc.templates.rules.TemplateCodeScanner;
 import net.sf.jautodoc.templates.viewer.TemplateViewerConfiguration;
@@ -31,6 +42,7 @@ import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.ITextHover;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.BusyIndicator;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Point;
@@ -59,6 +71,8 @@ public class TemplatePreferencePage extends PreferencePage implements
     		"net.sf.jautodoc.preferences.MainPreferencePage/" +
     		"net.sf.jautodoc.preferences.templates.TemplatePreferencePage";
 
+	private static final int MAX_SHOWN_DIAGNOSTICS = 10;
+
 	private Map<String, String> properties;
 	private TemplateTreePanel view;
 	private ITemplateManager  templateManager;
@@ -190,6 +204,25 @@ public class TemplatePreferencePage extends PreferencePage implements
 			}
 		});
 
+		view.buttonProfile.setSelection(templateManager.getProfiler().isEnabled());
+		view.buttonProfile.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				templateManager.getProfiler().setEnabled(view.buttonProfile.getSelection());
+			}
+		});
+
+		view.buttonProfileExport.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				exportProfile();
+			}
+		});
+
+		view.buttonSimulate.addSelectionListener(new SelectionAdapter() {
+			public void widgetSelected(SelectionEvent e) {
+				simulateTemplates();
+			}
+		});
+
 		// tree listener
 		view.templateTree.addListener(SWT.Expand, new ExpandListener());
 
@@ -422,12 +455,14 @@ public class TemplatePreferencePage extends PreferencePage implements
 		if (data == null || !(data instanceof TemplateEntry)) {
 			view.textPattern.setText("");
 			view.textExample.setText("");
+			view.textStatistics.setText("");
 			view.templateViewer.setDocument(new Document());
 		}
 		else {
 			TemplateEntry entry = (TemplateEntry)data;
 			view.textPattern.setText(entry.getRegex());
 			view.textExample.setText(entry.getExample());
+			view.textStatistics.setText(getStatisticsText(entry));
 			view.templateViewer.setDocument(new Document(entry.getText()));;
 		}
 	}
@@ -594,7 +629,12 @@ public class TemplatePreferencePage extends PreferencePage implements
 		}
 
 		try {
-			templateManager.loadTemplates(new File(selectedFile));
+			TemplateSet templates = TemplateSerializer.loadTemplates(new File(selectedFile));
+			if (!confirmDiagnostics("Import Templates", templateManager.validateTemplates(templates),
+					"Import anyway?")) {
+				return;
+			}
+			templateManager.setTemplates(templates);
 			view.templateTree.removeAll();
 			initializeTemplateTree();
 		} catch (Exception e) {
@@ -627,6 +667,133 @@ public class TemplatePreferencePage extends PreferencePage implements
 		}
 	}
 
+	/**
+	 * Shows the errors of the template validation, if any.
+	 *
+	 * @return true, if there are no errors or the user wants to continue
+	 */
+	private boolean confirmDiagnostics(String title, List<TemplateDiagnostic> diagnostics, String question) {
+		StringBuilder message = new StringBuilder();
+		int errors = 0;
+		for (TemplateDiagnostic diagnostic : diagnostics) {
+			if (diagnostic.isError() && ++errors <= MAX_SHOWN_DIAGNOSTICS) {
+				message.append(diagnostic).append('\n');
+			}
+		}
+		if (errors == 0) {
+			return true;
+		}
+
+		if (errors > MAX_SHOWN_DIAGNOSTICS) {
+			message.append("... and ").append(errors - MAX_SHOWN_DIAGNOSTICS).append(" more\n");
+		}
+		message.append('\n').append(errors).append(" invalid templates. ").append(question);
+		return MessageDialog.openQuestion(getShell(), title, message.toString());
+	}
+
+	private String getStatisticsText(TemplateEntry entry) {
+		Statistics statistics = templateManager.getProfiler().getStatistics(entry);
+		if (statistics == null) {
+			return "";
+		}
+		return statistics.getAttempts() + " attempts, "
+				+ statistics.getMatches() + " matches, "
+				+ statistics.getEvaluations() + " evaluations, "
+				+ (statistics.getMatchNanos() / 1000000) + " ms matching, "
+				+ (statistics.getEvaluationNanos() / 1000000) + " ms evaluation";
+	}
+
+	private void exportProfile() {
+		FileDialog fileDialog = new FileDialog(getShell(), SWT.SAVE);
+		fileDialog.setText("Export template profile");
+		fileDialog.setFileName("jautodoc_profile.csv");
+		fileDialog.setFilterExtensions(new String[] {"*.csv", "*.*"});
+		String selectedFile = fileDialog.open();
+		if (selectedFile == null) {
+			return;
+		}
+
+		File file = new File(selectedFile);
+		if (file.exists() && !MessageDialog.openQuestion(getShell(),
+				"File exists", "File '" + file.getName() + "' already exists. Replace?")) {
+			return;
+		}
+
+		try {
+			Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+			try {
+				templateManager.getProfiler().writeCsv(writer);
+			} finally {
+				writer.close();
+			}
+		} catch (Exception e) {
+			MessageDialog.openError(getShell(),
+					"Error", "Could not write file: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Applies the current templates to a corpus of member signatures and
+	 * writes the results. Optionally the results of the stored templates
+	 * are written too, to see the effect of the changes.
+	 */
+	private void simulateTemplates() {
+		FileDialog corpusDialog = new FileDialog(getShell(), SWT.OPEN);
+		corpusDialog.setText("Simulate templates: select corpus");
+		corpusDialog.setFilterExtensions(new String[] {"*.tsv", "*.*"});
+		String corpusFile = corpusDialog.open();
+		if (corpusFile == null) {
+			return;
+		}
+
+		FileDialog resultDialog = new FileDialog(getShell(), SWT.SAVE);
+		resultDialog.setText("Simulate templates: save result");
+		resultDialog.setFileName("jautodoc_simulation.csv");
+		resultDialog.setFilterExtensions(new String[] {"*.csv", "*.*"});
+		String resultFile = resultDialog.open();
+		if (resultFile == null) {
+			return;
+		}
+
+		File file = new File(resultFile);
+		if (file.exists() && !MessageDialog.openQuestion(getShell(),
+				"File exists", "File '" + file.getName() + "' already exists. Replace?")) {
+			return;
+		}
+		boolean compare = MessageDialog.openQuestion(getShell(), "Simulate Templates",
+				"Compare with the saved templates?");
+
+		final String[] summary = new String[1];
+		BusyIndicator.showWhile(getShell().getDisplay(), () -> {
+			try {
+				TemplateCorpus corpus;
+				try (Reader reader = Files.newBufferedReader(new File(corpusFile).toPath(), StandardCharsets.UTF_8)) {
+					corpus = TemplateCorpus.read(reader);
+				}
+
+				TemplateSimulator simulator = new TemplateSimulator(templateManager, properties,
+						Runtime.getRuntime().availableProcessors());
+				Result[] results = simulator.simulate(templateManager.getTemplates(), corpus);
+				Result[] baseline = compare
+						? simulator.simulate(templateManager.readStoredTemplates(), corpus) : null;
+
+				try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+					TemplateSimulator.writeCsv(corpus, results, baseline, writer);
+				}
+				summary[0] = corpus.size() + " members simulated"
+						+ (baseline != null ? ", " + TemplateSimulator.countChanges(results, baseline)
+								+ " changed" : "") + ".";
+			} catch (Exception e) {
+				summary[0] = null;
+				MessageDialog.openError(getShell(), "Error", "Simulation failed: " + e.getMessage());
+			}
+		});
+
+		if (summary[0] != null) {
+			MessageDialog.openInformation(getShell(), "Simulate Templates", summary[0]);
+		}
+	}
+
 	private void showPropertiesDialog() {
 		Map<String, String> props = new HashMap<String, String>(properties);
 		EditPropertiesDialog dialog = new EditPropertiesDialog(getShell(), props);
@@ -673,6 +840,10 @@ public class TemplatePreferencePage extends PreferencePage implements
 	 */
 	public boolean performOk() {
 		try {
+			if (!confirmDiagnostics("Save Templates",
+					templateManager.validateTemplates(templateManager.getTemplates()), "Save anyway?")) {
+				return false;
+			}
 			templateManager.storeTemplates();
 			((PreferenceStore)getPreferenceStore()).setProperties(properties);
 			return true;
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -34,10 +34,15 @@ public class TemplateTreePanel extends Composite {
 	Button buttonAdd = null;
 	Button buttonEdit = null;
 	Button buttonRemove = null;
+	Button buttonProfile = null;
+	Button buttonProfileExport = null;
+	Button buttonSimulate = null;
 	Label labelPattern = null;
 	Label labelExample = null;
 	Text textPattern = null;
 	Text textExample = null;
+	Label labelStatistics = null;
+	Text textStatistics = null;
 	Composite compositeTemplateText = null;
 	TemplateViewer templateViewer = null;
 	Tree templateTree = null;
@@ -104,6 +109,14 @@ public class TemplateTreePanel extends Composite {
 		gridData2a.horizontalAlignment = GridData.FILL;
 		textExample = new Text(compositeTemplates, SWT.BORDER | SWT.READ_ONLY);
 		textExample.setLayoutData(gridData2a);
+		labelStatistics = new Label(compositeTemplates, SWT.NONE);
+		labelStatistics.setText("Profile:");
+		labelStatistics.setLayoutData(new GridData());
+		GridData gridData2b = new GridData();
+		gridData2b.grabExcessHorizontalSpace = true;
+		gridData2b.horizontalAlignment = GridData.FILL;
+		textStatistics = new Text(compositeTemplates, SWT.BORDER | SWT.READ_ONLY);
+		textStatistics.setLayoutData(gridData2b);
 	}
 
 	/**
@@ -172,6 +185,19 @@ public class TemplateTreePanel extends Composite {
 		buttonRemove = new Button(compositeButtons, SWT.NONE);
 		buttonRemove.setText("Remove");
 		buttonRemove.setLayoutData(gridData3);
+		Label filler3 = new Label(compositeButtons, SWT.NONE);
+		filler3.setLayoutData(new GridData(-1, 5));
+		buttonProfile = new Button(compositeButtons, SWT.CHECK);
+		buttonProfile.setText("Profile");
+		buttonProfile.setToolTipText("Collect match and evaluation statistics of the templates");
+		buttonProfile.setLayoutData(new GridData(GridData.FILL, GridData.CENTER, false, false));
+		buttonProfileExport = new Button(compositeButtons, SWT.NONE);
+		buttonProfileExport.setText("Export Profile...");
+		buttonProfileExport.setLayoutData(new GridData(GridData.FILL, GridData.CENTER, false, false));
+		buttonSimulate = new Button(compositeButtons, SWT.NONE);
+		buttonSimulate.setText("Simulate...");
+		buttonSimulate.setToolTipText("Apply the templates to a corpus of member signatures");
+		buttonSimulate.setLayoutData(new GridData(GridData.FILL, GridData.CENTER, false, false));
 	}
 
 	/**
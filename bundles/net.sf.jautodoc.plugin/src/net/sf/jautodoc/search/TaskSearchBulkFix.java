@@ -0,0 +1,228 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.search;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.sf.jautodoc.search.TaskSearchMatch.Finding;
+import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
+import net.sf.jautodoc.utils.Utils;
+
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.search.ui.text.Match;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.ui.IEditorPart;
+
+/**
+ * Fixes all findings of the given kinds in a search result. The edits are computed per compilation
+ * unit by a pool of worker threads and applied afterwards in one workspace operation. Units open
+ * in an editor are changed in the editor by the UI thread, all others are saved. The fix may run
+ * in any thread.
+ */
+public class TaskSearchBulkFix implements IRunnableWithProgress {
+
+    /** The kinds of findings, that can be fixed. */
+    public static final Set<FindingId> FIXABLE_KINDS = Collections.unmodifiableSet(EnumSet.of(
+            FindingId.MISSING_PARAM, FindingId.MISSING_RETURN, FindingId.MISSING_THROWS,
+            FindingId.MISSING_PERIOD, FindingId.TODO_FOR_AUTODOC));
+
+    /** Interval to check for cancellation while waiting for a unit. */
+    private static final long POLL_INTERVAL = 100;
+
+    private final Map<ICompilationUnit, Map<IJavaElement, Set<FindingId>>> fixes =
+            new LinkedHashMap<ICompilationUnit, Map<IJavaElement, Set<FindingId>>>();
+
+    private int changedUnits;
+
+
+    /**
+     * Instantiates a new bulk fix.
+     *
+     * @param searchResult the search result
+     * @param kinds the kinds of findings to fix, kinds not fixable are ignored
+     */
+    public TaskSearchBulkFix(final TaskSearchResult searchResult, final Set<FindingId> kinds) {
+        for (FindingId kind : kinds) {
+            if (!FIXABLE_KINDS.contains(kind)) {
+                continue;
+            }
+            for (Match match : searchResult.getMatchesOfKind(kind)) {
+                for (Finding finding : ((TaskSearchMatch) match).getFindings()) {
+                    if (finding.getId() == kind) {
+                        addFix((IJavaElement) match.getElement(), kind);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of units, that have been changed.
+     *
+     * @return the number of changed units
+     */
+    public int getChangedUnits() {
+        return changedUnits;
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.jface.operation.IRunnableWithProgress#run(org.eclipse.core.runtime.IProgressMonitor)
+     */
+    public void run(final IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+        try {
+            monitor.beginTask("Fixing findings...", fixes.size() * 2);
+            final Map<ICompilationUnit, MultiTextEdit> changes =
+                    computeChanges(new SubProgressMonitor(monitor, fixes.size()));
+            ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable) m -> applyChanges(changes, m),
+                    ResourcesPlugin.getWorkspace().getRoot(), IWorkspace.AVOID_UPDATE,
+                    new SubProgressMonitor(monitor, fixes.size()));
+        } catch (CoreException e) {
+            throw new InvocationTargetException(e);
+        }
+        finally {
+            monitor.done();
+        }
+    }
+
+    private void addFix(final IJavaElement element, final FindingId kind) {
+        final ICompilationUnit compUnit = element instanceof ICompilationUnit ? (ICompilationUnit) element
+                : element instanceof IMember ? ((IMember) element).getCompilationUnit() : null;
+        if (compUnit == null) {
+            return;
+        }
+
+        fixes.computeIfAbsent(compUnit, cu -> new HashMap<IJavaElement, Set<FindingId>>())
+                .computeIfAbsent(element, e -> EnumSet.noneOf(FindingId.class)).add(kind);
+    }
+
+    private Map<ICompilationUnit, MultiTextEdit> computeChanges(final IProgressMonitor monitor)
+            throws InvocationTargetException, InterruptedException {
+
+        monitor.beginTask("", fixes.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            final Map<ICompilationUnit, Future<MultiTextEdit>> futures =
+                    new LinkedHashMap<ICompilationUnit, Future<MultiTextEdit>>();
+            for (Map.Entry<ICompilationUnit, Map<IJavaElement, Set<FindingId>>> entry : fixes.entrySet()) {
+                final ICompilationUnit compUnit = entry.getKey();
+                final Map<IJavaElement, Set<FindingId>> unitFixes = entry.getValue();
+                futures.put(compUnit, executor.submit(() -> new TaskSearchFixer(compUnit, unitFixes)
+                        .computeChanges(null)));
+            }
+
+            final Map<ICompilationUnit, MultiTextEdit> changes = new LinkedHashMap<ICompilationUnit, MultiTextEdit>();
+            for (Map.Entry<ICompilationUnit, Future<MultiTextEdit>> entry : futures.entrySet()) {
+                if (monitor.isCanceled()) {
+                    throw new InterruptedException();
+                }
+                monitor.subTask(entry.getKey().getElementName());
+
+                final MultiTextEdit edit = getResult(entry.getValue(), monitor);
+                if (edit != null && edit.hasChildren()) {
+                    changes.put(entry.getKey(), edit);
+                }
+                monitor.worked(1);
+            }
+            return changes;
+        } catch (ExecutionException e) {
+            throw new InvocationTargetException(e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+            monitor.done();
+        }
+    }
+
+    private static MultiTextEdit getResult(final Future<MultiTextEdit> future, final IProgressMonitor monitor)
+            throws ExecutionException, InterruptedException {
+        while (true) {
+            try {
+                return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (monitor.isCanceled()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    private void applyChanges(final Map<ICompilationUnit, MultiTextEdit> changes, final IProgressMonitor monitor)
+            throws CoreException {
+
+        monitor.beginTask("", changes.size());
+        try {
+            for (Map.Entry<ICompilationUnit, MultiTextEdit> entry : changes.entrySet()) {
+                final ICompilationUnit compUnit = entry.getKey();
+                monitor.subTask(compUnit.getElementName());
+
+                if (!applyInEditor(compUnit, entry.getValue())) {
+                    // not open in editor -> commit + discard
+                    final ICompilationUnit workingCopy = Utils.getWorkingCopy(compUnit, null);
+                    workingCopy.applyTextEdit(entry.getValue(), null);
+                    workingCopy.commitWorkingCopy(false, null);
+                    workingCopy.discardWorkingCopy();
+                }
+                ++changedUnits;
+                monitor.worked(1);
+            }
+        }
+        finally {
+            monitor.done();
+        }
+    }
+
+    /**
+     * Applies the given edit to the editor of the given unit, if open. Editors are accessed by
+     * the UI thread only.
+     *
+     * @return true, if the unit is open in an editor
+     */
+    private static boolean applyInEditor(final ICompilationUnit compUnit, final MultiTextEdit edit)
+            throws CoreException {
+        final boolean[] inEditor = new boolean[1];
+        final CoreException[] failure = new CoreException[1];
+        Display.getDefault().syncExec(() -> {
+            try {
+                final IEditorPart editor = Utils.findEditor(compUnit);
+                if (editor != null) {
+                    Utils.getWorkingCopy(compUnit, editor).applyTextEdit(edit, null);
+                    inEditor[0] = true;
+                }
+            } catch (CoreException e) {
+                failure[0] = e;
+            }
+        });
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return inEditor[0];
+    }
+}
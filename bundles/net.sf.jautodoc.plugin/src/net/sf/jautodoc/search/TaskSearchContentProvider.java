@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -7,18 +7,25 @@
  *******************************************************************/
 package net.sf.jautodoc.search;
 
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import net.sf.jautodoc.search.TaskSearchResultPage.DecoratorIgnoringViewerSorter;
+import net.sf.jautodoc.search.TaskSearchResultPage.SortKey;
+
+import org.eclipse.jface.viewers.IContentProvider;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
 
 /**
- * Abstract base class for table and tree content provider of search result view.
+ * Abstract base class for table and tree content provider of search result view. The viewers
+ * are virtual, so the content providers sort the elements themselves. They sort keys, that are
+ * computed once per element, instead of computing labels on each comparison.
  */
-public abstract class TaskSearchContentProvider implements IStructuredContentProvider {
+public abstract class TaskSearchContentProvider implements IContentProvider {
     protected final Object[] EMPTY_ARR = new Object[0];
+    protected static final SortKey[] NO_KEYS = new SortKey[0];
 
     private final TaskSearchResultPage resultPage;
     private AbstractTextSearchResult searchResult;
+    private DecoratorIgnoringViewerSorter comparator;
 
 
     public TaskSearchContentProvider(final TaskSearchResultPage resultPage) {
@@ -36,11 +43,36 @@ public abstract class TaskSearchContentProvider implements IStructuredContentPro
 
     public abstract void elementsChanged(Object[] updatedElements);
     public abstract void clear();
+    public abstract void sortOrderChanged();
+    public abstract void elementLimitChanged();
 
     public void dispose() {
         // nothing to do
     }
 
+    public void setComparator(final DecoratorIgnoringViewerSorter comparator) {
+        this.comparator = comparator;
+    }
+
+    protected SortKey getSortKey(final Object element) {
+        return comparator != null ? comparator.getSortKey(element) : new SortKey(element, "", -1);
+    }
+
+    protected void sort(final SortKey[] keys) {
+        if (comparator != null && keys.length > 1) {
+            comparator.sort(keys);
+        }
+    }
+
+    protected int compare(final SortKey k1, final SortKey k2) {
+        return comparator != null ? comparator.compare(k1, k2) : 0;
+    }
+
+    protected int getElementLimit(final int count) {
+        final int limit = resultPage.getElementLimit().intValue();
+        return limit != -1 ? Math.min(limit, count) : count;
+    }
+
     public TaskSearchResultPage getResultPage() {
         return resultPage;
     }
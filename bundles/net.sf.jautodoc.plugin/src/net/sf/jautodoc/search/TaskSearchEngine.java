@@ -7,7 +7,12 @@
  *******************************************************************/
 package net.sf.jautodoc.search;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import net.sf.jautodoc.JAutodocPlugin;
@@ -15,8 +20,10 @@ import net.sf.jautodoc.preferences.Constants;
 import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
 import net.sf.jautodoc.search.TaskSearchPattern.MissingTag;
 import net.sf.jautodoc.source.AbstractSourceProcessor;
+import net.sf.jautodoc.source.JavadocFingerprints;
 import net.sf.jautodoc.source.JavadocInfo;
 import net.sf.jautodoc.source.JavadocTag;
+import net.sf.jautodoc.templates.TemplateBudgetException;
 import net.sf.jautodoc.utils.SourceUtils;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -30,15 +37,17 @@ import org.eclipse.jdt.core.ISourceReference;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.Signature;
-import org.eclipse.search.ui.text.Match;
 
 /**
  * Processes a given compilation unit according to the search pattern and adds all findings to the
- * current search result.
+ * current search result. Subclasses may collect the findings of a unit elsewhere, e.g. as problem
+ * markers.
  */
 public class TaskSearchEngine extends AbstractSourceProcessor {
     private final TaskSearchResult searchResult;
     private final TaskSearchPattern searchPattern;
+    private final Map<IJavaElement, Map<Long, TaskSearchMatch>> pendingMatches =
+            new LinkedHashMap<IJavaElement, Map<Long, TaskSearchMatch>>();
 
 
     public TaskSearchEngine(final ICompilationUnit compUnit, final TaskSearchPattern searchPattern,
@@ -48,13 +57,19 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
         this.searchPattern = searchPattern;
     }
 
+    protected TaskSearchEngine(final ICompilationUnit compUnit, final TaskSearchPattern searchPattern) {
+        this(compUnit, searchPattern, null);
+    }
+
     public void search(IProgressMonitor monitor) throws Exception {
         doProcessing(searchPattern, monitor);
     }
 
     @Override
     protected void startProcessing() throws Exception {
-        searchResult.removeMatches(searchResult.getMatches(compUnit));
+        if (searchResult != null) {
+            searchResult.removeMatches(searchResult.getMatches(compUnit));
+        }
     }
 
     @Override
@@ -118,7 +133,13 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
 
     @Override
     protected void processMember(final IMember member) throws Exception {
-        searchResult.removeMatches(searchResult.getMatches(member));
+        if (isUnchanged(member)) {
+            return;
+        }
+
+        if (searchResult != null) {
+            searchResult.removeMatches(searchResult.getMatches(member));
+        }
 
         if (!needsJavadocCheck(member)) {
             return;
@@ -146,7 +167,7 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
             processGeneratedJavadoc(member, existingJavadoc);
         }
 
-        if (searchPattern.isSearchMissingTags()) {
+        if (searchPattern.hasMissingTags()) {
             processSearchMissingTags(member, jdi);
         }
 
@@ -161,7 +182,12 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
 
     @Override
     protected void stopProcessing() throws Exception {
-        // nothing to do
+        final List<TaskSearchMatch> matches = new ArrayList<TaskSearchMatch>();
+        for (Map<Long, TaskSearchMatch> elementMatches : pendingMatches.values()) {
+            matches.addAll(elementMatches.values());
+        }
+        pendingMatches.clear();
+        addFindings(matches);
     }
 
     @Override
@@ -169,6 +195,29 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
         return "JAutodoc Search";
     }
 
+    /**
+     * Adds the findings of the processed unit. Called once per unit, while the document is still
+     * available.
+     *
+     * @param matches the matches of the unit
+     * @throws Exception thrown if the findings could not be added
+     */
+    protected void addFindings(final List<TaskSearchMatch> matches) throws Exception {
+        searchResult.addFindings(matches); // one change event per unit
+    }
+
+    /**
+     * Checks, if the given member is unchanged and its findings are still known, so it can be
+     * skipped. Never by default.
+     *
+     * @param member the member
+     * @return true, if the member is not checked again
+     * @throws Exception thrown if the member could not be accessed
+     */
+    protected boolean isUnchanged(final IMember member) throws Exception {
+        return false;
+    }
+
     private void processTypeJavadoc(final IType type, final JavadocInfo jdi) throws JavaModelException {
         if (searchPattern.isMissingParamTag()) {
             processParameterTags(type, jdi);
@@ -192,23 +241,38 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
     private void processGeneratedJavadoc(final IMember member, final String existingJavadoc)
             throws Exception {
 
-        String generatedJavadoc = "";
-        if (member instanceof IType) {
-            final JavadocInfo emptyJdi = new JavadocInfo();
-            final JavadocInfo generatedJdi = javadocCreator.applyTemplate(member, emptyJdi);
-            generatedJavadoc = javadocCreator.createJavadoc((IType) member, "", "\n", generatedJdi, document, commentScanner);
-        }
-        else if (member instanceof IField) {
-            final JavadocInfo emptyJdi = new JavadocInfo();
-            final JavadocInfo generatedJdi = javadocCreator.applyTemplate(member, emptyJdi);
-            generatedJavadoc = javadocCreator.createJavadoc((IField) member, "", "\n", generatedJdi);
+        final JavadocFingerprints fingerprints = getFingerprints();
+        if (fingerprints != null && fingerprints.contains(member, existingJavadoc, getGenerationHash())) {
+            addMatch(member, FindingId.GENERATED_JAVADOC, "Generated Javadoc");
+            return;
         }
-        else if (member instanceof IMethod) {
-            generatedJavadoc = processGeneratedMethodJavadoc((IMethod) member);
+
+        // unknown comment, compare with a newly generated one
+        String generatedJavadoc = "";
+        try {
+            if (member instanceof IType) {
+                final JavadocInfo emptyJdi = new JavadocInfo();
+                final JavadocInfo generatedJdi = javadocCreator.applyTemplate(member, emptyJdi);
+                generatedJavadoc = javadocCreator.createJavadoc((IType) member, "", "\n", generatedJdi, document,
+                        commentScanner);
+            }
+            else if (member instanceof IField) {
+                final JavadocInfo emptyJdi = new JavadocInfo();
+                final JavadocInfo generatedJdi = javadocCreator.applyTemplate(member, emptyJdi);
+                generatedJavadoc = javadocCreator.createJavadoc((IField) member, "", "\n", generatedJdi);
+            }
+            else if (member instanceof IMethod) {
+                generatedJavadoc = processGeneratedMethodJavadoc((IMethod) member);
+            }
+        } catch (TemplateBudgetException e) {
+            return; // already logged, not comparable
         }
 
         if (!isEmpty(generatedJavadoc) && SourceUtils.isSameComment(existingJavadoc, generatedJavadoc, false)) {
             addMatch(member, FindingId.GENERATED_JAVADOC, "Generated Javadoc");
+            if (fingerprints != null) {
+                fingerprints.put(member, existingJavadoc, getGenerationHash());
+            }
         }
     }
 
@@ -310,13 +374,16 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
 
     private void processSearchMissingTags(final IMember member, final JavadocInfo jdi) throws JavaModelException {
         for (final MissingTag missingTag : searchPattern.getMissingTags()) {
+            final List<JavadocTag> javadocTags = jdi.getOtherDoc(missingTag.getName());
 
-            if (!missingTag.isOnlyEmpty() && !hasTag( missingTag.getName(), jdi)) {
-                addMatch(member, FindingId.MISSING_TAG, "Missing tag: " + missingTag.getName());
+            if (javadocTags.isEmpty()) {
+                if (!missingTag.isOnlyEmpty()) {
+                    addMatch(member, FindingId.MISSING_TAG, "Missing tag: " + missingTag.getName());
+                }
             }
             else if (!missingTag.isOnlyMissing()) {
-                for (final JavadocTag javadocTag : jdi.getOtherDoc()) {
-                    if (javadocTag.getTypeName().equals(missingTag.getName()) && javadocTag.getComments().size() == 0) {
+                for (final JavadocTag javadocTag : javadocTags) {
+                    if (javadocTag.getComments().size() == 0) {
                         addMatch(member, FindingId.MISSING_TAG, "Missing text on tag: " + missingTag.getName());
                     }
                 }
@@ -324,17 +391,6 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
         }
     }
 
-    private boolean hasTag(final String tagTypeName, final JavadocInfo jdi) {
-        boolean exists = false;
-        for (final JavadocTag currentTag : jdi.getOtherDoc()) {
-            if (currentTag.getTypeName().equals(tagTypeName)) {
-                exists = true;
-                break;
-            }
-        }
-        return exists;
-    }
-
     private void addMatch(final IMember member, final FindingId id, final String message) throws JavaModelException {
         final ISourceRange sr = member.getNameRange();
         addMatch(member, sr.getOffset(), sr.getLength(), id, message);
@@ -343,20 +399,16 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
     private void addMatch(final IJavaElement element, final int offset, final int length,
             final FindingId id, final String message) {
 
-        boolean matchExists = false;
+        final Map<Long, TaskSearchMatch> matches =
+                pendingMatches.computeIfAbsent(element, e -> new HashMap<Long, TaskSearchMatch>());
 
-        final Match[] matches = searchResult.getMatches(element);
-        for (Match match : matches) {
-            if (match.getOffset() == offset && match.getLength() == length) {
-                final TaskSearchMatch taskSearchMatch = (TaskSearchMatch)match;
-                taskSearchMatch.addFinding(id, message);
-                matchExists = true;
-                break;
-            }
+        final Long rangeKey = TaskSearchResult.getRangeKey(offset, length);
+        final TaskSearchMatch match = matches.get(rangeKey);
+        if (match != null) {
+            match.addFinding(id, message);
         }
-
-        if (!matchExists) {
-            searchResult.addMatch(new TaskSearchMatch(element, offset, length, id, message));
+        else {
+            matches.put(rangeKey, new TaskSearchMatch(element, offset, length, id, message));
         }
     }
 
@@ -365,14 +417,14 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
             return SourceUtils.isMatchingType((IType) member, searchPattern) && (searchPattern.isMissingJavadoc()
                     || searchPattern.isMissingPeriods()
                     || searchPattern.isGeneratedJavadoc()
-                    || searchPattern.isSearchMissingTags() && searchPattern.getMissingTags().length > 0);
+                    || searchPattern.hasMissingTags());
         }
 
         if (member instanceof IField) {
             return SourceUtils.isMatchingField((IField) member, searchPattern) && (searchPattern.isMissingJavadoc()
                     || searchPattern.isMissingPeriods()
                     || searchPattern.isGeneratedJavadoc()
-                    || searchPattern.isSearchMissingTags() && searchPattern.getMissingTags().length > 0);
+                    || searchPattern.hasMissingTags());
         }
 
         if (member instanceof IMethod) {
@@ -382,7 +434,7 @@ public class TaskSearchEngine extends AbstractSourceProcessor {
                 || searchPattern.isMissingReturnTag()
                 || searchPattern.isMissingThrowsTag()
                 || searchPattern.isGeneratedJavadoc()
-                || searchPattern.isSearchMissingTags() && searchPattern.getMissingTags().length > 0);
+                || searchPattern.hasMissingTags());
         }
 
         return false;
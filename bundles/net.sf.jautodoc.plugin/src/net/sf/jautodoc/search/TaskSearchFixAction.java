@@ -0,0 +1,52 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.search;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.EnumSet;
+
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Action for fixing all findings of a kind in the current search result.
+ */
+public class TaskSearchFixAction extends Action {
+    private final FindingId findingId;
+    private final TaskSearchResultPage resultPage;
+
+    /**
+     * Instantiates a new fix action.
+     *
+     * @param resultPage the result view page
+     * @param findingId the kind of findings to fix
+     * @param count the number of findings of the kind
+     */
+    public TaskSearchFixAction(final TaskSearchResultPage resultPage, final FindingId findingId, final int count) {
+        super(findingId.getLabel() + " (" + count + ")");
+        this.resultPage = resultPage;
+        this.findingId = findingId;
+    }
+
+    public void run() {
+        final Shell shell = resultPage.getSite().getShell();
+        final TaskSearchBulkFix bulkFix = new TaskSearchBulkFix((TaskSearchResult) resultPage.getInput(),
+                EnumSet.of(findingId));
+        try {
+            new ProgressMonitorDialog(shell).run(true, true, bulkFix); // forked, so it can be canceled
+        } catch (InvocationTargetException e) {
+            JAutodocPlugin.getDefault().handleException(shell, e.getCause());
+        } catch (InterruptedException e) {
+            // canceled, nothing applied
+        }
+    }
+}
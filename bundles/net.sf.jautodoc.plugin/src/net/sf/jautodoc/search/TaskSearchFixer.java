@@ -0,0 +1,426 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.sf.jautodoc.preferences.Constants;
+import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
+import net.sf.jautodoc.source.AbstractSourceProcessor;
+import net.sf.jautodoc.source.JavadocInfo;
+import net.sf.jautodoc.source.JavadocTag;
+import net.sf.jautodoc.templates.TemplateBudgetException;
+import net.sf.jautodoc.utils.SourceUtils;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jface.text.TextUtilities;
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+
+/**
+ * Computes the edits fixing the findings of one compilation unit. Only the affected parts of the
+ * comments are changed: missing tags are inserted at their position in the configured tag order,
+ * empty tags are completed, a period is appended to the description and the ToDo for generated
+ * Javadoc is removed. Tag texts are created like for "Add Javadoc". The document is not changed.
+ */
+public class TaskSearchFixer extends AbstractSourceProcessor {
+    private final Map<IJavaElement, Set<FindingId>> fixes;
+
+    private String lineDelimiter;
+    private MultiTextEdit textEdit;
+
+
+    /**
+     * Instantiates a new fixer.
+     *
+     * @param compUnit the compilation unit
+     * @param fixes the kinds of findings to fix per member, the unit itself for the ToDo
+     */
+    public TaskSearchFixer(final ICompilationUnit compUnit, final Map<IJavaElement, Set<FindingId>> fixes) {
+        super(compUnit);
+        this.fixes = fixes;
+    }
+
+    /**
+     * Computes the edits.
+     *
+     * @param monitor the progress monitor
+     * @return the edits, not applied yet
+     * @throws Exception thrown if the unit could not be processed
+     */
+    public MultiTextEdit computeChanges(final IProgressMonitor monitor) throws Exception {
+        final List<IMember> members = new ArrayList<IMember>();
+        for (IJavaElement element : fixes.keySet()) {
+            if (element instanceof IMember && ((IMember) element).exists()) {
+                members.add((IMember) element);
+            }
+        }
+        doProcessing(members.toArray(new IMember[members.size()]), monitor);
+        return textEdit;
+    }
+
+    @Override
+    protected void startProcessing() throws Exception {
+        textEdit = new MultiTextEdit();
+        lineDelimiter = TextUtilities.getDefaultLineDelimiter(document);
+    }
+
+    @Override
+    protected void processFileHeader() throws Exception {
+        // not fixed
+    }
+
+    @Override
+    protected void processTodoForAutodoc(final IMember[] members) throws Exception {
+        if (!getFixes(compUnit).contains(FindingId.TODO_FOR_AUTODOC)) {
+            return;
+        }
+
+        final IType type = SourceUtils.getFirstType(compUnit);
+        if (type == null) {
+            return;
+        }
+
+        final int offset = type.getSourceRange().getOffset();
+        if (!document.get(offset, Math.min(Constants.TODO_FOR_AUTODOC.length(), document.getLength() - offset))
+                .equals(Constants.TODO_FOR_AUTODOC)) {
+            return;
+        }
+
+        int end = offset + Constants.TODO_FOR_AUTODOC.length();
+        final String delimiter = document.getLineDelimiter(document.getLineOfOffset(offset));
+        if (delimiter != null && document.get(end, delimiter.length()).equals(delimiter)) {
+            end += delimiter.length();
+        }
+        textEdit.addChild(new DeleteEdit(offset, end - offset));
+    }
+
+    @Override
+    protected void processMember(final IMember member) throws Exception {
+        final Set<FindingId> kinds = getFixes(member);
+        if (kinds.isEmpty()) {
+            return;
+        }
+
+        final ISourceRange docRange = SourceUtils.findJavadocSourceRange(member, commentScanner);
+        if (docRange.getLength() == 0) {
+            return;
+        }
+
+        final String existingJavadoc = document.get(docRange.getOffset(), docRange.getLength());
+        if (!existingJavadoc.startsWith("/**")) {
+            return; // Markdown comments are not fixed
+        }
+
+        final Comment comment = new Comment(existingJavadoc, docRange.getOffset());
+        if (kinds.contains(FindingId.MISSING_PERIOD)) {
+            fixPeriod(existingJavadoc, comment);
+        }
+
+        if ((kinds.contains(FindingId.MISSING_PARAM) || kinds.contains(FindingId.MISSING_RETURN)
+                || kinds.contains(FindingId.MISSING_THROWS)) && comment.isMultiLine()) {
+            fixTags(member, existingJavadoc, comment, kinds);
+        }
+    }
+
+    @Override
+    protected void stopProcessing() throws Exception {
+        // changes are applied by the caller
+    }
+
+    @Override
+    protected String getTaskName() {
+        return "JAutodoc Fix";
+    }
+
+    private void fixPeriod(final String existingJavadoc, final Comment comment) throws Exception {
+        final JavadocInfo jdi = new JavadocInfo();
+        jdi.parseJavadoc(existingJavadoc);
+
+        final Line line = comment.getDescriptionEnd();
+        if (jdi.hasComment() && !jdi.containsPeriod() && line != null) {
+            textEdit.addChild(new InsertEdit(line.contentEnd, Constants.DOT));
+        }
+    }
+
+    private void fixTags(final IMember member, final String existingJavadoc, final Comment comment,
+            final Set<FindingId> kinds) throws Exception {
+
+        final String indent = SourceUtils.getIndentionString(document, member);
+        String generatedJavadoc = null;
+        try {
+            JavadocInfo jdi = new JavadocInfo();
+            jdi.parseJavadoc(existingJavadoc);
+            if (config.isCreateDummyComment()) {
+                jdi = javadocCreator.applyTemplate(member, jdi);
+            }
+
+            if (member instanceof IMethod) {
+                generatedJavadoc = javadocCreator.createJavadoc((IMethod) member, indent, lineDelimiter, jdi,
+                        document, commentScanner);
+            }
+            else if (member instanceof IType) {
+                generatedJavadoc = javadocCreator.createJavadoc((IType) member, indent, lineDelimiter, jdi,
+                        document, commentScanner);
+            }
+        } catch (TemplateBudgetException e) {
+            return; // already logged, keep existing Javadoc
+        }
+        if (generatedJavadoc == null) {
+            return;
+        }
+
+        final Comment generated = new Comment(generatedJavadoc, 0);
+        final Map<Integer, StringBuilder> insertions = new TreeMap<Integer, StringBuilder>();
+        final Map<Tag, String> replacements = new TreeMap<Tag, String>();
+
+        final List<Tag> generatedTags = generated.getTags();
+        for (int i = 0; i < generatedTags.size(); ++i) {
+            final Tag generatedTag = generatedTags.get(i);
+            if (!kinds.contains(generatedTag.getFindingId())) {
+                continue;
+            }
+
+            final String text = generatedJavadoc.substring(generatedTag.start, generatedTag.end);
+            final Tag existingTag = comment.findTag(generatedTag.key);
+            if (existingTag != null) {
+                if (existingTag.isEmpty() && !generatedTag.isEmpty()) {
+                    replacements.put(existingTag, text.substring(generatedTag.contentStart - generatedTag.start));
+                }
+                continue;
+            }
+
+            // after the previous or before the next existing tag of the generated order
+            final Tag previous = findExisting(comment, generatedTags, i, -1);
+            final Tag next = previous == null ? findExisting(comment, generatedTags, i, 1) : null;
+            if (previous != null) {
+                getInsertion(insertions, previous.end).append(lineDelimiter).append(text);
+            }
+            else if (next != null || !comment.getTags().isEmpty()) {
+                final Tag before = next != null ? next : comment.getTags().get(0);
+                getInsertion(insertions, before.start).append(text).append(lineDelimiter);
+            }
+            else {
+                final StringBuilder insertion = getInsertion(insertions, comment.getClosing().start);
+                if (insertion.length() == 0 && comment.getDescriptionEnd() != null) {
+                    insertion.append(indent).append(" *").append(lineDelimiter);
+                }
+                insertion.append(text).append(lineDelimiter);
+            }
+        }
+
+        for (Map.Entry<Tag, String> entry : replacements.entrySet()) {
+            final Tag tag = entry.getKey();
+            final StringBuilder appended = insertions.remove(tag.end);
+            textEdit.addChild(new ReplaceEdit(tag.contentStart, tag.end - tag.contentStart,
+                    appended != null ? entry.getValue() + appended : entry.getValue()));
+        }
+        for (Map.Entry<Integer, StringBuilder> entry : insertions.entrySet()) {
+            textEdit.addChild(new InsertEdit(entry.getKey(), entry.getValue().toString()));
+        }
+    }
+
+    private static Tag findExisting(final Comment comment, final List<Tag> generatedTags, final int index,
+            final int direction) {
+        for (int i = index + direction; i >= 0 && i < generatedTags.size(); i += direction) {
+            final Tag tag = comment.findTag(generatedTags.get(i).key);
+            if (tag != null) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    private static StringBuilder getInsertion(final Map<Integer, StringBuilder> insertions, final int offset) {
+        return insertions.computeIfAbsent(offset, o -> new StringBuilder());
+    }
+
+    private Set<FindingId> getFixes(final IJavaElement element) {
+        final Set<FindingId> kinds = fixes.get(element);
+        return kinds != null ? kinds : Collections.<FindingId>emptySet();
+    }
+
+    // ------------------------------------------------------------------------
+    // inner classes
+    // ------------------------------------------------------------------------
+
+    /**
+     * A line of a comment with the offsets of its content, without the comment prefix.
+     */
+    private static final class Line {
+        int start;
+        int contentStart;
+        int contentEnd;
+        boolean closing;
+
+        boolean isEmpty() {
+            return contentStart == contentEnd;
+        }
+    }
+
+    /**
+     * A tag of a comment with its continuation lines.
+     */
+    private static final class Tag implements Comparable<Tag> {
+        final String key;
+        final int start;
+        final int contentStart;
+        int end;
+        boolean empty;
+
+        Tag(final String key, final Line line, final boolean empty) {
+            this.key = key;
+            this.start = line.start;
+            this.contentStart = line.contentStart;
+            this.end = line.contentEnd;
+            this.empty = empty;
+        }
+
+        boolean isEmpty() {
+            return empty;
+        }
+
+        FindingId getFindingId() {
+            if (key.startsWith(JavadocTag.TAG_TYPE_PARAM)) {
+                return FindingId.MISSING_PARAM;
+            }
+            if (key.startsWith(JavadocTag.TAG_TYPE_RETURN)) {
+                return FindingId.MISSING_RETURN;
+            }
+            if (key.startsWith(JavadocTag.TAG_TYPE_THROWS)) {
+                return FindingId.MISSING_THROWS;
+            }
+            return null;
+        }
+
+        public int compareTo(final Tag other) {
+            return Integer.compare(start, other.start);
+        }
+    }
+
+    /**
+     * The lines and tags of a block comment.
+     */
+    private static final class Comment {
+        private final List<Line> lines = new ArrayList<Line>();
+        private final List<Tag> tags = new ArrayList<Tag>();
+        private Line descriptionEnd;
+
+
+        Comment(final String text, final int offset) {
+            int lineStart = 0;
+            while (true) {
+                int lineEnd = text.indexOf('\n', lineStart);
+                if (lineEnd < 0) {
+                    lineEnd = text.length();
+                }
+                addLine(text, offset, lineStart, lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r'
+                        ? lineEnd - 1 : lineEnd);
+                if (lineEnd >= text.length()) {
+                    break;
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        private void addLine(final String text, final int offset, final int start, int end) {
+            int pos = skipWhitespace(text, start, end);
+            if (text.startsWith("/**", pos)) {
+                pos += 3;
+            }
+            else if (text.startsWith("*", pos) && !text.startsWith("*/", pos)) {
+                pos += 1;
+            }
+
+            final Line line = new Line();
+            final int close = text.indexOf("*/", pos);
+            line.closing = close >= 0 && close < end;
+            if (line.closing) {
+                end = close;
+            }
+
+            final int contentStart = skipWhitespace(text, pos, end);
+            int contentEnd = end;
+            while (contentEnd > contentStart && Character.isWhitespace(text.charAt(contentEnd - 1))) {
+                --contentEnd;
+            }
+
+            line.start = offset + start;
+            line.contentStart = offset + contentStart;
+            line.contentEnd = offset + contentEnd;
+            lines.add(line);
+
+            if (line.isEmpty()) {
+                return;
+            }
+
+            final String content = text.substring(contentStart, contentEnd);
+            if (content.startsWith("@")) {
+                final String[] tokens = content.split("\\s+", 3);
+                final String type = JavadocTag.TAG_TYPE_EXCEPTION.equals(tokens[0])
+                        ? JavadocTag.TAG_TYPE_THROWS : tokens[0];
+                final boolean named = JavadocTag.isNamedTag(type);
+                final String key = named && tokens.length > 1 ? type + " " + tokens[1] : type;
+                tags.add(new Tag(key, line, tokens.length <= (named ? 2 : 1)));
+            }
+            else if (!tags.isEmpty()) {
+                final Tag tag = tags.get(tags.size() - 1);
+                tag.end = line.contentEnd;
+                tag.empty = false;
+            }
+            else {
+                descriptionEnd = line;
+            }
+        }
+
+        private static int skipWhitespace(final String text, int pos, final int end) {
+            while (pos < end && Character.isWhitespace(text.charAt(pos))) {
+                ++pos;
+            }
+            return pos;
+        }
+
+        boolean isMultiLine() {
+            return lines.size() > 1 && getClosing().isEmpty();
+        }
+
+        Line getClosing() {
+            return lines.get(lines.size() - 1);
+        }
+
+        Line getDescriptionEnd() {
+            return descriptionEnd;
+        }
+
+        List<Tag> getTags() {
+            return tags;
+        }
+
+        Tag findTag(final String key) {
+            for (Tag tag : tags) {
+                if (tag.key.equals(key)) {
+                    return tag;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -60,6 +60,14 @@ public abstract class TaskSearchLabelProvider extends AppearanceAwareLabelProvid
         }
     }
 
+    /**
+     * Gets the text to sort the given element by, i.e. its label without finding counts.
+     *
+     * @param element the element
+     * @return the sort text
+     */
+    public abstract String getSortText(Object element);
+
     protected boolean hasChildren(Object elem) {
         return false;
     }
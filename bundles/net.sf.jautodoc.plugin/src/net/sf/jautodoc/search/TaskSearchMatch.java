@@ -20,15 +20,28 @@ public class TaskSearchMatch extends Match {
 
     private final List<Finding> findings = new ArrayList<Finding>();
 
+    /** Bits of the finding ids of this match. */
+    private int findingKinds;
+
+    /** The search result providing the filter state, if added. */
+    private TaskSearchResult searchResult;
+
     public TaskSearchMatch(final IJavaElement element, final int offset, final int length,
             final FindingId id, final String message) {
 
         super(element, offset, length);
-        this.findings.add(new Finding(this, id, message));
+        addFinding(id, message);
     }
 
     public void addFinding(final FindingId id, final String message) {
         findings.add(new Finding(this, id, message));
+        findingKinds |= getKindBit(id);
+    }
+
+    public void addFindings(final TaskSearchMatch match) {
+        for (Finding finding : match.findings) {
+            addFinding(finding.getId(), finding.getMessage());
+        }
     }
 
     public Finding[] getFindings() {
@@ -51,12 +64,8 @@ public class TaskSearchMatch extends Match {
 
     @Override
     public boolean isFiltered() {
-        for (Finding finding : findings) {
-            if (!finding.isFiltered()) {
-                return false;
-            }
-        }
-        return true;
+        // filtered, when all findings are filtered
+        return searchResult != null && (findingKinds & ~searchResult.getFilteredKinds()) == 0;
     }
 
     @Override
@@ -64,6 +73,22 @@ public class TaskSearchMatch extends Match {
         // ignored
     }
 
+    static int getKindBit(final FindingId id) {
+        return 1 << id.ordinal();
+    }
+
+    int getFindingKinds() {
+        return findingKinds;
+    }
+
+    void setSearchResult(final TaskSearchResult searchResult) {
+        this.searchResult = searchResult;
+    }
+
+    boolean isFiltered(final FindingId id) {
+        return searchResult != null && (searchResult.getFilteredKinds() & getKindBit(id)) != 0;
+    }
+
     // ------------------------------------------------------------------------
     // inner classes
     // ------------------------------------------------------------------------
@@ -98,8 +123,6 @@ public class TaskSearchMatch extends Match {
         private final FindingId id;
         private final String message;
 
-        private boolean filtered;
-
         public Finding(final Match match, final FindingId id, final String message) {
             this.id = id;
             this.match = match;
@@ -119,11 +142,7 @@ public class TaskSearchMatch extends Match {
         }
 
         public boolean isFiltered() {
-            return filtered;
-        }
-
-        public void setFiltered(boolean filtered) {
-            this.filtered = filtered;
+            return match instanceof TaskSearchMatch && ((TaskSearchMatch) match).isFiltered(id);
         }
 
         @Override
@@ -72,6 +72,10 @@ public class TaskSearchMatchFilter extends MatchFilter {
         return taskSearchMatch.isFiltered();
     }
 
+    public FindingId getFindingId() {
+        return findingId;
+    }
+
     public boolean filters(final Finding finding) {
         return finding.getId() == findingId;
     }
@@ -7,14 +7,9 @@
  *******************************************************************/
 package net.sf.jautodoc.search;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import net.sf.jautodoc.JAutodocPlugin;
 import net.sf.jautodoc.preferences.Constants;
 
-import org.eclipse.jdt.core.ICompilationUnit;
-import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jface.dialogs.DialogPage;
 import org.eclipse.jface.dialogs.IDialogSettings;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -33,7 +28,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
-import org.eclipse.ui.IWorkingSet;
 
 /**
  * Page with search parameters.
@@ -92,7 +86,7 @@ public class TaskSearchPage extends DialogPage implements ISearchPage {
     }
 
     public boolean performAction() {
-        final TaskSearchQuery query = new TaskSearchQuery(getCompilationUnits(), getUpdatedSearchPattern());
+        final TaskSearchQuery query = new TaskSearchQuery(getSearchScope(), getUpdatedSearchPattern());
         NewSearchUI.runQueryInBackground(query);
         return true;
     }
@@ -360,30 +354,17 @@ public class TaskSearchPage extends DialogPage implements ISearchPage {
         return dialogSettings;
     }
 
-    private ICompilationUnit[] getCompilationUnits() {
-        final Set<ICompilationUnit> cus = new HashSet<ICompilationUnit>();
-
-        try {
-            switch (container.getSelectedScope()) {
-            case ISearchPageContainer.WORKSPACE_SCOPE:
-                TaskSearchHelper.collectCompilationUnitsOnWorkspace(cus);
-                break;
-            case ISearchPageContainer.SELECTION_SCOPE:
-                final IStructuredSelection selection = (IStructuredSelection)container.getSelection();
-                TaskSearchHelper.collectCompilationUnitsOnSelection(selection, cus);
-                break;
-            case ISearchPageContainer.SELECTED_PROJECTS_SCOPE:
-                final String[] projectNames = container.getSelectedProjectNames();
-                TaskSearchHelper.collectCompilationUnitsOnSelectedProjects(projectNames, cus);
-                break;
-            case ISearchPageContainer.WORKING_SET_SCOPE:
-                final IWorkingSet[] workingSets = container.getSelectedWorkingSets();
-                TaskSearchHelper.collectCompilationUnitsOnWorkingSets(workingSets, cus);
-            }
-        } catch (JavaModelException e) {
-            JAutodocPlugin.getDefault().handleException(getShell(), e);
+    private TaskSearchScope getSearchScope() {
+        switch (container.getSelectedScope()) {
+        case ISearchPageContainer.SELECTION_SCOPE:
+            return TaskSearchScope.createSelectionScope((IStructuredSelection) container.getSelection());
+        case ISearchPageContainer.SELECTED_PROJECTS_SCOPE:
+            return TaskSearchScope.createProjectScope(container.getSelectedProjectNames());
+        case ISearchPageContainer.WORKING_SET_SCOPE:
+            return TaskSearchScope.createWorkingSetScope(container.getSelectedWorkingSets());
+        default:
+            return TaskSearchScope.createWorkspaceScope();
         }
-        return cus.toArray(new ICompilationUnit[cus.size()]);
     }
 
     // ------------------------------------------------------------------------
@@ -7,10 +7,11 @@
  *******************************************************************/
 package net.sf.jautodoc.search;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import net.sf.jautodoc.preferences.IMemberFilter;
+import net.sf.jautodoc.utils.HashBuilder;
 
 import org.eclipse.jface.dialogs.IDialogSettings;
 
@@ -272,20 +273,31 @@ public class TaskSearchPattern implements IMemberFilter {
         this.missingTagString = missingTagString;
     }
 
+    /**
+     * Gets the tags to search for. The tag string is compiled once, tags
+     * listed more than once are merged.
+     *
+     * @return the missing tags
+     */
     public MissingTag[] getMissingTags() {
         if (missingTags == null) {
-            final List<MissingTag> missingTagList = new ArrayList<MissingTag>();
+            final Map<String, MissingTag> missingTagMap = new LinkedHashMap<String, MissingTag>();
             final String[] values = missingTagString.split(",");
             for (String value : values) {
                 if (value.trim().length() > 0) {
-                    missingTagList.add(MissingTag.fromString(value.trim()));
+                    final MissingTag missingTag = MissingTag.fromString(value.trim());
+                    missingTagMap.merge(missingTag.getName(), missingTag, MissingTag::merge);
                 }
             }
-            missingTags = missingTagList.toArray(new MissingTag[missingTagList.size()]);
+            missingTags = missingTagMap.values().toArray(new MissingTag[missingTagMap.size()]);
         }
         return missingTags;
     }
 
+    public boolean hasMissingTags() {
+        return searchMissingTags && getMissingTags().length > 0;
+    }
+
     public String getDescription() {
         final StringBuffer buffer = new StringBuffer();
         if (isMissingJavadoc()) {
@@ -331,6 +343,23 @@ public class TaskSearchPattern implements IMemberFilter {
         return buffer.length() > 0 ? buffer.substring(0, buffer.length() - 2) : "";
     }
 
+    /**
+     * Gets a hash of all search parameters.
+     *
+     * @return the hash
+     */
+    public String getHash() {
+        final HashBuilder hash = new HashBuilder();
+        hash.add(missingJavadoc).add(missingParamTag).add(missingReturnTag).add(missingThrowsTag);
+        hash.add(missingPeriods).add(generatedJavadoc).add(todoForGenerated);
+        hash.add(missingHeader).add(outdatedHeader);
+        hash.add(includePublic).add(includeProtected).add(includePackage).add(includePrivate);
+        hash.add(includeTypes).add(includeFields).add(includeMethods);
+        hash.add(getterSetterOnly).add(excludeGetterSetter);
+        hash.add(searchMissingTags).add(missingTagString);
+        return hash.toHex();
+    }
+
     private static String getString(final IDialogSettings settings, final String key, final String defaultValue) {
         final String value = settings.get(key);
         return value == null ? defaultValue : value;
@@ -386,6 +415,16 @@ public class TaskSearchPattern implements IMemberFilter {
             return name;
         }
 
+        /**
+         * Merges this with another option for the same tag.
+         *
+         * @param other the other missing tag
+         * @return the merged missing tag
+         */
+        public MissingTag merge(final MissingTag other) {
+            return option == other.option ? this : new MissingTag(name, Option.ALL);
+        }
+
         public boolean isOnlyMissing() {
             return option == Option.ONLY_MISSING;
         }
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -32,10 +32,15 @@ public class TaskSearchPostfixLabelProvider extends TaskSearchLabelProvider {
         return labelWithCounts + getQualification(element);
     }
 
+    public String getSortText(final Object element) {
+        return internalGetText(element) + getQualification(element);
+    }
+
     private String getQualification(final Object element) {
         final StringBuffer res = new StringBuffer();
 
-        final ITreeContentProvider provider = (ITreeContentProvider) resultPage.getViewer().getContentProvider();
+        final TaskSearchTreeContentProvider provider =
+                (TaskSearchTreeContentProvider) resultPage.getViewer().getContentProvider();
         final Object visibleParent = provider.getParent(element);
 
         Object realParent = contentProvider.getParent(element);
@@ -52,7 +57,8 @@ public class TaskSearchPostfixLabelProvider extends TaskSearchLabelProvider {
     }
 
     protected boolean hasChildren(final Object element) {
-        final ITreeContentProvider contentProvider = (ITreeContentProvider) resultPage.getViewer().getContentProvider();
+        final TaskSearchTreeContentProvider contentProvider =
+                (TaskSearchTreeContentProvider) resultPage.getViewer().getContentProvider();
         return contentProvider.hasChildren(element);
     }
 
@@ -14,7 +14,6 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
-import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 
@@ -23,16 +22,16 @@ import org.eclipse.search.ui.ISearchResult;
  */
 public class TaskSearchQuery implements ISearchQuery {
 
-    private final ICompilationUnit[] compUnits;
+    private final TaskSearchScope scope;
     private final TaskSearchResult searchResult;
     private final TaskSearchPattern searchPattern;
 
 
-    public TaskSearchQuery(final ICompilationUnit[] compUnits, final TaskSearchPattern searchPattern) {
-        this.compUnits = compUnits;
+    public TaskSearchQuery(final TaskSearchScope scope, final TaskSearchPattern searchPattern) {
+        this.scope = scope;
         this.searchPattern = searchPattern;
         this.searchResult = new TaskSearchResult(this);
-        new TaskSearchResultUpdater(compUnits, searchPattern, searchResult);
+        new TaskSearchResultUpdater(scope, searchPattern, searchResult);
     }
 
     public IStatus run(IProgressMonitor monitor) throws OperationCanceledException {
@@ -48,15 +47,11 @@ public class TaskSearchQuery implements ISearchQuery {
     }
 
     private void doSearch(final IProgressMonitor monitor) throws Exception {
-        monitor.beginTask(getLabel(), compUnits.length * 5);
-        for (ICompilationUnit cu : compUnits) {
+        monitor.beginTask(getLabel(), 1);
+        scope.accept((cu, unitMonitor) -> {
             final TaskSearchEngine engine = new TaskSearchEngine(cu, searchPattern, searchResult);
-            engine.search(new SubProgressMonitor(monitor, 5));
-
-            if (monitor.isCanceled()) {
-                break;
-            }
-        }
+            engine.search(unitMonitor);
+        }, new SubProgressMonitor(monitor, 1));
     }
 
     public TaskSearchPattern getSearchPattern() {
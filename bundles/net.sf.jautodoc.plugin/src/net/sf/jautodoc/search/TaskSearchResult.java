@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -9,11 +9,15 @@ package net.sf.jautodoc.search;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import net.sf.jautodoc.search.TaskSearchMatch.Finding;
+import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IAdaptable;
@@ -38,9 +42,34 @@ import org.eclipse.ui.IEditorPart;
  */
 public class TaskSearchResult extends AbstractTextSearchResult implements IEditorMatchAdapter, IFileMatchAdapter {
     private static final Match[] NO_MATCHES = new Match[0];
+    private static final FindingId[] FINDING_IDS = FindingId.values();
+
+    /** Types of the ancestors, the result elements are indexed by. */
+    private static final int[] ANCESTOR_TYPES = { IJavaElement.COMPILATION_UNIT, IJavaElement.CLASS_FILE,
+            IJavaElement.PACKAGE_FRAGMENT, IJavaElement.PACKAGE_FRAGMENT_ROOT, IJavaElement.JAVA_PROJECT,
+            IJavaElement.JAVA_MODEL };
 
     private TaskSearchQuery searchQuery;
 
+    /**
+     * Matches and finding counts per element. The matches are not keyed by their source range,
+     * since the position tracker moves them while they are in this result.
+     */
+    private final Map<Object, ElementMatches> matchIndex = new HashMap<Object, ElementMatches>();
+
+    /** Result elements per unit, package, root, project and model, guarded by the match index. */
+    private final Map<Object, Set<Object>> ancestorIndex = new HashMap<Object, Set<Object>>();
+
+    /** Finding counts per finding id, guarded by the match index. */
+    private final int[] findingCounts = new int[FINDING_IDS.length];
+    private int findingCount;
+
+    /** Bits of the finding ids, that are filtered from view. */
+    private volatile int filteredKinds;
+
+    /** The active filters, null if filtering is disabled. */
+    private volatile MatchFilter[] activeMatchFilters;
+
 
     public TaskSearchResult(final TaskSearchQuery searchQuery) {
         this.searchQuery = searchQuery;
@@ -52,15 +81,152 @@ public class TaskSearchResult extends AbstractTextSearchResult implements IEdito
         return TaskSearchMatchFilter.getAllFilters();
     }
 
+    @Override
+    public MatchFilter[] getActiveMatchFilters() {
+        return activeMatchFilters;
+    }
+
     @Override
     public void setActiveMatchFilters(final MatchFilter[] filters) {
+        // no filter pass of the super class over all matches,
+        // the matches derive their filter state from the filtered kinds
         TaskSearchMatchFilter.setLastUsedFilters(filters);
-        updateFilterStateForAllMatches(getElements(),filters);
-        super.setActiveMatchFilters(filters);
+
+        final int newFilteredKinds = getFilteredKinds(filters);
+        final int changedKinds = filteredKinds ^ newFilteredKinds;
+        activeMatchFilters = filters;
+        filteredKinds = newFilteredKinds;
+
+        final Match[] changed = getMatchesWithKinds(changedKinds);
+        fireChange(new FilterUpdateEvent(this, changed, filters == null ? TaskSearchMatchFilter.NO_FILTERS : filters));
     }
 
-    public void applyFilterState(final Object[] elements) {
-        updateFilterStateForAllMatches(getElements(), getActiveMatchFilters());
+    /**
+     * Gets the match of the given element with the given source range.
+     *
+     * @param element the element
+     * @param offset the offset
+     * @param length the length
+     * @return the match or null, if there is none
+     */
+    public TaskSearchMatch findMatch(final Object element, final int offset, final int length) {
+        synchronized (matchIndex) {
+            final ElementMatches elementMatches = matchIndex.get(element);
+            if (elementMatches != null) {
+                for (TaskSearchMatch match : elementMatches.matches) {
+                    if (match.getOffset() == offset && match.getLength() == length) {
+                        return match;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Adds the findings of the given matches. Findings with the source range of an existing
+     * match are added to that match, all other matches are added with a single change event.
+     *
+     * @param matches the matches holding the new findings
+     */
+    public void addFindings(final Collection<TaskSearchMatch> matches) {
+        final List<Match> newMatches = new ArrayList<Match>(matches.size());
+        synchronized (matchIndex) {
+            for (TaskSearchMatch match : matches) {
+                final TaskSearchMatch existing = findMatch(match.getElement(), match.getOffset(), match.getLength());
+                if (existing != null) {
+                    existing.addFindings(match);
+                    count(matchIndex.get(existing.getElement()), match, 1);
+                }
+                else {
+                    index(match);
+                    newMatches.add(match);
+                }
+            }
+        }
+
+        if (!newMatches.isEmpty()) {
+            super.addMatches(newMatches.toArray(new Match[newMatches.size()]));
+        }
+    }
+
+    @Override
+    public void addMatch(final Match match) {
+        synchronized (matchIndex) {
+            index((TaskSearchMatch) match);
+        }
+        super.addMatch(match);
+    }
+
+    @Override
+    public void addMatches(final Match[] matches) {
+        synchronized (matchIndex) {
+            for (Match match : matches) {
+                index((TaskSearchMatch) match);
+            }
+        }
+        super.addMatches(matches);
+    }
+
+    @Override
+    public void removeMatch(final Match match) {
+        synchronized (matchIndex) {
+            unindex(match);
+        }
+        super.removeMatch(match);
+    }
+
+    @Override
+    public void removeMatches(final Match[] matches) {
+        synchronized (matchIndex) {
+            for (Match match : matches) {
+                unindex(match);
+            }
+        }
+        super.removeMatches(matches);
+    }
+
+    @Override
+    public void removeAll() {
+        synchronized (matchIndex) {
+            matchIndex.clear();
+            ancestorIndex.clear();
+            Arrays.fill(findingCounts, 0);
+            findingCount = 0;
+        }
+        super.removeAll();
+    }
+
+    /**
+     * Gets the elements of this result, that are equal to or contained in the given element.
+     *
+     * @param ancestor the ancestor element
+     * @return the contained elements
+     */
+    public Object[] getElementsBelow(final Object ancestor) {
+        final Set<Object> elements = new HashSet<Object>();
+        synchronized (matchIndex) {
+            if (matchIndex.containsKey(ancestor)) {
+                elements.add(ancestor);
+            }
+
+            final Set<Object> indexed = ancestorIndex.get(ancestor);
+            if (indexed != null) {
+                elements.addAll(indexed);
+            }
+            else if (ancestor instanceof IJavaElement) {
+                // members are not indexed, check the elements of their unit
+                final Set<Object> unitElements = ancestorIndex.get(getUnit((IJavaElement) ancestor));
+                if (unitElements != null) {
+                    for (Object element : unitElements) {
+                        if (isAncestor((IJavaElement) ancestor, (IJavaElement) element)) {
+                            elements.add(element);
+                        }
+                    }
+                }
+            }
+        }
+        return elements.toArray();
     }
 
     public TaskSearchMatch.Finding[] getFindings(final Object element) {
@@ -86,27 +252,51 @@ public class TaskSearchResult extends AbstractTextSearchResult implements IEdito
     }
 
     public int getFindingCount() {
-        int count = 0;
-        for (Object element : getElements()) {
-            count += getFindingCount(element);
+        synchronized (matchIndex) {
+            return findingCount;
         }
-        return count;
     }
 
     public int getFindingCount(final Object element) {
-        return getFindings(element).length;
+        synchronized (matchIndex) {
+            final ElementMatches elementMatches = matchIndex.get(element);
+            return elementMatches != null ? elementMatches.findingCount : 0;
+        }
+    }
+
+    /**
+     * Gets the number of findings of the given kind, filtered or not.
+     *
+     * @param id the finding id
+     * @return the finding count
+     */
+    public int getKindCount(final FindingId id) {
+        synchronized (matchIndex) {
+            return findingCounts[id.ordinal()];
+        }
+    }
+
+    /**
+     * Gets all matches with a finding of the given kind.
+     *
+     * @param id the finding id
+     * @return the matches
+     */
+    public Match[] getMatchesOfKind(final FindingId id) {
+        return getMatchesWithKinds(TaskSearchMatch.getKindBit(id));
     }
 
     public int getFilteredFindingCount() {
-        int count = 0;
-        for (Object element : getElements()) {
-            count += getFilteredFindingCount(element);
+        synchronized (matchIndex) {
+            return countUnfiltered(findingCounts);
         }
-        return count;
     }
 
     public int getFilteredFindingCount(final Object element) {
-        return getFilteredFindings(element).length;
+        synchronized (matchIndex) {
+            final ElementMatches elementMatches = matchIndex.get(element);
+            return elementMatches != null ? countUnfiltered(elementMatches.findingCounts) : 0;
+        }
     }
 
     public ISearchQuery getQuery() {
@@ -227,41 +417,152 @@ public class TaskSearchResult extends AbstractTextSearchResult implements IEdito
         }
     }
 
-    private void updateFilterStateForAllMatches(final Object[] elements, MatchFilter[] matchFilters) {
-        if (matchFilters == null) {
-            matchFilters = TaskSearchMatchFilter.NO_FILTERS;
+    int getFilteredKinds() {
+        return filteredKinds;
+    }
+
+    static Long getRangeKey(final int offset, final int length) {
+        return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    private static int getFilteredKinds(final MatchFilter[] matchFilters) {
+        int kinds = 0;
+        if (matchFilters != null) {
+            for (MatchFilter matchFilter : matchFilters) {
+                kinds |= TaskSearchMatch.getKindBit(((TaskSearchMatchFilter) matchFilter).getFindingId());
+            }
         }
+        return kinds;
+    }
 
-        final List<Object> changed = new ArrayList<Object>();
-        for (Object element : elements) {
-            for (Match match : getMatches(element)) {
-                if (updateFilterState((TaskSearchMatch) match, matchFilters)) {
-                    changed.add(match);
+    private Match[] getMatchesWithKinds(final int kinds) {
+        if (kinds == 0) {
+            return NO_MATCHES;
+        }
+
+        final List<Match> matches = new ArrayList<Match>();
+        synchronized (matchIndex) {
+            for (ElementMatches elementMatches : matchIndex.values()) {
+                if (!containsKinds(elementMatches.findingCounts, kinds)) {
+                    continue;
+                }
+                for (TaskSearchMatch match : elementMatches.matches) {
+                    if ((match.getFindingKinds() & kinds) != 0) {
+                        matches.add(match);
+                    }
                 }
             }
         }
+        return matches.toArray(new Match[matches.size()]);
+    }
 
-        final Match[] allChanges = changed.toArray(new Match[changed.size()]);
-        fireChange(new FilterUpdateEvent(this, allChanges, matchFilters));
+    private static boolean containsKinds(final int[] counts, final int kinds) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0 && (kinds & (1 << i)) != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private boolean updateFilterState(final TaskSearchMatch match, final MatchFilter[] matchFilters) {
-        boolean findingFilterChanged = false;
+    private int countUnfiltered(final int[] counts) {
+        final int kinds = filteredKinds;
 
-        for (Finding finding : match.getFindings()) {
-            boolean wasFiltered = finding.isFiltered();
-            finding.setFiltered(false);
-            for (MatchFilter matchFilter : matchFilters) {
-                final TaskSearchMatchFilter taskSearchMatchFilter = (TaskSearchMatchFilter)matchFilter;
-                if (taskSearchMatchFilter.filters(finding)) {
-                    finding.setFiltered(true);
-                }
+        int count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if ((kinds & (1 << i)) == 0) {
+                count += counts[i];
             }
+        }
+        return count;
+    }
 
-            if (finding.isFiltered() != wasFiltered) {
-                findingFilterChanged = true;
+    private void index(final TaskSearchMatch match) {
+        ElementMatches elementMatches = matchIndex.get(match.getElement());
+        if (elementMatches == null) {
+            elementMatches = new ElementMatches();
+            matchIndex.put(match.getElement(), elementMatches);
+            indexAncestors(match.getElement(), true);
+        }
+
+        if (elementMatches.matches.contains(match)) {
+            return; // already added
+        }
+
+        elementMatches.matches.add(match);
+        match.setSearchResult(this);
+        count(elementMatches, match, 1);
+    }
+
+    private void unindex(final Match match) {
+        final ElementMatches elementMatches = matchIndex.get(match.getElement());
+        if (elementMatches == null) {
+            return;
+        }
+
+        if (elementMatches.matches.remove(match)) { // by identity, the range may have changed
+            count(elementMatches, (TaskSearchMatch) match, -1);
+            if (elementMatches.matches.isEmpty()) {
+                matchIndex.remove(match.getElement());
+                indexAncestors(match.getElement(), false);
+            }
+        }
+    }
+
+    private void indexAncestors(final Object element, final boolean add) {
+        if (!(element instanceof IJavaElement)) {
+            return;
+        }
+
+        for (int type : ANCESTOR_TYPES) {
+            final IJavaElement ancestor = ((IJavaElement) element).getAncestor(type);
+            if (ancestor == null) {
+                continue;
+            }
+            if (add) {
+                ancestorIndex.computeIfAbsent(ancestor, a -> new HashSet<Object>()).add(element);
             }
+            else {
+                final Set<Object> elements = ancestorIndex.get(ancestor);
+                if (elements != null && elements.remove(element) && elements.isEmpty()) {
+                    ancestorIndex.remove(ancestor);
+                }
+            }
+        }
+    }
+
+    private static IJavaElement getUnit(final IJavaElement element) {
+        final IJavaElement cu = element.getAncestor(IJavaElement.COMPILATION_UNIT);
+        return cu != null ? cu : element.getAncestor(IJavaElement.CLASS_FILE);
+    }
+
+    private static boolean isAncestor(final IJavaElement ancestor, IJavaElement element) {
+        while (element != null && !ancestor.equals(element)) {
+            element = element.getParent();
         }
-        return findingFilterChanged;
+        return element != null;
+    }
+
+    private void count(final ElementMatches elementMatches, final TaskSearchMatch match, final int delta) {
+        for (Finding finding : match.getFindings()) {
+            final int kind = finding.getId().ordinal();
+            elementMatches.findingCounts[kind] += delta;
+            elementMatches.findingCount += delta;
+            findingCounts[kind] += delta;
+            findingCount += delta;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // inner classes
+    // ------------------------------------------------------------------------
+
+    /**
+     * The matches of an element and the counts of their findings.
+     */
+    private static final class ElementMatches {
+        final List<TaskSearchMatch> matches = new ArrayList<TaskSearchMatch>(2);
+        final int[] findingCounts = new int[FINDING_IDS.length];
+        int findingCount;
     }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -15,6 +15,7 @@ import java.util.Map;
 
 import net.sf.jautodoc.JAutodocPlugin;
 import net.sf.jautodoc.search.TaskSearchMatch.Finding;
+import net.sf.jautodoc.search.TaskSearchMatch.FindingId;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -23,6 +24,7 @@ import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaPluginImages;
@@ -38,7 +40,6 @@ import org.eclipse.jface.action.IToolBarManager;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
 import org.eclipse.jface.util.LocalSelectionTransfer;
-import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -133,7 +134,8 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
     protected TableViewer createTableViewer(final Composite parent) {
         disposeCurrentView();
         viewSplitter = new SashForm(parent, SWT.HORIZONTAL);
-        final TableViewer tableViewer = super.createTableViewer(viewSplitter);
+        final TableViewer tableViewer = new TableViewer(viewSplitter, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL
+                | SWT.VIRTUAL);
         tableViewer.addSelectionChangedListener(this);
         createDetailViewer(viewSplitter);
         viewSplitter.setWeights(splitterWeights);
@@ -144,7 +146,8 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
     protected TreeViewer createTreeViewer(final Composite parent) {
         disposeCurrentView();
         viewSplitter = new SashForm(parent, SWT.HORIZONTAL);
-        final TreeViewer treeViewer = super.createTreeViewer(viewSplitter);
+        final TreeViewer treeViewer = new TreeViewer(viewSplitter, SWT.MULTI | SWT.H_SCROLL | SWT.V_SCROLL
+                | SWT.VIRTUAL);
         treeViewer.addSelectionChangedListener(this);
         createDetailViewer(viewSplitter);
         viewSplitter.setWeights(splitterWeights);
@@ -252,11 +255,19 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
         }
     }
 
+    @Override
+    public void setElementLimit(Integer elementLimit) {
+        super.setElementLimit(elementLimit);
+        if (contentProvider != null) {
+            contentProvider.elementLimitChanged();
+        }
+    }
+
     public void setSortOrder(int order) {
         if (sortingLabelProvider != null) {
             currentSortOrder = order;
             sortingLabelProvider.setOrder(order);
-            getViewer().refresh();
+            contentProvider.sortOrderChanged();
         }
     }
 
@@ -281,8 +292,8 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
         sortingLabelProvider = new TaskSearchSortingLabelProvider(this);
         viewer.setLabelProvider(new DecoratingJavaLabelProvider(sortingLabelProvider, false));
         contentProvider = new TaskSearchTableContentProvider(this);
+        contentProvider.setComparator(new DecoratorIgnoringViewerSorter(sortingLabelProvider));
         viewer.setContentProvider(contentProvider);
-        viewer.setComparator(new DecoratorIgnoringViewerSorter(sortingLabelProvider));
         setSortOrder(currentSortOrder);
         addDragAdapters(viewer);
 
@@ -298,8 +309,8 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
         TaskSearchPostfixLabelProvider postfixLabelProvider= new TaskSearchPostfixLabelProvider(this);
         viewer.setLabelProvider(new DecoratingJavaLabelProvider(postfixLabelProvider, false));
         contentProvider= new TaskSearchTreeContentProvider(this, currentGrouping);
+        contentProvider.setComparator(new DecoratorIgnoringViewerSorter(postfixLabelProvider));
         viewer.setContentProvider(contentProvider);
-        viewer.setComparator(new DecoratorIgnoringViewerSorter(postfixLabelProvider));
         addDragAdapters(viewer);
 
 		// TODO: HoverInformation
@@ -310,11 +321,6 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
 
     @Override
     protected void elementsChanged(Object[] objects) {
-        final TaskSearchResult taskSearchResult = (TaskSearchResult)getInput();
-        if (taskSearchResult != null) {
-            taskSearchResult.applyFilterState(objects);
-        }
-
         if (contentProvider != null) {
             contentProvider.elementsChanged(objects);
         }
@@ -340,6 +346,7 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
     protected void fillContextMenu(IMenuManager mgr) {
         super.fillContextMenu(mgr);
         addSortActions(mgr);
+        addFixActions(mgr);
 
         //actionGroup.setContext(new ActionContext(getSite().getSelectionProvider().getSelection()));
         //actionGroup.fillContextMenu(mgr);
@@ -442,6 +449,25 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
         }
     }
 
+    private void addFixActions(IMenuManager mgr) {
+        final TaskSearchResult searchResult = (TaskSearchResult)getInput();
+        if (searchResult == null) {
+            return;
+        }
+
+        MenuManager fixMenu= new MenuManager("Fix All");
+        for (FindingId findingId : TaskSearchBulkFix.FIXABLE_KINDS) {
+            final int count = searchResult.getKindCount(findingId);
+            if (count > 0) {
+                fixMenu.add(new TaskSearchFixAction(this, findingId, count));
+            }
+        }
+
+        if (!fixMenu.isEmpty()) {
+            mgr.appendToGroup(IContextMenuConstants.GROUP_REORGANIZE, fixMenu);
+        }
+    }
+
     private void addDragAdapters(final StructuredViewer viewer) {
         final Transfer[] transfers= new Transfer[] { LocalSelectionTransfer.getTransfer(), ResourceTransfer.getInstance() };
         final int ops = DND.DROP_COPY | DND.DROP_LINK;
@@ -495,60 +521,81 @@ public class TaskSearchResultPage extends AbstractTextSearchViewPage implements
 
     public static class DecoratorIgnoringViewerSorter extends ViewerComparator {
 
-        private final ILabelProvider labelProvider;
+        private final TaskSearchLabelProvider labelProvider;
 
-        public DecoratorIgnoringViewerSorter(final ILabelProvider labelProvider) {
+        public DecoratorIgnoringViewerSorter(final TaskSearchLabelProvider labelProvider) {
             this. labelProvider= labelProvider;
         }
 
-        @SuppressWarnings("unchecked")
         public int compare(final Viewer viewer, final Object e1, final Object e2) {
+            return compare(getSortKey(e1), getSortKey(e2));
+        }
 
-            if (e1 instanceof ICompilationUnit && e2 instanceof IMember) {
-                final ICompilationUnit cu1 = (ICompilationUnit)e1;
-                final ICompilationUnit cu2 = ((IMember)e2).getCompilationUnit();
-
-                final int rc = compare(viewer, cu1, cu2);
-                if (rc != 0) {
-                    return rc;
-                }
-                return -1;
+        /**
+         * Gets the key to sort the given element by. Members are sorted by their compilation unit
+         * and their position in it, following the unit itself. All other elements are sorted by
+         * their label without finding counts.
+         *
+         * @param element the element
+         * @return the sort key
+         */
+        public SortKey getSortKey(final Object element) {
+            if (element instanceof IMember && ((IMember) element).getCompilationUnit() != null) {
+                final IMember member = (IMember) element;
+                return new SortKey(element, getSortText(member.getCompilationUnit()), getOffset(member));
             }
-            else if (e1 instanceof IMember && e2 instanceof ICompilationUnit) {
-                final ICompilationUnit cu1 = ((IMember)e1).getCompilationUnit();
-                final ICompilationUnit cu2 = (ICompilationUnit)e2;
+            return new SortKey(element, getSortText(element), -1);
+        }
 
-                final int rc = compare(viewer, cu1, cu2);
-                if (rc != 0) {
-                    return rc;
-                }
-                return 1;
-            }
-            else if (e1 instanceof IMember && e2 instanceof IMember) {
-                final IMember m1 = (IMember)e1;
-                final IMember m2 = (IMember)e2;
-                final int rc = compare(viewer, m1.getCompilationUnit(), m2.getCompilationUnit());
-                if (rc != 0) {
-                    return rc;
-                }
-                return getOffset(m1) - getOffset(m2);
+        @SuppressWarnings("unchecked")
+        public int compare(final SortKey k1, final SortKey k2) {
+            final int rc = getComparator().compare(k1.text, k2.text);
+            if (rc != 0) {
+                return rc;
             }
+            return Integer.compare(k1.offset, k2.offset);
+        }
 
-            final String name1= noNull(labelProvider.getText(e1));
-            final String name2= noNull(labelProvider.getText(e2));
-            return getComparator().compare(name1, name2);
+        /**
+         * Sorts the given keys.
+         *
+         * @param keys the keys to sort
+         */
+        public void sort(final SortKey[] keys) {
+            Arrays.sort(keys, this::compare);
         }
 
-        private String noNull(final String string) {
-            return string == null ? "" : string;
+        private String getSortText(final Object element) {
+            final String text = labelProvider.getSortText(element);
+            return text == null ? "" : text;
         }
 
         private int getOffset(final IMember member) {
             try {
-                return member.getNameRange().getOffset();
+                final ISourceRange range = member.getNameRange();
+                return range != null ? range.getOffset() : -1;
             } catch (JavaModelException e) {
                 return -1;
             }
         }
     }
+
+    /**
+     * An element with the values it is sorted by, computed once.
+     */
+    public static final class SortKey {
+        private final Object element;
+        private final String text;
+        private final int offset;
+
+        SortKey(final Object element, final String text, final int offset) {
+            this.element = element;
+            this.text = text;
+            this.offset = offset;
+        }
+
+        public Object getElement() {
+            return element;
+        }
+    }
 }
@@ -7,11 +7,12 @@
  *******************************************************************/
 package net.sf.jautodoc.search;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
-import net.sf.jautodoc.utils.Utils;
-
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -25,6 +26,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.search.ui.IQueryListener;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.NewSearchUI;
+import org.eclipse.search.ui.text.Match;
 
 /**
  * Tracks changes of elements in the current search result.
@@ -37,12 +39,12 @@ public class TaskSearchResultUpdater implements IElementChangedListener, IQueryL
 
     private final TaskSearchResult searchResult;
     private final TaskSearchPattern searchPattern;
-    private final Set<ICompilationUnit> scope;
+    private final TaskSearchScope scope;
 
 
-    public TaskSearchResultUpdater(final ICompilationUnit[] compUnits, final TaskSearchPattern searchPattern,
+    public TaskSearchResultUpdater(final TaskSearchScope scope, final TaskSearchPattern searchPattern,
             final TaskSearchResult searchResult) {
-        this.scope = Utils.asSet(compUnits);
+        this.scope = scope;
         this.searchResult = searchResult;
         this.searchPattern = searchPattern;
 
@@ -68,37 +70,21 @@ public class TaskSearchResultUpdater implements IElementChangedListener, IQueryL
     }
 
     private void handleRemoved(final Set<Object> removedElements) {
-        for (Object element : searchResult.getElements()) {
-            if (isContainedInRemoved(removedElements, element) && element instanceof IJavaElement) {
-                final IJavaElement javaElement = (IJavaElement) element;
-                if (!javaElement.exists()) {
-                    searchResult.removeMatches(searchResult.getMatches(javaElement));
-                }
-            }
+        final Set<Object> affectedElements = new HashSet<Object>();
+        for (Object removedElement : removedElements) {
+            affectedElements.addAll(Arrays.asList(searchResult.getElementsBelow(removedElement)));
         }
-    }
 
-    private boolean isContainedInRemoved(final Set<Object> removedElements, final Object object) {
-        for (Object element : removedElements) {
-            if (isParentOf(element, object)) {
-                return true;
+        final List<Match> removedMatches = new ArrayList<Match>();
+        for (Object element : affectedElements) {
+            if (element instanceof IJavaElement && !((IJavaElement) element).exists()) {
+                removedMatches.addAll(Arrays.asList(searchResult.getMatches(element)));
             }
         }
-        return false;
-    }
-
-    private boolean isParentOf(final Object ancestor, Object descendant) {
-        while (descendant != null && !ancestor.equals(descendant)) {
-            descendant = getParent(descendant);
-        }
-        return descendant != null;
-    }
 
-    private Object getParent(final Object object) {
-        if (object instanceof IJavaElement) {
-            return ((IJavaElement) object).getParent();
+        if (!removedMatches.isEmpty()) {
+            searchResult.removeMatches(removedMatches.toArray(new Match[removedMatches.size()]));
         }
-        return null;
     }
 
     private void collectAffected(final Set<ICompilationUnit> changedCompilationUnits, final Set<Object> removedElements,
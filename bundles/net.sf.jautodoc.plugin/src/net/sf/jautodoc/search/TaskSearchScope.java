@@ -0,0 +1,206 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaModel;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.IWorkingSet;
+
+/**
+ * The compilation units of a search. The units are not collected up front, but enumerated
+ * package by package while the search runs. Membership of a unit is checked by containment
+ * in the elements of the scope.
+ */
+public class TaskSearchScope {
+
+    private final List<IJavaElement> elements = new ArrayList<IJavaElement>();
+    private final Set<IJavaElement> elementSet = new HashSet<IJavaElement>();
+
+
+    private TaskSearchScope(final Collection<IJavaElement> scopeElements) {
+        elementSet.addAll(scopeElements);
+        for (IJavaElement element : elementSet) {
+            if (!isContained(element.getParent())) {
+                elements.add(element); // skip elements covered by an ancestor
+            }
+        }
+        elementSet.retainAll(elements);
+    }
+
+    public static TaskSearchScope createWorkspaceScope() {
+        final Set<IJavaElement> scopeElements = new HashSet<IJavaElement>();
+        scopeElements.add(JavaCore.create(ResourcesPlugin.getWorkspace().getRoot()));
+        return new TaskSearchScope(scopeElements);
+    }
+
+    public static TaskSearchScope createProjectScope(final String[] projectNames) {
+        final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+
+        final Set<IJavaElement> scopeElements = new HashSet<IJavaElement>();
+        for (String projectName : projectNames) {
+            scopeElements.add(JavaCore.create(root.getProject(projectName)));
+        }
+        return new TaskSearchScope(scopeElements);
+    }
+
+    public static TaskSearchScope createWorkingSetScope(final IWorkingSet[] workingSets) {
+        final Set<IJavaElement> scopeElements = new HashSet<IJavaElement>();
+        for (IWorkingSet workingSet : workingSets) {
+            for (IAdaptable element : workingSet.getElements()) {
+                addScopeElement(element, scopeElements);
+            }
+        }
+        return new TaskSearchScope(scopeElements);
+    }
+
+    public static TaskSearchScope createSelectionScope(final IStructuredSelection selection) {
+        final Set<IJavaElement> scopeElements = new HashSet<IJavaElement>();
+        for (Object element : selection.toArray()) {
+            addScopeElement(element, scopeElements);
+        }
+        return new TaskSearchScope(scopeElements);
+    }
+
+    /**
+     * Checks, if the given element is part of this scope.
+     *
+     * @param element the element, e.g. a compilation unit
+     * @return true, if the element is contained in an element of this scope
+     */
+    public boolean contains(final IJavaElement element) {
+        return isContained(element);
+    }
+
+    /**
+     * Visits all compilation units of this scope. The units are enumerated per package, so the
+     * visitor is called before all units of the scope are known.
+     *
+     * @param visitor the visitor
+     * @param monitor the progress monitor
+     * @throws Exception thrown by the visitor or if the Java model could not be accessed
+     */
+    public void accept(final UnitVisitor visitor, final IProgressMonitor monitor) throws Exception {
+        monitor.beginTask("", elements.size());
+        for (IJavaElement element : elements) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            accept(element, visitor, new SubProgressMonitor(monitor, 1));
+        }
+        monitor.done();
+    }
+
+    private void accept(final IJavaElement element, final UnitVisitor visitor, final IProgressMonitor monitor)
+            throws Exception {
+        switch (element.getElementType()) {
+        case IJavaElement.JAVA_MODEL:
+            accept(((IJavaModel) element).getJavaProjects(), visitor, monitor);
+            break;
+        case IJavaElement.JAVA_PROJECT:
+            final IJavaProject project = (IJavaProject) element;
+            if (project.exists() && project.isOpen()) {
+                accept(project.getPackageFragmentRoots(), visitor, monitor);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+            final IPackageFragmentRoot root = (IPackageFragmentRoot) element;
+            if (root.exists() && root.getKind() == IPackageFragmentRoot.K_SOURCE) {
+                accept(root.getChildren(), visitor, monitor);
+            }
+            break;
+        case IJavaElement.PACKAGE_FRAGMENT:
+            if (element.exists()) {
+                accept(((IPackageFragment) element).getCompilationUnits(), visitor, monitor);
+            }
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+            if (element.exists()) {
+                visitor.visit((ICompilationUnit) element, monitor);
+            }
+        }
+        monitor.done();
+    }
+
+    private void accept(final IJavaElement[] children, final UnitVisitor visitor, final IProgressMonitor monitor)
+            throws Exception {
+        monitor.beginTask("", children.length);
+        for (IJavaElement child : children) {
+            if (monitor.isCanceled()) {
+                break;
+            }
+            accept(child, visitor, new SubProgressMonitor(monitor, 1));
+        }
+    }
+
+    private boolean isContained(IJavaElement element) {
+        while (element != null) {
+            if (elementSet.contains(element)) {
+                return true;
+            }
+            element = element.getParent();
+        }
+        return false;
+    }
+
+    private static void addScopeElement(final Object object, final Set<IJavaElement> scopeElements) {
+        if (!(object instanceof IJavaElement) || !((IJavaElement) object).exists()) {
+            return;
+        }
+
+        final IJavaElement javaElement = (IJavaElement) object;
+        switch (javaElement.getElementType()) {
+        case IJavaElement.TYPE:
+        case IJavaElement.FIELD:
+        case IJavaElement.METHOD:
+        case IJavaElement.INITIALIZER:
+            final ICompilationUnit cu = ((IMember) javaElement).getCompilationUnit();
+            if (cu != null) {
+                scopeElements.add(cu);
+            }
+            break;
+        case IJavaElement.IMPORT_CONTAINER:
+            scopeElements.add(javaElement.getParent());
+            break;
+        case IJavaElement.COMPILATION_UNIT:
+        case IJavaElement.PACKAGE_FRAGMENT:
+        case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        case IJavaElement.JAVA_PROJECT:
+            scopeElements.add(javaElement);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // inner classes
+    // ------------------------------------------------------------------------
+
+    /**
+     * Visitor for the compilation units of a scope.
+     */
+    public interface UnitVisitor {
+
+        void visit(ICompilationUnit compUnit, IProgressMonitor monitor) throws Exception;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -49,6 +49,19 @@ public class TaskSearchSortingLabelProvider extends TaskSearchLabelProvider {
         return text;
     }
 
+    @SuppressWarnings("restriction")
+    public String getSortText(Object element) {
+        if (element instanceof IImportDeclaration) {
+            element = ((IImportDeclaration) element).getParent().getParent();
+        }
+
+        final String text = super.getText(element);
+        if (text.length() > 0 && currentOrder == SHOW_ELEMENT_CONTAINER) {
+            return text + getPostQualification(element);
+        }
+        return text;
+    }
+
     @SuppressWarnings("restriction")
     public StyledString getStyledText(Object element) {
         if (element instanceof IImportDeclaration) {
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -7,96 +7,179 @@
  *******************************************************************/
 package net.sf.jautodoc.search;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import net.sf.jautodoc.search.TaskSearchResultPage.SortKey;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
 import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
-import org.eclipse.swt.widgets.Table;
 
 /**
- * Content provider for the search result table viewer.
+ * Content provider for the virtual search result table viewer. The displayed elements are kept
+ * in an array of sort keys, the table only requests the elements of the visible rows. The keys
+ * are computed when an element is added or the sort order changes.
  */
-public class TaskSearchTableContentProvider extends TaskSearchContentProvider {
+public class TaskSearchTableContentProvider extends TaskSearchContentProvider implements ILazyContentProvider {
+
+    /** Sort keys of the displayed elements. */
+    private final Map<Object, SortKey> sortKeys = new HashMap<Object, SortKey>();
+    private SortKey[] sortedKeys = NO_KEYS;
 
     public TaskSearchTableContentProvider(final TaskSearchResultPage resultPage) {
         super(resultPage);
     }
 
     /* (non-Javadoc)
-     * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
+     * @see net.sf.jautodoc.search.TaskSearchContentProvider#inputChanged(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
      */
-    public Object[] getElements(final Object inputElement) {
-        if (inputElement instanceof AbstractTextSearchResult) {
-            final Set<Object> filteredElements = new HashSet<Object>();
-            final int limit = getResultPage().getElementLimit().intValue();
-            final Object[] rawElements = ((AbstractTextSearchResult) inputElement).getElements();
+    public void inputChanged(final Viewer viewer, final Object oldInput, final Object newInput) {
+        super.inputChanged(viewer, oldInput, newInput);
+        ((TableViewer) viewer).setItemCount(getItemCount());
+    }
 
-            for (Object element : rawElements) {
+    protected synchronized void initialize(final AbstractTextSearchResult result) {
+        super.initialize(result);
+
+        sortKeys.clear();
+        if (result != null) {
+            for (Object element : result.getElements()) {
                 if (getResultPage().getDisplayedFindingsCount(element) > 0) {
-                    filteredElements.add(element);
-                    if (limit != -1 && filteredElements.size() >= limit) {
-                        break;
-                    }
+                    sortKeys.put(element, getSortKey(element));
                 }
             }
-            return filteredElements.toArray();
         }
-        return EMPTY_ARR;
+        sortAll();
+    }
+
+    /* (non-Javadoc)
+     * @see org.eclipse.jface.viewers.ILazyContentProvider#updateElement(int)
+     */
+    public synchronized void updateElement(final int index) {
+        if (index < sortedKeys.length) {
+            getViewer().replace(sortedKeys[index].getElement(), index);
+        }
     }
 
     /* (non-Javadoc)
      * @see net.sf.jautodoc.search.TaskSearchContentProvider#elementsChanged(java.lang.Object[])
      */
-    public void elementsChanged(final Object[] updatedElements) {
+    public synchronized void elementsChanged(final Object[] updatedElements) {
         if (getSearchResult() == null) {
             return;
         }
 
-        int addLimit = getAddLimit();
-
-        final Set<Object> added = new HashSet<Object>();
-        final Set<Object> updated = new HashSet<Object>();
-        final Set<Object> removed = new HashSet<Object>();
-
-        final TableViewer viewer = (TableViewer) getResultPage().getViewer();
+        final List<SortKey> added = new ArrayList<SortKey>();
+        final List<Object> updated = new ArrayList<Object>();
+        boolean removed = false;
 
         for (Object element : updatedElements) {
             if (getResultPage().getDisplayedFindingsCount(element) > 0) {
-                if (viewer.testFindItem(element) != null) {
-                    updated.add(element);
+                if (!sortKeys.containsKey(element)) {
+                    final SortKey key = getSortKey(element);
+                    sortKeys.put(element, key);
+                    added.add(key);
                 }
                 else {
-                    if (addLimit > 0) {
-                        added.add(element);
-                        addLimit--;
-                    }
+                    updated.add(element);
                 }
             }
-            else {
-                removed.add(element);
+            else if (sortKeys.remove(element) != null) {
+                removed = true;
             }
         }
 
-        viewer.add(added.toArray());
-        viewer.remove(removed.toArray());
-        viewer.update(updated.toArray(), new String[] { TaskSearchLabelProvider.PROPERTY_MATCH_COUNT });
+        if (removed) {
+            sortedKeys = retainDisplayed(sortedKeys);
+        }
+        if (!added.isEmpty()) {
+            final SortKey[] addedKeys = added.toArray(new SortKey[added.size()]);
+            sort(addedKeys);
+            sortedKeys = merge(sortedKeys, addedKeys);
+        }
+
+        final TableViewer viewer = getViewer();
+        if (removed || !added.isEmpty()) {
+            viewer.setItemCount(getItemCount());
+            viewer.refresh();
+        }
+        else {
+            viewer.update(updated.toArray(), new String[] { TaskSearchLabelProvider.PROPERTY_MATCH_COUNT });
+        }
     }
 
-    private int getAddLimit() {
-        final int limit = getResultPage().getElementLimit().intValue();
-        if (limit != -1) {
-            final Table table = (Table) getResultPage().getViewer().getControl();
-            final int itemCount = table.getItemCount();
-            if (itemCount >= limit) {
-                return 0;
+    public void clear() {
+        initialize(getSearchResult());
+        refreshAll();
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.search.TaskSearchContentProvider#sortOrderChanged()
+     */
+    public void sortOrderChanged() {
+        synchronized (this) {
+            for (Map.Entry<Object, SortKey> entry : sortKeys.entrySet()) {
+                entry.setValue(getSortKey(entry.getKey()));
             }
-            return limit - itemCount;
+            sortAll();
         }
-        return Integer.MAX_VALUE;
+        refreshAll();
     }
 
-    public void clear() {
-        getResultPage().getViewer().refresh();
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.search.TaskSearchContentProvider#elementLimitChanged()
+     */
+    public void elementLimitChanged() {
+        refreshAll(); // the limit only changes the item count
+    }
+
+    private void sortAll() {
+        sortedKeys = sortKeys.values().toArray(new SortKey[sortKeys.size()]);
+        sort(sortedKeys);
+    }
+
+    private void refreshAll() {
+        final TableViewer viewer = getViewer();
+        viewer.setItemCount(getItemCount());
+        viewer.refresh();
+    }
+
+    private synchronized int getItemCount() {
+        return getElementLimit(sortedKeys.length);
+    }
+
+    private SortKey[] retainDisplayed(final SortKey[] keys) {
+        final SortKey[] retained = new SortKey[keys.length];
+        int count = 0;
+        for (SortKey key : keys) {
+            if (sortKeys.get(key.getElement()) == key) {
+                retained[count++] = key;
+            }
+        }
+        return Arrays.copyOf(retained, count);
+    }
+
+    private SortKey[] merge(final SortKey[] sorted, final SortKey[] added) {
+        final SortKey[] merged = new SortKey[sorted.length + added.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            if (j >= added.length || i < sorted.length && compare(sorted[i], added[j]) <= 0) {
+                merged[k] = sorted[i++];
+            }
+            else {
+                merged[k] = added[j++];
+            }
+        }
+        return merged;
+    }
+
+    private TableViewer getViewer() {
+        return (TableViewer) getResultPage().getViewer();
     }
 }
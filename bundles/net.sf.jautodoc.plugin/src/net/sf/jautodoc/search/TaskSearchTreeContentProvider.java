@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -9,21 +9,24 @@ package net.sf.jautodoc.search;
 
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
+import net.sf.jautodoc.search.TaskSearchResultPage.SortKey;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.ui.StandardJavaElementContentProvider;
-import org.eclipse.jface.viewers.AbstractTreeViewer;
-import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
 
 /**
- * Content provider for the search result tree viewer.
+ * Content provider for the virtual search result tree viewer. The children of an element are
+ * computed from the result elements below it, when the tree requests them first. They are
+ * sorted and cached until they change, the tree only requests the visible children.
  */
-public class TaskSearchTreeContentProvider extends TaskSearchContentProvider implements ITreeContentProvider {
+public class TaskSearchTreeContentProvider extends TaskSearchContentProvider implements ILazyTreeContentProvider {
 
     public static final int LEVEL_TYPE = 1;
     public static final int LEVEL_FILE = 2;
@@ -47,7 +50,7 @@ public class TaskSearchTreeContentProvider extends TaskSearchContentProvider imp
     private static final int MAX_LEVEL = JAVA_ELEMENT_TYPES.length - 1;
 
     private int currentLevel;
-    private Map<Object, Set<Object>> childrenMap;
+    private Map<Object, Children> childrenMap;
     private StandardJavaElementContentProvider contentProvider;
 
 
@@ -87,175 +90,195 @@ public class TaskSearchTreeContentProvider extends TaskSearchContentProvider imp
         return contentProvider.getParent(child);
     }
 
-    public Object[] getElements(final Object inputElement) {
-        return getChildren(inputElement);
-    }
-
     protected synchronized void initialize(final AbstractTextSearchResult result) {
         super.initialize(result);
-
-        childrenMap = new HashMap<Object, Set<Object>>();
-        if (result != null) {
-            final Object[] elements = result.getElements();
-            for (int i = 0; i < elements.length; i++) {
-                if (getResultPage().getDisplayedFindingsCount(elements[i]) > 0) {
-                    insert(null, null, elements[i]);
-                }
-            }
-        }
+        childrenMap = new HashMap<Object, Children>();
     }
 
-    protected void insert(final Map<Object, Set<Object>> toAdd, final Set<Object> toUpdate, Object child) {
-        Object parent = getParent(child);
-
-        while (parent != null) {
-            if (insertChild(parent, child)) {
-                if (toAdd != null) {
-                    insertInto(parent, child, toAdd);
-                }
-            }
-            else {
-                if (toUpdate != null) {
-                    toUpdate.add(parent);
-                }
-                return;
-            }
-
-            child = parent;
-            parent = getParent(child);
+    /* (non-Javadoc)
+     * @see org.eclipse.jface.viewers.ILazyTreeContentProvider#updateElement(java.lang.Object, int)
+     */
+    public synchronized void updateElement(final Object parent, final int index) {
+        final Children children = getChildren(parent);
+        if (index < getElementLimit(children.keys.length)) {
+            final Object child = children.keys[index].getElement();
+            final TreeViewer viewer = getViewer();
+            viewer.replace(parent, index, child);
+            viewer.setHasChildren(child, children.hasChildren[index]);
         }
+    }
 
-        if (insertChild(getSearchResult(), child)) {
-            if (toAdd != null) {
-                insertInto(getSearchResult(), child, toAdd);
-            }
-        }
-        else {
-            if (toUpdate != null) {
-                toUpdate.add(child);
-            }
+    /* (non-Javadoc)
+     * @see org.eclipse.jface.viewers.ILazyTreeContentProvider#updateChildCount(java.lang.Object, int)
+     */
+    public synchronized void updateChildCount(final Object element, final int currentChildCount) {
+        final int childCount = getElementLimit(getChildren(element).keys.length);
+        if (childCount != currentChildCount) {
+            getViewer().setChildCount(element, childCount);
         }
     }
 
-    private boolean insertChild(final Object parent, final Object child) {
-        return insertInto(parent, child, childrenMap);
-    }
+    public synchronized boolean hasChildren(final Object element) {
+        final Children children = childrenMap.get(element);
+        if (children != null) {
+            return children.keys.length > 0;
+        }
 
-    private boolean insertInto(final Object parent, final Object child, final Map<Object, Set<Object>> map) {
-        Set<Object> children = map.get(parent);
-        if (children == null) {
-            children = new HashSet<Object>();
-            map.put(parent, children);
+        final Object parent = getVisibleParent(element);
+        final Children siblings = parent != null ? childrenMap.get(parent) : null;
+        final int index = siblings != null ? siblings.indexOf(element) : -1;
+        if (index != -1) {
+            return siblings.hasChildren[index];
         }
-        return children.add(child);
+        return hasDisplayedBelow(element);
     }
 
-    protected void remove(final Set<Object> toRemove, final Set<Object> toUpdate, final Object element) {
-        // precondition here: fResult.getMatchCount(child) <= 0
-
-        if (hasChildren(element)) {
-            if (toUpdate != null) {
-                toUpdate.add(element);
-            }
+    public synchronized void elementsChanged(final Object[] updatedElements) {
+        if (getSearchResult() == null) {
+            return;
         }
-        else {
-            if (getResultPage().getDisplayedFindingsCount(element) == 0) {
-                childrenMap.remove(element);
-                final Object parent = getParent(element);
-                if (parent != null) {
-                    if (removeFromSiblings(element, parent)) {
-                        remove(toRemove, toUpdate, parent);
+
+        final Set<Object> toRefresh = new HashSet<Object>();
+        final Map<Object, Boolean> hasChildren = new HashMap<Object, Boolean>();
+
+        // only the cached children of the ancestors are checked
+        for (Object element : updatedElements) {
+            Object child = element;
+            for (Object parent = getVisibleParent(child); parent != null; parent = getVisibleParent(child)) {
+                final Children siblings = childrenMap.get(parent);
+                if (siblings != null) {
+                    final boolean below = hasChildren.computeIfAbsent(child, c -> hasDisplayedBelow(c));
+                    final boolean shown = below || isDisplayed(child);
+                    final int index = siblings.indexOf(child);
+                    if (shown != (index != -1)) {
+                        childrenMap.remove(parent);
+                        toRefresh.add(parent);
                     }
-                }
-                else {
-                    if (removeFromSiblings(element, getSearchResult())) {
-                        if (toRemove != null)
-                            toRemove.add(element);
+                    else if (shown) {
+                        siblings.hasChildren[index] = below;
+                        toRefresh.add(child);
                     }
                 }
-            }
-            else {
-                if (toUpdate != null) {
-                    toUpdate.add(element);
-                }
+                child = parent;
             }
         }
-    }
 
-    private boolean removeFromSiblings(final Object element, final Object parent) {
-        final Set<Object> siblings = childrenMap.get(parent);
-        if (siblings != null) {
-            return siblings.remove(element);
+        // the viewer requests the changed children again on refresh
+        final TreeViewer viewer = getViewer();
+        if (toRefresh.contains(getSearchResult())) {
+            viewer.refresh();
+            return;
         }
-        else {
-            return false;
+        for (Object element : toRefresh) {
+            viewer.refresh(element);
         }
     }
 
-    public Object[] getChildren(final Object parentElement) {
-        final Set<Object> children = childrenMap.get(parentElement);
-        if (children == null) {
-            return EMPTY_ARR;
-        }
+    public void clear() {
+        initialize(getSearchResult());
+        getResultPage().getViewer().refresh();
+    }
 
-        final int limit = getResultPage().getElementLimit().intValue();
-        if (limit != -1 && limit < children.size()) {
-            final Object[] limitedArray = new Object[limit];
-            final Iterator<Object> iterator = children.iterator();
-            for (int i = 0; i < limit; i++) {
-                limitedArray[i] = iterator.next();
-            }
-            return limitedArray;
-        }
-        return children.toArray();
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.search.TaskSearchContentProvider#sortOrderChanged()
+     */
+    public void sortOrderChanged() {
+        clear();
     }
 
-    public boolean hasChildren(final Object element) {
-        final Set<Object> children= childrenMap.get(element);
-        return children != null && !children.isEmpty();
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.search.TaskSearchContentProvider#elementLimitChanged()
+     */
+    public void elementLimitChanged() {
+        getResultPage().getViewer().refresh(); // the limit only changes the child counts
     }
 
-    public synchronized void elementsChanged(final Object[] updatedElements) {
-        if (getSearchResult() == null) {
-            return;
-        }
+    public void setLevel(int level) {
+        currentLevel = level;
+        clear();
+    }
 
-        final AbstractTreeViewer viewer = (AbstractTreeViewer) getResultPage().getViewer();
+    private Children getChildren(final Object parent) {
+        Children children = childrenMap.get(parent);
+        if (children == null) {
+            children = computeChildren(parent);
+            childrenMap.put(parent, children);
+        }
+        return children;
+    }
 
-        final Set<Object> toRemove = new HashSet<Object>();
-        final Set<Object> toUpdate = new HashSet<Object>();
-        final Map<Object, Set<Object>> toAdd = new HashMap<Object, Set<Object>>();
+    /**
+     * Computes the children of the given element from the result elements below it. A child
+     * is shown, if it is a displayed result element or has one below it.
+     */
+    private Children computeChildren(final Object parent) {
+        final Map<Object, Boolean> nodes = new HashMap<Object, Boolean>();
+        for (Object element : getElementsBelow(parent)) {
+            if (element.equals(parent) || !isDisplayed(element)) {
+                continue;
+            }
 
-        for (int i = 0; i < updatedElements.length; i++) {
-            if (getResultPage().getDisplayedFindingsCount(updatedElements[i]) > 0) {
-                insert(toAdd, toUpdate, updatedElements[i]);
+            Object child = element;
+            boolean below = false;
+            Object visibleParent = getVisibleParent(child);
+            while (visibleParent != null && !visibleParent.equals(parent)) {
+                child = visibleParent;
+                below = true;
+                visibleParent = getVisibleParent(child);
             }
-            else {
-                remove(toRemove, toUpdate, updatedElements[i]);
+            if (visibleParent != null) {
+                nodes.merge(child, below, Boolean::logicalOr);
             }
         }
 
-        viewer.remove(toRemove.toArray());
-        for (Iterator<Object> iter = toAdd.keySet().iterator(); iter.hasNext();) {
-            Object parent = iter.next();
-            final Set<Object> children = toAdd.get(parent);
-            viewer.add(parent, children.toArray());
+        final SortKey[] keys = new SortKey[nodes.size()];
+        int i = 0;
+        for (Object node : nodes.keySet()) {
+            keys[i++] = getSortKey(node);
         }
+        sort(keys);
 
-        for (Iterator<Object> elementsToUpdate = toUpdate.iterator(); elementsToUpdate.hasNext();) {
-            viewer.refresh(elementsToUpdate.next());
+        final boolean[] hasChildren = new boolean[keys.length];
+        for (i = 0; i < keys.length; i++) {
+            hasChildren[i] = nodes.get(keys[i].getElement()).booleanValue();
         }
+        return new Children(keys, hasChildren);
     }
 
-    public void clear() {
-        initialize(getSearchResult());
-        getResultPage().getViewer().refresh();
+    private boolean hasDisplayedBelow(final Object parent) {
+        for (Object element : getElementsBelow(parent)) {
+            if (!element.equals(parent) && isDisplayed(element)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    public void setLevel(int level) {
-        currentLevel = level;
-        initialize(getSearchResult());
-        getResultPage().getViewer().refresh();
+    private Object[] getElementsBelow(final Object element) {
+        final AbstractTextSearchResult result = getSearchResult();
+        if (result == null) {
+            return EMPTY_ARR;
+        }
+        return element == result ? result.getElements() : ((TaskSearchResult) result).getElementsBelow(element);
+    }
+
+    private boolean isDisplayed(final Object element) {
+        return getResultPage().getDisplayedFindingsCount(element) > 0;
+    }
+
+    /**
+     * Gets the parent in the tree, the search result for top level elements.
+     */
+    private Object getVisibleParent(final Object element) {
+        if (element == getSearchResult()) {
+            return null;
+        }
+        final Object parent = getParent(element);
+        return parent != null ? parent : getSearchResult();
+    }
+
+    private TreeViewer getViewer() {
+        return (TreeViewer) getResultPage().getViewer();
     }
 
     // ------------------------------------------------------------------------
@@ -267,4 +290,26 @@ public class TaskSearchTreeContentProvider extends TaskSearchContentProvider imp
             return internalGetParent(element);
         }
     }
+
+    /**
+     * The sorted children of an element.
+     */
+    private static final class Children {
+        final SortKey[] keys;
+        final boolean[] hasChildren;
+
+        Children(final SortKey[] keys, final boolean[] hasChildren) {
+            this.keys = keys;
+            this.hasChildren = hasChildren;
+        }
+
+        int indexOf(final Object element) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].getElement().equals(element)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
 }
@@ -14,6 +14,8 @@ import java.util.Optional;
 import net.sf.jautodoc.preferences.Configuration;
 import net.sf.jautodoc.preferences.ConfigurationManager;
 import net.sf.jautodoc.preferences.IMemberFilter;
+import net.sf.jautodoc.utils.PhaseTimer;
+import net.sf.jautodoc.utils.PhaseTimer.Phase;
 import net.sf.jautodoc.utils.SourceUtils;
 
 import org.eclipse.core.filebuffers.FileBuffers;
@@ -28,6 +30,7 @@ import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.ToolFactory;
 import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
 
 /**
@@ -39,6 +42,10 @@ public abstract class AbstractSourceProcessor {
 
     protected boolean markdownEnabled;
 
+    private char[] source;
+    private String sourceText;
+    private String generationHash;
+
     protected final ICompilationUnit compUnit;
     protected final Configuration  config;
     protected final JavadocCreator javadocCreator;
@@ -53,6 +60,47 @@ public abstract class AbstractSourceProcessor {
         this.javadocCreator = new JavadocCreator(this.config);
     }
 
+    /**
+     * Sets the source to process. If set, the source is processed in memory
+     * instead of connecting to the file buffer of the compilation unit. The
+     * compilation unit has to be a working copy with the same contents. The
+     * scanner reads the characters and the document is created from the
+     * text, so the caller can share both without further copies.
+     *
+     * @param source the source
+     * @param text the same source as string
+     */
+    public void setSource(final char[] source, final String text) {
+        this.source = source;
+        this.sourceText = text;
+    }
+
+    protected boolean isInMemory() {
+        return source != null;
+    }
+
+    /**
+     * Gets the index of generated comments of the current project.
+     *
+     * @return the index or null, if not available, e.g. when processing in memory
+     */
+    protected JavadocFingerprints getFingerprints() {
+        return isInMemory() ? null : JavadocFingerprints.getInstance(compUnit);
+    }
+
+    /**
+     * Gets the hash of the current configuration and templates.
+     *
+     * @return the generation hash
+     * @throws Exception thrown if the templates could not be loaded
+     */
+    protected String getGenerationHash() throws Exception {
+        if (generationHash == null) {
+            generationHash = JavadocFingerprints.getGenerationHash(config);
+        }
+        return generationHash;
+    }
+
     protected void doProcessing(final IMemberFilter filter, final IProgressMonitor monitor) throws Exception {
         final IType type = compUnit.findPrimaryType();
         if (type != null) {
@@ -69,7 +117,15 @@ public abstract class AbstractSourceProcessor {
     protected void doProcessing(IMember[] members, IProgressMonitor monitor) throws Exception {
         if (monitor == null) monitor = new NullProgressMonitor();
 
+        final long start = PhaseTimer.begin();
         compUnit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+        PhaseTimer.end(Phase.RECONCILE, start);
+
+        if (source != null) {
+            document = new Document(sourceText);
+            doProcessing(members, source, monitor);
+            return;
+        }
 
         final ITextFileBufferManager manager = FileBuffers.getTextFileBufferManager();
         final IPath path = compUnit.getPath();
@@ -77,35 +133,42 @@ public abstract class AbstractSourceProcessor {
         manager.connect(path, LocationKind.NORMALIZE, null);
         try {
             document = manager.getTextFileBuffer(path, LocationKind.NORMALIZE).getDocument();
+            doProcessing(members, document.get().toCharArray(), monitor);
+        } finally {
+            manager.disconnect(path, LocationKind.NORMALIZE, null);
+        }
+    }
 
-            String sourceLevel = getSourceLevel();
-            String complianceLevel = getComplianceLevel();
+    private void doProcessing(IMember[] members, char[] chars, IProgressMonitor monitor) throws Exception {
+        long start = PhaseTimer.begin();
+        String sourceLevel = getSourceLevel();
+        String complianceLevel = getComplianceLevel();
 
-            markdownEnabled = JavaCore.getAllVersions().contains("23")
-                    && JavaCore.getAllVersions().indexOf("23") <= JavaCore.getAllVersions().indexOf(complianceLevel);
+        markdownEnabled = JavaCore.getAllVersions().contains("23")
+                && JavaCore.getAllVersions().indexOf("23") <= JavaCore.getAllVersions().indexOf(complianceLevel);
 
-            commentScanner = ToolFactory.createScanner(true, false, true, sourceLevel, complianceLevel);
-            commentScanner.setSource(document.get().toCharArray());
+        commentScanner = ToolFactory.createScanner(true, false, true, sourceLevel, complianceLevel);
+        commentScanner.setSource(chars);
+        PhaseTimer.end(Phase.SCAN, start);
 
-            monitor.beginTask(getTaskName(), members.length + 5);
+        monitor.beginTask(getTaskName(), members.length + 5);
 
-            startProcessing();
-            monitor.worked(1);
+        startProcessing();
+        monitor.worked(1);
 
-            processFileHeader();
-            monitor.worked(1);
+        processFileHeader();
+        monitor.worked(1);
 
-            processTodoForAutodoc(members);
-            monitor.worked(1);
+        processTodoForAutodoc(members);
+        monitor.worked(1);
 
-            processMembers(SourceUtils.sortMembers(members), monitor);
-            monitor.worked(1);
+        processMembers(SourceUtils.sortMembers(members), monitor);
+        monitor.worked(1);
 
-            stopProcessing();
-            monitor.worked(1);
-        } finally {
-            manager.disconnect(path, LocationKind.NORMALIZE, null);
-        }
+        start = PhaseTimer.begin();
+        stopProcessing();
+        PhaseTimer.end(Phase.APPLY, start);
+        monitor.worked(1);
     }
 
     private String getSourceLevel() {
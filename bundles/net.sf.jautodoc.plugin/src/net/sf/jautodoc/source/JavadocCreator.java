@@ -18,6 +18,7 @@ import net.sf.jautodoc.preferences.Constants;
 import net.sf.jautodoc.preferences.GetSetFromFieldReplacement;
 import net.sf.jautodoc.preferences.replacements.Replacement;
 import net.sf.jautodoc.source.JavadocTag.TagComparator;
+import net.sf.jautodoc.templates.TemplateBudgetException;
 import net.sf.jautodoc.utils.SourceUtils;
 import net.sf.jautodoc.utils.StringUtils;
 
@@ -318,6 +319,7 @@ public class JavadocCreator {
      * @param member the member
      * @param jdi the Javadoc info
      * @return the resulting javadoc info
+     * @throws TemplateBudgetException thrown if a template evaluation exceeds its budget
      * @throws Exception
      */
     public JavadocInfo applyTemplate(final IMember member, final JavadocInfo jdi) throws Exception {
@@ -532,6 +534,8 @@ public class JavadocCreator {
                     comments.addAll(paramTag.getComments());
                 }
             }
+        } catch (TemplateBudgetException e) {
+            throw e; // member is skipped
         } catch (Exception e) {
             JAutodocPlugin.getDefault().handleException(e);
         }
@@ -685,6 +689,8 @@ public class JavadocCreator {
                     comments.addAll(throwsTag.getComments());
                 }
             }
+        } catch (TemplateBudgetException e) {
+            throw e; // member is skipped
         } catch (Exception e) {
             JAutodocPlugin.getDefault().handleException(e);
         }
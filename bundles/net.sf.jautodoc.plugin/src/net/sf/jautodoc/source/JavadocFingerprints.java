@@ -0,0 +1,193 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.source;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.preferences.Configuration;
+import net.sf.jautodoc.utils.HashBuilder;
+import net.sf.jautodoc.utils.SourceUtils;
+import net.sf.jautodoc.utils.Utils;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.JavaCore;
+
+
+/**
+ * Per project index of the Javadoc comments generated by JAutodoc. For each
+ * member the fingerprint of its generated comment is stored together with a
+ * hash of the configuration and templates, that produced it. A comment with
+ * a known fingerprint and the current generation hash is untouched generated
+ * Javadoc, without creating the comment again. The index is kept in the
+ * working location of the project and saved, when the plugin stops. Entries
+ * of members, that no longer exist, are dropped when the index is saved.
+ */
+public final class JavadocFingerprints {
+    private static final String INDEX_FILE = "javadoc.fingerprints";
+    private static final int MAGIC   = 0x4A414650;
+    private static final int VERSION = 2;
+
+    private static final Map<IProject, JavadocFingerprints> INSTANCES = new HashMap<IProject, JavadocFingerprints>();
+
+    private final File file;
+    /** Content key and generation hash by handle identifier of the member. */
+    private final Map<String, long[]> entries = new HashMap<String, long[]>();
+    private boolean dirty;
+
+
+    private JavadocFingerprints(final File file) {
+        this.file = file;
+        read();
+    }
+
+    /**
+     * Gets the index of the project of the given element.
+     *
+     * @param element the element
+     * @return the index or null, if the element is not part of an accessible project
+     */
+    public static synchronized JavadocFingerprints getInstance(final IJavaElement element) {
+        final IJavaProject javaProject = element.getJavaProject();
+        if (javaProject == null || !javaProject.getProject().isAccessible()) {
+            return null;
+        }
+
+        final IProject project = javaProject.getProject();
+        JavadocFingerprints fingerprints = INSTANCES.get(project);
+        if (fingerprints == null) {
+            final IPath location = project.getWorkingLocation(JAutodocPlugin.PLUGIN_ID);
+            if (location == null) {
+                return null;
+            }
+            fingerprints = new JavadocFingerprints(location.append(INDEX_FILE).toFile());
+            INSTANCES.put(project, fingerprints);
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Saves all modified indexes.
+     */
+    public static synchronized void saveAll() {
+        for (JavadocFingerprints fingerprints : INSTANCES.values()) {
+            fingerprints.save();
+        }
+    }
+
+    /**
+     * Gets the hash of the given configuration and the current templates.
+     *
+     * @param config the configuration
+     * @return the generation hash
+     * @throws Exception thrown if the templates could not be loaded
+     */
+    public static String getGenerationHash(final Configuration config) throws Exception {
+        return new HashBuilder().add(config.getHash())
+                .add(JAutodocPlugin.getContext().getTemplateManager().getTemplatesHash()).toHex();
+    }
+
+    /**
+     * Records the comment generated for the given member.
+     *
+     * @param member the member
+     * @param javadoc the generated comment
+     * @param generationHash the generation hash
+     */
+    public synchronized void put(final IMember member, final String javadoc, final String generationHash) {
+        final long[] entry = { getContentKey(javadoc), toLong(generationHash) };
+        final long[] previous = entries.put(member.getHandleIdentifier(), entry);
+        dirty |= previous == null || previous[0] != entry[0] || previous[1] != entry[1];
+    }
+
+    /**
+     * Checks, if the given comment of the given member is known to be generated
+     * with the current configuration and templates.
+     *
+     * @param member the member
+     * @param javadoc the existing comment
+     * @param generationHash the current generation hash
+     * @return true, if known as generated, false if unknown
+     */
+    public synchronized boolean contains(final IMember member, final String javadoc, final String generationHash) {
+        final long[] entry = entries.get(member.getHandleIdentifier());
+        return entry != null && entry[0] == getContentKey(javadoc) && entry[1] == toLong(generationHash);
+    }
+
+    /**
+     * Saves this index, if modified.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+
+        entries.keySet().removeIf(handle -> !exists(handle));
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + entries.size() * 80);
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+            out.flush();
+
+            Utils.writeAtomically(file, bytes.toByteArray());
+            dirty = false;
+        } catch (IOException e) {
+            JAutodocPlugin.getDefault().handleException(e);
+        }
+    }
+
+    private void read() {
+        if (!file.isFile()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            final int size = in.readInt();
+            for (int i = 0; i < size; ++i) {
+                entries.put(in.readUTF(), new long[] { in.readLong(), in.readLong() });
+            }
+        } catch (IOException e) {
+            entries.clear(); // rebuilt by the next runs
+        }
+    }
+
+    private static boolean exists(final String handle) {
+        final IJavaElement element = JavaCore.create(handle);
+        return element != null && element.exists();
+    }
+
+    private static long getContentKey(final String javadoc) {
+        return toLong(new HashBuilder().add(SourceUtils.getRawComment(javadoc)).toHex());
+    }
+
+    private static long toLong(final String hash) {
+        return Long.parseUnsignedLong(hash.substring(0, 16), 16);
+    }
+}
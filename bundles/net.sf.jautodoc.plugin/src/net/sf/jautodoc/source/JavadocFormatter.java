@@ -22,22 +22,17 @@ import net.sf.jautodoc.JAutodocPlugin;
 import net.sf.jautodoc.utils.StringUtils;
 
 /**
- * Wrapper for Eclipse code formatter.
+ * Wrapper for Eclipse code formatter. The formatter state is kept
+ * per thread, so several threads can format at the same time.
  */
 @SuppressWarnings("restriction")
 public class JavadocFormatter {
 	
 	private static final int DEFAULT_TAB_SIZE = 4;
 	
-	private static JavadocFormatter instance;
+	private static final JavadocFormatter instance = new JavadocFormatter();
 	
-	private ICompilationUnit compUnit;
-	private IJavaProject currProject;
-	private CodeFormatter formatter;
-	
-	@SuppressWarnings("rawtypes")
-	private Map options;
-	private int tabSize;
+	private final ThreadLocal<State> state = ThreadLocal.withInitial(State::new);
 	
 	
 	/**
@@ -46,9 +41,6 @@ public class JavadocFormatter {
 	 * @return single instance of JavadocFormatter
 	 */
 	public static JavadocFormatter getInstance() {
-		if (instance == null) {
-			instance = new JavadocFormatter();
-		}
 		return instance;
 	}
 	
@@ -63,13 +55,14 @@ public class JavadocFormatter {
 	 */
 	@SuppressWarnings("unchecked")
 	public void startFormatting(ICompilationUnit compUnit) {
-		this.compUnit = compUnit;
+		State s = state.get();
+		s.compUnit = compUnit;
 		
-		if (currProject == null || !currProject.equals(compUnit.getJavaProject())) {
-			currProject  = compUnit.getJavaProject();
-			options		 = currProject.getOptions(true);
-			formatter    = new DefaultCodeFormatter(options);
-			tabSize		 = getTabSize();
+		if (s.currProject == null || !s.currProject.equals(compUnit.getJavaProject())) {
+			s.currProject  = compUnit.getJavaProject();
+			s.options	   = s.currProject.getOptions(true);
+			s.formatter    = new DefaultCodeFormatter(s.options);
+			s.tabSize	   = getTabSize(s.options);
 		}
 	}
 	
@@ -77,10 +70,7 @@ public class JavadocFormatter {
 	 * Stop formatting.
 	 */
 	public void stopFormatting() {
-		compUnit 	= null;
-		currProject = null;
-		formatter   = null;
-		options	    = null;
+		state.remove();
 	}
 	
 	/**
@@ -95,11 +85,12 @@ public class JavadocFormatter {
 	public String format(String comment, String indent, String lineSeparator) {
 	    comment = indent + comment; // Hack for Eclipse 4.5 RC3 (indentationLevel seems to be ignored) + trim() on return
 	    
+	    State s = state.get();
 		String    result   = comment;
 		IDocument document = new SimpleDocument(comment);
 		
-		int indentationLevel= StringUtils.inferIndentationLevel(indent, tabSize);
-		TextEdit textEdit = formatter.format(CodeFormatter.K_JAVA_DOC,
+		int indentationLevel= StringUtils.inferIndentationLevel(indent, s.tabSize);
+		TextEdit textEdit = s.formatter.format(CodeFormatter.K_JAVA_DOC,
 											 comment,
 											 0,
 											 comment.length(),
@@ -110,7 +101,7 @@ public class JavadocFormatter {
 			textEdit.apply(document, TextEdit.NONE);
 			result = document.get();
 		} catch (Exception e) {
-			JAutodocPlugin.getDefault().handleException(compUnit, e);
+			JAutodocPlugin.getDefault().handleException(s.compUnit, e);
 		}
 		
 		return result.trim();
@@ -120,10 +111,12 @@ public class JavadocFormatter {
 	 * Returns the value of DefaultCodeFormatterConstants#FORMATTER_TAB_SIZE
 	 * from the current preferences.
 	 * 
+	 * @param options the formatter options
 	 * @return the value of DefaultCodeFormatterConstants#FORMATTER_TAB_SIZE
 	 * from the current preferences
 	 */
-	private int getTabSize() {
+	@SuppressWarnings("rawtypes")
+	private int getTabSize(Map options) {
 		if (options != null &&
 			options.containsKey(DefaultCodeFormatterConstants.FORMATTER_TAB_SIZE)) {
 			try {
@@ -134,4 +127,17 @@ public class JavadocFormatter {
 		}
 		return DEFAULT_TAB_SIZE;
 	}
+	
+	/**
+	 * Formatter state of the current thread.
+	 */
+	private static class State {
+		private ICompilationUnit compUnit;
+		private IJavaProject currProject;
+		private CodeFormatter formatter;
+		
+		@SuppressWarnings("rawtypes")
+		private Map options;
+		private int tabSize;
+	}
 }
@@ -11,6 +11,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -45,6 +47,9 @@ public class JavadocInfo {
     private final Map<String, JavadocTag> paramDoc  = new LinkedHashMap<String, JavadocTag>();
     private final Map<String, JavadocTag> throwsDoc = new LinkedHashMap<String, JavadocTag>();
 
+    /** The other tags by type name, filled while parsing. */
+    private final Map<String, List<JavadocTag>> otherDocIndex = new HashMap<String, List<JavadocTag>>();
+
 
     public boolean isMarkdown() {
         return markdown;
@@ -132,6 +137,17 @@ public class JavadocInfo {
         return otherDoc;
     }
 
+    /**
+     * Gets the Javadoc of the other tags with the given type.
+     *
+     * @param typeName the tag type without leading @
+     * @return Javadoc of the tags, empty if there is no such tag
+     */
+    public List<JavadocTag> getOtherDoc(final String typeName) {
+        final List<JavadocTag> tags = otherDocIndex.get(typeName);
+        return tags == null ? Collections.<JavadocTag>emptyList() : tags;
+    }
+
     /**
      * Checks if text contains the inheritDoc tag.
      *
@@ -229,7 +245,11 @@ public class JavadocInfo {
     public JavadocInfo merge(final JavadocInfo jdi) {
         merge(comment,   jdi.comment);
         merge(returnDoc, jdi.returnDoc);
-        merge(otherDoc,  jdi.otherDoc);
+        if (otherDoc.isEmpty()) {
+            for (final JavadocTag javadocTag : jdi.otherDoc) {
+                addOtherDoc(javadocTag);
+            }
+        }
         merge(paramDoc,  jdi.paramDoc);
         merge(throwsDoc, jdi.throwsDoc);
         return this;
@@ -291,8 +311,13 @@ public class JavadocInfo {
                 returnDoc.addAll(currentText);
 
             } else {
-                otherDoc.add(new JavadocTag(type, name, currentText));
+                addOtherDoc(javadocTag);
             }
         }
     }
+
+    private void addOtherDoc(final JavadocTag javadocTag) {
+        otherDoc.add(javadocTag);
+        otherDocIndex.computeIfAbsent(javadocTag.getTypeName(), t -> new ArrayList<JavadocTag>(1)).add(javadocTag);
+    }
 }
@@ -0,0 +1,338 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.source;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.text.edits.DeleteEdit;
+import org.eclipse.text.edits.InsertEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Writes the changes of a {@link SourceManipulator} as unified diff. The
+ * hunks are built directly from the text edits, so the changed sources are
+ * neither written nor compared line by line. One writer may be shared by
+ * several threads, the diff of a compilation unit is always written as a
+ * whole. Each diff is encoded with the charset of its file, so the patch
+ * applies to files with different encodings.
+ */
+public class PatchWriter {
+    private static final int CONTEXT = 3;
+
+    private final OutputStream out;
+    private int files;
+
+
+    /**
+     * Instantiates a new patch writer.
+     *
+     * @param file the patch file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public PatchWriter(final File file) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+    }
+
+    /**
+     * Adds the diff for the given source and changes.
+     *
+     * @param path the path used in the diff header
+     * @param source the original source
+     * @param changes the changes, relative to the original source
+     * @param charset the charset of the source file
+     * @return true, if the changes modify the source
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public boolean add(final String path, final String source, final TextEdit changes, final Charset charset)
+            throws IOException {
+        final String diff = createDiff(path, source, changes);
+        if (diff.length() == 0) {
+            return false;
+        }
+
+        final byte[] bytes = diff.getBytes(charset);
+        synchronized (this) {
+            out.write(bytes);
+            ++files;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of files in the patch.
+     *
+     * @return the number of files
+     */
+    public synchronized int getFileCount() {
+        return files;
+    }
+
+    /**
+     * Closes the patch file.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Creates the unified diff for the given source and changes.
+     *
+     * @param path the path used in the diff header
+     * @param source the original source
+     * @param changes the changes, relative to the original source
+     * @return the diff or an empty string, if nothing changed
+     */
+    public static String createDiff(final String path, final String source, final TextEdit changes) {
+        final List<TextEdit> edits = new ArrayList<TextEdit>();
+        collectEdits(changes, edits);
+
+        final Lines lines = new Lines(source);
+        final List<Change> changeList = createChanges(lines, source, edits);
+        if (changeList.isEmpty()) {
+            return "";
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("--- a/").append(path).append('\n');
+        sb.append("+++ b/").append(path).append('\n');
+
+        int delta = 0; // new line number - old line number
+        int i = 0;
+        while (i < changeList.size()) {
+            // collect changes, whose context overlaps
+            int j = i + 1;
+            while (j < changeList.size()
+                    && changeList.get(j).oldStart - changeList.get(j - 1).getOldEnd() <= 2 * CONTEXT) {
+                ++j;
+            }
+
+            final int start = Math.max(0, changeList.get(i).oldStart - CONTEXT);
+            final int end = Math.min(lines.size(), changeList.get(j - 1).getOldEnd() + CONTEXT);
+
+            int newCount = end - start;
+            for (int k = i; k < j; ++k) {
+                newCount += changeList.get(k).newLines.size() - changeList.get(k).oldCount;
+            }
+            appendHunkHeader(sb, start, end - start, start + delta, newCount);
+
+            int line = start;
+            for (int k = i; k < j; ++k) {
+                final Change change = changeList.get(k);
+                for (; line < change.oldStart; ++line) {
+                    appendLine(sb, ' ', lines.get(line));
+                }
+                for (; line < change.getOldEnd(); ++line) {
+                    appendLine(sb, '-', lines.get(line));
+                }
+                for (String newLine : change.newLines) {
+                    appendLine(sb, '+', newLine);
+                }
+                delta += change.newLines.size() - change.oldCount;
+            }
+            for (; line < end; ++line) {
+                appendLine(sb, ' ', lines.get(line));
+            }
+            i = j;
+        }
+        return sb.toString();
+    }
+
+    private static void collectEdits(final TextEdit edit, final List<TextEdit> edits) {
+        if (!edit.hasChildren()) {
+            if (edit instanceof InsertEdit || edit instanceof ReplaceEdit || edit instanceof DeleteEdit) {
+                edits.add(edit);
+            }
+            else if (edit.getParent() != null) {
+                throw new IllegalArgumentException("Unsupported text edit: " + edit.getClass().getName());
+            }
+            return;
+        }
+
+        for (TextEdit child : edit.getChildren()) {
+            collectEdits(child, edits);
+        }
+    }
+
+    /**
+     * Maps the text edits to changed lines. Edits on the same or adjacent
+     * lines are merged. Unchanged lines at the beginning and end of a change
+     * are removed, so an inserted comment does not show the following line
+     * as changed.
+     */
+    private static List<Change> createChanges(final Lines lines, final String source,
+            final List<TextEdit> edits) {
+        final List<Change> changes = new ArrayList<Change>();
+
+        int i = 0;
+        while (i < edits.size()) {
+            final int firstLine = lines.getLineOfOffset(edits.get(i).getOffset());
+            int lastLine = lines.getLineOfOffset(edits.get(i).getExclusiveEnd());
+
+            int j = i + 1;
+            while (j < edits.size() && lines.getLineOfOffset(edits.get(j).getOffset()) <= lastLine) {
+                lastLine = Math.max(lastLine, lines.getLineOfOffset(edits.get(j).getExclusiveEnd()));
+                ++j;
+            }
+
+            final int regionStart = lines.getOffset(firstLine);
+            final int regionEnd = lines.getEndOffset(lastLine);
+
+            final StringBuilder newText = new StringBuilder();
+            int pos = regionStart;
+            for (int k = i; k < j; ++k) {
+                final TextEdit edit = edits.get(k);
+                newText.append(source, pos, edit.getOffset());
+                newText.append(getText(edit));
+                pos = edit.getExclusiveEnd();
+            }
+            newText.append(source, pos, regionEnd);
+
+            final List<String> oldLines = new ArrayList<String>();
+            for (int k = firstLine; k <= lastLine && k < lines.size(); ++k) {
+                oldLines.add(lines.get(k));
+            }
+            final List<String> newLines = new Lines(newText.toString()).asList();
+
+            int prefix = 0;
+            while (prefix < oldLines.size() && prefix < newLines.size()
+                    && oldLines.get(prefix).equals(newLines.get(prefix))) {
+                ++prefix;
+            }
+            int suffix = 0;
+            while (suffix < oldLines.size() - prefix && suffix < newLines.size() - prefix
+                    && oldLines.get(oldLines.size() - 1 - suffix).equals(newLines.get(newLines.size() - 1 - suffix))) {
+                ++suffix;
+            }
+
+            final int oldCount = oldLines.size() - prefix - suffix;
+            final List<String> changedLines = newLines.subList(prefix, newLines.size() - suffix);
+            if (oldCount > 0 || !changedLines.isEmpty()) {
+                changes.add(new Change(firstLine + prefix, oldCount, changedLines));
+            }
+            i = j;
+        }
+        return changes;
+    }
+
+    private static String getText(final TextEdit edit) {
+        if (edit instanceof InsertEdit) {
+            return ((InsertEdit)edit).getText();
+        }
+        if (edit instanceof ReplaceEdit) {
+            return ((ReplaceEdit)edit).getText();
+        }
+        return "";
+    }
+
+    private static void appendHunkHeader(final StringBuilder sb, final int oldStart, final int oldCount,
+            final int newStart, final int newCount) {
+        // an empty range refers to the line before
+        sb.append("@@ -").append(oldCount == 0 ? oldStart : oldStart + 1).append(',').append(oldCount);
+        sb.append(" +").append(newCount == 0 ? newStart : newStart + 1).append(',').append(newCount);
+        sb.append(" @@\n");
+    }
+
+    private static void appendLine(final StringBuilder sb, final char prefix, final String line) {
+        sb.append(prefix).append(line);
+        if (!line.endsWith("\n")) {
+            sb.append("\n\\ No newline at end of file\n");
+        }
+    }
+
+    /**
+     * A block of changed lines.
+     */
+    private static class Change {
+        private final int oldStart;
+        private final int oldCount;
+        private final List<String> newLines;
+
+        public Change(final int oldStart, final int oldCount, final List<String> newLines) {
+            this.oldStart = oldStart;
+            this.oldCount = oldCount;
+            this.newLines = newLines;
+        }
+
+        public int getOldEnd() {
+            return oldStart + oldCount;
+        }
+    }
+
+    /**
+     * The lines of a text, including their line delimiters. Like diff and
+     * patch, only LF ends a line, a CR before it is part of the line.
+     */
+    private static class Lines {
+        private final String text;
+        private final List<Integer> offsets = new ArrayList<Integer>();
+
+        public Lines(final String text) {
+            this.text = text;
+
+            int pos = 0;
+            while (pos < text.length()) {
+                offsets.add(pos);
+                final int end = text.indexOf('\n', pos);
+                pos = (end < 0 ? text.length() : end + 1);
+            }
+        }
+
+        public int size() {
+            return offsets.size();
+        }
+
+        public String get(final int line) {
+            return text.substring(getOffset(line), getEndOffset(line));
+        }
+
+        public int getOffset(final int line) {
+            return line < offsets.size() ? offsets.get(line) : text.length();
+        }
+
+        public int getEndOffset(final int line) {
+            return line + 1 < offsets.size() ? offsets.get(line + 1) : text.length();
+        }
+
+        public int getLineOfOffset(final int offset) {
+            if (offset >= text.length() && (text.length() == 0 || text.charAt(text.length() - 1) == '\n')) {
+                return offsets.size(); // empty line after the last delimiter
+            }
+
+            int low = 0;
+            int high = offsets.size() - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                if (offsets.get(mid) <= offset) {
+                    low = mid;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        public List<String> asList() {
+            final List<String> result = new ArrayList<String>(offsets.size());
+            for (int i = 0; i < offsets.size(); ++i) {
+                result.add(get(i));
+            }
+            return result;
+        }
+    }
+}
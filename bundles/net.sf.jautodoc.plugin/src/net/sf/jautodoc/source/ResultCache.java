@@ -0,0 +1,222 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.jautodoc.utils.HashBuilder;
+import net.sf.jautodoc.utils.Utils;
+
+/**
+ * Content addressed cache for generated sources. Entries are stored as
+ * plain files below the cache directory, so the directory can be shared
+ * between several machines. The least recently used entries are evicted,
+ * if the cache grows beyond its maximum size. The cache may be used by
+ * several threads.
+ */
+public class ResultCache {
+    private static final String ENTRY_SUFFIX = ".src";
+
+    private final File directory;
+    private final long maxSize;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private long currentSize = -1;
+
+
+    /**
+     * Instantiates a new result cache.
+     *
+     * @param directory the cache directory
+     * @param maxSize the maximum cache size in bytes
+     */
+    public ResultCache(final File directory, final long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Creates the cache key for the given source and the given context values,
+     * e.g. configuration hash, template hash and plugin version.
+     *
+     * @param source the source
+     * @param context the context values
+     * @return the cache key
+     */
+    public String createKey(final String source, final String... context) {
+        final HashBuilder hash = new HashBuilder();
+        hash.add(source);
+        for (String value : context) {
+            hash.add(value);
+        }
+        return hash.toHex();
+    }
+
+    /**
+     * Gets the cached result for the given key.
+     *
+     * @param key the key
+     * @return the cached result or null, if not found
+     */
+    public String get(final String key) {
+        final File file = getFile(key);
+        if (!file.isFile()) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        try {
+            final String result = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            file.setLastModified(System.currentTimeMillis()); // LRU
+            hits.incrementAndGet();
+            return result;
+        } catch (IOException e) {
+            // evicted or replaced by a concurrent run
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given result. The entry is written to a temporary file
+     * first and moved into place afterwards, so concurrent readers never
+     * see incomplete entries.
+     *
+     * @param key the key
+     * @param result the result to store
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void put(final String key, final String result) throws IOException {
+        final File file = getFile(key);
+        final File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("Could not create cache directory " + parent);
+        }
+
+        final byte[] bytes = result.getBytes(StandardCharsets.UTF_8);
+        Utils.writeAtomically(file, bytes);
+
+        addSize(bytes.length);
+    }
+
+    /**
+     * Gets the number of cache hits.
+     *
+     * @return the hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     *
+     * @return the misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private synchronized void addSize(final long size) {
+        if (currentSize < 0) {
+            currentSize = computeSize();
+        } else {
+            currentSize += size;
+        }
+
+        if (currentSize > maxSize) {
+            evict();
+        }
+    }
+
+    private File getFile(final String key) {
+        return new File(new File(directory, key.substring(0, 2)), key + ENTRY_SUFFIX);
+    }
+
+    private List<File> getEntries() {
+        final List<File> entries = new ArrayList<File>();
+
+        final File[] shards = directory.listFiles();
+        if (shards == null) {
+            return entries;
+        }
+
+        for (File shard : shards) {
+            final File[] files = shard.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.getName().endsWith(ENTRY_SUFFIX)) {
+                    entries.add(file);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private long computeSize() {
+        long size = 0;
+        for (File entry : getEntries()) {
+            size += entry.length();
+        }
+        return size;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache
+     * has shrunk to 90 percent of its maximum size.
+     */
+    private void evict() {
+        final List<Entry> entries = new ArrayList<Entry>();
+        long size = 0;
+        for (File file : getEntries()) {
+            final Entry entry = new Entry(file);
+            entries.add(entry);
+            size += entry.length;
+        }
+        Collections.sort(entries);
+
+        final long limit = maxSize / 10 * 9;
+        for (int i = 0; i < entries.size() && size > limit; ++i) {
+            final Entry entry = entries.get(i);
+            if (entry.file.delete()) {
+                size -= entry.length;
+            }
+        }
+        currentSize = size;
+    }
+
+    /**
+     * Snapshot of a cache entry, ordered by last access.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final File file;
+        private final long length;
+        private final long lastModified;
+
+        public Entry(final File file) {
+            this.file = file;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        public int compareTo(final Entry other) {
+            return lastModified < other.lastModified ? -1 : (lastModified == other.lastModified ? 0 : 1);
+        }
+    }
+}
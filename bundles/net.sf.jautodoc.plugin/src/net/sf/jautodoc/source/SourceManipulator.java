@@ -7,13 +7,19 @@
  *******************************************************************/
 package net.sf.jautodoc.source;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sf.jautodoc.JAutodocPlugin;
 import net.sf.jautodoc.preferences.Configuration;
 import net.sf.jautodoc.preferences.Constants;
+import net.sf.jautodoc.templates.TemplateBudgetException;
 import net.sf.jautodoc.utils.LineDelimiterConverter;
+import net.sf.jautodoc.utils.PhaseTimer;
+import net.sf.jautodoc.utils.PhaseTimer.Phase;
 import net.sf.jautodoc.utils.SourceUtils;
 import net.sf.jautodoc.utils.TextEditHelper;
 import net.sf.jautodoc.utils.Utils;
@@ -26,6 +32,7 @@ import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.ISourceReference;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.text.edits.InsertEdit;
 import org.eclipse.text.edits.MultiTextEdit;
@@ -44,6 +51,10 @@ public class SourceManipulator extends AbstractSourceProcessor {
     private int cursorOffset;
     private boolean showPreview;
     private boolean forceAddHeader;
+    private List<IMember> skippedMembers;
+
+    /** Generated comments by member, recorded when the edits are applied. */
+    private Map<IMember, String> generatedJavadoc;
 
     /**
      * Instantiates a new source manipulator.
@@ -118,6 +129,16 @@ public class SourceManipulator extends AbstractSourceProcessor {
         this.showPreview = showPreview;
     }
 
+    /**
+     * Gets the processed document. If the source was processed in memory,
+     * the document contains the result after processing.
+     *
+     * @return the document
+     */
+    public IDocument getDocument() {
+        return document;
+    }
+
     public MultiTextEdit getChanges() {
         return textEdit;
     }
@@ -126,10 +147,22 @@ public class SourceManipulator extends AbstractSourceProcessor {
         return changeDescriptions;
     }
 
+    /**
+     * Gets the members, whose template evaluation exceeded its budget. The
+     * Javadoc of these members was left unchanged.
+     *
+     * @return the skipped members
+     */
+    public List<IMember> getSkippedMembers() {
+        return skippedMembers;
+    }
+
     @Override
     protected void startProcessing() {
         textEdit = new MultiTextEdit();
         changeDescriptions = new HashMap<TextEdit, String>();
+        skippedMembers = new ArrayList<IMember>();
+        generatedJavadoc = new LinkedHashMap<IMember, String>();
         lineDelimiter = TextUtilities.getDefaultLineDelimiter(document);
     }
 
@@ -147,14 +180,19 @@ public class SourceManipulator extends AbstractSourceProcessor {
 
     @Override
     protected void processMember(final IMember member) throws Exception {
-        addJavadoc(member);
+        try {
+            addJavadoc(member);
+        } catch (TemplateBudgetException e) {
+            skippedMembers.add(member); // already logged, keep existing Javadoc
+        }
     }
 
     @Override
     protected void stopProcessing() throws Exception {
-        if (!showPreview && applyTextEdits()) {
+        if (!showPreview && applyTextEdits() && !isInMemory()) {
             compUnit.getBuffer().setContents(document.get());
             compUnit.reconcile(ICompilationUnit.NO_AST, false, null, null);
+            recordGenerated();
         }
     }
 
@@ -164,6 +202,7 @@ public class SourceManipulator extends AbstractSourceProcessor {
     }
 
     private void addJavadoc(final IMember member) throws Exception {
+        final long start = PhaseTimer.begin();
         final ISourceRange docRange = SourceUtils.findJavadocSourceRange(member, commentScanner);
 
         JavadocInfo jdi = new JavadocInfo();
@@ -177,13 +216,16 @@ public class SourceManipulator extends AbstractSourceProcessor {
             existingJavadoc = document.get(docRange.getOffset(), docRange.getLength());
             jdi.parseJavadoc(existingJavadoc);
             if (config.isKeepExistingJavadoc() && !jdi.isEmpty()) {
+                PhaseTimer.end(Phase.SCAN, start);
                 return;
             }
         }
+        PhaseTimer.end(Phase.SCAN, start);
 
         if (jdi.isEmpty() || config.isSwitchDocStyle()) {
             jdi.setMarkdown(config.isUseMarkdown() && markdownEnabled);
         }
+        final boolean generated = jdi.isEmpty() && config.isCreateDummyComment();
 
         // create/complete javadoc
         boolean inherited = false;
@@ -237,7 +279,9 @@ public class SourceManipulator extends AbstractSourceProcessor {
 
         // format
         if (config.isUseEclipseFormatter() && !inherited) {
+            final long formatStart = PhaseTimer.begin();
             newJavadoc = JavadocFormatter.getInstance().format(newJavadoc, indent, lineDelimiter);
+            PhaseTimer.end(Phase.FORMAT, formatStart);
         }
 
         // add empty line in front
@@ -255,6 +299,24 @@ public class SourceManipulator extends AbstractSourceProcessor {
                 Utils.needsReplacement(document, member, docRange, newJavadoc, inherited)) {
             doReplacement(docRange, newJavadoc, (docRange.getLength() == 0 ? "Add Javadoc" : (config
                     .isCompleteExistingJavadoc() ? "Complete existing Javadoc" : "Replace existing Javadoc")));
+            if (generated && !inherited) {
+                generatedJavadoc.put(member, newJavadoc);
+            }
+        }
+    }
+
+    /**
+     * Records the generated comments, after they have been applied.
+     */
+    private void recordGenerated() throws Exception {
+        final JavadocFingerprints fingerprints = getFingerprints();
+        if (fingerprints == null || generatedJavadoc.isEmpty()) {
+            return;
+        }
+
+        final String hash = getGenerationHash();
+        for (Map.Entry<IMember, String> entry : generatedJavadoc.entrySet()) {
+            fingerprints.put(entry.getKey(), entry.getValue(), hash);
         }
     }
 
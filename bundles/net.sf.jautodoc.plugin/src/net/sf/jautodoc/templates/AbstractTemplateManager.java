@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -7,35 +7,63 @@
  *******************************************************************/
 package net.sf.jautodoc.templates;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 import net.sf.jautodoc.JAutodocPlugin;
+import net.sf.jautodoc.preferences.Constants;
+import net.sf.jautodoc.templates.BoundedCharSequence.BudgetExceededException;
 import net.sf.jautodoc.templates.wrapper.IMemberWrapper;
 import net.sf.jautodoc.templates.wrapper.WrapperFactory;
+import net.sf.jautodoc.utils.HashBuilder;
+import net.sf.jautodoc.utils.PhaseTimer;
+import net.sf.jautodoc.utils.PhaseTimer.Phase;
+import net.sf.jautodoc.utils.Utils;
 
 import org.apache.velocity.runtime.parser.ParseException;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
 
 
 /**
- * Abstract base class for template managers.
+ * Abstract base class for template managers. The evaluation methods may be
+ * called concurrently. The matching parent elements are kept per thread and
+ * passed explicitly to the matching methods.
  */
 public abstract class AbstractTemplateManager implements ITemplateManager {
 
 	private static final String	DEFAULT_TEMPLATES = new String("default_templates.xml");
 	private static final File	USER_TEMPLATES = JAutodocPlugin.getDefault().getStateLocation()
 										.append("user_templates.xml").toFile();
+	private static final File	TEMPLATE_BUNDLE = JAutodocPlugin.getDefault().getStateLocation()
+										.append("templates.bundle").toFile();
 
-	private TemplateSet		 templates;
+	private volatile TemplateSet templates;
 
-	private MatchingElement matchingParent;
-	private MatchingElement matchingMethod;
+	/** The bundle, the templates were loaded from, or null. */
+	private volatile TemplateBundle bundle;
+
+	/** Matching parents of the last evaluation, reused for the next member of the same parent. */
+	private final ThreadLocal<MatchingContext> matchingContext = ThreadLocal.withInitial(MatchingContext::new);
+
+	private final TemplateProfiler profiler = new TemplateProfiler();
+
+	/** Templates, whose pattern exceeded the step budget. */
+	private final Set<String> skippedTemplates = ConcurrentHashMap.newKeySet();
+
+	private final TemplateLogger templateLogger = new TemplateLogger();
 
 
 	/* (non-Javadoc)
@@ -58,28 +86,53 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 * @see net.sf.jautodoc.templates.ITemplateManager#loadTemplates()
 	 */
 	public void loadTemplates() throws Exception {
-		if (USER_TEMPLATES.exists()) {
-			loadTemplates(USER_TEMPLATES);
-		}
-		else {
-			loadDefaultTemplates();
+		byte[] source = USER_TEMPLATES.exists()
+				? Files.readAllBytes(USER_TEMPLATES.toPath())
+				: readAll(getClass().getResourceAsStream(DEFAULT_TEMPLATES));
+		String fingerprint = TemplateBundle.fingerprint(source, getBundleVersion());
+
+		TemplateBundle newBundle = TemplateBundle.read(TEMPLATE_BUNDLE, fingerprint, this::registerTemplates);
+		if (newBundle != null) {
+			getRegistry().clearTemplates();
+			skippedTemplates.clear();
+			bundle = newBundle;
+			templates = newBundle.getTemplates();
+			return;
 		}
+
+		bundle = null;
+		templates = TemplateSerializer.loadTemplates(new ByteArrayInputStream(source));
+		getRegistry().putTemplates(templates);
+		checkTemplates(templates);
+		writeBundle(fingerprint);
 	}
 
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#loadTemplates(java.io.File)
 	 */
 	public void loadTemplates(File file) throws Exception {
+		bundle = null;
 		templates = TemplateSerializer.loadTemplates(file);
 		getRegistry().putTemplates(templates);
+		checkTemplates(templates);
 	}
 
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#loadDefaultTemplates()
 	 */
 	public void loadDefaultTemplates() throws Exception {
+		bundle = null;
 		templates = TemplateSerializer.loadTemplates(getClass().getResourceAsStream(DEFAULT_TEMPLATES));
 		getRegistry().putTemplates(templates);
+		checkTemplates(templates);
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#readStoredTemplates()
+	 */
+	public TemplateSet readStoredTemplates() throws Exception {
+		return USER_TEMPLATES.exists() ? TemplateSerializer.loadTemplates(USER_TEMPLATES)
+				: TemplateSerializer.loadTemplates(getClass().getResourceAsStream(DEFAULT_TEMPLATES));
 	}
 
 	/* (non-Javadoc)
@@ -87,6 +140,8 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 */
 	public void storeTemplates() throws Exception {
 		storeTemplates(USER_TEMPLATES);
+		loadAll();
+		writeBundle(TemplateBundle.fingerprint(Files.readAllBytes(USER_TEMPLATES.toPath()), getBundleVersion()));
 	}
 
 	/* (non-Javadoc)
@@ -96,6 +151,68 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 		TemplateSerializer.storeTemplates(templates, file);
 	}
 
+	/**
+	 * Registers the templates of a bundle section, when they are decoded.
+	 * The analysis results are taken from the bundle.
+	 */
+	private void registerTemplates(TemplateBundle source, List<TemplateEntry> entries) {
+		for (TemplateEntry entry : entries) {
+			getRegistry().putTemplate(entry, source.getTemplateInfo(entry.getName()));
+
+			String problem = source.getPatternProblem(entry.getName());
+			if (problem != null) {
+				templateLogger.warn("Pattern of template '" + entry.getName() + "': " + problem);
+			}
+
+			TemplateSet children = entry.getChildTemplates();
+			registerTemplates(source, children.getTypeTemplates());
+			registerTemplates(source, children.getFieldTemplates());
+			registerTemplates(source, children.getMethodTemplates());
+			registerTemplates(source, children.getParameterTemplates());
+			registerTemplates(source, children.getExceptionTemplates());
+		}
+	}
+
+	/**
+	 * Decodes the templates of all kinds, if they were loaded from a bundle.
+	 */
+	private void loadAll() {
+		TemplateBundle current = bundle;
+		if (current != null) {
+			current.loadAll();
+		}
+	}
+
+	/**
+	 * Writes the current templates as bundle for the next start. The bundle
+	 * is a cache, so failures are only reported.
+	 */
+	private void writeBundle(String fingerprint) {
+		try {
+			TemplateBundle.write(TEMPLATE_BUNDLE, fingerprint, getTemplatesHash(), templates, getRegistry());
+		} catch (Exception e) {
+			templateLogger.warn("Template bundle not written: " + e.getMessage());
+		}
+	}
+
+	private static String getBundleVersion() {
+		return JAutodocPlugin.getDefault().getBundle().getVersion().toString();
+	}
+
+	private static byte[] readAll(InputStream is) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int n;
+			while ((n = is.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			Utils.close(is);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#getTemplates()
 	 */
@@ -111,8 +228,10 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 */
 	@Override
     public void setTemplates(final TemplateSet templates) throws Exception {
+	    this.bundle = null;
 	    this.templates = templates;
         getRegistry().putTemplates(templates);
+        checkTemplates(templates);
     }
 
     /* (non-Javadoc)
@@ -174,21 +293,38 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	}
 
 	/**
-	 * Try to apply a template to the given member.
+	 * Try to apply a template to the given member. If the evaluation exceeds
+	 * its budget, the failure is logged and passed to the caller, which has
+	 * to skip the member.
 	 *
 	 * @param member the member
 	 * @param properties the properties to use
 	 *
 	 * @return the resulting string
 	 *
+	 * @throws TemplateBudgetException thrown if the evaluation exceeds its budget
 	 * @throws Exception thrown if an exception occured
 	 */
 	private String applyTemplate(IMemberWrapper member, Map<String, String> properties) throws Exception {
-		MatchingElement me = searchMatchingElement(member);
+		long start = PhaseTimer.begin();
+		MatchingElement me = searchMatchingElement(member, matchingContext.get());
 		if (me != null) {
-			return applyTemplate(me, properties);
+			long profileStart = profiler.isEnabled() ? System.nanoTime() : 0;
+			try {
+				return applyTemplate(me, properties);
+			} catch (TemplateBudgetException e) {
+				templateLogger.warn("Template '" + me.getEntry().getName() + "' aborted for '"
+						+ member.getName() + "', member skipped: " + e.getMessage());
+				throw e;
+			} finally {
+				if (profileStart != 0) {
+					profiler.recordEvaluation(me.getEntry(), System.nanoTime() - profileStart);
+				}
+				PhaseTimer.endTemplate(me.getEntry().getName(), start);
+			}
 		}
 
+		PhaseTimer.end(Phase.TEMPLATE, start);
 		return "";
 	}
 
@@ -209,30 +345,31 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 * Ensures that the matching parent for the given member is set.
 	 *
 	 * @param member the member
+	 * @param ctx the matching context
 	 *
 	 * @throws Exception thrown if an exception occured
 	 */
-	private void ensureMatchingParent(IMemberWrapper member) throws Exception {
+	private void ensureMatchingParent(IMemberWrapper member, MatchingContext ctx) throws Exception {
 		IMemberWrapper parent = member.getParent();
 		if (parent != null) {
 			if (parent.isType()) {
-			    matchingMethod = null;
-				if (matchingParent == null || !matchingParent.getMember().equals(parent)) {
-					matchingParent = searchMatchingElement(parent);
+			    ctx.matchingMethod = null;
+				if (ctx.matchingParent == null || !ctx.matchingParent.getMember().equals(parent)) {
+					ctx.matchingParent = searchMatchingElement(parent, ctx);
 				}
 			}
 			else if (parent.isMethod()) {
-				if (matchingMethod == null || !matchingMethod.getMember().equals(parent)) {
-					matchingMethod = searchMatchingElement(parent);
+				if (ctx.matchingMethod == null || !ctx.matchingMethod.getMember().equals(parent)) {
+					ctx.matchingMethod = searchMatchingElement(parent, ctx);
 				}
 			}
 		}
 		else {
 			if (member.isParameter() || member.isException()) {
-			    matchingMethod = null;
+			    ctx.matchingMethod = null;
 			}
 			else {
-			    matchingParent = null;
+			    ctx.matchingParent = null;
 			}
 		}
 	}
@@ -241,13 +378,17 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 * Searches the matching element for the given member.
 	 *
 	 * @param member the member
+	 * @param ctx the matching context
 	 *
 	 * @return the matching element
 	 *
 	 * @throws Exception thrown if an exception occured
 	 */
-	private MatchingElement searchMatchingElement(IMemberWrapper member) throws Exception {
-		ensureMatchingParent(member);
+	private MatchingElement searchMatchingElement(IMemberWrapper member, MatchingContext ctx) throws Exception {
+		ensureMatchingParent(member, ctx);
+
+		MatchingElement matchingParent = ctx.matchingParent;
+		MatchingElement matchingMethod = ctx.matchingMethod;
 
 		List<TemplateEntry> templates = null;
 		if (member.isType()) {
@@ -296,12 +437,14 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 			}
 		}
 
-		MatchingElement me = searchMatchingElement(member, templates);
+		MatchingElement parent = (member.isParameter() || member.isException()
+				? matchingMethod : matchingParent);
+		MatchingElement me = searchMatchingElement(member, templates, parent);
 		if (member.isType()) {
-			matchingParent = me;
+			ctx.matchingParent = me;
 		}
 		else if (member.isMethod()) {
-			matchingMethod = me;
+			ctx.matchingMethod = me;
 		}
 
 		return me;
@@ -313,16 +456,17 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 *
 	 * @param member the member
 	 * @param templates the templates
+	 * @param parent the matching parent element
 	 *
 	 * @return the matching element
 	 *
 	 * @throws Exception thrown if an exception occured
 	 */
-	private MatchingElement searchMatchingElement(IMemberWrapper member, List<TemplateEntry> templates)
-															throws Exception {
+	private MatchingElement searchMatchingElement(IMemberWrapper member, List<TemplateEntry> templates,
+			MatchingElement parent) throws Exception {
 		int size = templates.size();
 		for (int i = 0; i < size; ++i) {
-			MatchingElement me = getMatchingElement(member, (TemplateEntry)templates.get(i));
+			MatchingElement me = getMatchingElement(member, (TemplateEntry)templates.get(i), parent);
 			if (me != null) {
 				return me;
 			}
@@ -337,24 +481,82 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 *
 	 * @param member the member
 	 * @param entry the entry
+	 * @param parent the matching parent element
 	 *
 	 * @return the matching element or null in case of no match
 	 *
 	 * @throws Exception thrown if an exception occured
 	 */
-	private MatchingElement getMatchingElement(IMemberWrapper member, TemplateEntry entry)
-															throws Exception {
+	private MatchingElement getMatchingElement(IMemberWrapper member, TemplateEntry entry,
+			MatchingElement parent) throws Exception {
 		String text = entry.isUseSignature() ? member.getSignature() : member.getName();
-		Matcher matcher = entry.getPattern().matcher(text);
-		if (!matcher.matches()) {
+		if (skippedTemplates.contains(entry.getName())) {
+			return null;
+		}
+
+		Matcher matcher = entry.getPattern().matcher(new BoundedCharSequence(text, Constants.REGEX_BUDGET));
+		if (profiler.isEnabled()) {
+			long start = System.nanoTime();
+			boolean matches = matches(entry, matcher, text);
+			profiler.recordMatch(entry, matches, System.nanoTime() - start);
+			if (!matches) {
+				return null;
+			}
+		}
+		else if (!matches(entry, matcher, text)) {
 			return null;
 		}
 
-		MatchingElement parent = (member.isParameter() || member.isException()
-				? matchingMethod : matchingParent);
 		return new MatchingElement(member, entry, matcher, parent);
 	}
 
+	/**
+	 * Matches the pattern of the given template. If the step budget is
+	 * exceeded, the template is reported and skipped until it is replaced.
+	 */
+	private boolean matches(TemplateEntry entry, Matcher matcher, String text) {
+		try {
+			return matcher.matches();
+		} catch (BudgetExceededException e) {
+			if (skippedTemplates.add(entry.getName())) {
+				templateLogger.warn("Pattern of template '" + entry.getName()
+						+ "' exceeded the step budget on '" + text + "', template skipped");
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Checks the patterns of the given templates for catastrophic
+	 * backtracking. The previously skipped templates are enabled again.
+	 */
+	private void checkTemplates(TemplateSet templateSet) {
+		skippedTemplates.clear();
+		checkPatterns(templateSet);
+	}
+
+	private void checkPatterns(TemplateSet templateSet) {
+		checkPatterns(templateSet.getTypeTemplates());
+		checkPatterns(templateSet.getFieldTemplates());
+		checkPatterns(templateSet.getMethodTemplates());
+		checkPatterns(templateSet.getParameterTemplates());
+		checkPatterns(templateSet.getExceptionTemplates());
+	}
+
+	private void checkPatterns(List<TemplateEntry> entries) {
+		for (TemplateEntry entry : entries) {
+			checkPattern(entry);
+			checkPatterns(entry.getChildTemplates());
+		}
+	}
+
+	private void checkPattern(TemplateEntry entry) {
+		String problem = RegexAnalyzer.analyze(entry.getRegex());
+		if (problem != null) {
+			templateLogger.warn("Pattern of template '" + entry.getName() + "': " + problem);
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#evaluateTemplate(java.util.regex.Matcher, java.util.regex.Matcher, java.lang.String, net.sf.jautodoc.templates.TemplateEntry)
 	 */
@@ -395,10 +597,25 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 */
 	public abstract void validateTemplate(String template) throws ParseException, Exception;
 
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#validateTemplates(net.sf.jautodoc.templates.TemplateSet)
+	 */
+	public List<TemplateDiagnostic> validateTemplates(TemplateSet templateSet) throws Exception {
+		return new TemplateValidator(this, Runtime.getRuntime().availableProcessors()).validate(templateSet);
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#getProfiler()
+	 */
+	public TemplateProfiler getProfiler() {
+		return profiler;
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#getTemplateText(java.lang.String)
 	 */
 	public String getTemplateText(String templateName) {
+		loadAll();
 		TemplateEntry entry = getRegistry().getTemplate(templateName);
 		if (entry != null) {
 			return entry.getText();
@@ -410,6 +627,7 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 * @see net.sf.jautodoc.templates.ITemplateManager#existsTemplate(java.lang.String)
 	 */
 	public boolean existsTemplate(String templateName) {
+		loadAll();
 		return getRegistry().containsTemplate(templateName);
 	}
 
@@ -417,7 +635,45 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 * @see net.sf.jautodoc.templates.ITemplateManager#putTemplate(net.sf.jautodoc.templates.TemplateEntry)
 	 */
 	public void putTemplate(TemplateEntry entry) {
+		loadAll(); // not replaced by the bundle afterwards
 		getRegistry().putTemplate(entry);
+		skippedTemplates.remove(entry.getName());
+		checkPattern(entry);
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#getTemplatesHash()
+	 */
+	public String getTemplatesHash() throws Exception {
+		TemplateBundle current = bundle;
+		if (current != null && current.getTemplates() == templates) {
+			return current.getTemplatesHash();
+		}
+
+		HashBuilder hash = new HashBuilder();
+		addToHash(hash, getTemplates());
+		return hash.toHex();
+	}
+
+	private void addToHash(HashBuilder hash, TemplateSet templateSet) {
+		if (templateSet == null) {
+			hash.add(-1);
+			return;
+		}
+		addToHash(hash, templateSet.getTypeTemplates());
+		addToHash(hash, templateSet.getFieldTemplates());
+		addToHash(hash, templateSet.getMethodTemplates());
+		addToHash(hash, templateSet.getParameterTemplates());
+		addToHash(hash, templateSet.getExceptionTemplates());
+	}
+
+	private void addToHash(HashBuilder hash, List<TemplateEntry> entries) {
+		hash.add(entries.size());
+		for (TemplateEntry entry : entries) {
+			hash.add(entry.getKind()).add(entry.getName()).add(entry.getRegex());
+			hash.add(entry.getText()).add(entry.isUseSignature());
+			addToHash(hash, entry.getChildTemplates());
+		}
 	}
 
 	/**
@@ -426,4 +682,27 @@ public abstract class AbstractTemplateManager implements ITemplateManager {
 	 * @return the registry
 	 */
 	protected abstract ITemplateRegistry getRegistry();
+
+	/**
+	 * Reports problems with template patterns and evaluations.
+	 */
+	private static class TemplateLogger extends TemplateEngineLogger {
+
+		void warn(String message) {
+			LogEntry logEntry = new LogEntry();
+			logEntry.setSeverity(IStatus.WARNING);
+			logEntry.setMessage(message);
+			logEntry.setLine(-1);
+			logEntry.setColumn(-1);
+			logMessage(logEntry);
+		}
+	}
+
+	/**
+	 * The matching parent elements of a thread.
+	 */
+	private static class MatchingContext {
+		private MatchingElement matchingParent;
+		private MatchingElement matchingMethod;
+	}
 }
@@ -0,0 +1,73 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+
+/**
+ * Character sequence, that limits the number of character accesses. A regex
+ * matcher reads the input character by character, so the limit bounds the
+ * steps of a match, even if the pattern backtracks catastrophically.
+ */
+public final class BoundedCharSequence implements CharSequence {
+    private final String text;
+    private int steps;
+
+
+    /**
+     * Instantiates a new bounded character sequence.
+     *
+     * @param text the text
+     * @param budget the maximum number of character accesses
+     */
+    public BoundedCharSequence(String text, int budget) {
+        this.text = text;
+        this.steps = budget;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.CharSequence#charAt(int)
+     */
+    public char charAt(int index) {
+        if (--steps < 0) {
+            throw new BudgetExceededException();
+        }
+        return text.charAt(index);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.CharSequence#length()
+     */
+    public int length() {
+        return text.length();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.CharSequence#subSequence(int, int)
+     */
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end); // groups of a finished match
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * Thrown if the budget of a bounded character sequence is exceeded.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public BudgetExceededException() {
+            super(null, null, false, false); // no stack trace
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.util.Map;
+
+
+/**
+ * Interface for template engines. A template engine evaluates the template
+ * texts, the matching of templates and the wrapping of Java elements is done
+ * by the template manager. Implementations must allow concurrent evaluations.
+ */
+public interface ITemplateEngine {
+
+    /**
+     * Initializes the engine.
+     *
+     * @param globals the values available in all evaluations, not modified
+     *        after initialization
+     * @throws Exception thrown if the engine could not be initialized
+     */
+    public void initialize(Map<String, Object> globals) throws Exception;
+
+    /**
+     * Adds a new template or replaces an existing.
+     *
+     * @param templateName the template name
+     * @param template the template text
+     */
+    public void putTemplate(String templateName, String template);
+
+    /**
+     * Removes the template with the given name.
+     *
+     * @param templateName the template name
+     */
+    public void removeTemplate(String templateName);
+
+    /**
+     * Evaluates the template with the given name.
+     *
+     * @param templateName the template name
+     * @param context the values of this evaluation, may be modified by the engine
+     * @return the resulting string
+     * @throws Exception thrown if an exception occured
+     */
+    public String mergeTemplate(String templateName, Map<String, Object> context) throws Exception;
+
+    /**
+     * Evaluates the given template text.
+     *
+     * @param templateName the template name used in log messages
+     * @param template the template text
+     * @param context the values of this evaluation, may be modified by the engine
+     * @return the resulting string
+     * @throws Exception thrown if an exception occured
+     */
+    public String evaluateTemplate(String templateName, String template, Map<String, Object> context)
+            throws Exception;
+
+    /**
+     * Validates the given template text.
+     *
+     * @param template the template text
+     * @throws ValidationException thrown if the template is not valid
+     * @throws Exception thrown if an exception occured
+     */
+    public void validateTemplate(String template) throws ValidationException, Exception;
+
+    /**
+     * Analyzes the given template text.
+     *
+     * @param template the template text
+     * @return the template info
+     * @throws Exception thrown if the template is not valid
+     */
+    public TemplateInfo analyzeTemplate(String template) throws Exception;
+}
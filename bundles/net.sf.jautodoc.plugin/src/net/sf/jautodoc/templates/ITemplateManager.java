@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -128,6 +128,7 @@ public interface ITemplateManager {
 	 * @param member the member
 	 * @param properties the properties to use
 	 * @return the resulting string
+	 * @throws TemplateBudgetException thrown if the evaluation exceeds its budget
 	 * @throws Exception thrown if an exception occured
 	 */
 	public String applyTemplate(IMember member, Map<String, String> properties) throws Exception;
@@ -140,6 +141,7 @@ public interface ITemplateManager {
 	 * @param name the parameter name
 	 * @param properties the properties to use
 	 * @return the resulting string
+	 * @throws TemplateBudgetException thrown if the evaluation exceeds its budget
 	 * @throws Exception thrown if an exception occured
 	 */
 	public String applyParameterTemplate(IMember member, String type,
@@ -152,6 +154,7 @@ public interface ITemplateManager {
 	 * @param name the exception name
 	 * @param properties the properties to use
 	 * @return the resulting string
+	 * @throws TemplateBudgetException thrown if the evaluation exceeds its budget
 	 * @throws Exception thrown if an exception occured
 	 */
 	public String applyExceptionTemplate(IMethod method, String name, Map<String, String> properties)
@@ -171,6 +174,18 @@ public interface ITemplateManager {
 	public String evaluateTemplate(Matcher matcher, Matcher parentMatcher,
 			String template, TemplateEntry entry, Map<String, String> properties) throws Exception;
 
+	/**
+	 * Evaluate the template of the given matching element, e.g. of a simulated
+	 * member. Registered templates are evaluated like in a real run, other
+	 * template texts by the same engine.
+	 *
+	 * @param me the matching element
+	 * @param properties the properties to use
+	 * @return the resulting string
+	 * @throws Exception thrown if an exception occured
+	 */
+	public String evaluateTemplate(MatchingElement me, Map<String, String> properties) throws Exception;
+
 	/**
 	 * Evaluate the given template.
 	 *
@@ -194,6 +209,24 @@ public interface ITemplateManager {
 	public void validateTemplate(String template) throws ValidationException,
 			Exception;
 
+	/**
+	 * Reads the stored templates, the user templates or the default
+	 * templates, without applying them.
+	 *
+	 * @return the stored templates
+	 * @throws Exception thrown if an exception occured
+	 */
+	public TemplateSet readStoredTemplates() throws Exception;
+
+	/**
+	 * Validates all templates of the given set in parallel.
+	 *
+	 * @param templates the templates
+	 * @return the diagnostics of all invalid templates
+	 * @throws Exception thrown if an exception occured
+	 */
+	public List<TemplateDiagnostic> validateTemplates(TemplateSet templates) throws Exception;
+
 	/**
 	 * Gets the template text.
 	 *
@@ -202,6 +235,13 @@ public interface ITemplateManager {
 	 */
 	public String getTemplateText(String templateName);
 
+	/**
+	 * Gets the profiler, that collects the template statistics.
+	 * 
+	 * @return the template profiler
+	 */
+	public TemplateProfiler getProfiler();
+
 	/**
 	 * Checks if a template with the given name exists.
 	 *
@@ -215,4 +255,13 @@ public interface ITemplateManager {
 	 * @param entry the template entry
 	 */
 	public void putTemplate(TemplateEntry entry);
+
+	/**
+	 * Gets a hash over all loaded templates. Equal hashes denote
+	 * equal template sets.
+	 *
+	 * @return the templates hash
+	 * @throws Exception thrown if an exception occured
+	 */
+	public String getTemplatesHash() throws Exception;
 }
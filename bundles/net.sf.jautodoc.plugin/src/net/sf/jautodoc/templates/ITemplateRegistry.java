@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -21,6 +21,15 @@ public interface ITemplateRegistry {
 	 * @return the template
 	 */
 	public TemplateEntry getTemplate(String templateName);
+
+	/**
+	 * Gets the analysis result of the template with the given name.
+	 * 
+	 * @param templateName the template name
+	 * 
+	 * @return the template info or null, if the template could not be analyzed
+	 */
+	public TemplateInfo getTemplateInfo(String templateName);
 	
 	/**
 	 * Replaces all templates by the given template set.
@@ -36,6 +45,20 @@ public interface ITemplateRegistry {
 	 */
 	public void putTemplate(TemplateEntry entry);
 
+	/**
+	 * Adds a new template or replaces an existing, using the given analysis
+	 * result instead of analyzing the template again.
+	 * 
+	 * @param entry the template entry
+	 * @param info the template info, null if the template could not be analyzed
+	 */
+	public void putTemplate(TemplateEntry entry, TemplateInfo info);
+
+	/**
+	 * Removes all templates.
+	 */
+	public void clearTemplates();
+
 	/**
 	 * Checks if a template with the given name already exists.
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -8,6 +8,7 @@
 package net.sf.jautodoc.templates;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -22,6 +23,7 @@ import org.eclipse.jdt.core.IMethod;
  */
 public class NullTemplateManager implements ITemplateManager {
 	TemplateSet templates = new TemplateSet();
+	TemplateProfiler profiler = new TemplateProfiler();
 
 
 	/* (non-Javadoc)
@@ -104,6 +106,13 @@ public class NullTemplateManager implements ITemplateManager {
 		return "";
 	}
 
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#getProfiler()
+	 */
+	public TemplateProfiler getProfiler() {
+		return profiler;
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#existsTemplate(java.lang.String)
 	 */
@@ -127,6 +136,13 @@ public class NullTemplateManager implements ITemplateManager {
 		return template;
 	}
 
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#evaluateTemplate(net.sf.jautodoc.templates.MatchingElement, java.util.Map)
+	 */
+	public String evaluateTemplate(MatchingElement me, Map<String, String> properties) throws Exception {
+		return me.getEntry().getText();
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#validateTemplate(java.lang.String)
 	 */
@@ -134,6 +150,20 @@ public class NullTemplateManager implements ITemplateManager {
 			Exception {
 	}
 
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#readStoredTemplates()
+	 */
+	public TemplateSet readStoredTemplates() throws Exception {
+		return new TemplateSet();
+	}
+
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#validateTemplates(net.sf.jautodoc.templates.TemplateSet)
+	 */
+	public List<TemplateDiagnostic> validateTemplates(TemplateSet templates) throws Exception {
+		return Collections.emptyList();
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#initialize()
 	 */
@@ -164,6 +194,13 @@ public class NullTemplateManager implements ITemplateManager {
 	public void putTemplate(TemplateEntry entry) {
 	}
 
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#getTemplatesHash()
+	 */
+	public String getTemplatesHash() throws Exception {
+		return "";
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateManager#storeTemplates()
 	 */
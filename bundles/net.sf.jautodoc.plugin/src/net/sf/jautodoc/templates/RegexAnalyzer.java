@@ -0,0 +1,181 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+
+/**
+ * Finds regular expressions, that are prone to catastrophic backtracking.
+ * Flagged are groups with an unbounded quantifier, that contain an unbounded
+ * quantifier themselves, like <code>(a+)+</code> or <code>(\w*\s?)*</code>.
+ * Possessive quantifiers and atomic groups do not backtrack and are not
+ * flagged.
+ */
+public final class RegexAnalyzer {
+
+    private RegexAnalyzer() {
+        // no instances
+    }
+
+    /**
+     * Analyzes the given regular expression.
+     *
+     * @param regex the regular expression
+     * @return a description of the problem or null, if none was found
+     */
+    public static String analyze(String regex) {
+        Deque<Group> groups = new ArrayDeque<Group>();
+        Group current = new Group(false);
+
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            boolean atom = true;
+
+            if (c == '\\') {
+                if (regex.startsWith("\\Q", i)) {
+                    int end = regex.indexOf("\\E", i + 2);
+                    i = end < 0 ? regex.length() : end + 2;
+                }
+                else {
+                    i += 2;
+                }
+            }
+            else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+            }
+            else if (c == '(') {
+                groups.push(current);
+                current = new Group(regex.startsWith("(?>", i));
+                ++i;
+                continue;
+            }
+            else if (c == ')') {
+                if (groups.isEmpty()) {
+                    return null; // invalid, reported by the compiler
+                }
+                boolean unbounded = current.unbounded && !current.atomic;
+                current = groups.pop();
+                ++i;
+
+                int quantifierEnd = skipQuantifier(regex, i);
+                boolean repeated = isBacktrackingUnbounded(regex, i, quantifierEnd);
+                if (repeated && unbounded) {
+                    return "Nested quantifier at index " + (i - 1)
+                            + " may cause catastrophic backtracking";
+                }
+                current.unbounded |= repeated || unbounded;
+                i = quantifierEnd;
+                continue;
+            }
+            else if (c == '|') {
+                atom = false;
+                ++i;
+            }
+            else {
+                ++i;
+            }
+
+            if (atom) {
+                int quantifierEnd = skipQuantifier(regex, i);
+                if (isBacktrackingUnbounded(regex, i, quantifierEnd)) {
+                    current.unbounded = true;
+                }
+                i = quantifierEnd;
+            }
+        }
+        return null;
+    }
+
+    private static int skipCharacterClass(String regex, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == '[') {
+                ++depth;
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    ++i; // literal ] as first character
+                }
+            }
+            else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            ++i;
+        }
+        return regex.length();
+    }
+
+    private static int skipQuantifier(String regex, int start) {
+        int i = start;
+        if (i >= regex.length()) {
+            return i;
+        }
+
+        char c = regex.charAt(i);
+        if (c == '*' || c == '+' || c == '?') {
+            ++i;
+        }
+        else if (c == '{') {
+            int end = regex.indexOf('}', i);
+            if (end < 0) {
+                return i;
+            }
+            i = end + 1;
+        }
+        else {
+            return i;
+        }
+
+        if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+            ++i; // reluctant or possessive
+        }
+        return i;
+    }
+
+    /**
+     * Checks if the quantifier in the given range is unbounded and may
+     * backtrack.
+     */
+    private static boolean isBacktrackingUnbounded(String regex, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        if (end - start > 1 && regex.charAt(end - 1) == '+') {
+            return false; // possessive
+        }
+
+        char c = regex.charAt(start);
+        if (c == '*' || c == '+') {
+            return true;
+        }
+        if (c == '{') {
+            String range = regex.substring(start + 1, regex.indexOf('}', start));
+            return range.endsWith(",");
+        }
+        return false;
+    }
+
+    /**
+     * State of an open group.
+     */
+    private static final class Group {
+        final boolean atomic;
+        boolean unbounded;
+
+        Group(boolean atomic) {
+            this.atomic = atomic;
+        }
+    }
+}
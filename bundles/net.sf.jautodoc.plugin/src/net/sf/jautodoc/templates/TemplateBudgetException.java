@@ -0,0 +1,26 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+
+/**
+ * Thrown if a template evaluation exceeds its time or output budget.
+ */
+public class TemplateBudgetException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+
+    /**
+     * Instantiates a new template budget exception.
+     *
+     * @param message the message
+     */
+    public TemplateBudgetException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,398 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.sf.jautodoc.utils.HashBuilder;
+
+
+/**
+ * Binary snapshot of a template set together with the analysis results of
+ * the templates and the problems of their patterns. The templates of each
+ * kind are stored in a separate section, which is decoded on first access,
+ * so loading the bundle costs no more than reading the file. A bundle is
+ * only valid for the template source it was created from.
+ */
+public final class TemplateBundle {
+    private static final int MAGIC   = 0x4A41544D;
+    private static final int VERSION = 1;
+
+    /** Kinds in the order of the sections. */
+    private static final int[] KINDS = { ITemplateKinds.TYPE, ITemplateKinds.FIELD,
+            ITemplateKinds.METHOD, ITemplateKinds.PARAMETER, ITemplateKinds.EXCEPTION };
+
+    private final byte[][] sections;
+    private final String templatesHash;
+    private final Map<String, TemplateInfo> templateInfos = new ConcurrentHashMap<String, TemplateInfo>();
+    private final Map<String, String> patternProblems = new ConcurrentHashMap<String, String>();
+    private final BundledTemplateSet templates = new BundledTemplateSet();
+    private final Listener listener;
+
+
+    private TemplateBundle(byte[][] sections, String templatesHash, Listener listener) {
+        this.sections = sections;
+        this.templatesHash = templatesHash;
+        this.listener = listener;
+    }
+
+    /**
+     * Computes the fingerprint of a template source. The fingerprint also
+     * depends on the given version, so a bundle becomes invalid, if the
+     * analysis of the templates changes.
+     *
+     * @param source the content of the template file
+     * @param version the version of the analysis, e.g. the plugin version
+     * @return the fingerprint
+     */
+    public static String fingerprint(byte[] source, String version) {
+        return new HashBuilder().add(VERSION).add(version)
+                .add(new String(source, StandardCharsets.ISO_8859_1)).toHex();
+    }
+
+    /**
+     * Reads a bundle. The sections are decoded when the templates of a kind
+     * are accessed first, the listener is notified before they are returned.
+     *
+     * @param file the bundle file
+     * @param fingerprint the fingerprint of the current template source
+     * @param listener the listener for decoded templates
+     * @return the bundle or null, if the file does not exist, is outdated or unreadable
+     */
+    public static TemplateBundle read(File file, String fingerprint, Listener listener) {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !fingerprint.equals(in.readUTF())) {
+                return null;
+            }
+            String templatesHash = in.readUTF();
+
+            byte[][] sections = new byte[KINDS.length][];
+            for (int i = 0; i < sections.length; ++i) {
+                sections[i] = new byte[in.readInt()];
+                in.readFully(sections[i]);
+            }
+            return new TemplateBundle(sections, templatesHash, listener);
+        } catch (IOException e) {
+            return null; // rebuilt from the template source
+        }
+    }
+
+    /**
+     * Writes a bundle for the given templates.
+     *
+     * @param file the bundle file
+     * @param fingerprint the fingerprint of the template source
+     * @param templatesHash the hash of the templates
+     * @param templates the templates
+     * @param registry the registry holding the analysis results
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void write(File file, String fingerprint, String templatesHash, TemplateSet templates,
+            ITemplateRegistry registry) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            out.writeUTF(templatesHash);
+
+            for (int kind : KINDS) {
+                ByteArrayOutputStream section = new ByteArrayOutputStream();
+                writeEntries(new DataOutputStream(section), getTemplates(templates, kind), registry);
+                out.writeInt(section.size());
+                section.writeTo(out);
+            }
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            file.delete();
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+                throw new IOException("Cannot write " + file);
+            }
+        }
+    }
+
+    /**
+     * Gets the templates of this bundle. The lists of the set are decoded
+     * on first access.
+     *
+     * @return the template set
+     */
+    public TemplateSet getTemplates() {
+        return templates;
+    }
+
+    /**
+     * Decodes all sections, that are not decoded yet.
+     */
+    public void loadAll() {
+        for (int i = 0; i < KINDS.length; ++i) {
+            templates.get(i);
+        }
+    }
+
+    /**
+     * Gets the hash of the templates, as it was when the bundle was written.
+     *
+     * @return the templates hash
+     */
+    public String getTemplatesHash() {
+        return templatesHash;
+    }
+
+    /**
+     * Gets the analysis result of a decoded template.
+     *
+     * @param templateName the template name
+     * @return the template info or null, if the template could not be analyzed
+     */
+    public TemplateInfo getTemplateInfo(String templateName) {
+        return templateInfos.get(templateName);
+    }
+
+    /**
+     * Gets the problem of the pattern of a decoded template.
+     *
+     * @param templateName the template name
+     * @return the problem or null, if there is none
+     */
+    public String getPatternProblem(String templateName) {
+        return patternProblems.get(templateName);
+    }
+
+    private static List<TemplateEntry> getTemplates(TemplateSet templates, int kind) {
+        switch (kind) {
+        case ITemplateKinds.TYPE:      return templates.getTypeTemplates();
+        case ITemplateKinds.FIELD:     return templates.getFieldTemplates();
+        case ITemplateKinds.METHOD:    return templates.getMethodTemplates();
+        case ITemplateKinds.PARAMETER: return templates.getParameterTemplates();
+        default:                       return templates.getExceptionTemplates();
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, List<TemplateEntry> entries,
+            ITemplateRegistry registry) throws IOException {
+        out.writeInt(entries.size());
+        for (TemplateEntry entry : entries) {
+            out.writeInt(entry.getKind());
+            writeString(out, entry.getName());
+            out.writeBoolean(entry.isUseSignature());
+            out.writeBoolean(entry.isDefaultTemplate());
+            writeString(out, entry.getRegex());
+            writeString(out, entry.getExample());
+            writeString(out, entry.getText());
+            writeString(out, RegexAnalyzer.analyze(entry.getRegex()));
+
+            TemplateInfo info = registry.getTemplateInfo(entry.getName());
+            out.writeBoolean(info != null);
+            if (info != null) {
+                writeStrings(out, info.getReferences());
+                writeStrings(out, info.getFunctions());
+                writeString(out, info.getConstantText());
+                out.writeBoolean(info.hasEscapes());
+            }
+
+            for (int kind : KINDS) {
+                writeEntries(out, getTemplates(entry.getChildTemplates(), kind), registry);
+            }
+        }
+    }
+
+    private List<TemplateEntry> readEntries(DataInputStream in, TemplateEntry parent) throws IOException {
+        int size = in.readInt();
+        List<TemplateEntry> entries = new ArrayList<TemplateEntry>(size);
+        for (int i = 0; i < size; ++i) {
+            TemplateEntry entry = new TemplateEntry(parent, in.readInt());
+            entry.setName(readString(in));
+            entry.setUseSignature(in.readBoolean());
+            entry.setDefaultTemplate(in.readBoolean());
+            entry.setRegex(readString(in));
+            entry.setExample(readString(in));
+            entry.setText(readString(in));
+
+            String problem = readString(in);
+            if (problem != null) {
+                patternProblems.put(entry.getName(), problem);
+            }
+
+            if (in.readBoolean()) {
+                Set<String> references = readStrings(in);
+                Set<String> functions = readStrings(in);
+                String constantText = readString(in);
+                templateInfos.put(entry.getName(),
+                        new TemplateInfo(references, functions, constantText, in.readBoolean()));
+            }
+
+            TemplateSet children = entry.getChildTemplates();
+            children.setTypeTemplates(readEntries(in, entry));
+            children.setFieldTemplates(readEntries(in, entry));
+            children.setMethodTemplates(readEntries(in, entry));
+            children.setParameterTemplates(readEntries(in, entry));
+            children.setExceptionTemplates(readEntries(in, entry));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, Set<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Set<String> values = new HashSet<String>();
+        for (int i = 0; i < size; ++i) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    /**
+     * Listener for the templates of a section, that have been decoded.
+     */
+    public interface Listener {
+
+        /**
+         * Called once for the top level templates of each kind, before they
+         * are returned by the template set.
+         *
+         * @param bundle the bundle
+         * @param entries the decoded templates
+         */
+        void templatesDecoded(TemplateBundle bundle, List<TemplateEntry> entries);
+    }
+
+    /**
+     * Template set, that decodes the templates of a kind on first access.
+     */
+    private final class BundledTemplateSet extends TemplateSet {
+        private final AtomicReferenceArray<List<TemplateEntry>> lists =
+                new AtomicReferenceArray<List<TemplateEntry>>(KINDS.length);
+
+
+        List<TemplateEntry> get(int index) {
+            List<TemplateEntry> list = lists.get(index);
+            if (list == null) {
+                synchronized (this) {
+                    list = lists.get(index);
+                    if (list == null) {
+                        list = decode(index);
+                        listener.templatesDecoded(TemplateBundle.this, list);
+                        lists.set(index, list); // visible only after registration
+                    }
+                }
+            }
+            return list;
+        }
+
+        private List<TemplateEntry> decode(int index) {
+            try {
+                return readEntries(new DataInputStream(new ByteArrayInputStream(sections[index])), null);
+            } catch (IOException e) {
+                throw new IllegalStateException("Corrupt template bundle", e);
+            } finally {
+                sections[index] = null;
+            }
+        }
+
+        @Override
+        public List<TemplateEntry> getTypeTemplates() {
+            return get(0);
+        }
+
+        @Override
+        public List<TemplateEntry> getFieldTemplates() {
+            return get(1);
+        }
+
+        @Override
+        public List<TemplateEntry> getMethodTemplates() {
+            return get(2);
+        }
+
+        @Override
+        public List<TemplateEntry> getParameterTemplates() {
+            return get(3);
+        }
+
+        @Override
+        public List<TemplateEntry> getExceptionTemplates() {
+            return get(4);
+        }
+
+        @Override
+        public void setTypeTemplates(List<TemplateEntry> templates) {
+            lists.set(0, templates);
+        }
+
+        @Override
+        public void setFieldTemplates(List<TemplateEntry> templates) {
+            lists.set(1, templates);
+        }
+
+        @Override
+        public void setMethodTemplates(List<TemplateEntry> templates) {
+            lists.set(2, templates);
+        }
+
+        @Override
+        public void setParameterTemplates(List<TemplateEntry> templates) {
+            lists.set(3, templates);
+        }
+
+        @Override
+        public void setExceptionTemplates(List<TemplateEntry> templates) {
+            lists.set(4, templates);
+        }
+    }
+}
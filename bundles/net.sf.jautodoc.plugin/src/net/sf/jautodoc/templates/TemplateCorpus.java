@@ -0,0 +1,623 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jautodoc.templates.wrapper.AnnotationWrapper;
+import net.sf.jautodoc.templates.wrapper.IMemberWrapper;
+import net.sf.jautodoc.templates.wrapper.WrapperFactory;
+
+import org.eclipse.jdt.core.IAnnotatable;
+import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.Signature;
+
+
+/**
+ * Corpus of members for the template simulation. Besides name and signature
+ * each member has the values, that templates may query: type, declaring
+ * type, modifiers and annotations. The members are kept in source order,
+ * each with the index of its parent: the enclosing type for types, fields
+ * and methods, the method for parameters and exceptions.
+ * <p>
+ * In the file format each member is a line with kind, nesting depth, name,
+ * signature, type, declaring type, modifiers and annotations, separated by
+ * tabs. The modifiers are separated by spaces, the annotations are written
+ * like <code>@Name(key=value,key=value)</code>, where <code>\</code>,
+ * <code>,</code> and <code>)</code> in values are escaped by a backslash.
+ * Lines without the last four fields are accepted, their members return
+ * placeholders like the template preview. The parent of a member is the
+ * last member before it with a smaller depth. Empty lines and lines
+ * starting with <code>#</code> are ignored.
+ */
+public class TemplateCorpus {
+    public static final int STATIC      = 1;
+    public static final int FINAL       = 2;
+    public static final int CONSTRUCTOR = 4;
+    public static final int MAIN_METHOD = 8;
+
+    private static final String[] KIND_NAMES = { "", "type", "field", "method", "parameter", "exception" };
+    private static final String[] MODIFIER_NAMES = { "static", "final", "constructor", "main" };
+
+    private final List<Member> members = new ArrayList<Member>();
+
+
+    /**
+     * Gets the number of members.
+     *
+     * @return the size
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Gets the member with the given index.
+     *
+     * @param index the index
+     * @return the member
+     */
+    public Member get(int index) {
+        return members.get(index);
+    }
+
+    /**
+     * Gets a wrapper for the member with the given index, that may be
+     * evaluated like a member of the Java model.
+     *
+     * @param index the index
+     * @return the member wrapper
+     */
+    public IMemberWrapper getWrapper(int index) {
+        return new MemberWrapper(this, index);
+    }
+
+    /**
+     * Adds a member, whose type, declaring type, modifiers and annotations
+     * are unknown.
+     *
+     * @param kind the template kind, see {@link ITemplateKinds}
+     * @param name the name
+     * @param signature the signature
+     * @param parent the index of the parent or -1, if none
+     * @return the index of the new member
+     */
+    public int add(int kind, String name, String signature, int parent) {
+        return add(kind, name, signature, parent, null, null, 0, null);
+    }
+
+    /**
+     * Adds a member.
+     *
+     * @param kind the template kind, see {@link ITemplateKinds}
+     * @param name the name
+     * @param signature the signature
+     * @param parent the index of the parent or -1, if none
+     * @param type the type or null, if unknown
+     * @param declaringType the declaring type or null, if unknown
+     * @param modifiers the modifiers, see {@link #STATIC}, {@link #FINAL},
+     *        {@link #CONSTRUCTOR} and {@link #MAIN_METHOD}
+     * @param annotations the annotation values by annotation name or null, if unknown
+     * @return the index of the new member
+     */
+    public int add(int kind, String name, String signature, int parent, String type, String declaringType,
+            int modifiers, Map<String, Map<String, String>> annotations) {
+        if (parent >= members.size()) {
+            throw new IllegalArgumentException("Invalid parent: " + parent);
+        }
+        members.add(new Member(kind, name, signature, parent,
+                parent < 0 ? 0 : members.get(parent).getDepth() + 1,
+                type, declaringType, modifiers, annotations));
+        return members.size() - 1;
+    }
+
+    /**
+     * Adds the given type with its fields, methods, parameters, exceptions
+     * and member types.
+     *
+     * @param type the type
+     * @throws JavaModelException thrown if the Java model could not be accessed
+     */
+    public void addType(IType type) throws JavaModelException {
+        addType(type, -1);
+    }
+
+    private void addType(IType type, int parent) throws JavaModelException {
+        int index = add(WrapperFactory.getWrapper(type), parent);
+        for (IJavaElement child : type.getChildren()) {
+            if (child instanceof IType) {
+                addType((IType)child, index);
+            }
+            else if (child instanceof IField) {
+                add(WrapperFactory.getWrapper((IField)child), index);
+            }
+            else if (child instanceof IMethod) {
+                addMethod((IMethod)child, index);
+            }
+        }
+    }
+
+    private void addMethod(IMethod method, int parent) throws JavaModelException {
+        int index = add(WrapperFactory.getWrapper(method), parent);
+
+        String[] parameterNames = method.getParameterNames();
+        String[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterNames.length; ++i) {
+            add(WrapperFactory.getParameterWrapper(method, parameterTypes[i], parameterNames[i]), index);
+        }
+        for (String exceptionType : method.getExceptionTypes()) {
+            add(WrapperFactory.getExceptionWrapper(method, Signature.getSignatureSimpleName(exceptionType)), index);
+        }
+    }
+
+    private int add(IMemberWrapper member, int parent) throws JavaModelException {
+        int kind = member.isType() ? ITemplateKinds.TYPE
+                : member.isField() ? ITemplateKinds.FIELD
+                : member.isMethod() ? ITemplateKinds.METHOD
+                : member.isParameter() ? ITemplateKinds.PARAMETER
+                : ITemplateKinds.EXCEPTION;
+        int modifiers = (member.isStatic() ? STATIC : 0)
+                | (member.isFinal() ? FINAL : 0)
+                | (member.isConstructor() ? CONSTRUCTOR : 0)
+                | (member.isMainMethod() ? MAIN_METHOD : 0);
+        return add(kind, member.getName(), member.getSignature(), parent, member.getType(),
+                member.getDeclaringType(), modifiers, getAnnotations(member.getMember()));
+    }
+
+    /**
+     * Gets the annotations of the given member. Parameters and exceptions
+     * are wrapped with their method, like in a real run.
+     */
+    private static Map<String, Map<String, String>> getAnnotations(IMember member) throws JavaModelException {
+        Map<String, Map<String, String>> annotations = new LinkedHashMap<String, Map<String, String>>();
+        if (member instanceof IAnnotatable) {
+            for (IAnnotation annotation : ((IAnnotatable)member).getAnnotations()) {
+                annotations.put(annotation.getElementName(), new AnnotationWrapper(annotation).getValues());
+            }
+        }
+        return annotations;
+    }
+
+    /**
+     * Reads a corpus.
+     *
+     * @param reader the reader
+     * @return the corpus
+     * @throws IOException Signals that an I/O exception has occurred or the format is invalid.
+     */
+    public static TemplateCorpus read(Reader reader) throws IOException {
+        TemplateCorpus corpus = new TemplateCorpus();
+        List<Integer> parents = new ArrayList<Integer>(); // last member per depth
+
+        BufferedReader in = new BufferedReader(reader);
+        int lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            ++lineNumber;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\t", 8);
+            boolean complete = fields.length == 8;
+            int kind = fields.length == 4 || complete ? getKind(fields[0]) : -1;
+            int depth = fields.length == 4 || complete ? parseDepth(fields[1]) : -1;
+            int modifiers = complete ? parseModifiers(fields[6]) : 0;
+            Map<String, Map<String, String>> annotations = complete ? parseAnnotations(fields[7]) : null;
+            if (kind < 0 || depth < 0 || depth > parents.size() || modifiers < 0 || complete && annotations == null) {
+                throw new IOException("Invalid corpus line " + lineNumber + ": " + line);
+            }
+
+            int parent = depth == 0 ? -1 : parents.get(depth - 1);
+            int index = complete
+                    ? corpus.add(kind, fields[2], fields[3], parent, fields[4], fields[5], modifiers, annotations)
+                    : corpus.add(kind, fields[2], fields[3], parent);
+            while (parents.size() > depth) {
+                parents.remove(parents.size() - 1);
+            }
+            parents.add(index);
+        }
+        return corpus;
+    }
+
+    /**
+     * Writes this corpus.
+     *
+     * @param writer the writer
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(Writer writer) throws IOException {
+        writer.write("# kind\tdepth\tname\tsignature\ttype\tdeclaring type\tmodifiers\tannotations\n");
+        for (Member member : members) {
+            writer.write(KIND_NAMES[member.getKind()]);
+            writer.write('\t');
+            writer.write(Integer.toString(member.getDepth()));
+            writer.write('\t');
+            writer.write(clean(member.getName()));
+            writer.write('\t');
+            writer.write(clean(member.getSignature()));
+            if (member.getAnnotations() != null) {
+                writer.write('\t');
+                writer.write(clean(member.getType()));
+                writer.write('\t');
+                writer.write(clean(member.getDeclaringType()));
+                writer.write('\t');
+                writer.write(formatModifiers(member.getModifiers()));
+                writer.write('\t');
+                writer.write(clean(formatAnnotations(member.getAnnotations())));
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Gets the name of the given template kind, as used in the file format.
+     *
+     * @param kind the template kind
+     * @return the kind name
+     */
+    public static String getKindName(int kind) {
+        return kind > 0 && kind < KIND_NAMES.length ? KIND_NAMES[kind] : "";
+    }
+
+    private static int getKind(String name) {
+        for (int i = 1; i < KIND_NAMES.length; ++i) {
+            if (KIND_NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int parseDepth(String depth) {
+        try {
+            return Integer.parseInt(depth);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int parseModifiers(String modifiers) {
+        int result = 0;
+        for (String modifier : modifiers.trim().split(" +")) {
+            if (modifier.isEmpty()) {
+                continue;
+            }
+            int i = 0;
+            while (i < MODIFIER_NAMES.length && !MODIFIER_NAMES[i].equals(modifier)) {
+                ++i;
+            }
+            if (i == MODIFIER_NAMES.length) {
+                return -1;
+            }
+            result |= 1 << i;
+        }
+        return result;
+    }
+
+    private static String formatModifiers(int modifiers) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < MODIFIER_NAMES.length; ++i) {
+            if ((modifiers & 1 << i) != 0) {
+                result.append(result.length() > 0 ? " " : "").append(MODIFIER_NAMES[i]);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Parses annotations like <code>@Name(key=value,key=value) @Other</code>.
+     *
+     * @return the annotation values by annotation name or null, if invalid
+     */
+    private static Map<String, Map<String, String>> parseAnnotations(String text) {
+        Map<String, Map<String, String>> annotations = new LinkedHashMap<String, Map<String, String>>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i++);
+            if (c == ' ') {
+                continue;
+            }
+            if (c != '@') {
+                return null;
+            }
+
+            int start = i;
+            while (i < text.length() && text.charAt(i) != '(' && text.charAt(i) != ' ') {
+                ++i;
+            }
+            Map<String, String> values = new LinkedHashMap<String, String>();
+            annotations.put(text.substring(start, i), values);
+            if (i == text.length() || text.charAt(i) != '(') {
+                continue;
+            }
+
+            ++i; // values
+            while (i < text.length() && text.charAt(i) != ')') {
+                int equals = text.indexOf('=', i);
+                if (equals < 0) {
+                    return null;
+                }
+                String key = text.substring(i, equals).trim();
+
+                StringBuilder value = new StringBuilder();
+                for (i = equals + 1; i < text.length() && text.charAt(i) != ',' && text.charAt(i) != ')'; ++i) {
+                    if (text.charAt(i) == '\\' && i + 1 < text.length()) {
+                        ++i;
+                    }
+                    value.append(text.charAt(i));
+                }
+                values.put(key, value.toString());
+                if (i < text.length() && text.charAt(i) == ',') {
+                    ++i;
+                }
+            }
+            if (i == text.length()) {
+                return null; // missing ')'
+            }
+            ++i;
+        }
+        return annotations;
+    }
+
+    private static String formatAnnotations(Map<String, Map<String, String>> annotations) {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Map<String, String>> annotation : annotations.entrySet()) {
+            result.append(result.length() > 0 ? " @" : "@").append(annotation.getKey());
+            if (annotation.getValue().isEmpty()) {
+                continue;
+            }
+
+            String separator = "(";
+            for (Map.Entry<String, String> value : annotation.getValue().entrySet()) {
+                result.append(separator).append(value.getKey()).append('=');
+                result.append(value.getValue().replace("\\", "\\\\").replace(",", "\\,").replace(")", "\\)"));
+                separator = ",";
+            }
+            result.append(')');
+        }
+        return result.toString();
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * A member of the corpus.
+     */
+    public static final class Member {
+        private final int kind;
+        private final String name;
+        private final String signature;
+        private final int parent;
+        private final int depth;
+        private final String type;
+        private final String declaringType;
+        private final int modifiers;
+        private final Map<String, Map<String, String>> annotations;
+
+
+        private Member(int kind, String name, String signature, int parent, int depth, String type,
+                String declaringType, int modifiers, Map<String, Map<String, String>> annotations) {
+            this.kind = kind;
+            this.name = name;
+            this.signature = signature;
+            this.parent = parent;
+            this.depth = depth;
+            this.type = type != null ? type : "<type>";
+            this.declaringType = declaringType != null ? declaringType : "<declaring type>";
+            this.modifiers = modifiers;
+            this.annotations = annotations != null ? Collections.unmodifiableMap(annotations) : null;
+        }
+
+        public int getKind() {
+            return kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+
+        /**
+         * Gets the index of the parent member.
+         *
+         * @return the parent index or -1, if none
+         */
+        public int getParent() {
+            return parent;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getDeclaringType() {
+            return declaringType;
+        }
+
+        public int getModifiers() {
+            return modifiers;
+        }
+
+        /**
+         * Gets the annotations of the member.
+         *
+         * @return the annotation values by annotation name or null, if unknown
+         */
+        public Map<String, Map<String, String>> getAnnotations() {
+            return annotations;
+        }
+    }
+
+    /**
+     * Wrapper of a corpus member for the template evaluation.
+     */
+    private static final class MemberWrapper implements IMemberWrapper {
+        private final TemplateCorpus corpus;
+        private final int index;
+        private final Member member;
+
+
+        MemberWrapper(TemplateCorpus corpus, int index) {
+            this.corpus = corpus;
+            this.index = index;
+            this.member = corpus.get(index);
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getMember()
+         */
+        public IMember getMember() {
+            return null;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getParent()
+         */
+        public IMemberWrapper getParent() {
+            return member.getParent() >= 0 ? new MemberWrapper(corpus, member.getParent()) : null;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getName()
+         */
+        public String getName() {
+            return member.getName();
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getType()
+         */
+        public String getType() {
+            return member.getType();
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getDeclaringType()
+         */
+        public String getDeclaringType() {
+            return member.getDeclaringType();
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getSignature()
+         */
+        public String getSignature() {
+            return member.getSignature();
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isStatic()
+         */
+        public boolean isStatic() {
+            return (member.getModifiers() & STATIC) != 0;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isFinal()
+         */
+        public boolean isFinal() {
+            return (member.getModifiers() & FINAL) != 0;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isConstructor()
+         */
+        public boolean isConstructor() {
+            return (member.getModifiers() & CONSTRUCTOR) != 0;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isMainMethod()
+         */
+        public boolean isMainMethod() {
+            return (member.getModifiers() & MAIN_METHOD) != 0;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isType()
+         */
+        public boolean isType() {
+            return member.getKind() == ITemplateKinds.TYPE;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isField()
+         */
+        public boolean isField() {
+            return member.getKind() == ITemplateKinds.FIELD;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isMethod()
+         */
+        public boolean isMethod() {
+            return member.getKind() == ITemplateKinds.METHOD;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isParameter()
+         */
+        public boolean isParameter() {
+            return member.getKind() == ITemplateKinds.PARAMETER;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#isException()
+         */
+        public boolean isException() {
+            return member.getKind() == ITemplateKinds.EXCEPTION;
+        }
+
+        /* (non-Javadoc)
+         * @see net.sf.jautodoc.templates.wrapper.IMemberWrapper#getAnnotation(java.lang.String)
+         */
+        public AnnotationWrapper getAnnotation(String name) {
+            Map<String, String> values = member.getAnnotations() != null ? member.getAnnotations().get(name) : null;
+            return values != null ? new AnnotationWrapper(name, values) : new AnnotationWrapper();
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        public boolean equals(Object obj) {
+            return obj instanceof MemberWrapper && ((MemberWrapper)obj).corpus == corpus
+                    && ((MemberWrapper)obj).index == index;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        public int hashCode() {
+            return index;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import org.eclipse.core.runtime.IStatus;
+
+
+/**
+ * A problem found by the template validation.
+ */
+public class TemplateDiagnostic {
+
+    /** Part of the template, the diagnostic refers to. */
+    public enum Source {
+        /** The template name. */
+        NAME,
+        /** The regular expression. */
+        PATTERN,
+        /** The template text. */
+        TEXT
+    }
+
+    private final String templateName;
+    private final Source source;
+    private final int severity;
+    private final String message;
+    private final int line;
+    private final int column;
+
+
+    /**
+     * Instantiates a new template diagnostic.
+     *
+     * @param templateName the template name
+     * @param source the part of the template
+     * @param severity the severity, {@link IStatus#ERROR} or {@link IStatus#WARNING}
+     * @param message the message
+     * @param line the zero based line or -1, if unknown
+     * @param column the zero based column or -1, if unknown
+     */
+    public TemplateDiagnostic(String templateName, Source source, int severity, String message,
+            int line, int column) {
+        this.templateName = templateName;
+        this.source = source;
+        this.severity = severity;
+        this.message = message;
+        this.line = line;
+        this.column = column;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public int getSeverity() {
+        return severity;
+    }
+
+    public boolean isError() {
+        return severity == IStatus.ERROR;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        StringBuilder tmp = new StringBuilder();
+        tmp.append(isError() ? "Error" : "Warning");
+        tmp.append(" in ").append(source.name().toLowerCase()).append(" of '").append(templateName).append('\'');
+        if (line >= 0) {
+            tmp.append(", line ").append(line + 1);
+        }
+        if (column >= 0) {
+            tmp.append(", column ").append(column + 1);
+        }
+        tmp.append(": ").append(message);
+        return tmp.toString();
+    }
+}
@@ -7,9 +7,9 @@
  *******************************************************************/
 package net.sf.jautodoc.templates;
 
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import net.sf.jautodoc.JAutodocPlugin;
 
@@ -18,7 +18,7 @@ import org.eclipse.core.runtime.Status;
 
 
 public abstract class TemplateEngineLogger {
-	private static Set<LogListener> logListener = new HashSet<LogListener>();
+	private static Set<LogListener> logListener = new CopyOnWriteArraySet<LogListener>();
 	
 	public static void addLogListener(LogListener listener) {
 		logListener.add(listener);
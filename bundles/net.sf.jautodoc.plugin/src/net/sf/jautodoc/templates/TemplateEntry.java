@@ -28,7 +28,7 @@ public class TemplateEntry {
 	private String	  		text;
 	private String	  		example;
 	private TemplateSet 	childTemplates;
-	private Pattern   		pattern;
+	private volatile Pattern pattern;
 	private boolean	  		useSignature;
 	private boolean			defaultTemplate;
 	private TemplateEntry 	parent;
@@ -0,0 +1,98 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.util.Collections;
+import java.util.Set;
+
+
+/**
+ * The result of the static analysis of a template: the referenced context
+ * values and the called wrapper functions.
+ */
+public class TemplateInfo {
+    private final Set<String> references;
+    private final Set<String> functions;
+    private final String constantText;
+    private final boolean escapes;
+
+
+    /**
+     * Instantiates a new template info.
+     *
+     * @param references the names of the referenced context values
+     * @param functions the names of the called methods and properties
+     * @param constantText the result of the template, if it contains text
+     *        and comments only, otherwise null
+     * @param escapes true, if the result may contain escaped references
+     */
+    public TemplateInfo(Set<String> references, Set<String> functions, String constantText, boolean escapes) {
+        this.references = Collections.unmodifiableSet(references);
+        this.functions = Collections.unmodifiableSet(functions);
+        this.constantText = constantText;
+        this.escapes = escapes;
+    }
+
+    /**
+     * Gets the names of the referenced context values, e.g. <code>e</code>
+     * for <code>${e.g(1)}</code>.
+     *
+     * @return the referenced names
+     */
+    public Set<String> getReferences() {
+        return references;
+    }
+
+    /**
+     * Checks if the template references the given context value.
+     *
+     * @param name the name of the context value
+     * @return true, if referenced
+     */
+    public boolean references(String name) {
+        return references.contains(name);
+    }
+
+    /**
+     * Gets the names of the called methods and properties, e.g.
+     * <code>g</code> and <code>rs</code> for <code>${e.g(1).rs()}</code>.
+     *
+     * @return the function names
+     */
+    public Set<String> getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Checks if the template result is independent of the context.
+     *
+     * @return true, if constant
+     */
+    public boolean isConstant() {
+        return constantText != null;
+    }
+
+    /**
+     * Gets the result of a constant template.
+     *
+     * @return the constant text or null, if the template is not constant
+     */
+    public String getConstantText() {
+        return constantText;
+    }
+
+    /**
+     * Checks if the template result may contain escaped references like
+     * <code>\$</code>, which have to be resolved.
+     *
+     * @return true, if escapes have to be resolved
+     */
+    public boolean hasEscapes() {
+        return escapes;
+    }
+}
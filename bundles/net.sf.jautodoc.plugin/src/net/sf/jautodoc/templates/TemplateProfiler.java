@@ -0,0 +1,219 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Collects the statistics of the templates: how often the pattern of a
+ * template was tried and matched, how often the template was evaluated and
+ * the time spent for both. Nothing is recorded unless profiling is enabled.
+ * The statistics are kept by template name, so they survive reloading the
+ * templates.
+ */
+public class TemplateProfiler {
+    private volatile boolean enabled;
+    private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+
+    /**
+     * Checks if profiling is enabled.
+     *
+     * @return true, if enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables profiling. The collected statistics are kept.
+     *
+     * @param enabled true to enable profiling
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Removes all collected statistics.
+     */
+    public void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * Records a pattern match attempt.
+     *
+     * @param entry the template entry
+     * @param matched true, if the pattern matched
+     * @param nanos the time spent for matching
+     */
+    public void recordMatch(TemplateEntry entry, boolean matched, long nanos) {
+        Statistics s = getStatistics(entry, true);
+        s.attempts.increment();
+        if (matched) {
+            s.matches.increment();
+        }
+        s.matchNanos.add(nanos);
+    }
+
+    /**
+     * Records a template evaluation.
+     *
+     * @param entry the template entry
+     * @param nanos the time spent for evaluation
+     */
+    public void recordEvaluation(TemplateEntry entry, long nanos) {
+        Statistics s = getStatistics(entry, true);
+        s.evaluations.increment();
+        s.evaluationNanos.add(nanos);
+    }
+
+    /**
+     * Gets the statistics of the given template.
+     *
+     * @param entry the template entry
+     * @return the statistics or null, if nothing was recorded
+     */
+    public Statistics getStatistics(TemplateEntry entry) {
+        return getStatistics(entry, false);
+    }
+
+    /**
+     * Gets the statistics of all templates, the most expensive first.
+     *
+     * @return the statistics
+     */
+    public List<Statistics> getStatistics() {
+        List<Statistics> list = new ArrayList<Statistics>(statistics.values());
+        Collections.sort(list, new Comparator<Statistics>() {
+            public int compare(Statistics s1, Statistics s2) {
+                return Long.compare(s2.getTotalNanos(), s1.getTotalNanos());
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Writes the statistics of all templates as CSV.
+     *
+     * @param writer the writer
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("template,kind,attempts,matches,evaluations,matchMillis,evaluationMillis,totalMillis\n");
+        for (Statistics s : getStatistics()) {
+            writer.write(quote(s.getName()));
+            writer.write(',');
+            writer.write(getKindName(s.getKind()));
+            writer.write(',' + Long.toString(s.getAttempts()));
+            writer.write(',' + Long.toString(s.getMatches()));
+            writer.write(',' + Long.toString(s.getEvaluations()));
+            writer.write(',' + toMillis(s.getMatchNanos()));
+            writer.write(',' + toMillis(s.getEvaluationNanos()));
+            writer.write(',' + toMillis(s.getTotalNanos()));
+            writer.write('\n');
+        }
+    }
+
+    private Statistics getStatistics(TemplateEntry entry, boolean create) {
+        String name = entry.getName();
+        Statistics s = statistics.get(name);
+        if (s == null && create) {
+            Statistics newStatistics = new Statistics(name, entry.getKind());
+            s = statistics.putIfAbsent(name, newStatistics);
+            if (s == null) {
+                s = newStatistics;
+            }
+        }
+        return s;
+    }
+
+    private static String getKindName(int kind) {
+        switch (kind) {
+        case ITemplateKinds.TYPE:      return "type";
+        case ITemplateKinds.FIELD:     return "field";
+        case ITemplateKinds.METHOD:    return "method";
+        case ITemplateKinds.PARAMETER: return "parameter";
+        case ITemplateKinds.EXCEPTION: return "exception";
+        default: return "";
+        }
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The statistics of a single template.
+     */
+    public static final class Statistics {
+        private final String name;
+        private final int kind;
+        private final LongAdder attempts = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder matchNanos = new LongAdder();
+        private final LongAdder evaluationNanos = new LongAdder();
+
+
+        private Statistics(String name, int kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getKind() {
+            return kind;
+        }
+
+        public long getAttempts() {
+            return attempts.sum();
+        }
+
+        public long getMatches() {
+            return matches.sum();
+        }
+
+        public long getEvaluations() {
+            return evaluations.sum();
+        }
+
+        public long getMatchNanos() {
+            return matchNanos.sum();
+        }
+
+        public long getEvaluationNanos() {
+            return evaluationNanos.sum();
+        }
+
+        public long getTotalNanos() {
+            return getMatchNanos() + getEvaluationNanos();
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -165,11 +165,11 @@ public class TemplateSet {
 	 * @return true, if is empty
 	 */
 	public boolean isEmpty() {
-		return  typeTemplates.isEmpty() &&
-				fieldTemplates.isEmpty() &&
-				methodTemplates.isEmpty() &&
-				parameterTemplates.isEmpty() &&
-				exceptionTemplates.isEmpty();
+		return  getTypeTemplates().isEmpty() &&
+				getFieldTemplates().isEmpty() &&
+				getMethodTemplates().isEmpty() &&
+				getParameterTemplates().isEmpty() &&
+				getExceptionTemplates().isEmpty();
 	}
 	
 	public void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
@@ -194,32 +194,32 @@ public class TemplateSet {
 	public String toString() {
 		StringBuffer tmp = new StringBuffer();
 		tmp.append("\n------------------------------------------------------------\n");
-		for (int i = 0; i < typeTemplates.size(); ++i) {
-			tmp.append(typeTemplates.get(i));
+		for (int i = 0; i < getTypeTemplates().size(); ++i) {
+			tmp.append(getTypeTemplates().get(i));
 			tmp.append("\n------------------------------------------------------------\n");
 		}
 		
 		tmp.append("\n************************************************************\n");
-		for (int i = 0; i < fieldTemplates.size(); ++i) {
-			tmp.append(fieldTemplates.get(i));
+		for (int i = 0; i < getFieldTemplates().size(); ++i) {
+			tmp.append(getFieldTemplates().get(i));
 			tmp.append("\n************************************************************\n");
 		}
 		
 		tmp.append("\n############################################################\n");
-		for (int i = 0; i < methodTemplates.size(); ++i) {
-			tmp.append(methodTemplates.get(i));
+		for (int i = 0; i < getMethodTemplates().size(); ++i) {
+			tmp.append(getMethodTemplates().get(i));
 			tmp.append("\n############################################################\n");
 		}
 		
 		tmp.append("\n............................................................\n");
-		for (int i = 0; i < parameterTemplates.size(); ++i) {
-			tmp.append(parameterTemplates.get(i));
+		for (int i = 0; i < getParameterTemplates().size(); ++i) {
+			tmp.append(getParameterTemplates().get(i));
 			tmp.append("\n............................................................\n");
 		}
 		
 		tmp.append("\n$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$\n");
-		for (int i = 0; i < exceptionTemplates.size(); ++i) {
-			tmp.append(exceptionTemplates.get(i));
+		for (int i = 0; i < getExceptionTemplates().size(); ++i) {
+			tmp.append(getExceptionTemplates().get(i));
 			tmp.append("\n$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$$\n");
 		}
 		
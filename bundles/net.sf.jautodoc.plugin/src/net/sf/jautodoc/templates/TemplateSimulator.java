@@ -0,0 +1,272 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+
+import net.sf.jautodoc.preferences.Constants;
+import net.sf.jautodoc.templates.BoundedCharSequence.BudgetExceededException;
+import net.sf.jautodoc.templates.TemplateCorpus.Member;
+import net.sf.jautodoc.templates.wrapper.IMemberWrapper;
+
+
+/**
+ * Applies a template set to the members of a corpus without touching any
+ * source. A member hits the first matching template, like in a real run:
+ * the child templates of the parent's template first, then the top level
+ * templates of its kind. The templates are evaluated by the engine of the
+ * template manager for a wrapper of the corpus member, so type, modifiers
+ * and annotations are those of the original member. The corpus is split at
+ * its top level members and the parts are simulated by a pool of worker
+ * threads.
+ */
+public class TemplateSimulator {
+    private static final int PARTS_PER_THREAD = 4;
+
+    private final ITemplateManager templateManager;
+    private final Map<String, String> properties;
+    private final int threads;
+
+
+    /**
+     * Instantiates a new template simulator.
+     *
+     * @param templateManager the template manager used to evaluate the templates
+     * @param properties the properties to use
+     * @param threads the number of worker threads
+     */
+    public TemplateSimulator(ITemplateManager templateManager, Map<String, String> properties, int threads) {
+        this.templateManager = templateManager;
+        this.properties = properties;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Simulates the given templates on the given corpus.
+     *
+     * @param templates the templates
+     * @param corpus the corpus
+     * @return the results in the order of the corpus members
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Result[] simulate(TemplateSet templates, TemplateCorpus corpus) throws InterruptedException {
+        Result[] results = new Result[corpus.size()];
+        if (results.length == 0) {
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            int partSize = Math.max(1, results.length / (threads * PARTS_PER_THREAD));
+            int start = 0;
+            while (start < results.length) {
+                int end = Math.min(start + partSize, results.length);
+                while (end < results.length && corpus.get(end).getParent() >= 0) {
+                    ++end; // keep members with their parents
+                }
+
+                final int from = start;
+                final int to = end;
+                futures.add(executor.submit(() -> {
+                    simulate(templates, corpus, from, to, results);
+                    return null;
+                }));
+                start = end;
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Counts the members with a different result.
+     *
+     * @param results the results
+     * @param baseline the results of the baseline templates
+     * @return the number of changed members
+     */
+    public static int countChanges(Result[] results, Result[] baseline) {
+        int changes = 0;
+        for (int i = 0; i < results.length; ++i) {
+            if (!results[i].equals(baseline[i])) {
+                ++changes;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Writes the results as CSV.
+     *
+     * @param corpus the simulated corpus
+     * @param results the results
+     * @param baseline the results of the baseline templates or null, if not compared
+     * @param writer the writer
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void writeCsv(TemplateCorpus corpus, Result[] results, Result[] baseline, Writer writer)
+            throws IOException {
+        writer.write("kind,name,signature,template,text");
+        writer.write(baseline != null ? ",baselineTemplate,baselineText,changed\n" : "\n");
+        for (int i = 0; i < results.length; ++i) {
+            Member member = corpus.get(i);
+            writer.write(TemplateCorpus.getKindName(member.getKind()));
+            writer.write(',' + quote(member.getName()));
+            writer.write(',' + quote(member.getSignature()));
+            writer.write(',' + quote(results[i].getTemplateName()));
+            writer.write(',' + quote(results[i].getText()));
+            if (baseline != null) {
+                writer.write(',' + quote(baseline[i].getTemplateName()));
+                writer.write(',' + quote(baseline[i].getText()));
+                writer.write(',' + Boolean.toString(!results[i].equals(baseline[i])));
+            }
+            writer.write('\n');
+        }
+    }
+
+    private void simulate(TemplateSet templates, TemplateCorpus corpus, int from, int to, Result[] results) {
+        MatchingElement[] matches = new MatchingElement[to - from];
+        for (int i = from; i < to; ++i) {
+            Member member = corpus.get(i);
+            int parentIndex = member.getParent();
+            MatchingElement parent = parentIndex >= from ? matches[parentIndex - from] : null;
+
+            IMemberWrapper wrapper = corpus.getWrapper(i);
+            MatchingElement match = null;
+            if (parent != null) {
+                match = findMatch(wrapper, member, parent, parent.getEntry().getChildTemplates(member.getKind()));
+            }
+            if (match == null) {
+                match = findMatch(wrapper, member, parent, getTemplates(templates, member.getKind()));
+            }
+            matches[i - from] = match;
+            results[i] = match != null ? evaluate(match) : Result.NONE;
+        }
+    }
+
+    private static MatchingElement findMatch(IMemberWrapper wrapper, Member member, MatchingElement parent,
+            List<TemplateEntry> entries) {
+        for (TemplateEntry entry : entries) {
+            String text = entry.isUseSignature() ? member.getSignature() : member.getName();
+            Matcher matcher = entry.getPattern().matcher(new BoundedCharSequence(text, Constants.REGEX_BUDGET));
+            try {
+                if (matcher.matches()) {
+                    return new MatchingElement(wrapper, entry, matcher, parent);
+                }
+            } catch (BudgetExceededException e) {
+                // skipped like in a real run
+            }
+        }
+        return null;
+    }
+
+    private Result evaluate(MatchingElement match) {
+        String templateName = match.getEntry().getName();
+        try {
+            return new Result(templateName, templateManager.evaluateTemplate(match, properties));
+        } catch (Exception e) {
+            return new Result(templateName, "<error: " + e.getMessage() + ">");
+        }
+    }
+
+    private static List<TemplateEntry> getTemplates(TemplateSet templates, int kind) {
+        switch (kind) {
+        case ITemplateKinds.TYPE:      return templates.getTypeTemplates();
+        case ITemplateKinds.FIELD:     return templates.getFieldTemplates();
+        case ITemplateKinds.METHOD:    return templates.getMethodTemplates();
+        case ITemplateKinds.PARAMETER: return templates.getParameterTemplates();
+        default:                       return templates.getExceptionTemplates();
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The simulation result of a member.
+     */
+    public static final class Result {
+
+        /** Result of a member, that matches no template. */
+        public static final Result NONE = new Result(null, null);
+
+        private final String templateName;
+        private final String text;
+
+
+        private Result(String templateName, String text) {
+            this.templateName = templateName;
+            this.text = text;
+        }
+
+        /**
+         * Gets the name of the matching template.
+         *
+         * @return the template name or null, if no template matched
+         */
+        public String getTemplateName() {
+            return templateName;
+        }
+
+        /**
+         * Gets the generated text.
+         *
+         * @return the text or null, if no template matched
+         */
+        public String getText() {
+            return text;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Result)) {
+                return false;
+            }
+            Result other = (Result)obj;
+            return Objects.equals(templateName, other.templateName) && Objects.equals(text, other.text);
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        public int hashCode() {
+            return Objects.hash(templateName, text);
+        }
+    }
+}
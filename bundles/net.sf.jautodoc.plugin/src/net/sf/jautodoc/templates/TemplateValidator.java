@@ -0,0 +1,162 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import net.sf.jautodoc.templates.TemplateDiagnostic.Source;
+
+import org.eclipse.core.runtime.IStatus;
+
+
+/**
+ * Validates all entries of a template set at once. The texts are parsed and
+ * the patterns are compiled by a pool of worker threads. Unlike the
+ * validation of a single template, all problems are reported, in the order
+ * of the templates.
+ */
+public class TemplateValidator {
+    private final ITemplateManager templateManager;
+    private final int threads;
+
+
+    /**
+     * Instantiates a new template validator.
+     *
+     * @param templateManager the template manager used to parse the texts
+     * @param threads the number of worker threads
+     */
+    public TemplateValidator(ITemplateManager templateManager, int threads) {
+        this.templateManager = templateManager;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Validates the given templates including their child templates.
+     *
+     * @param templates the templates
+     * @return the diagnostics, empty if all templates are valid
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public List<TemplateDiagnostic> validate(TemplateSet templates) throws InterruptedException {
+        List<TemplateEntry> entries = new ArrayList<TemplateEntry>();
+        collectEntries(templates, entries);
+
+        List<TemplateDiagnostic> diagnostics = new ArrayList<TemplateDiagnostic>();
+        Set<String> names = new HashSet<String>();
+        for (TemplateEntry entry : entries) {
+            if (!names.add(entry.getName())) {
+                diagnostics.add(new TemplateDiagnostic(entry.getName(), Source.NAME, IStatus.ERROR,
+                        "Duplicate template name", -1, -1));
+            }
+        }
+        if (entries.isEmpty()) {
+            return diagnostics;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, entries.size()));
+        try {
+            List<Future<List<TemplateDiagnostic>>> futures =
+                    new ArrayList<Future<List<TemplateDiagnostic>>>(entries.size());
+            for (final TemplateEntry entry : entries) {
+                futures.add(executor.submit(() -> validate(entry)));
+            }
+
+            for (Future<List<TemplateDiagnostic>> future : futures) {
+                try {
+                    diagnostics.addAll(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause()); // validate() reports all exceptions
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return diagnostics;
+    }
+
+    private List<TemplateDiagnostic> validate(TemplateEntry entry) {
+        List<TemplateDiagnostic> diagnostics = new ArrayList<TemplateDiagnostic>(0);
+        validatePattern(entry, diagnostics);
+        validateText(entry, diagnostics);
+        return diagnostics;
+    }
+
+    private void validatePattern(TemplateEntry entry, List<TemplateDiagnostic> diagnostics) {
+        String regex = entry.getRegex();
+        if (regex == null) {
+            diagnostics.add(new TemplateDiagnostic(entry.getName(), Source.PATTERN, IStatus.ERROR,
+                    "Missing regular expression", -1, -1));
+            return;
+        }
+
+        try {
+            Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            diagnostics.add(new TemplateDiagnostic(entry.getName(), Source.PATTERN, IStatus.ERROR,
+                    e.getDescription(), -1, e.getIndex()));
+            return;
+        }
+
+        String problem = RegexAnalyzer.analyze(regex);
+        if (problem != null) {
+            diagnostics.add(new TemplateDiagnostic(entry.getName(), Source.PATTERN, IStatus.WARNING,
+                    problem, -1, -1));
+        }
+    }
+
+    private void validateText(TemplateEntry entry, List<TemplateDiagnostic> diagnostics) {
+        try {
+            templateManager.validateTemplate(entry.getText() != null ? entry.getText() : "");
+        } catch (ValidationException e) {
+            diagnostics.add(new TemplateDiagnostic(entry.getName(), Source.TEXT, IStatus.ERROR,
+                    getMessage(e.getCause() != null ? e.getCause() : e), e.getLine(), e.getColumn()));
+        } catch (Exception e) {
+            diagnostics.add(new TemplateDiagnostic(entry.getName(), Source.TEXT, IStatus.ERROR,
+                    getMessage(e), -1, -1));
+        }
+    }
+
+    /**
+     * Gets the first line of the message, the parse errors list all expected
+     * tokens in the following lines.
+     */
+    private static String getMessage(Throwable e) {
+        String message = e.getMessage();
+        if (message == null) {
+            return e.getClass().getSimpleName();
+        }
+        int end = message.indexOf('\n');
+        return (end < 0 ? message : message.substring(0, end)).trim();
+    }
+
+    private static void collectEntries(TemplateSet templates, List<TemplateEntry> entries) {
+        collectEntries(templates.getTypeTemplates(), entries);
+        collectEntries(templates.getFieldTemplates(), entries);
+        collectEntries(templates.getMethodTemplates(), entries);
+        collectEntries(templates.getParameterTemplates(), entries);
+        collectEntries(templates.getExceptionTemplates(), entries);
+    }
+
+    private static void collectEntries(List<TemplateEntry> list, List<TemplateEntry> entries) {
+        for (TemplateEntry entry : list) {
+            entries.add(entry);
+            collectEntries(entry.getChildTemplates(), entries);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+import java.util.Map;
+
+
+/**
+ * A compiled template. Compiled templates are immutable apart from their
+ * method caches and may be rendered concurrently.
+ */
+final class CompiledTemplate {
+    private final Renderer root;
+    private final int sizeHint;
+
+
+    /**
+     * Instantiates a new compiled template.
+     *
+     * @param root the root renderer
+     * @param sizeHint the expected size of the output
+     */
+    public CompiledTemplate(Renderer root, int sizeHint) {
+        this.root = root;
+        this.sizeHint = sizeHint;
+    }
+
+    /**
+     * Renders this template.
+     *
+     * @param context the values of this evaluation
+     * @param globals the values of all evaluations
+     * @return the resulting string
+     * @throws FallbackException thrown if the result might differ from Velocity
+     */
+    public String render(Map<String, Object> context, Map<String, Object> globals) {
+        StringBuilder out = new StringBuilder(sizeHint + 16);
+        root.render(new Scope(context, globals), out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.jautodoc.preferences.Constants;
+import net.sf.jautodoc.templates.ITemplateEngine;
+import net.sf.jautodoc.templates.TemplateBudgetException;
+import net.sf.jautodoc.templates.TemplateInfo;
+import net.sf.jautodoc.templates.ValidationException;
+
+
+/**
+ * Template engine, that compiles templates into a tree of Java objects once
+ * when they are registered. Evaluating a compiled template neither parses
+ * the text nor looks up methods again. Templates using constructs beyond the
+ * supported subset, see {@link TemplateCompiler}, and evaluations, whose
+ * result might differ, are passed to the fallback engine. Validation is
+ * always done by the fallback engine.
+ */
+public class CompiledTemplateEngine implements ITemplateEngine {
+    private static final int MAX_EVALUATED = 32;
+    private static final Object UNSUPPORTED = new Object();
+
+    private final ITemplateEngine fallback;
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<String, CompiledTemplate>();
+    private final Map<String, Object> evaluated = new ConcurrentHashMap<String, Object>();
+    private volatile Map<String, Object> globals;
+
+
+    /**
+     * Instantiates a new compiled template engine.
+     *
+     * @param fallback the engine for unsupported templates
+     */
+    public CompiledTemplateEngine(ITemplateEngine fallback) {
+        this.fallback = fallback;
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#initialize(java.util.Map)
+     */
+    public void initialize(Map<String, Object> globals) throws Exception {
+        fallback.initialize(globals);
+        this.globals = new HashMap<String, Object>(globals);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#putTemplate(java.lang.String, java.lang.String)
+     */
+    public void putTemplate(String templateName, String template) {
+        fallback.putTemplate(templateName, template);
+
+        CompiledTemplate compiled = compile(template);
+        if (compiled != null) {
+            templates.put(templateName, compiled);
+        }
+        else {
+            templates.remove(templateName);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#removeTemplate(java.lang.String)
+     */
+    public void removeTemplate(String templateName) {
+        templates.remove(templateName);
+        fallback.removeTemplate(templateName);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#mergeTemplate(java.lang.String, java.util.Map)
+     */
+    public String mergeTemplate(String templateName, Map<String, Object> context) throws Exception {
+        CompiledTemplate compiled = templates.get(templateName);
+        String result = compiled == null ? null : render(compiled, context);
+        return result != null ? result : fallback.mergeTemplate(templateName, context);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#evaluateTemplate(java.lang.String, java.lang.String, java.util.Map)
+     */
+    public String evaluateTemplate(String templateName, String template, Map<String, Object> context)
+            throws Exception {
+        Object compiled = evaluated.get(template);
+        if (compiled == null) {
+            compiled = compile(template);
+            if (compiled == null) {
+                compiled = UNSUPPORTED;
+            }
+            if (evaluated.size() >= MAX_EVALUATED) {
+                evaluated.clear();
+            }
+            evaluated.put(template, compiled);
+        }
+
+        String result = compiled == UNSUPPORTED ? null : render((CompiledTemplate)compiled, context);
+        return result != null ? result : fallback.evaluateTemplate(templateName, template, context);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#validateTemplate(java.lang.String)
+     */
+    public void validateTemplate(String template) throws ValidationException, Exception {
+        fallback.validateTemplate(template);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#analyzeTemplate(java.lang.String)
+     */
+    public TemplateInfo analyzeTemplate(String template) throws Exception {
+        return fallback.analyzeTemplate(template);
+    }
+
+    /**
+     * Checks, if the template with the given name is compiled.
+     *
+     * @param templateName the template name
+     * @return true, if the template is compiled
+     */
+    public boolean isCompiled(String templateName) {
+        return templates.containsKey(templateName);
+    }
+
+    private String render(CompiledTemplate compiled, Map<String, Object> context) {
+        String result;
+        try {
+            result = compiled.render(context, globals);
+        } catch (FallbackException e) {
+            return null;
+        }
+
+        // compiled templates have no loops, only the output size is limited
+        if (Constants.TEMPLATE_MAX_OUTPUT > 0 && result.length() > Constants.TEMPLATE_MAX_OUTPUT) {
+            throw new TemplateBudgetException("Output exceeds " + Constants.TEMPLATE_MAX_OUTPUT + " characters");
+        }
+        return result;
+    }
+
+    private static CompiledTemplate compile(String template) {
+        try {
+            return TemplateCompiler.compile(template);
+        } catch (UnsupportedTemplateException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+
+/**
+ * A compiled expression. As in Velocity, the value and the result used in
+ * conditions are separate: literals have a value, but evaluate to false.
+ */
+interface Expression {
+
+    /**
+     * Gets the value of this expression.
+     *
+     * @param scope the scope
+     * @return the value, may be null
+     */
+    Object value(Scope scope);
+
+    /**
+     * Evaluates this expression as condition.
+     *
+     * @param scope the scope
+     * @return the result
+     */
+    boolean evaluate(Scope scope);
+}
@@ -0,0 +1,182 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+
+/**
+ * The literals and operators of compiled expressions. The semantics follow
+ * Velocity 1.5, e.g. comparisons with null are always false and values of
+ * different classes are compared by their string representation.
+ */
+final class Expressions {
+
+    /** Comparison operators. */
+    enum Operator { EQ, NE, LT, GT, LE, GE }
+
+
+    private Expressions() {
+        // no instances
+    }
+
+    /**
+     * Creates a literal, that evaluates to false like in Velocity.
+     *
+     * @param value the value
+     * @return the expression
+     */
+    public static Expression literal(final Object value) {
+        return new Expression() {
+            public Object value(Scope scope) {
+                return value;
+            }
+
+            public boolean evaluate(Scope scope) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a boolean literal.
+     *
+     * @param value the value
+     * @return the expression
+     */
+    public static Expression booleanLiteral(boolean value) {
+        return value ? new Condition() {
+            public boolean evaluate(Scope scope) {
+                return true;
+            }
+        } : new Condition() {
+            public boolean evaluate(Scope scope) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates the negation of the given expression.
+     *
+     * @param expression the expression
+     * @return the expression
+     */
+    public static Expression not(final Expression expression) {
+        return new Condition() {
+            public boolean evaluate(Scope scope) {
+                return !expression.evaluate(scope);
+            }
+        };
+    }
+
+    /**
+     * Creates a conditional and.
+     *
+     * @param left the left operand
+     * @param right the right operand
+     * @return the expression
+     */
+    public static Expression and(final Expression left, final Expression right) {
+        return new Condition() {
+            public boolean evaluate(Scope scope) {
+                return left.evaluate(scope) && right.evaluate(scope);
+            }
+        };
+    }
+
+    /**
+     * Creates a conditional or.
+     *
+     * @param left the left operand
+     * @param right the right operand
+     * @return the expression
+     */
+    public static Expression or(final Expression left, final Expression right) {
+        return new Condition() {
+            public boolean evaluate(Scope scope) {
+                return left.evaluate(scope) || right.evaluate(scope);
+            }
+        };
+    }
+
+    /**
+     * Creates a comparison.
+     *
+     * @param operator the comparison operator
+     * @param left the left operand
+     * @param right the right operand
+     * @return the expression
+     */
+    public static Expression compare(final Operator operator, final Expression left, final Expression right) {
+        return new Condition() {
+            public boolean evaluate(Scope scope) {
+                return Expressions.compare(operator, left.value(scope), right.value(scope));
+            }
+        };
+    }
+
+    private static boolean compare(Operator operator, Object left, Object right) {
+        if (left == null || right == null) {
+            return false;
+        }
+
+        if (left instanceof Number && right instanceof Number) {
+            int result = compareNumbers((Number)left, (Number)right);
+            switch (operator) {
+            case EQ: return result == 0;
+            case NE: return result != 0;
+            case LT: return result < 0;
+            case GT: return result > 0;
+            case LE: return result <= 0;
+            default: return result >= 0;
+            }
+        }
+
+        if (operator != Operator.EQ && operator != Operator.NE) {
+            return false; // no numbers
+        }
+
+        boolean equal;
+        if (left.getClass().isAssignableFrom(right.getClass())
+                || right.getClass().isAssignableFrom(left.getClass())) {
+            equal = left.equals(right);
+        }
+        else {
+            String leftString  = left.toString();
+            String rightString = right.toString();
+            if (leftString == null || rightString == null) {
+                throw FallbackException.INSTANCE;
+            }
+            equal = leftString.equals(rightString);
+        }
+        return operator == Operator.EQ ? equal : !equal;
+    }
+
+    private static int compareNumbers(Number left, Number right) {
+        if (isIntegral(left) && isIntegral(right)) {
+            long l = left.longValue();
+            long r = right.longValue();
+            return l < r ? -1 : (l == r ? 0 : 1);
+        }
+        throw FallbackException.INSTANCE; // leave conversions to Velocity
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long
+            || number instanceof Short   || number instanceof Byte;
+    }
+
+    /**
+     * Base class of expressions with a boolean value.
+     */
+    private static abstract class Condition implements Expression {
+
+        public Object value(Scope scope) {
+            return Boolean.valueOf(evaluate(scope));
+        }
+    }
+}
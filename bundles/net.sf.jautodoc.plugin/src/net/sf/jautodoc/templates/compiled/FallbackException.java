@@ -0,0 +1,25 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+
+/**
+ * Thrown during rendering, if the result might differ from Velocity. The
+ * template is then evaluated by the fallback engine.
+ */
+class FallbackException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /** The shared instance, carries no stack trace. */
+    public static final FallbackException INSTANCE = new FallbackException();
+
+
+    private FallbackException() {
+        super("Fallback to template engine", null, false, false);
+    }
+}
@@ -0,0 +1,300 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+
+/**
+ * A compiled reference like <code>${e.g(1).rs()}</code>. Methods and
+ * properties are looked up like Velocity 1.5 does. Each call site caches
+ * the method found for the last receiver class, so the lookup is done once
+ * per template and class.
+ */
+final class Reference implements Expression, Renderer {
+    private static final Class<?>[] NO_TYPES = new Class<?>[0];
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final String name;
+    private final Step[] steps;
+    private final String literal;
+    private final boolean quiet;
+
+
+    /**
+     * Instantiates a new reference.
+     *
+     * @param name the name of the referenced value
+     * @param steps the property and method steps
+     * @param literal the reference as written in the template
+     * @param quiet true, if nothing is rendered for null values
+     */
+    public Reference(String name, Step[] steps, String literal, boolean quiet) {
+        this.name = name;
+        this.steps = steps;
+        this.literal = literal;
+        this.quiet = quiet;
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.compiled.Expression#value(net.sf.jautodoc.templates.compiled.Scope)
+     */
+    public Object value(Scope scope) {
+        Object value = scope.get(name);
+        for (int i = 0; i < steps.length && value != null; ++i) {
+            value = steps[i].apply(value, scope);
+        }
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.compiled.Expression#evaluate(net.sf.jautodoc.templates.compiled.Scope)
+     */
+    public boolean evaluate(Scope scope) {
+        Object value = value(scope);
+        if (value instanceof Boolean) {
+            return ((Boolean)value).booleanValue();
+        }
+        return value != null;
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.compiled.Renderer#render(net.sf.jautodoc.templates.compiled.Scope, java.lang.StringBuilder)
+     */
+    public void render(Scope scope, StringBuilder out) {
+        Object value = value(scope);
+        if (value == null) {
+            if (!quiet) {
+                out.append(literal);
+            }
+            return;
+        }
+
+        String string = value.toString();
+        if (string == null) {
+            throw FallbackException.INSTANCE;
+        }
+        out.append(string);
+    }
+
+    /**
+     * A property access or method call of a reference.
+     */
+    static abstract class Step {
+
+        /**
+         * Applies this step.
+         *
+         * @param target the value of the previous step, not null
+         * @param scope the scope
+         * @return the resulting value
+         */
+        abstract Object apply(Object target, Scope scope);
+    }
+
+    /**
+     * Property access like <code>$e.name</code>.
+     */
+    static final class Property extends Step {
+        private final String identifier;
+        private volatile Target cache;
+
+
+        public Property(String identifier) {
+            this.identifier = identifier;
+        }
+
+        Object apply(Object target, Scope scope) {
+            Target t = cache;
+            if (t == null || t.type != target.getClass()) {
+                t = Target.forProperty(target.getClass(), identifier);
+                cache = t;
+            }
+            return t.invoke(target, NO_ARGS);
+        }
+    }
+
+    /**
+     * Method call like <code>$e.g(1)</code>.
+     */
+    static final class MethodCall extends Step {
+        private final String methodName;
+        private final Expression[] arguments;
+        private volatile Target cache;
+
+
+        public MethodCall(String methodName, Expression[] arguments) {
+            this.methodName = methodName;
+            this.arguments = arguments;
+        }
+
+        Object apply(Object target, Scope scope) {
+            Object[] args = NO_ARGS;
+            Class<?>[] argTypes = NO_TYPES;
+            if (arguments.length > 0) {
+                args = new Object[arguments.length];
+                argTypes = new Class<?>[arguments.length];
+                for (int i = 0; i < arguments.length; ++i) {
+                    args[i] = arguments[i].value(scope);
+                    if (args[i] == null) {
+                        throw FallbackException.INSTANCE; // Velocity matches null to any parameter
+                    }
+                    argTypes[i] = args[i].getClass();
+                }
+            }
+
+            Target t = cache;
+            if (t == null || t.type != target.getClass() || !Arrays.equals(t.argTypes, argTypes)) {
+                t = Target.forMethod(target.getClass(), methodName, argTypes);
+                cache = t;
+            }
+            return t.invoke(target, args);
+        }
+    }
+
+    /**
+     * The resolved target of a step for a receiver class.
+     */
+    private static final class Target {
+        private final Class<?> type;
+        private final Class<?>[] argTypes;
+        private final Method method;
+        private final Object[] fixedArgs;
+        private final boolean fallback;
+
+
+        private Target(Class<?> type, Class<?>[] argTypes, Method method, Object[] fixedArgs, boolean fallback) {
+            this.type = type;
+            this.argTypes = argTypes;
+            this.method = method;
+            this.fixedArgs = fixedArgs;
+            this.fallback = fallback;
+        }
+
+        static Target forMethod(Class<?> type, String name, Class<?>[] argTypes) {
+            try {
+                return new Target(type, argTypes, findMethod(type, name, argTypes), null, false);
+            } catch (FallbackException e) {
+                return new Target(type, argTypes, null, null, true);
+            }
+        }
+
+        /**
+         * Like Velocity: getter, getter with flipped first character,
+         * <code>get(String)</code> and boolean getter.
+         */
+        static Target forProperty(Class<?> type, String identifier) {
+            try {
+                Method method = findMethod(type, "get" + identifier, NO_TYPES);
+                if (method == null) {
+                    method = findMethod(type, "get" + flipFirst(identifier), NO_TYPES);
+                }
+                if (method != null) {
+                    return new Target(type, NO_TYPES, method, null, false);
+                }
+
+                method = findMethod(type, "get", new Class<?>[] {String.class});
+                if (method != null) {
+                    return new Target(type, NO_TYPES, method, new Object[] {identifier}, false);
+                }
+
+                method = findMethod(type, "is" + identifier, NO_TYPES);
+                if (method == null || method.getReturnType() != Boolean.TYPE) {
+                    method = findMethod(type, "is" + flipFirst(identifier), NO_TYPES);
+                }
+                if (method != null && method.getReturnType() == Boolean.TYPE) {
+                    return new Target(type, NO_TYPES, method, null, false);
+                }
+                return new Target(type, NO_TYPES, null, null, false);
+            } catch (FallbackException e) {
+                return new Target(type, NO_TYPES, null, null, true);
+            }
+        }
+
+        Object invoke(Object target, Object[] args) {
+            if (fallback) {
+                throw FallbackException.INSTANCE;
+            }
+            if (method == null) {
+                return null;
+            }
+
+            try {
+                return method.invoke(target, fixedArgs != null ? fixedArgs : args);
+            } catch (InvocationTargetException e) {
+                throw FallbackException.INSTANCE; // let Velocity report the exception
+            } catch (IllegalAccessException e) {
+                throw FallbackException.INSTANCE;
+            }
+        }
+
+        private static Method findMethod(Class<?> type, String name, Class<?>[] argTypes) {
+            Method found = null;
+            for (Method method : type.getMethods()) {
+                if (!method.getName().equals(name) || method.getParameterTypes().length != argTypes.length
+                        || !isApplicable(method.getParameterTypes(), argTypes)) {
+                    continue;
+                }
+                if (found != null) {
+                    if (!Arrays.equals(found.getParameterTypes(), method.getParameterTypes())) {
+                        throw FallbackException.INSTANCE; // overloaded
+                    }
+                    if (method.isBridge()) {
+                        continue;
+                    }
+                }
+                found = method;
+            }
+
+            if (found != null && !Modifier.isPublic(found.getDeclaringClass().getModifiers())) {
+                throw FallbackException.INSTANCE;
+            }
+            return found;
+        }
+
+        private static boolean isApplicable(Class<?>[] formal, Class<?>[] actual) {
+            for (int i = 0; i < formal.length; ++i) {
+                if (!isConvertible(formal[i], actual[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isConvertible(Class<?> formal, Class<?> actual) {
+            if (formal.isAssignableFrom(actual)) {
+                return true;
+            }
+            if (!formal.isPrimitive()) {
+                return false;
+            }
+
+            final boolean integral = actual == Integer.class || actual == Short.class || actual == Byte.class;
+            if (formal == Boolean.TYPE) return actual == Boolean.class;
+            if (formal == Character.TYPE) return actual == Character.class;
+            if (formal == Byte.TYPE) return actual == Byte.class;
+            if (formal == Short.TYPE) return actual == Short.class || actual == Byte.class;
+            if (formal == Integer.TYPE) return integral;
+            if (formal == Long.TYPE) return integral || actual == Long.class;
+            if (formal == Float.TYPE) return integral || actual == Long.class || actual == Float.class;
+            if (formal == Double.TYPE) {
+                return integral || actual == Long.class || actual == Float.class || actual == Double.class;
+            }
+            return false;
+        }
+
+        private static String flipFirst(String identifier) {
+            char c = identifier.charAt(0);
+            c = Character.isLowerCase(c) ? Character.toUpperCase(c) : Character.toLowerCase(c);
+            return c + identifier.substring(1);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+
+/**
+ * A compiled part of a template, that writes output.
+ */
+interface Renderer {
+
+    /**
+     * Renders this part.
+     *
+     * @param scope the scope
+     * @param out the output
+     */
+    void render(Scope scope, StringBuilder out);
+}
@@ -0,0 +1,64 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The values of one template evaluation. Variables set by the template are
+ * kept separately, so the context is not modified.
+ */
+final class Scope {
+    private final Map<String, Object> context;
+    private final Map<String, Object> globals;
+    private Map<String, Object> variables;
+
+
+    /**
+     * Instantiates a new scope.
+     *
+     * @param context the values of this evaluation
+     * @param globals the values of all evaluations
+     */
+    public Scope(Map<String, Object> context, Map<String, Object> globals) {
+        this.context = context;
+        this.globals = globals;
+    }
+
+    /**
+     * Gets the value with the given name.
+     *
+     * @param name the name
+     * @return the value or null, if not defined
+     */
+    public Object get(String name) {
+        Object value = variables == null ? null : variables.get(name);
+        if (value == null) {
+            value = context.get(name);
+        }
+        if (value == null) {
+            value = globals.get(name);
+        }
+        return value;
+    }
+
+    /**
+     * Sets the value of a template variable.
+     *
+     * @param name the name
+     * @param value the value
+     */
+    public void set(String name, Object value) {
+        if (variables == null) {
+            variables = new HashMap<String, Object>();
+        }
+        variables.put(name, value);
+    }
+}
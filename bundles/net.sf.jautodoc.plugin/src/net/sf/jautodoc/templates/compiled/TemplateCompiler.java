@@ -0,0 +1,669 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.sf.jautodoc.templates.compiled.Expressions.Operator;
+
+
+/**
+ * Compiles the subset of the Velocity template language used by JAutodoc
+ * templates: text, comments, references with properties and method calls,
+ * <code>#if</code>/<code>#elseif</code>/<code>#else</code> and
+ * <code>#set</code>. The whitespace handling of directives is the one of
+ * Velocity 1.5. Everything else, e.g. escapes, macros or string
+ * interpolation, is rejected, so those templates are left to Velocity.
+ */
+final class TemplateCompiler {
+    private static final Set<String> SUPPORTED_DIRECTIVES = new HashSet<String>(
+            Arrays.asList("if", "elseif", "else", "end", "set"));
+    private static final Set<String> OTHER_DIRECTIVES = new HashSet<String>(
+            Arrays.asList("foreach", "include", "parse", "macro", "stop", "break", "evaluate", "define", "literal"));
+
+    private static final Renderer[] NO_RENDERERS = new Renderer[0];
+
+    // kind of the last token while parsing text
+    private static final int TOKEN_START     = 0;
+    private static final int TOKEN_TEXT      = 1;
+    private static final int TOKEN_REFERENCE = 2;
+    private static final int TOKEN_UNKNOWN   = 3;
+
+    private final String text;
+    private int pos;
+    private String terminator;
+
+
+    private TemplateCompiler(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Compiles the given template text.
+     *
+     * @param text the template text
+     * @return the compiled template
+     * @throws UnsupportedTemplateException thrown if the template is not supported
+     */
+    public static CompiledTemplate compile(String text) throws UnsupportedTemplateException {
+        TemplateCompiler compiler = new TemplateCompiler(text);
+        Renderer root = compiler.parseBlock();
+        if (compiler.terminator != null) {
+            throw compiler.unsupported("#" + compiler.terminator + " without #if");
+        }
+        return new CompiledTemplate(root, text.length());
+    }
+
+    /**
+     * Parses until the end of the text or a directive, that ends a block.
+     * The terminating directive is stored in {@link #terminator}.
+     */
+    private Renderer parseBlock() throws UnsupportedTemplateException {
+        List<Renderer> renderers = new ArrayList<Renderer>();
+        StringBuilder textBuffer = new StringBuilder();
+        terminator = null;
+
+        // blanks at the start of a token are part of a following #set
+        int token = TOKEN_START;
+        int blanks = 0;
+        boolean dotted = false;
+
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == '$') {
+                if (dotted && token == TOKEN_REFERENCE && blanks == 0
+                        && (text.startsWith("${", pos) || text.startsWith("$!{", pos))) {
+                    throw unsupported("reference"); // not separated by Velocity
+                }
+                int start = pos;
+                Reference reference = parseReference();
+                if (reference == null) {
+                    textBuffer.append(c);
+                    ++pos;
+                    token = TOKEN_UNKNOWN;
+                    blanks = 0;
+                }
+                else {
+                    addText(renderers, textBuffer);
+                    renderers.add(reference);
+                    token = TOKEN_REFERENCE;
+                    blanks = 0;
+                    dotted = text.charAt(pos - 1) != '}' && text.substring(start, pos).indexOf('.') > 0;
+                }
+                continue;
+            }
+
+            if (c == '#') {
+                int start = pos;
+                int length = textBuffer.length();
+                String directive = parseHash(textBuffer,
+                        (token == TOKEN_REFERENCE || token == TOKEN_UNKNOWN) && blanks == 0);
+                if (directive == null) {
+                    if (textBuffer.length() != length) {
+                        token = TOKEN_UNKNOWN;
+                        blanks = 0;
+                    }
+                    else {
+                        token = TOKEN_START;
+                        blanks = 0;
+                    }
+                    continue;
+                }
+
+                if (directive.equals("set") && blanks > 0) {
+                    if (token != TOKEN_START) {
+                        throw unsupported("#set");
+                    }
+                    textBuffer.setLength(textBuffer.length() - blanks);
+                }
+                addText(renderers, textBuffer);
+                token = TOKEN_START;
+                blanks = 0;
+
+                if (directive.equals("if")) {
+                    renderers.add(parseIf());
+                }
+                else if (directive.equals("set")) {
+                    renderers.add(parseSet());
+                }
+                else {
+                    if (!directive.equals("elseif")) {
+                        skipNewline();
+                    }
+                    terminator = directive;
+                    break;
+                }
+                continue;
+            }
+
+            if (c == '\\') {
+                if (pos + 1 < text.length() && (text.charAt(pos + 1) == '$' || text.charAt(pos + 1) == '#')) {
+                    throw unsupported("escape");
+                }
+                token = TOKEN_UNKNOWN;
+                blanks = 0;
+            }
+            else if (c == ' ' || c == '\t') {
+                if (token != TOKEN_TEXT) {
+                    ++blanks;
+                }
+            }
+            else {
+                token = TOKEN_TEXT;
+                blanks = 0;
+            }
+            textBuffer.append(c);
+            ++pos;
+        }
+
+        addText(renderers, textBuffer);
+        if (renderers.size() == 1) {
+            return renderers.get(0);
+        }
+
+        final Renderer[] sequence = renderers.toArray(NO_RENDERERS);
+        return new Renderer() {
+            public void render(Scope scope, StringBuilder out) {
+                for (Renderer renderer : sequence) {
+                    renderer.render(scope, out);
+                }
+            }
+        };
+    }
+
+    private static void addText(List<Renderer> renderers, StringBuilder textBuffer) {
+        if (textBuffer.length() == 0) {
+            return;
+        }
+
+        final String string = textBuffer.toString();
+        renderers.add(new Renderer() {
+            public void render(Scope scope, StringBuilder out) {
+                out.append(string);
+            }
+        });
+        textBuffer.setLength(0);
+    }
+
+    /**
+     * Parses a comment, a directive name or a literal <code>#</code>.
+     *
+     * @param textBuffer the buffer for literal text
+     * @param afterReference true, if the <code>#</code> follows a reference or
+     *        literal <code>$</code> or <code>#</code>
+     * @return the directive name or null, if nothing is to be rendered
+     */
+    private String parseHash(StringBuilder textBuffer, boolean afterReference)
+            throws UnsupportedTemplateException {
+        int start = pos;
+        char next = pos + 1 < text.length() ? text.charAt(pos + 1) : 0;
+
+        if (next == '#') { // line comment, including line delimiter
+            if (afterReference || text.startsWith("###", pos)) {
+                throw unsupported("comment");
+            }
+            pos += 2;
+            while (pos < text.length() && text.charAt(pos) != '\n' && text.charAt(pos) != '\r') {
+                if (text.startsWith("#*", pos)) {
+                    throw unsupported("comment"); // block comment within line comment
+                }
+                ++pos;
+            }
+            if (!skipLineDelimiter()) {
+                throw unsupported("comment without line delimiter");
+            }
+            return null;
+        }
+
+        if (next == '*') {
+            if (afterReference) {
+                throw unsupported("comment"); // not separated by Velocity
+            }
+            int end = text.indexOf("*#", pos + 2);
+            if (end < 0) {
+                throw unsupported("unterminated comment");
+            }
+            pos = end + 2;
+            if (pos < text.length() && text.charAt(pos) == '#') {
+                throw unsupported("comment"); // not separated by Velocity
+            }
+            return null;
+        }
+
+        if (next == '{') {
+            int end = text.indexOf('}', pos + 2);
+            String name = end < 0 ? null : text.substring(pos + 2, end);
+            if (name == null || !SUPPORTED_DIRECTIVES.contains(name) || afterReference) {
+                throw unsupported("directive");
+            }
+            pos = end + 1;
+            return name;
+        }
+
+        if (isLetter(next)) {
+            int end = pos + 1;
+            while (end < text.length() && isLetter(text.charAt(end))) {
+                ++end;
+            }
+            if (end < text.length() && isIdentifierPart(text.charAt(end))) {
+                throw unsupported("directive");
+            }
+
+            String name = text.substring(pos + 1, end);
+            if (SUPPORTED_DIRECTIVES.contains(name) && afterReference) {
+                throw unsupported("directive"); // not recognized by Velocity
+            }
+            if (SUPPORTED_DIRECTIVES.contains(name)) {
+                pos = end;
+                return name;
+            }
+            if (OTHER_DIRECTIVES.contains(name)) {
+                throw unsupported("#" + name);
+            }
+
+            // no directive, but maybe a macro call
+            int p = end;
+            while (p < text.length() && Character.isWhitespace(text.charAt(p))) {
+                ++p;
+            }
+            if (p < text.length() && text.charAt(p) == '(') {
+                throw unsupported("macro");
+            }
+            textBuffer.append(text, start, end);
+            pos = end;
+            return null;
+        }
+
+        if (next == ' ' || next == '\t' || next == '\r' || next == '\n' || ".,;:)}]".indexOf(next) >= 0) {
+            textBuffer.append('#');
+            ++pos;
+            return null;
+        }
+        throw unsupported("#");
+    }
+
+    private Renderer parseIf() throws UnsupportedTemplateException {
+        List<Expression> conditions = new ArrayList<Expression>();
+        List<Renderer> blocks = new ArrayList<Renderer>();
+        Renderer elseBlock = null;
+
+        conditions.add(parseCondition());
+        blocks.add(parseBlock());
+        while ("elseif".equals(terminator)) {
+            conditions.add(parseCondition());
+            blocks.add(parseBlock());
+        }
+        if ("else".equals(terminator)) {
+            elseBlock = parseBlock();
+        }
+        if (!"end".equals(terminator)) {
+            throw unsupported("missing #end");
+        }
+        terminator = null;
+
+        final Expression[] conditionArray = conditions.toArray(new Expression[conditions.size()]);
+        final Renderer[] blockArray = blocks.toArray(NO_RENDERERS);
+        final Renderer otherwise = elseBlock;
+        return new Renderer() {
+            public void render(Scope scope, StringBuilder out) {
+                for (int i = 0; i < conditionArray.length; ++i) {
+                    if (conditionArray[i].evaluate(scope)) {
+                        blockArray[i].render(scope, out);
+                        return;
+                    }
+                }
+                if (otherwise != null) {
+                    otherwise.render(scope, out);
+                }
+            }
+        };
+    }
+
+    private Expression parseCondition() throws UnsupportedTemplateException {
+        skipBlanks();
+        expect('(');
+        Expression condition = parseOr();
+        skipBlanks();
+        expect(')');
+        skipNewline();
+        return condition;
+    }
+
+    private Renderer parseSet() throws UnsupportedTemplateException {
+        skipBlanks();
+        expect('(');
+        skipBlanks();
+        expect('$');
+        if (pos >= text.length() || !isIdentifierStart(text.charAt(pos))) {
+            throw unsupported("#set");
+        }
+        final String name = parseIdentifier();
+        skipBlanks();
+        expect('=');
+        skipBlanks();
+        final Expression value = parseOperand();
+        skipBlanks();
+        expect(')');
+        skipNewline();
+
+        return new Renderer() {
+            public void render(Scope scope, StringBuilder out) {
+                Object result = value.value(scope);
+                if (result != null) { // like Velocity, null values are not set
+                    scope.set(name, result);
+                }
+            }
+        };
+    }
+
+    private Expression parseOr() throws UnsupportedTemplateException {
+        Expression left = parseAnd();
+        while (matchOperator("||") || matchWordOperator("or")) {
+            left = Expressions.or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private Expression parseAnd() throws UnsupportedTemplateException {
+        Expression left = parseEquality();
+        while (matchOperator("&&") || matchWordOperator("and")) {
+            left = Expressions.and(left, parseEquality());
+        }
+        return left;
+    }
+
+    private Expression parseEquality() throws UnsupportedTemplateException {
+        Expression left = parseRelational();
+        while (true) {
+            if (matchOperator("==") || matchWordOperator("eq")) {
+                left = Expressions.compare(Operator.EQ, left, parseRelational());
+            }
+            else if (matchOperator("!=") || matchWordOperator("ne")) {
+                left = Expressions.compare(Operator.NE, left, parseRelational());
+            }
+            else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseRelational() throws UnsupportedTemplateException {
+        Expression left = parseUnary();
+        while (true) {
+            if (matchOperator("<=") || matchWordOperator("le")) {
+                left = Expressions.compare(Operator.LE, left, parseUnary());
+            }
+            else if (matchOperator(">=") || matchWordOperator("ge")) {
+                left = Expressions.compare(Operator.GE, left, parseUnary());
+            }
+            else if (matchOperator("<") || matchWordOperator("lt")) {
+                left = Expressions.compare(Operator.LT, left, parseUnary());
+            }
+            else if (matchOperator(">") || matchWordOperator("gt")) {
+                left = Expressions.compare(Operator.GT, left, parseUnary());
+            }
+            else {
+                return left;
+            }
+        }
+    }
+
+    private Expression parseUnary() throws UnsupportedTemplateException {
+        skipBlanks();
+        if (pos + 1 < text.length() && text.charAt(pos) == '!' && text.charAt(pos + 1) != '=') {
+            ++pos;
+            return Expressions.not(parseUnary());
+        }
+        if (matchWordOperator("not")) {
+            return Expressions.not(parseUnary());
+        }
+        if (pos < text.length() && text.charAt(pos) == '(') {
+            ++pos;
+            Expression expression = parseOr();
+            skipBlanks();
+            expect(')');
+            return expression;
+        }
+        return parseOperand();
+    }
+
+    /**
+     * Parses a reference, a string, an integer or a boolean literal.
+     */
+    private Expression parseOperand() throws UnsupportedTemplateException {
+        if (pos >= text.length()) {
+            throw unsupported("operand");
+        }
+
+        char c = text.charAt(pos);
+        if (c == '$') {
+            Reference reference = parseReference();
+            if (reference == null) {
+                throw unsupported("reference");
+            }
+            return reference;
+        }
+
+        if (c == '\'' || c == '"') {
+            int end = text.indexOf(c, pos + 1);
+            if (end < 0) {
+                throw unsupported("string");
+            }
+            String value = text.substring(pos + 1, end);
+            if (value.indexOf('\\') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0
+                    || (c == '"' && (value.indexOf('$') >= 0 || value.indexOf('#') >= 0))) {
+                throw unsupported("string"); // escapes or interpolation
+            }
+            pos = end + 1;
+            return Expressions.literal(value);
+        }
+
+        if (c == '-' || isDigit(c)) {
+            int end = pos + 1;
+            while (end < text.length() && isDigit(text.charAt(end))) {
+                ++end;
+            }
+            if (end < text.length() && (text.charAt(end) == '.' || isIdentifierPart(text.charAt(end)))) {
+                throw unsupported("number");
+            }
+            try {
+                Integer value = Integer.valueOf(text.substring(pos, end));
+                pos = end;
+                return Expressions.literal(value);
+            } catch (NumberFormatException e) {
+                throw unsupported("number");
+            }
+        }
+
+        if (matchWord("true")) {
+            return Expressions.booleanLiteral(true);
+        }
+        if (matchWord("false")) {
+            return Expressions.booleanLiteral(false);
+        }
+        throw unsupported("operand");
+    }
+
+    /**
+     * Parses a reference like <code>$e</code>, <code>$!{e.g(1).rs()}</code>.
+     *
+     * @return the reference or null, if the <code>$</code> is literal text
+     */
+    private Reference parseReference() throws UnsupportedTemplateException {
+        int start = pos;
+        int p = pos + 1;
+        boolean quiet = false;
+        boolean braced = false;
+
+        if (p < text.length() && text.charAt(p) == '!') {
+            quiet = true;
+            ++p;
+        }
+        if (p < text.length() && text.charAt(p) == '{') {
+            braced = true;
+            ++p;
+        }
+        if (p >= text.length() || !isIdentifierStart(text.charAt(p))) {
+            if (quiet || braced || p >= text.length() || " \t\r\n".indexOf(text.charAt(p)) < 0) {
+                throw unsupported("reference");
+            }
+            return null; // literal, if followed by whitespace
+        }
+
+        pos = p;
+        String name = parseIdentifier();
+        List<Reference.Step> steps = new ArrayList<Reference.Step>();
+        while (pos + 1 < text.length() && text.charAt(pos) == '.' && isIdentifierStart(text.charAt(pos + 1))) {
+            ++pos;
+            String identifier = parseIdentifier();
+            if (pos < text.length() && text.charAt(pos) == '(') {
+                steps.add(new Reference.MethodCall(identifier, parseArguments()));
+            }
+            else {
+                steps.add(new Reference.Property(identifier));
+            }
+        }
+
+        if (braced) {
+            expect('}');
+        }
+        else if (pos < text.length() && ("{}(".indexOf(text.charAt(pos)) >= 0
+                || (text.charAt(pos - 1) == ')' && isIdentifierPart(text.charAt(pos))))) {
+            throw unsupported("text after reference"); // not separated by Velocity
+        }
+        return new Reference(name, steps.toArray(new Reference.Step[steps.size()]),
+                text.substring(start, pos), quiet);
+    }
+
+    private Expression[] parseArguments() throws UnsupportedTemplateException {
+        expect('(');
+        List<Expression> arguments = new ArrayList<Expression>();
+        if (pos < text.length() && text.charAt(pos) == ')') {
+            ++pos;
+            return new Expression[0];
+        }
+
+        while (true) {
+            skipBlanks();
+            arguments.add(parseOperand());
+            skipBlanks();
+            if (pos < text.length() && text.charAt(pos) == ',') {
+                ++pos;
+                continue;
+            }
+            expect(')');
+            return arguments.toArray(new Expression[arguments.size()]);
+        }
+    }
+
+    private String parseIdentifier() {
+        int start = pos;
+        while (pos < text.length() && isIdentifierPart(text.charAt(pos))) {
+            ++pos;
+        }
+        return text.substring(start, pos);
+    }
+
+    private boolean matchOperator(String operator) {
+        skipBlanks();
+        if (text.startsWith(operator, pos)) {
+            pos += operator.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matchWord(String word) {
+        skipBlanks();
+        int end = pos + word.length();
+        if (text.startsWith(word, pos) && (end >= text.length() || !isIdentifierPart(text.charAt(end)))) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Matches an operator like <code>and</code>, that must be surrounded by
+     * blanks.
+     */
+    private boolean matchWordOperator(String word) {
+        skipBlanks();
+        int end = pos + word.length();
+        if (pos > 0 && " \t(".indexOf(text.charAt(pos - 1)) >= 0 && text.startsWith(word, pos)
+                && end < text.length() && (text.charAt(end) == ' ' || text.charAt(end) == '\t')) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws UnsupportedTemplateException {
+        if (pos >= text.length() || text.charAt(pos) != c) {
+            throw unsupported("expected '" + c + "'");
+        }
+        ++pos;
+    }
+
+    private void skipBlanks() {
+        while (pos < text.length() && (text.charAt(pos) == ' ' || text.charAt(pos) == '\t')) {
+            ++pos;
+        }
+    }
+
+    /**
+     * Skips blanks and one line delimiter after a directive, if there is
+     * nothing else up to the end of the line.
+     */
+    private void skipNewline() {
+        int start = pos;
+        skipBlanks();
+        if (!skipLineDelimiter()) {
+            pos = start;
+        }
+    }
+
+    private boolean skipLineDelimiter() {
+        if (pos < text.length() && text.charAt(pos) == '\n') {
+            ++pos;
+            return true;
+        }
+        if (pos < text.length() && text.charAt(pos) == '\r') {
+            ++pos;
+            if (pos < text.length() && text.charAt(pos) == '\n') {
+                ++pos;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private UnsupportedTemplateException unsupported(String message) {
+        return new UnsupportedTemplateException(message, pos);
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isLetter(c) || isDigit(c) || c == '_' || c == '-';
+    }
+}
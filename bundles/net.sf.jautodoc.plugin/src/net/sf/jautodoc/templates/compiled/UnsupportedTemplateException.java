@@ -0,0 +1,27 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.compiled;
+
+
+/**
+ * Thrown if a template uses a construct, that is not supported by the
+ * template compiler.
+ */
+class UnsupportedTemplateException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Instantiates a new unsupported template exception.
+     *
+     * @param message the message
+     * @param offset the offset in the template text
+     */
+    public UnsupportedTemplateException(String message, int offset) {
+        super(message + " at offset " + offset);
+    }
+}
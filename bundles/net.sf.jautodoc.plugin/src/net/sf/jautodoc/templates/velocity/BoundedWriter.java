@@ -0,0 +1,94 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.velocity;
+
+import java.io.Writer;
+
+import net.sf.jautodoc.templates.TemplateBudgetException;
+
+import org.apache.velocity.app.event.ReferenceInsertionEventHandler;
+
+
+/**
+ * Writer for the result of a template evaluation, that limits the output
+ * size and the evaluation time. The time is checked on every write and, as
+ * reference insertion handler, on every inserted reference, so loops are
+ * stopped even if they render nothing but references.
+ */
+class BoundedWriter extends Writer implements ReferenceInsertionEventHandler {
+    private final StringBuilder buffer = new StringBuilder();
+    private final int maxOutput;
+    private final long deadline;
+    private final long timeout;
+
+
+    /**
+     * Instantiates a new bounded writer.
+     *
+     * @param maxOutput the maximum number of characters, not positive for no limit
+     * @param timeout the maximum evaluation time in milliseconds, not positive for no limit
+     */
+    public BoundedWriter(int maxOutput, long timeout) {
+        this.maxOutput = maxOutput;
+        this.timeout = timeout;
+        this.deadline = timeout > 0 ? System.nanoTime() + timeout * 1000000L : 0;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    public void write(char[] cbuf, int off, int len) {
+        checkTime();
+        if (maxOutput > 0 && buffer.length() + len > maxOutput) {
+            throw new TemplateBudgetException("Output exceeds " + maxOutput + " characters");
+        }
+        buffer.append(cbuf, off, len);
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#write(java.lang.String)
+     */
+    public void write(String str) {
+        write(str.toCharArray(), 0, str.length());
+    }
+
+    /* (non-Javadoc)
+     * @see org.apache.velocity.app.event.ReferenceInsertionEventHandler#referenceInsert(java.lang.String, java.lang.Object)
+     */
+    public Object referenceInsert(String reference, Object value) {
+        checkTime();
+        return value;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#flush()
+     */
+    public void flush() {
+        // nothing to do
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#close()
+     */
+    public void close() {
+        // nothing to do
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+        return buffer.toString();
+    }
+
+    private void checkTime() {
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new TemplateBudgetException("Evaluation exceeds " + timeout + " ms");
+        }
+    }
+}
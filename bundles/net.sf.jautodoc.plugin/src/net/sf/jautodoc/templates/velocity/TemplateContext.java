@@ -0,0 +1,200 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.velocity;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.sf.jautodoc.templates.MatchingElement;
+import net.sf.jautodoc.templates.wrapper.JavaElementWrapper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+
+
+/**
+ * Context of a single template evaluation. The values are resolved on first
+ * access: the element wrappers are shared by all members of a compilation
+ * unit and the property wrappers by all evaluations with the same properties.
+ * Values set by the template are kept in this context only.
+ */
+class TemplateContext extends AbstractMap<String, Object> {
+    private static final UnitValues NO_UNIT = new UnitValues(null);
+
+    private final MatchingElement element;
+    private final IJavaElement javaElement;
+    private final Map<String, Object> properties;
+    private final ThreadLocal<UnitValues> unitCache;
+
+    private UnitValues unit;
+    private Map<String, Object> variables;
+
+
+    /**
+     * Instantiates a new template context.
+     *
+     * @param element the matching element, null for a plain Java element
+     * @param javaElement the Java element, may be null
+     * @param properties the property wrappers
+     * @param unitCache the element wrappers of the last compilation unit
+     */
+    public TemplateContext(MatchingElement element, IJavaElement javaElement,
+            Map<String, Object> properties, ThreadLocal<UnitValues> unitCache) {
+        this.element = element;
+        this.javaElement = javaElement;
+        this.properties = properties;
+        this.unitCache = unitCache;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    public Object get(Object key) {
+        if (variables != null && variables.containsKey(key)) {
+            return variables.get(key);
+        }
+
+        Object value = properties.get(key); // properties hide other values
+        if (value != null) {
+            return value;
+        }
+        if (VelocityTemplateManager.KEY_ELEMENT.equals(key)) {
+            return element;
+        }
+        if (VelocityTemplateManager.KEY_PROJECT.equals(key)) {
+            return getUnit().project;
+        }
+        if (VelocityTemplateManager.KEY_PACKAGE.equals(key)) {
+            return getUnit().packageName;
+        }
+        if (VelocityTemplateManager.KEY_FILE.equals(key)) {
+            return getUnit().file;
+        }
+        if (VelocityTemplateManager.KEY_TYPE.equals(key)) {
+            return getUnit().type;
+        }
+        return null;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    public Object put(String key, Object value) {
+        if (variables == null) {
+            variables = new HashMap<String, Object>();
+        }
+        Object previous = get(key);
+        variables.put(key, value);
+        return previous;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    public Object remove(Object key) {
+        Object previous = get(key);
+        if (previous != null) {
+            if (variables == null) {
+                variables = new HashMap<String, Object>();
+            }
+            variables.put((String)key, null);
+        }
+        return previous;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.AbstractMap#entrySet()
+     */
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Map<String, Object> values = new HashMap<String, Object>();
+        if (element != null) {
+            values.put(VelocityTemplateManager.KEY_ELEMENT, element);
+        }
+        values.put(VelocityTemplateManager.KEY_PROJECT, getUnit().project);
+        values.put(VelocityTemplateManager.KEY_PACKAGE, getUnit().packageName);
+        values.put(VelocityTemplateManager.KEY_FILE, getUnit().file);
+        values.put(VelocityTemplateManager.KEY_TYPE, getUnit().type);
+        values.putAll(properties);
+        if (variables != null) {
+            for (Map.Entry<String, Object> entry : variables.entrySet()) {
+                if (entry.getValue() != null) {
+                    values.put(entry.getKey(), entry.getValue());
+                }
+                else {
+                    values.remove(entry.getKey());
+                }
+            }
+        }
+        return values.entrySet();
+    }
+
+    private UnitValues getUnit() {
+        if (unit == null) {
+            IJavaElement key = getUnitElement();
+            if (key == null) {
+                unit = NO_UNIT;
+            }
+            else {
+                unit = unitCache.get();
+                if (unit == null || !key.equals(unit.element)) {
+                    unit = new UnitValues(key);
+                    unitCache.set(unit);
+                }
+            }
+        }
+        return unit;
+    }
+
+    /**
+     * Gets the element to wrap. The wrapped values depend on the compilation
+     * unit only, so a member is replaced by its compilation unit.
+     */
+    private IJavaElement getUnitElement() {
+        IJavaElement je = javaElement;
+        if (element != null) {
+            je = element.getMember() != null ? element.getMember().getMember() : null;
+        }
+        if (je instanceof IMember) {
+            ICompilationUnit compUnit = ((IMember)je).getCompilationUnit();
+            if (compUnit != null) {
+                return compUnit;
+            }
+        }
+        return je;
+    }
+
+    /**
+     * The element wrappers of a compilation unit or another Java element.
+     */
+    static final class UnitValues {
+        final IJavaElement element;
+        final JavaElementWrapper project;
+        final JavaElementWrapper packageName;
+        final JavaElementWrapper file;
+        final JavaElementWrapper type;
+
+
+        UnitValues(IJavaElement element) {
+            this.element     = element;
+            this.project     = new JavaElementWrapper(element, JavaElementWrapper.PROJECT);
+            this.packageName = new JavaElementWrapper(element, JavaElementWrapper.PACKAGE);
+            this.file        = new JavaElementWrapper(element, JavaElementWrapper.FILE);
+            this.type        = new JavaElementWrapper(element, JavaElementWrapper.TYPE);
+        }
+    }
+}
@@ -52,7 +52,7 @@ public class VelocityApplicationContext implements IApplicationContext {
     /* (non-Javadoc)
      * @see net.sf.jautodoc.IApplicationContext#getTemplateManager()
      */
-    public ITemplateManager getTemplateManager() {
+    public synchronized ITemplateManager getTemplateManager() {
         if (templateManager != null) {
             return templateManager;
         }
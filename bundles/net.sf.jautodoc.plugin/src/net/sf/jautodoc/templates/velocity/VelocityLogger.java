@@ -28,7 +28,6 @@ public class VelocityLogger extends TemplateEngineLogger implements LogChute {
 			.compile("line\\s+(\\d+).+column\\s+(\\d+)");
 	
 	private int level;
-	private LogEntry logEntry;
 	
 
 	/* (non-Javadoc)
@@ -36,7 +35,6 @@ public class VelocityLogger extends TemplateEngineLogger implements LogChute {
 	 */
 	public void init(RuntimeServices rs) throws Exception {
 		level = rs.getInt("runtime.log.logsystem.jautodoc.level", WARN_ID);
-		logEntry = new LogEntry();
 	}
 
 	/* (non-Javadoc)
@@ -58,6 +56,8 @@ public class VelocityLogger extends TemplateEngineLogger implements LogChute {
 	 */
 	public void log(int level, String message, Throwable throwable) {
 		if (isLevelEnabled(level)) {
+			// new entry per message, templates may be evaluated concurrently
+			LogEntry logEntry = new LogEntry();
 			parseLocation(message, logEntry);
 			logEntry.setSeverity(getSeverity(level));
 			logEntry.setMessage(message);
@@ -0,0 +1,255 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.templates.velocity;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import net.sf.jautodoc.preferences.Constants;
+import net.sf.jautodoc.templates.ITemplateEngine;
+import net.sf.jautodoc.templates.TemplateInfo;
+import net.sf.jautodoc.templates.ValidationException;
+import net.sf.jautodoc.velocity.log.VelocityLogChuteProxy;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.event.EventCartridge;
+import org.apache.velocity.context.Context;
+import org.apache.velocity.context.InternalContextAdapterImpl;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.TemplateInitException;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.ASTComment;
+import org.apache.velocity.runtime.parser.node.ASTIdentifier;
+import org.apache.velocity.runtime.parser.node.ASTMethod;
+import org.apache.velocity.runtime.parser.node.ASTReference;
+import org.apache.velocity.runtime.parser.node.ASTText;
+import org.apache.velocity.runtime.parser.node.Node;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
+import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
+import org.apache.velocity.runtime.resource.util.StringResourceRepository;
+
+/**
+ * Template engine based on Velocity 1.5. The templates are evaluated by a
+ * dedicated runtime instance. Each evaluation uses its own context on top of
+ * a shared, read-only base context, so templates may be evaluated
+ * concurrently. An evaluation, that exceeds the time or output limit, fails
+ * with a {@link net.sf.jautodoc.templates.TemplateBudgetException}.
+ */
+public class VelocityTemplateEngine implements ITemplateEngine {
+
+    /** Values, that never contain a backslash: Java element names and dates. */
+    private static final Set<String> SAFE_REFERENCES = new HashSet<String>(Arrays.asList(
+            VelocityTemplateManager.KEY_ELEMENT, VelocityTemplateManager.KEY_PROJECT,
+            VelocityTemplateManager.KEY_PACKAGE, VelocityTemplateManager.KEY_FILE,
+            VelocityTemplateManager.KEY_TYPE, VelocityTemplateManager.KEY_DATE,
+            VelocityTemplateManager.KEY_TIME, VelocityTemplateManager.KEY_YEAR));
+
+    /** Functions of the element, that return source text, e.g. annotation values. */
+    private static final Set<String> UNSAFE_FUNCTIONS = new HashSet<String>(Arrays.asList(
+            "getAnnotation", "annotation", "getValue", "value"));
+
+    private RuntimeInstance engine;
+    private VelocityContext baseContext;
+    private StringResourceRepository repository;
+
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#initialize(java.util.Map)
+     */
+    public void initialize(Map<String, Object> globals) throws Exception {
+        if (engine != null) return;
+
+        // avoid class loading conflict with m2e plugin in Eclipse Luna
+        final ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
+
+            VelocityLogChuteProxy.setLogChute(new VelocityLogger());
+
+            final Properties velProps = new Properties();
+            velProps.load(getClass().getResourceAsStream("velocity.properties"));
+            velProps.setProperty("directive.foreach.maxloops",
+                    String.valueOf(Constants.TEMPLATE_MAX_LOOPS));
+
+            RuntimeInstance runtime = new RuntimeInstance();
+            runtime.init(velProps);
+
+            // not modified after initialization
+            baseContext = new VelocityContext();
+            for (Map.Entry<String, Object> entry : globals.entrySet()) {
+                baseContext.put(entry.getKey(), entry.getValue());
+            }
+
+            repository = StringResourceLoader.getRepository();
+            engine = runtime;
+        } finally {
+            Thread.currentThread().setContextClassLoader(cl);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#putTemplate(java.lang.String, java.lang.String)
+     */
+    public void putTemplate(String templateName, String template) {
+        repository.putStringResource(templateName, template);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#removeTemplate(java.lang.String)
+     */
+    public void removeTemplate(String templateName) {
+        repository.removeStringResource(templateName);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#mergeTemplate(java.lang.String, java.util.Map)
+     */
+    public String mergeTemplate(String templateName, Map<String, Object> context) throws Exception {
+        Template template = engine.getTemplate(templateName);
+        BoundedWriter writer = createWriter();
+
+        template.merge(createContext(context, writer), writer);
+        return writer.toString();
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#evaluateTemplate(java.lang.String, java.lang.String, java.util.Map)
+     */
+    public String evaluateTemplate(String templateName, String template, Map<String, Object> context)
+            throws Exception {
+        BoundedWriter writer = createWriter();
+        return evaluate(createContext(context, writer), writer, templateName, template);
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#validateTemplate(java.lang.String)
+     */
+    public void validateTemplate(String template) throws ValidationException, Exception {
+        try {
+            engine.parse(new StringReader(template), "TemplateValidation");
+        } catch (ParseException pe) {
+            if (pe.currentToken != null && pe.currentToken.next != null) {
+                throw new ValidationException(pe,
+                        pe.currentToken.next.beginLine - 1,
+                        pe.currentToken.next.beginColumn - 1);
+            }
+            else {
+                throw new ValidationException(pe);
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see net.sf.jautodoc.templates.ITemplateEngine#analyzeTemplate(java.lang.String)
+     */
+    public TemplateInfo analyzeTemplate(String template) throws Exception {
+        SimpleNode node = engine.parse(new StringReader(template), "TemplateAnalysis");
+        InternalContextAdapterImpl ica = new InternalContextAdapterImpl(new VelocityContext());
+        node.init(ica, engine); // resolves the reference and method names
+
+        Set<String> references = new HashSet<String>();
+        Set<String> functions = new HashSet<String>();
+        collectNames(node, references, functions);
+
+        boolean constant = true;
+        for (int i = 0; i < node.jjtGetNumChildren() && constant; ++i) {
+            Node child = node.jjtGetChild(i);
+            constant = child instanceof ASTText || child instanceof ASTComment;
+        }
+
+        String constantText = null;
+        if (constant) {
+            StringWriter writer = new StringWriter();
+            node.render(ica, writer);
+            constantText = writer.toString();
+        }
+
+        boolean escapes = template.indexOf('\\') >= 0;
+        for (String name : references) {
+            escapes |= !SAFE_REFERENCES.contains(name);
+        }
+        for (String name : functions) {
+            escapes |= UNSAFE_FUNCTIONS.contains(name);
+        }
+        return new TemplateInfo(references, functions, constantText, escapes);
+    }
+
+    private static void collectNames(Node node, Set<String> references, Set<String> functions) {
+        if (node instanceof ASTReference) {
+            references.add(((ASTReference)node).getRootString());
+        }
+        else if (node instanceof ASTMethod || (node instanceof ASTIdentifier
+                && node.jjtGetParent() instanceof ASTReference)) {
+            functions.add(node.getFirstToken().image);
+        }
+
+        for (int i = 0; i < node.jjtGetNumChildren(); ++i) {
+            collectNames(node.jjtGetChild(i), references, functions);
+        }
+    }
+
+    /**
+     * Evaluates the given template text like <code>Velocity.evaluate()</code>,
+     * but with the runtime instance of this engine.
+     *
+     * @param context the context
+     * @param writer the writer for the result
+     * @param templateName the template name used in log messages
+     * @param template the template text
+     *
+     * @return the resulting string
+     *
+     * @throws Exception thrown if an exception occured
+     */
+    private String evaluate(Context context, BoundedWriter writer, String templateName, String template)
+            throws Exception {
+        SimpleNode node;
+        try {
+            node = engine.parse(new StringReader(template), templateName);
+        } catch (ParseException pe) {
+            throw new ParseErrorException(pe);
+        }
+
+        InternalContextAdapterImpl ica = new InternalContextAdapterImpl(context);
+        ica.pushCurrentTemplateName(templateName);
+        try {
+            node.init(ica, engine);
+            node.render(ica, writer);
+            return writer.toString();
+        } catch (TemplateInitException e) {
+            throw new ParseErrorException(e);
+        } finally {
+            ica.popCurrentTemplateName();
+        }
+    }
+
+    private static BoundedWriter createWriter() {
+        return new BoundedWriter(Constants.TEMPLATE_MAX_OUTPUT, Constants.TEMPLATE_TIMEOUT);
+    }
+
+    /**
+     * Creates the context of an evaluation. The writer is attached as
+     * reference insertion handler, so the time limit is also checked while
+     * references are evaluated.
+     */
+    private VelocityContext createContext(Map<String, Object> context, BoundedWriter writer) {
+        VelocityContext velocityContext = new VelocityContext(context, baseContext);
+
+        EventCartridge cartridge = new EventCartridge();
+        cartridge.addEventHandler(writer);
+        cartridge.attachToContext(velocityContext);
+        return velocityContext;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -7,30 +7,31 @@
  *******************************************************************/
 package net.sf.jautodoc.templates.velocity;
 
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
 
+import net.sf.jautodoc.preferences.Constants;
 import net.sf.jautodoc.templates.AbstractTemplateManager;
+import net.sf.jautodoc.templates.ITemplateEngine;
 import net.sf.jautodoc.templates.ITemplateRegistry;
 import net.sf.jautodoc.templates.MatchingElement;
+import net.sf.jautodoc.templates.TemplateEntry;
+import net.sf.jautodoc.templates.TemplateInfo;
 import net.sf.jautodoc.templates.ValidationException;
+import net.sf.jautodoc.templates.compiled.CompiledTemplateEngine;
 import net.sf.jautodoc.templates.wrapper.DateWrapper;
-import net.sf.jautodoc.templates.wrapper.JavaElementWrapper;
 import net.sf.jautodoc.templates.wrapper.PropertyWrapper;
-import net.sf.jautodoc.velocity.log.VelocityLogChuteProxy;
+import net.sf.jautodoc.utils.PhaseTimer;
 
-import org.apache.velocity.Template;
-import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
-import org.apache.velocity.runtime.RuntimeSingleton;
-import org.apache.velocity.runtime.parser.ParseException;
 import org.eclipse.jdt.core.IJavaElement;
 
 /**
- * Manager for Velocity templates.
+ * Manager for templates in the Velocity template language. By default the
+ * templates are compiled by the {@link CompiledTemplateEngine} and only
+ * unsupported templates are evaluated by Velocity. The template preview and
+ * the validation always use Velocity, so its messages are shown in the
+ * template editor. The system property <code>jautodoc.templateEngine=velocity</code>
+ * disables the compiled templates.
  */
 public class VelocityTemplateManager extends AbstractTemplateManager {
 	public static final String KEY_ELEMENT 		= "e";
@@ -44,26 +45,19 @@ public class VelocityTemplateManager extends AbstractTemplateManager {
 	public static final String KEY_FILE 		= "file_name";
 	public static final String KEY_TYPE 		= "type_name";
 
-	private VelocityContext velocityCtx;
+	private VelocityTemplateEngine velocity;
+	private ITemplateEngine engine;
 	private ITemplateRegistry registry;
 
+	private volatile PropertyValues propertyValues;
+	private final ThreadLocal<TemplateContext.UnitValues> unitValues = new ThreadLocal<TemplateContext.UnitValues>();
+
 
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.AbstractTemplateManager#validateTemplate(java.lang.String)
 	 */
 	public void validateTemplate(String template) throws ValidationException, Exception {
-		try {
-			RuntimeSingleton.parse(new StringReader(template), "TemplateValidation");
-		} catch (ParseException pe) {
-			if (pe.currentToken != null && pe.currentToken.next != null) {
-				throw new ValidationException(pe,
-						pe.currentToken.next.beginLine - 1,
-						pe.currentToken.next.beginColumn - 1);
-			}
-			else {
-				throw new ValidationException(pe);
-			}
-		}
+		velocity.validateTemplate(template);
 	}
 
 	/* (non-Javadoc)
@@ -71,24 +65,38 @@ public class VelocityTemplateManager extends AbstractTemplateManager {
 	 */
 	public String evaluateTemplate(IJavaElement javaElement, String template,
 			String templateName, Map<String, String> properties) throws Exception {
-		prepareVelocityContext(javaElement, properties);
-		StringWriter writer = new StringWriter();
-
-		Velocity.evaluate(velocityCtx, writer, templateName, template);
-		return resolveEscapes(writer.toString());
+		long start = PhaseTimer.begin();
+		String result = resolveEscapes(engine.evaluateTemplate(templateName, template,
+				createContext(javaElement, properties)));
+		PhaseTimer.endTemplate(templateName, start);
+		return result;
 	}
 
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.AbstractTemplateManager#applyTemplate(net.sf.jautodoc.templates.MatchingElement)
 	 */
 	protected String applyTemplate(MatchingElement me, Map<String, String> properties) throws Exception {
-		Template template = Velocity.getTemplate(me.getEntry().getName());
+		String templateName = me.getEntry().getName();
+		TemplateInfo info = getRegistry().getTemplateInfo(templateName);
+		if (info == null) {
+			return resolveEscapes(engine.mergeTemplate(templateName, createContext(me, properties)));
+		}
 
-		prepareVelocityContext(me, properties);
-		StringWriter writer = new StringWriter();
+		String result = info.isConstant() ? info.getConstantText()
+				: engine.mergeTemplate(templateName, createContext(me, properties));
+		return hasEscapes(info, properties) ? resolveEscapes(result) : result;
+	}
 
-		template.merge(velocityCtx, writer);
-		return resolveEscapes(writer.toString());
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateManager#evaluateTemplate(net.sf.jautodoc.templates.MatchingElement, java.util.Map)
+	 */
+	public String evaluateTemplate(MatchingElement me, Map<String, String> properties) throws Exception {
+		TemplateEntry entry = me.getEntry();
+		if (entry.getText().equals(getTemplateText(entry.getName()))) {
+			return applyTemplate(me, properties); // registered, compiled or constant
+		}
+		return resolveEscapes(engine.evaluateTemplate(entry.getName(), entry.getText(),
+				createContext(me, properties)));
 	}
 
 	/* (non-Javadoc)
@@ -96,11 +104,7 @@ public class VelocityTemplateManager extends AbstractTemplateManager {
 	 */
 	protected String evaluateTemplate(MatchingElement me, String template,
 			Map<String, String> properties) throws Exception {
-		prepareVelocityContext(me, properties);
-		StringWriter writer = new StringWriter();
-
-		Velocity.evaluate(velocityCtx, writer, "TemplateTest", template);
-		return resolveEscapes(writer.toString());
+		return resolveEscapes(velocity.evaluateTemplate("TemplateTest", template, createContext(me, properties)));
 	}
 
 	/**
@@ -112,14 +116,34 @@ public class VelocityTemplateManager extends AbstractTemplateManager {
 	 * @return the resolved text
 	 */
 	private String resolveEscapes(String string) {
+		if (string.indexOf("\\$") < 0) {
+			return string;
+		}
 		return string.replaceAll("\\\\\\$", "\\$");
 	}
 
+	/**
+	 * Checks if the result of the given template may contain escaped
+	 * references. Properties may hide the predefined values, so their
+	 * values are checked too.
+	 */
+	private boolean hasEscapes(TemplateInfo info, Map<String, String> properties) {
+		if (info.hasEscapes()) {
+			return true;
+		}
+		for (String name : info.getReferences()) {
+			if (properties.containsKey(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.AbstractTemplateManager#onInit()
 	 */
 	protected void onInit() throws Exception {
-		initVelocity();
+		initEngine();
 	}
 
 	/* (non-Javadoc)
@@ -127,67 +151,66 @@ public class VelocityTemplateManager extends AbstractTemplateManager {
 	 */
 	protected ITemplateRegistry getRegistry() {
 		if (registry == null) {
-			registry = new VelocityTemplateRegistry();
+			registry = new VelocityTemplateRegistry(engine);
 		}
 		return registry;
 	}
 
-	private void prepareVelocityContext(MatchingElement me, Map<String, String> properties) {
-		velocityCtx.put(KEY_ELEMENT, me);
-		velocityCtx.put(KEY_PROJECT, new JavaElementWrapper(me, JavaElementWrapper.PROJECT));
-		velocityCtx.put(KEY_PACKAGE, new JavaElementWrapper(me, JavaElementWrapper.PACKAGE));
-		velocityCtx.put(KEY_FILE, 	 new JavaElementWrapper(me, JavaElementWrapper.FILE));
-		velocityCtx.put(KEY_TYPE,	 new JavaElementWrapper(me, JavaElementWrapper.TYPE));
-
-		prepareProperties(properties);
+	private Map<String, Object> createContext(MatchingElement me, Map<String, String> properties) {
+		return new TemplateContext(me, null, getPropertyValues(properties), unitValues);
 	}
 
-	private void prepareVelocityContext(IJavaElement je, Map<String, String> properties) {
-		velocityCtx.remove(KEY_ELEMENT); // no matching element
-		velocityCtx.put(KEY_PROJECT, new JavaElementWrapper(je, JavaElementWrapper.PROJECT));
-		velocityCtx.put(KEY_PACKAGE, new JavaElementWrapper(je, JavaElementWrapper.PACKAGE));
-		velocityCtx.put(KEY_FILE, 	 new JavaElementWrapper(je, JavaElementWrapper.FILE));
-		velocityCtx.put(KEY_TYPE,	 new JavaElementWrapper(je, JavaElementWrapper.TYPE));
-
-		prepareProperties(properties);
+	private Map<String, Object> createContext(IJavaElement je, Map<String, String> properties) {
+		return new TemplateContext(null, je, getPropertyValues(properties), unitValues); // no matching element
 	}
 
-	private void prepareProperties(Map<String, String> properties) {
-		Iterator<String> keys = properties.keySet().iterator();
-		while (keys.hasNext()) {
-			String key = (String)keys.next();
-			velocityCtx.put(key, new PropertyWrapper(key, properties));
+	/**
+	 * Gets the property wrappers for the given properties. The wrappers are
+	 * created once for each properties map, since the configuration returns
+	 * the same map until the properties change.
+	 */
+	private Map<String, Object> getPropertyValues(Map<String, String> properties) {
+		PropertyValues values = propertyValues;
+		if (values == null || values.properties != properties) {
+			values = new PropertyValues(properties);
+			propertyValues = values;
 		}
+		return values.wrappers;
 	}
 
-	private void initVelocity() throws Exception {
-		if (velocityCtx != null) return;
-
-		// avoid class loading conflict with m2e plugin in Eclipse Luna
-		final ClassLoader cl = Thread.currentThread().getContextClassLoader();
-		try {
-		    Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
+	private void initEngine() throws Exception {
+		if (engine != null) return;
 
-		    VelocityLogChuteProxy.setLogChute(new VelocityLogger());
-
-            final Properties velProps = new Properties();
-            velProps.load(getClass().getResourceAsStream("velocity.properties"));
+		velocity = new VelocityTemplateEngine();
+		ITemplateEngine templateEngine = "velocity".equals(Constants.TEMPLATE_ENGINE)
+				? velocity : new CompiledTemplateEngine(velocity);
+		templateEngine.initialize(createGlobals());
+		engine = templateEngine;
+	}
 
-            Velocity.init(velProps);
+	private Map<String, Object> createGlobals() {
+		Map<String, Object> globals = new HashMap<String, Object>();
+		globals.put(KEY_PROPERTIES,	new PropertyWrapper());
+		globals.put(KEY_USER, new PropertyWrapper("user.name", null));
 
-            initVelocityContext();
-		} finally {
-		    Thread.currentThread().setContextClassLoader(cl);
-		}
+		globals.put(KEY_DATE, new DateWrapper(DateWrapper.DATE));
+		globals.put(KEY_TIME, new DateWrapper(DateWrapper.TIME));
+		globals.put(KEY_YEAR, new DateWrapper(DateWrapper.YEAR));
+		return globals;
 	}
 
-	private void initVelocityContext() {
-		velocityCtx = new VelocityContext();
-		velocityCtx.put(KEY_PROPERTIES,	new PropertyWrapper());
-		velocityCtx.put(KEY_USER, new PropertyWrapper("user.name", null));
-
-		velocityCtx.put(KEY_DATE, new DateWrapper(DateWrapper.DATE));
-		velocityCtx.put(KEY_TIME, new DateWrapper(DateWrapper.TIME));
-		velocityCtx.put(KEY_YEAR, new DateWrapper(DateWrapper.YEAR));
+	/**
+	 * The property wrappers of a properties map.
+	 */
+	private static final class PropertyValues {
+		private final Map<String, String> properties;
+		private final Map<String, Object> wrappers = new HashMap<String, Object>();
+
+		PropertyValues(Map<String, String> properties) {
+			this.properties = properties;
+			for (String key : properties.keySet()) {
+				wrappers.put(key, new PropertyWrapper(key, properties));
+			}
+		}
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -7,33 +7,36 @@
  *******************************************************************/
 package net.sf.jautodoc.templates.velocity;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import net.sf.jautodoc.templates.ITemplateEngine;
 import net.sf.jautodoc.templates.ITemplateRegistry;
 import net.sf.jautodoc.templates.TemplateEntry;
+import net.sf.jautodoc.templates.TemplateInfo;
 import net.sf.jautodoc.templates.TemplateSet;
 
-import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
-import org.apache.velocity.runtime.resource.util.StringResourceRepository;
-
 
 /**
- * Wrapper class for the StringResourceRepository of Velocity.
+ * Registry for the templates of a template engine.
  */
 public class VelocityTemplateRegistry implements ITemplateRegistry {
 	private Map<String, TemplateEntry> templates;
-	private StringResourceRepository repository;
+	private Map<String, TemplateInfo> templateInfos;
+	private ITemplateEngine engine;
 	
 	
 	/**
 	 * The Constructor.
+	 * 
+	 * @param engine the template engine
 	 */
-	public VelocityTemplateRegistry() {
-		this.templates  = new HashMap<String, TemplateEntry>();
-		this.repository = StringResourceLoader.getRepository();
+	public VelocityTemplateRegistry(ITemplateEngine engine) {
+		this.templates = new ConcurrentHashMap<String, TemplateEntry>();
+		this.templateInfos = new ConcurrentHashMap<String, TemplateInfo>();
+		this.engine    = engine;
 	}
 	
 	/* (non-Javadoc)
@@ -43,6 +46,13 @@ public class VelocityTemplateRegistry implements ITemplateRegistry {
 		return templates.get(templateName);
 	}
 	
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateRegistry#getTemplateInfo(java.lang.String)
+	 */
+	public TemplateInfo getTemplateInfo(String templateName) {
+		return templateInfos.get(templateName);
+	}
+	
 	/* (non-Javadoc)
 	 * @see net.sf.jautodoc.templates.ITemplateRegistry#putTemplates(net.sf.jautodoc.templates.TemplateSet)
 	 */
@@ -56,7 +66,26 @@ public class VelocityTemplateRegistry implements ITemplateRegistry {
 	 */
 	public void putTemplate(TemplateEntry entry) {
 		templates.put(entry.getName(), entry);
-		repository.putStringResource(entry.getName(), entry.getText());
+		engine.putTemplate(entry.getName(), entry.getText());
+		try {
+			templateInfos.put(entry.getName(), engine.analyzeTemplate(entry.getText()));
+		} catch (Exception e) {
+			templateInfos.remove(entry.getName()); // evaluated without precheck
+		}
+	}
+	
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateRegistry#putTemplate(net.sf.jautodoc.templates.TemplateEntry, net.sf.jautodoc.templates.TemplateInfo)
+	 */
+	public void putTemplate(TemplateEntry entry, TemplateInfo info) {
+		templates.put(entry.getName(), entry);
+		engine.putTemplate(entry.getName(), entry.getText());
+		if (info != null) {
+			templateInfos.put(entry.getName(), info);
+		}
+		else {
+			templateInfos.remove(entry.getName());
+		}
 	}
 	
 	/* (non-Javadoc)
@@ -66,13 +95,17 @@ public class VelocityTemplateRegistry implements ITemplateRegistry {
 		return templates.containsKey(templateName);
 	}
 	
-	private void clearTemplates() {
+	/* (non-Javadoc)
+	 * @see net.sf.jautodoc.templates.ITemplateRegistry#clearTemplates()
+	 */
+	public void clearTemplates() {
 		Iterator<String> iter = templates.keySet().iterator();
 		while (iter.hasNext()) {
 			String name = iter.next();
-			repository.removeStringResource(name);
+			engine.removeTemplate(name);
 		}
 		templates.clear();
+		templateInfos.clear();
 	}
 	
 	private void registerTemplates(TemplateSet templates) {
@@ -1,5 +1,5 @@
 /*******************************************************************
- * Copyright (c) 2006 - 2019, Martin Kesting, All rights reserved.
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
  *
  * This software is licenced under the Eclipse Public License v1.0,
  * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
@@ -7,6 +7,9 @@
  *******************************************************************/
 package net.sf.jautodoc.templates.wrapper;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import net.sf.jautodoc.JAutodocPlugin;
 import net.sf.jautodoc.utils.StringUtils;
 
@@ -19,6 +22,8 @@ import org.eclipse.jdt.core.JavaModelException;
  */
 public class AnnotationWrapper {
     private final IAnnotation annotation;
+    private final String name;
+    private final Map<String, String> values;
 
     /**
      * Instantiates a new annotation wrapper.
@@ -34,6 +39,21 @@ public class AnnotationWrapper {
      */
     public AnnotationWrapper(final IAnnotation annotation) {
         this.annotation = annotation;
+        this.name = null;
+        this.values = null;
+    }
+
+    /**
+     * Instantiates a new annotation wrapper for an annotation without Java
+     * element, e.g. of a template corpus.
+     *
+     * @param name the name
+     * @param values the values by key
+     */
+    public AnnotationWrapper(final String name, final Map<String, String> values) {
+        this.annotation = null;
+        this.name = name;
+        this.values = values;
     }
 
     /**
@@ -42,7 +62,10 @@ public class AnnotationWrapper {
      * @return the name
      */
     public String getName() {
-        return annotation == null ? "" : annotation.getElementName();
+        if (annotation != null) {
+            return annotation.getElementName();
+        }
+        return name == null ? "" : name;
     }
 
     /**
@@ -59,16 +82,36 @@ public class AnnotationWrapper {
                 }
             }
         }
+        else if (values != null) {
+            return StringUtils.valueOf(values.get(key));
+        }
         return "";
     }
 
+    /**
+     * Gets all values of the wrapped annotation.
+     *
+     * @return the values by key
+     */
+    public Map<String, String> getValues() {
+        if (annotation == null) {
+            return values == null ? new LinkedHashMap<String, String>() : new LinkedHashMap<String, String>(values);
+        }
+
+        final Map<String, String> result = new LinkedHashMap<String, String>();
+        for (IMemberValuePair pair : getMemberValuePairs()) {
+            result.put(pair.getMemberName(), StringUtils.valueOf(pair.getValue()));
+        }
+        return result;
+    }
+
     /**
      * Checks, if annotation exists.
      *
      * @return true, if annotation exists
      */
     public boolean exists() {
-        return annotation != null;
+        return annotation != null || name != null;
     }
 
     /**
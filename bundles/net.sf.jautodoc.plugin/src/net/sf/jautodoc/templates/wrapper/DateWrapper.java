@@ -35,6 +35,8 @@ public class DateWrapper {
 	 * @see java.lang.Object#toString()
 	 */
 	public String toString() {
-		return formatter.format(new Date());
+		synchronized (formatter) { // shared formats are not thread-safe
+			return formatter.format(new Date());
+		}
 	}
 }
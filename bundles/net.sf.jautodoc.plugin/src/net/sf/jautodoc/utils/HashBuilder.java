@@ -0,0 +1,100 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Builds a stable SHA-256 hash over a sequence of values. Each value is
+ * length prefixed, so adjacent values cannot run into each other.
+ */
+public final class HashBuilder {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+
+    /**
+     * Instantiates a new hash builder.
+     */
+    public HashBuilder() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // mandatory algorithm
+        }
+    }
+
+    /**
+     * Adds the given string.
+     *
+     * @param value the value, may be null
+     * @return this builder
+     */
+    public HashBuilder add(final String value) {
+        if (value == null) {
+            return add(-1);
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        add(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    /**
+     * Adds the given characters.
+     *
+     * @param value the characters
+     * @return this builder
+     */
+    public HashBuilder add(final char[] value) {
+        return add(new String(value));
+    }
+
+    /**
+     * Adds the given boolean.
+     *
+     * @param value the value
+     * @return this builder
+     */
+    public HashBuilder add(final boolean value) {
+        digest.update((byte)(value ? 1 : 0));
+        return this;
+    }
+
+    /**
+     * Adds the given integer.
+     *
+     * @param value the value
+     * @return this builder
+     */
+    public HashBuilder add(final int value) {
+        digest.update((byte)(value >>> 24));
+        digest.update((byte)(value >>> 16));
+        digest.update((byte)(value >>> 8));
+        digest.update((byte)value);
+        return this;
+    }
+
+    /**
+     * Gets the hash as hex string. The builder must not be used afterwards.
+     *
+     * @return the hash
+     */
+    public String toHex() {
+        final byte[] hash = digest.digest();
+        final char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; ++i) {
+            chars[2 * i]     = HEX[(hash[i] >> 4) & 0x0f];
+            chars[2 * i + 1] = HEX[hash[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+}
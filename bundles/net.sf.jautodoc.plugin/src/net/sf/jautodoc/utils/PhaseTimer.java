@@ -0,0 +1,184 @@
+/*******************************************************************
+ * Copyright (c) 2006 - 2026, Martin Kesting, All rights reserved.
+ *
+ * This software is licenced under the Eclipse Public License v1.0,
+ * see the LICENSE file or http://www.eclipse.org/legal/epl-v10.html
+ * for details.
+ *******************************************************************/
+package net.sf.jautodoc.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the time spent in the processing phases of one compilation unit.
+ * A timer is bound to the current thread between {@link #start()} and
+ * {@link #stop()}. Without an active timer the measuring calls do nothing.
+ */
+public final class PhaseTimer {
+
+    /**
+     * The measured phases.
+     */
+    public enum Phase { RECONCILE, SCAN, TEMPLATE, FORMAT, APPLY }
+
+    private static final ThreadLocal<PhaseTimer> current = new ThreadLocal<PhaseTimer>();
+
+    private final long[] nanos = new long[Phase.values().length];
+    private final Map<String, long[]> templates = new HashMap<String, long[]>();
+
+    private final long startNanos;
+    private final long startBytes;
+    private long totalNanos;
+    private long allocatedBytes;
+
+
+    private PhaseTimer() {
+        startBytes = getThreadAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a new timer for the current thread.
+     *
+     * @return the timer
+     */
+    public static PhaseTimer start() {
+        final PhaseTimer timer = new PhaseTimer();
+        current.set(timer);
+        return timer;
+    }
+
+    /**
+     * Stops the timer of the current thread.
+     *
+     * @return the stopped timer or null, if no timer was active
+     */
+    public static PhaseTimer stop() {
+        final PhaseTimer timer = current.get();
+        if (timer != null) {
+            current.remove();
+            timer.totalNanos = System.nanoTime() - timer.startNanos;
+            final long bytes = getThreadAllocatedBytes();
+            timer.allocatedBytes = (bytes < 0 || timer.startBytes < 0) ? -1 : bytes - timer.startBytes;
+        }
+        return timer;
+    }
+
+    /**
+     * Gets the timer of the current thread.
+     *
+     * @return the timer or null, if no timer is active
+     */
+    public static PhaseTimer current() {
+        return current.get();
+    }
+
+    /**
+     * Binds the given timer to the current thread, so that work done in
+     * this thread on behalf of another one, e.g. in the gui thread, is
+     * measured as well. Pass the returned timer afterwards to restore the
+     * previous state.
+     *
+     * @param timer the timer, may be null
+     * @return the timer previously bound to the current thread
+     */
+    public static PhaseTimer attach(final PhaseTimer timer) {
+        final PhaseTimer previous = current.get();
+        if (timer == null) {
+            current.remove();
+        }
+        else {
+            current.set(timer);
+        }
+        return previous;
+    }
+
+    /**
+     * Begins a measurement.
+     *
+     * @return the start time to pass to {@link #end(Phase, long)}
+     */
+    public static long begin() {
+        return current.get() == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Ends a measurement and adds the elapsed time to the given phase.
+     *
+     * @param phase the phase
+     * @param start the start time returned by {@link #begin()}
+     */
+    public static void end(final Phase phase, final long start) {
+        final PhaseTimer timer = current.get();
+        if (timer != null && start != 0) {
+            timer.nanos[phase.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Ends the measurement of a template evaluation.
+     *
+     * @param templateName the template name
+     * @param start the start time returned by {@link #begin()}
+     */
+    public static void endTemplate(final String templateName, final long start) {
+        final PhaseTimer timer = current.get();
+        if (timer != null && start != 0) {
+            final long elapsed = System.nanoTime() - start;
+            timer.nanos[Phase.TEMPLATE.ordinal()] += elapsed;
+
+            long[] stats = timer.templates.get(templateName);
+            if (stats == null) {
+                stats = new long[2];
+                timer.templates.put(templateName, stats);
+            }
+            ++stats[0];
+            stats[1] += elapsed;
+        }
+    }
+
+    public long getNanos(final Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread while the timer was active.
+     *
+     * @return the allocated bytes or -1, if not supported by the JVM
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the template statistics. The values contain the number of
+     * evaluations and the total time in nanoseconds.
+     *
+     * @return the template statistics by template name
+     */
+    public Map<String, long[]> getTemplates() {
+        return Collections.unmodifiableMap(templates);
+    }
+
+    private static long getThreadAllocatedBytes() {
+        try {
+            final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+                if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                    return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (LinkageError e) {
+            // com.sun.management not available
+        }
+        return -1;
+    }
+}
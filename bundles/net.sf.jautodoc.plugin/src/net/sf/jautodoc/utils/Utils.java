@@ -7,11 +7,15 @@
  *******************************************************************/
 package net.sf.jautodoc.utils;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -377,6 +381,30 @@ public final class Utils {
         return set;
     }
 
+    /**
+     * Writes the given contents to the given file. The contents are written
+     * to a temporary file in the same directory first, that replaces the
+     * target afterwards. So readers never see a partially written file.
+     *
+     * @param file the target file
+     * @param contents the contents
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void writeAtomically(File file, byte[] contents) throws IOException {
+        final File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            Files.write(temp.toPath(), contents);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
     /**
      * Close input stream quietly.
      *